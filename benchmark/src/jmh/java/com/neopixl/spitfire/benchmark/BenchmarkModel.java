@@ -0,0 +1,104 @@
+package com.neopixl.spitfire.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model used by the benchmarks, close to a common API response (an object with a few fields and children).
+ */
+public class BenchmarkModel {
+
+    private int id;
+    private String message;
+    private double score;
+    private boolean active;
+    private List<String> tags;
+    private List<BenchmarkModel> children;
+
+    /**
+     * Create a model with the given number of children (and one level of nesting)
+     * @param id the identifier
+     * @param childCount number of children
+     * @return a filled model
+     */
+    public static BenchmarkModel create(int id, int childCount) {
+        BenchmarkModel model = fill(new BenchmarkModel(), id);
+        model.children = new ArrayList<>(childCount);
+        for (int i = 0; i < childCount; i++) {
+            model.children.add(fill(new BenchmarkModel(), id * 1000 + i));
+        }
+        return model;
+    }
+
+    /**
+     * Create a list of models without children
+     * @param count number of models
+     * @return the filled models
+     */
+    public static List<BenchmarkModel> createList(int count) {
+        List<BenchmarkModel> models = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            models.add(fill(new BenchmarkModel(), i));
+        }
+        return models;
+    }
+
+    private static BenchmarkModel fill(BenchmarkModel model, int id) {
+        model.id = id;
+        model.message = "Message number " + id + " with some unicode content: é ü ñ";
+        model.score = id * 1.5d;
+        model.active = id % 2 == 0;
+        model.tags = new ArrayList<>();
+        model.tags.add("tag-" + id);
+        model.tags.add("neopixl");
+        return model;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public List<BenchmarkModel> getChildren() {
+        return children;
+    }
+
+    public void setChildren(List<BenchmarkModel> children) {
+        this.children = children;
+    }
+}
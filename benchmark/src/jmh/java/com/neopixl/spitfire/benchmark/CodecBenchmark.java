@@ -0,0 +1,81 @@
+package com.neopixl.spitfire.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neopixl.spitfire.codec.CborCodec;
+import com.neopixl.spitfire.codec.Codec;
+import com.neopixl.spitfire.codec.JacksonCodec;
+import com.neopixl.spitfire.codec.SmileCodec;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the codecs writing and reading the same models. The size of the encoded payload is reported
+ * as the <b>payloadBytes</b> secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodecBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    public String codecName;
+
+    @Param({"10", "1000"})
+    public int itemCount;
+
+    private Codec codec;
+    private JavaType listType;
+    private List<BenchmarkModel> models;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        if ("smile".equals(codecName)) {
+            codec = new SmileCodec();
+        } else if ("cbor".equals(codecName)) {
+            codec = new CborCodec();
+        } else {
+            codec = new JacksonCodec(JacksonCodec.MEDIA_TYPE_JSON, false, new ObjectMapper());
+        }
+        listType = new ObjectMapper().getTypeFactory().constructType(new TypeReference<List<BenchmarkModel>>() {});
+        models = BenchmarkModel.createList(itemCount);
+        payload = codec.getWriter().writeValueAsBytes(models);
+    }
+
+    @Benchmark
+    public byte[] write(PayloadCounters counters) throws IOException {
+        byte[] bytes = codec.getWriter().writeValueAsBytes(models);
+        counters.payloadBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Object read(PayloadCounters counters) throws IOException {
+        counters.payloadBytes = payload.length;
+        return codec.getReader(listType).readValue(payload);
+    }
+
+    /**
+     * Size of the encoded payload, written with the results instead of the benchmark output
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadCounters {
+
+        public long payloadBytes;
+    }
+}
@@ -0,0 +1,46 @@
+package com.neopixl.spitfire.benchmark;
+
+import com.neopixl.spitfire.utils.ParameterEncoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the form body of the requests with parameters (<b>AbstractRequest.calculateBody</b>),
+ * encoded by the {@link ParameterEncoder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FormEncodingBenchmark {
+
+    private static final String ENCODING = "UTF-8";
+
+    @Param({"5", "50", "500"})
+    public int parameterCount;
+
+    private Map<String, String> parameters;
+
+    @Setup
+    public void setUp() {
+        parameters = new HashMap<>();
+        for (int i = 0; i < parameterCount; i++) {
+            parameters.put("field_" + i, i % 2 == 0 ? "value " + i : "café & crème/" + i);
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeForm() {
+        return ParameterEncoder.encodeForm(parameters, ENCODING);
+    }
+}
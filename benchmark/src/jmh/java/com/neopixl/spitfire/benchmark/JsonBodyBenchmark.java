@@ -0,0 +1,66 @@
+package com.neopixl.spitfire.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JSON body serialization of <b>BaseRequest.getJsonBody</b> with the mapper configuration of the
+ * <b>SpitfireManager</b>: the byte array created by <b>writeValueAsBytes</b>, and the writer used by the library which
+ * writes in a reused buffer (the Volley buffer pool itself is not part of this module).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBodyBenchmark {
+
+    /**
+     * Body shape: an object with children, or an array of objects
+     */
+    @Param({"object", "array"})
+    public String shape;
+
+    @Param({"0", "10", "1000"})
+    public int childCount;
+
+    private ObjectMapper objectMapper;
+    private Object body;
+    private ByteArrayOutputStream buffer;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, false);
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        body = "array".equals(shape) ? BenchmarkModel.createList(childCount) : BenchmarkModel.create(1, childCount);
+        buffer = new ByteArrayOutputStream(1024);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public int writeInReusedBuffer() throws IOException {
+        buffer.reset();
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        writer.writeValue(buffer, body);
+        return buffer.size();
+    }
+}
@@ -0,0 +1,70 @@
+package com.neopixl.spitfire.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.neopixl.spitfire.utils.ObjectReaderCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the response parsing done before the reader cache (type construction and root deserializer lookup
+ * for every response) with the parsing done through the {@link ObjectReaderCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseParsingBenchmark {
+
+    /**
+     * Payload shape: an object with children, or an array of objects (parsed as a <b>List</b>)
+     */
+    @Param({"object", "array"})
+    public String shape;
+
+    @Param({"0", "10", "1000"})
+    public int childCount;
+
+    private ObjectMapper objectMapper;
+    private ObjectReaderCache objectReaderCache;
+    private Type responseType;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        objectReaderCache = new ObjectReaderCache(objectMapper);
+        if ("array".equals(shape)) {
+            responseType = new TypeReference<List<BenchmarkModel>>() {}.getType();
+            payload = objectMapper.writeValueAsBytes(BenchmarkModel.createList(childCount));
+        } else {
+            responseType = BenchmarkModel.class;
+            payload = objectMapper.writeValueAsBytes(BenchmarkModel.create(1, childCount));
+        }
+    }
+
+    @Benchmark
+    public Object parseWithMapper() throws IOException {
+        JavaType type = TypeFactory.defaultInstance().constructType(responseType);
+        return objectMapper.readValue(payload, type);
+    }
+
+    @Benchmark
+    public Object parseWithCachedReader() throws IOException {
+        JavaType type = objectReaderCache.resolveType(responseType);
+        return objectReaderCache.getReader(type).readValue(payload);
+    }
+}
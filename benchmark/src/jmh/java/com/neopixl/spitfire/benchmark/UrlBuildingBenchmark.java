@@ -0,0 +1,53 @@
+package com.neopixl.spitfire.benchmark;
+
+import com.neopixl.spitfire.utils.CanonicalUrlBuilder;
+import com.neopixl.spitfire.utils.ParameterEncoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the GET URL construction of <b>BaseRequest.parseGetUrl</b>: the default {@link ParameterEncoder} (two
+ * <b>URLEncoder.encode</b> calls for each parameter, in the map order) and the canonical construction of the {@link CanonicalUrlBuilder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UrlBuildingBenchmark {
+
+    private static final String URL = "https://api.neopixl.com/v2/products";
+    private static final String ENCODING = "UTF-8";
+
+    @Param({"5", "50"})
+    public int parameterCount;
+
+    private Map<String, String> parameters;
+
+    @Setup
+    public void setUp() {
+        parameters = new HashMap<>();
+        for (int i = 0; i < parameterCount; i++) {
+            parameters.put("filter_" + i, i % 2 == 0 ? "value " + i : "café & crème/" + i);
+        }
+    }
+
+    @Benchmark
+    public String buildWithUrlEncoder() {
+        return ParameterEncoder.appendQuery(URL, parameters, ENCODING);
+    }
+
+    @Benchmark
+    public String buildCanonical() {
+        return CanonicalUrlBuilder.build(URL, parameters, ENCODING);
+    }
+}
@@ -0,0 +1,5 @@
+# Rules applied to the applications using Spitfire
+
+# The Smile and CBOR formats are optional (compileOnly): SmileCodec and CborCodec reference them,
+# the applications which do not use these codecs do not include the artifacts
+-dontwarn com.fasterxml.jackson.dataformat.**
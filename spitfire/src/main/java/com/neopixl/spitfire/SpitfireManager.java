@@ -4,10 +4,25 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.Request;
 import com.android.volley.RetryPolicy;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.neopixl.spitfire.cache.ParsedResponseCache;
+import com.neopixl.spitfire.codec.Codec;
+import com.neopixl.spitfire.codec.JacksonCodec;
+import com.neopixl.spitfire.listener.RequestMetricsListener;
+import com.neopixl.spitfire.model.BodyCompression;
+import com.neopixl.spitfire.retry.RetryPolicyFactory;
+import com.neopixl.spitfire.utils.ObjectReaderCache;
+
+import java.lang.reflect.Type;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * Main class used to store the object mapper <b>ObjectMapper</b> and the default retry policy <b>RetryPolicy</b> used by all requests. It acts as a singleton.
@@ -19,10 +34,31 @@ public final class SpitfireManager {
 
     @Nullable
     private static ObjectMapper objectMapper;
+    @Nullable
+    private static volatile ObjectReaderCache objectReaderCache;
+    @Nullable
+    private static volatile ParsedResponseCache parsedResponseCache;
+    @Nullable
+    private static volatile JacksonCodec jsonCodec;
+    @Nullable
+    private static volatile Codec defaultCodec;
+    @NonNull
+    private static final CopyOnWriteArrayList<Codec> codecs = new CopyOnWriteArrayList<>();
 
+    // settings given to setDefaultRetryPolicy, a policy counts the retries of a single request: one is created for each request
+    private static volatile int customRetryTimeout = -1;
+    private static volatile int customMaxRetries;
+    private static volatile float customBackoffMultiplier;
     @Nullable
-    private static DefaultRetryPolicy customDefaultRetryPolicy;
+    private static volatile RetryPolicyFactory retryPolicyFactory;
     private static int requestTimeout = 30000;// 30 seconds
+    private static volatile boolean canonicalUrlEnabled;
+    @Nullable
+    private static volatile Executor deliveryExecutor;
+    @Nullable
+    private static volatile RequestMetricsListener requestMetricsListener;
+    @Nullable
+    private static volatile BodyCompression bodyCompression;
 
     /**
      * Sets the timeout
@@ -33,15 +69,45 @@ public final class SpitfireManager {
     }
 
     /**
-     * Store a retry policy
+     * Set the default retry policy: each request gets a new <b>DefaultRetryPolicy</b> with these settings.
+     * The timeout set with {@link #setRequestTimeout(int)} is not used until {@link #resetDefaultRetryPolicy()} is called.
+     * @param timeoutMs the initial timeout of a request, in milliseconds, 0 or greater
+     * @param maxRetries the maximum number of retries, 0 or greater
+     * @param backoffMultiplier the multiplier of the timeout for each retry
+     */
+    public static void setDefaultRetryPolicy(int timeoutMs, int maxRetries, float backoffMultiplier) {
+        if (timeoutMs < 0 || maxRetries < 0) {
+            throw new IllegalArgumentException("The timeout and the maximum number of retries should not be negative");
+        }
+        customMaxRetries = maxRetries;
+        customBackoffMultiplier = backoffMultiplier;
+        // written last, the settings are read after it
+        customRetryTimeout = timeoutMs;
+    }
+
+    /**
+     * Store a retry policy, used as a template: each request gets a new policy with the same timeout and backoff
+     * multiplier, and {@link DefaultRetryPolicy#DEFAULT_MAX_RETRIES} retries. The given policy is not modified.
      * @param newRetryPolicy <b>DefaultRetryPolicy</b>, not null
+     * @deprecated the maximum number of retries of a <b>DefaultRetryPolicy</b> cannot be read,
+     * use {@link #setDefaultRetryPolicy(int, int, float)}
      */
+    @Deprecated
     public static void setDefaultRetryPolicy(@NonNull DefaultRetryPolicy newRetryPolicy) {
-        customDefaultRetryPolicy = newRetryPolicy;
+        setDefaultRetryPolicy(newRetryPolicy.getCurrentTimeout(), DefaultRetryPolicy.DEFAULT_MAX_RETRIES,
+                newRetryPolicy.getBackoffMultiplier());
+    }
+
+    /**
+     * Remove the settings given to setDefaultRetryPolicy, the default retry policy uses the request timeout
+     * (see {@link #setRequestTimeout(int)}) again
+     */
+    public static void resetDefaultRetryPolicy() {
+        customRetryTimeout = -1;
     }
 
     /**
-     * Get the default retry policy
+     * Get the default retry policy, a new policy for each call
      * @return the default retry policy <b>RetryPolicy</b>, not null
      */
     @NonNull
@@ -49,6 +115,106 @@ public final class SpitfireManager {
         return generateRetryPolicy();
     }
 
+    /**
+     * Set the factory creating the retry policy of each request created afterwards, for example an
+     * {@link com.neopixl.spitfire.retry.AdaptiveRetryStrategy}. A request can still use its own policy (<b>setRetryPolicy</b>).
+     * @param factory {@link RetryPolicyFactory}, can be null to use the default retry policy
+     */
+    public static void setRetryPolicyFactory(@Nullable RetryPolicyFactory factory) {
+        retryPolicyFactory = factory;
+    }
+
+    /**
+     * Get the factory creating the retry policy of each request
+     * @return the factory, null when the default retry policy is used
+     */
+    @Nullable
+    public static RetryPolicyFactory getRetryPolicyFactory() {
+        return retryPolicyFactory;
+    }
+
+    /**
+     * Get the retry policy of a new request: the policy of the retry policy factory when one is set, otherwise the default retry policy
+     * @param request the request, not null
+     * @return the retry policy <b>RetryPolicy</b>, not null
+     */
+    @NonNull
+    public static RetryPolicy getRetryPolicy(@NonNull Request<?> request) {
+        RetryPolicyFactory factory = retryPolicyFactory;
+        return factory != null ? factory.create(request) : generateRetryPolicy();
+    }
+
+    /**
+     * Enable the canonical GET URLs: the parameters are sorted and percent-encoded in a single form (see {@link com.neopixl.spitfire.utils.CanonicalUrlBuilder}),
+     * so identical requests share the same URL and the same cache key. Disabled by default.
+     * @param enabled true to build canonical URLs
+     */
+    public static void setCanonicalUrlEnabled(boolean enabled) {
+        canonicalUrlEnabled = enabled;
+    }
+
+    /**
+     * Check if the canonical GET URLs are enabled
+     * @return true when the GET URLs are canonical
+     */
+    public static boolean isCanonicalUrlEnabled() {
+        return canonicalUrlEnabled;
+    }
+
+    /**
+     * Set the executor calling the listeners of the requests created afterwards, for example a background pool
+     * to keep a heavy processing of the responses off the main thread. A request can use its own executor (see the builders <b>deliveryExecutor</b>).
+     * @param executor the executor, can be null to call the listeners from the delivery of the request queue (the main thread by default)
+     */
+    public static void setDeliveryExecutor(@Nullable Executor executor) {
+        deliveryExecutor = executor;
+    }
+
+    /**
+     * Get the executor calling the listeners
+     * @return the executor, null when the listeners are called from the delivery of the request queue
+     */
+    @Nullable
+    public static Executor getDeliveryExecutor() {
+        return deliveryExecutor;
+    }
+
+    /**
+     * Set the compression of the JSON and form bodies of the requests created afterwards, a request can use its own
+     * compression (see the builders <b>bodyCompression</b>). Disabled by default.
+     * @param compression {@link BodyCompression}, can be null to send the bodies uncompressed
+     */
+    public static void setBodyCompression(@Nullable BodyCompression compression) {
+        bodyCompression = compression;
+    }
+
+    /**
+     * Get the default compression of the request bodies
+     * @return the compression, null when the bodies are sent uncompressed
+     */
+    @Nullable
+    public static BodyCompression getBodyCompression() {
+        return bodyCompression;
+    }
+
+    /**
+     * Set the listener receiving the timing breakdown (queue, cache, network, body, parse and delivery) of the requests created afterwards.
+     * The phases are only timed when a listener is set.
+     * @param listener {@link RequestMetricsListener}, can be null to stop the timing
+     */
+    public static void setRequestMetricsListener(@Nullable RequestMetricsListener listener) {
+        requestMetricsListener = listener;
+    }
+
+    /**
+     * Get the listener receiving the timing breakdown of the requests
+     * @return the listener, can be null
+     */
+    @Nullable
+    public static RequestMetricsListener getRequestMetricsListener() {
+        return requestMetricsListener;
+    }
+
     /**
      * Get the default object mapper (with SerializationFeature.INDENT_OUTPUT set to false and SerializationInclusion set to JsonInclude.Include.NON_NULL)
      * @return the current object mapper <b>ObjectMapper</b>, not null
@@ -65,6 +231,7 @@ public final class SpitfireManager {
 
     /**
      * Define the new ObjectMapper used by the network library
+     * <p>The readers cached for the previous mapper are discarded. The mapper should be fully configured before calling this method.</p>
      * @param objectMapper the new ObjectMapper
      */
     public static void setObjectMapper(@NonNull ObjectMapper objectMapper) {
@@ -72,20 +239,156 @@ public final class SpitfireManager {
             throw new IllegalArgumentException("Object mapper should not be null");
         }
         SpitfireManager.objectMapper = objectMapper;
+        SpitfireManager.objectReaderCache = null;
+
+        ParsedResponseCache responseCache = parsedResponseCache;
+        if (responseCache != null) {
+            responseCache.clear();
+        }
     }
 
     /**
-     * Generate a default retry policy (30 seconds for the timeout, 1 retry maximum, 1 backoff multiplier)
-     * @return a default retry policy, not null
+     * Get the JSON codec using the current object mapper, the readers are shared with {@link #getObjectReader(JavaType)}
+     * @return the JSON codec, not null
      */
     @NonNull
-    private static RetryPolicy generateRetryPolicy() {
-        if (customDefaultRetryPolicy != null) {
+    public static JacksonCodec getJsonCodec() {
+        ObjectReaderCache cache = getObjectReaderCache();
+        JacksonCodec codec = jsonCodec;
+        if (codec == null || codec.getObjectMapper() != cache.getObjectMapper()) {
+            codec = new JacksonCodec(JacksonCodec.MEDIA_TYPE_JSON, false, cache);
+            jsonCodec = codec;
+        }
+        return codec;
+    }
+
+    /**
+     * Set the codec writing the bodies and reading the responses of the requests created afterwards, a request can use
+     * its own codec (see the builders <b>codec</b>). The codec is also registered (see {@link #registerCodec(Codec)}).
+     * @param codec {@link Codec}, can be null to use the JSON codec
+     */
+    public static void setDefaultCodec(@Nullable Codec codec) {
+        if (codec != null) {
+            registerCodec(codec);
+        }
+        defaultCodec = codec;
+    }
+
+    /**
+     * Get the default codec of the requests
+     * @return the codec, the JSON codec when no codec is set, not null
+     */
+    @NonNull
+    public static Codec getDefaultCodec() {
+        Codec codec = defaultCodec;
+        return codec != null ? codec : getJsonCodec();
+    }
+
+    /**
+     * Register a codec used to read the responses having its media type as Content-Type,
+     * whatever the codec of the request. The JSON codec is always available.
+     * @param codec {@link Codec}, not null
+     */
+    public static void registerCodec(@NonNull Codec codec) {
+        codecs.addIfAbsent(codec);
+    }
+
+    /**
+     * Remove a registered codec, the default codec is not changed
+     * @param codec {@link Codec}, not null
+     */
+    public static void unregisterCodec(@NonNull Codec codec) {
+        codecs.remove(codec);
+    }
+
+    /**
+     * Find the codec reading the given content type, among the registered codecs and the JSON codec
+     * @param contentType value of a Content-Type header, can be null
+     * @return the codec, null when no codec reads the content type
+     */
+    @Nullable
+    public static Codec findCodec(@Nullable String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int parametersIndex = contentType.indexOf(';');
+        String mediaType = (parametersIndex >= 0 ? contentType.substring(0, parametersIndex) : contentType)
+                .trim().toLowerCase(Locale.US);
+        for (Codec codec : codecs) {
+            if (codec.getMediaType().equalsIgnoreCase(mediaType)) {
+                return codec;
+            }
+        }
+        if (mediaType.equals(JacksonCodec.MEDIA_TYPE_JSON) || mediaType.endsWith("+json")) {
+            return getJsonCodec();
+        }
+        return null;
+    }
+
+    /**
+     * Set the in-memory cache of the parsed responses, disabled by default.
+     * <p>When set, the GET requests read from the Volley cache reuse the object parsed for the same cache entry
+     * instead of parsing the cached content again.</p>
+     * @param responseCache the cache, can be null to disable it
+     */
+    public static void setParsedResponseCache(@Nullable ParsedResponseCache responseCache) {
+        parsedResponseCache = responseCache;
+    }
+
+    /**
+     * Get the in-memory cache of the parsed responses
+     * @return the cache, null when it is disabled
+     */
+    @Nullable
+    public static ParsedResponseCache getParsedResponseCache() {
+        return parsedResponseCache;
+    }
+
+    /**
+     * Resolve the given type (a class or a full generic type) using the current object mapper. The resolved type is cached.
+     * @param type the type to resolve, not null
+     * @return the resolved type <b>JavaType</b>, not null
+     */
+    @NonNull
+    public static JavaType resolveType(@NonNull Type type) {
+        return getObjectReaderCache().resolveType(type);
+    }
+
+    /**
+     * Get the reader used to parse the given type with the current object mapper. The reader is created only once for each type.
+     * @param type the type to read, not null
+     * @return the reader <b>ObjectReader</b>, not null
+     */
+    @NonNull
+    public static ObjectReader getObjectReader(@NonNull JavaType type) {
+        return getObjectReaderCache().getReader(type);
+    }
 
-            new DefaultRetryPolicy(customDefaultRetryPolicy.getCurrentTimeout(),
-                    customDefaultRetryPolicy.getCurrentRetryCount(),
-                    customDefaultRetryPolicy.getBackoffMultiplier());
+    /**
+     * Get the reader cache bound to the current object mapper
+     * @return the reader cache, not null
+     */
+    @NonNull
+    private static ObjectReaderCache getObjectReaderCache() {
+        ObjectMapper currentObjectMapper = getObjectMapper();
+        ObjectReaderCache cache = objectReaderCache;
+        if (cache == null || cache.getObjectMapper() != currentObjectMapper) {
+            cache = new ObjectReaderCache(currentObjectMapper);
+            objectReaderCache = cache;
+        }
+        return cache;
+    }
 
+    /**
+     * Generate a default retry policy (30 seconds for the timeout, 1 retry maximum, 1 backoff multiplier),
+     * or a policy with the settings given to {@link #setDefaultRetryPolicy(int, int, float)}
+     * @return a default retry policy, not null
+     */
+    @NonNull
+    private static RetryPolicy generateRetryPolicy() {
+        int customTimeout = customRetryTimeout;
+        if (customTimeout >= 0) {
+            return new DefaultRetryPolicy(customTimeout, customMaxRetries, customBackoffMultiplier);
         }
         return new DefaultRetryPolicy(requestTimeout,
                 DefaultRetryPolicy.DEFAULT_MAX_RETRIES,
@@ -0,0 +1,204 @@
+package com.neopixl.spitfire.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.Cache;
+import com.fasterxml.jackson.databind.JavaType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory LRU of the parsed responses, layered over the Volley byte cache.
+ * <p>An object is stored with the version of the cache entry it was parsed from (etag, dates, ttl and softTtl).
+ * When the same cache entry is read again from the Volley cache, the stored object is returned and the
+ * deserialization is skipped. The objects are removed when their entry is expired (ttl).</p>
+ * <p>The cache is bounded by a number of entries and by an estimated size, the size of the response content.
+ * The cached objects are shared by all the requests: they should not be modified.</p>
+ */
+public final class ParsedResponseCache {
+
+    /**
+     * Default maximum number of objects
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    /**
+     * Default maximum estimated size, 1 MB of response content
+     */
+    public static final long DEFAULT_MAX_SIZE = 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxSize;
+    private long size;
+
+    @NonNull
+    private final LinkedHashMap<String, ParsedEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Create a cache with the default bounds
+     */
+    public ParsedResponseCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create a cache
+     * @param maxEntries maximum number of objects, greater than 0
+     * @param maxSize maximum estimated size in bytes of response content, greater than 0
+     */
+    public ParsedResponseCache(int maxEntries, long maxSize) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The maximum number of entries should be greater than 0");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum size should be greater than 0");
+        }
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the object parsed from the given cache entry
+     * @param cacheKey the cache key of the request, not null
+     * @param type the type of the response, not null
+     * @param cacheEntry the entry read from the Volley cache, not null
+     * @return the parsed object, null when it is not cached, expired or parsed from another version of the entry
+     */
+    @Nullable
+    public synchronized Object get(@NonNull String cacheKey, @NonNull JavaType type, @NonNull Cache.Entry cacheEntry) {
+        String key = getKey(cacheKey, type);
+        ParsedEntry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis()) || !entry.matches(cacheEntry)) {
+            removeEntry(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Store the object parsed from the given cache entry. Entries which are already expired, or larger
+     * than the maximum size, are not stored.
+     * @param cacheKey the cache key of the request, not null
+     * @param type the type of the response, not null
+     * @param cacheEntry the cache entry of the response, not null
+     * @param value the parsed object, not null
+     */
+    public synchronized void put(@NonNull String cacheKey, @NonNull JavaType type, @NonNull Cache.Entry cacheEntry, @NonNull Object value) {
+        ParsedEntry entry = new ParsedEntry(cacheEntry, value);
+        String key = getKey(cacheKey, type);
+        removeEntry(key);
+        if (entry.isExpired(System.currentTimeMillis()) || entry.size > maxSize) {
+            return;
+        }
+
+        entries.put(key, entry);
+        size += entry.size;
+        trim();
+    }
+
+    /**
+     * Remove the objects of a request, for all the response types
+     * @param cacheKey the cache key of the request, not null
+     */
+    public synchronized void remove(@NonNull String cacheKey) {
+        String prefix = cacheKey + '|';
+        Iterator<Map.Entry<String, ParsedEntry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ParsedEntry> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                size -= entry.getValue().size;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all the objects
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Get the number of cached objects
+     * @return the number of entries
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Get the estimated size of the cached objects
+     * @return the size in bytes of response content
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private void trim() {
+        Iterator<ParsedEntry> iterator = entries.values().iterator();
+        while ((entries.size() > maxEntries || size > maxSize) && iterator.hasNext()) {
+            size -= iterator.next().size;
+            iterator.remove();
+        }
+    }
+
+    private void removeEntry(@NonNull String key) {
+        ParsedEntry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.size;
+        }
+    }
+
+    @NonNull
+    private static String getKey(@NonNull String cacheKey, @NonNull JavaType type) {
+        return cacheKey + '|' + type.toCanonical();
+    }
+
+    /**
+     * Parsed object with the version of the cache entry it was parsed from
+     */
+    private static final class ParsedEntry {
+
+        @NonNull
+        private final Object value;
+        @Nullable
+        private final String etag;
+        private final long serverDate;
+        private final long lastModified;
+        private final long ttl;
+        private final long softTtl;
+        private final long size;
+
+        ParsedEntry(@NonNull Cache.Entry cacheEntry, @NonNull Object value) {
+            this.value = value;
+            this.etag = cacheEntry.etag;
+            this.serverDate = cacheEntry.serverDate;
+            this.lastModified = cacheEntry.lastModified;
+            this.ttl = cacheEntry.ttl;
+            this.softTtl = cacheEntry.softTtl;
+            this.size = cacheEntry.data != null ? cacheEntry.data.length : 0;
+        }
+
+        boolean isExpired(long now) {
+            return ttl < now;
+        }
+
+        boolean matches(@NonNull Cache.Entry cacheEntry) {
+            long cacheEntrySize = cacheEntry.data != null ? cacheEntry.data.length : 0;
+            return (etag == null ? cacheEntry.etag == null : etag.equals(cacheEntry.etag))
+                    && serverDate == cacheEntry.serverDate
+                    && lastModified == cacheEntry.lastModified
+                    && ttl == cacheEntry.ttl
+                    && softTtl == cacheEntry.softTtl
+                    && size == cacheEntrySize;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.neopixl.spitfire.codec;
+
+import androidx.annotation.NonNull;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Codec of the CBOR format (RFC 7049).
+ * <p>Requires the <b>com.fasterxml.jackson.dataformat:jackson-dataformat-cbor</b> dependency, which is not added by the library.</p>
+ */
+public class CborCodec extends JacksonCodec {
+
+    /**
+     * Media type of the CBOR format
+     */
+    public static final String MEDIA_TYPE = "application/cbor";
+
+    /**
+     * Create a codec with a mapper configured as the default mapper of the SpitfireManager
+     */
+    public CborCodec() {
+        this(createObjectMapper(new CBORFactory()));
+    }
+
+    /**
+     * Create a codec
+     * @param objectMapper a mapper using a <b>CBORFactory</b>, should be fully configured, not null
+     */
+    public CborCodec(@NonNull ObjectMapper objectMapper) {
+        super(MEDIA_TYPE, true, objectMapper);
+    }
+}
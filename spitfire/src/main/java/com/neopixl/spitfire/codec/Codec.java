@@ -0,0 +1,53 @@
+package com.neopixl.spitfire.codec;
+
+import androidx.annotation.NonNull;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Format used to write the request bodies and to read the responses.
+ * <p>See {@link JacksonCodec} for the implementation based on a Jackson <b>ObjectMapper</b>, which supports the JSON
+ * format and the binary formats of the Jackson dataformat modules ({@link SmileCodec}, {@link CborCodec}).</p>
+ * <p>A codec is used from several threads (Volley network dispatchers), the implementations should be thread safe.</p>
+ */
+public interface Codec {
+
+    /**
+     * Get the media type of the format, used for the Accept header and to select the codec of a response
+     * @return the media type without parameters (for example "application/json"), not null
+     */
+    @NonNull
+    String getMediaType();
+
+    /**
+     * Get the value of the Content-Type header of the bodies written by this codec
+     * @param charset the charset of the request, only used by the text formats
+     * @return the content type, not null
+     */
+    @NonNull
+    String getContentType(@NonNull String charset);
+
+    /**
+     * Check if the format is binary, the binary bodies are not printed in the logs
+     * @return true for a binary format
+     */
+    boolean isBinary();
+
+    /**
+     * Get the reader used to read the given type.
+     * Note: This method is called on the network thread, the reader should be created only once for each type.
+     * @param type the type to read, not null
+     * @return the reader, not null
+     */
+    @NonNull
+    ObjectReader getReader(@NonNull JavaType type);
+
+    /**
+     * Get the writer used to write the request bodies
+     * @return the writer, not null
+     */
+    @NonNull
+    ObjectWriter getWriter();
+}
@@ -0,0 +1,106 @@
+package com.neopixl.spitfire.codec;
+
+import androidx.annotation.NonNull;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.neopixl.spitfire.utils.ObjectReaderCache;
+
+/**
+ * Codec using a Jackson <b>ObjectMapper</b>, the format is given by the factory of the mapper.
+ * <p>The readers are cached for each type by an {@link ObjectReaderCache}. Any Jackson dataformat can be used,
+ * for example MessagePack with <code>new JacksonCodec("application/msgpack", true, new ObjectMapper(new MessagePackFactory()))</code>.</p>
+ */
+public class JacksonCodec implements Codec {
+
+    /**
+     * Media type of the JSON format
+     */
+    public static final String MEDIA_TYPE_JSON = "application/json";
+
+    @NonNull
+    private final String mediaType;
+    private final boolean binary;
+    @NonNull
+    private final ObjectReaderCache readerCache;
+
+    /**
+     * Create a codec
+     * @param mediaType the media type of the format, without parameters, not null
+     * @param binary true for a binary format
+     * @param objectMapper the mapper reading and writing the format, should be fully configured, not null
+     */
+    public JacksonCodec(@NonNull String mediaType, boolean binary, @NonNull ObjectMapper objectMapper) {
+        this(mediaType, binary, new ObjectReaderCache(objectMapper));
+    }
+
+    /**
+     * Create a codec sharing an existing reader cache
+     * @param mediaType the media type of the format, without parameters, not null
+     * @param binary true for a binary format
+     * @param readerCache the cache of the readers, bound to the mapper of the format, not null
+     */
+    public JacksonCodec(@NonNull String mediaType, boolean binary, @NonNull ObjectReaderCache readerCache) {
+        this.mediaType = mediaType;
+        this.binary = binary;
+        this.readerCache = readerCache;
+    }
+
+    /**
+     * Create a mapper for the given format, configured as the default mapper of the SpitfireManager
+     * (SerializationFeature.INDENT_OUTPUT set to false and SerializationInclusion set to JsonInclude.Include.NON_NULL)
+     * @param factory the factory of the format, not null
+     * @return the mapper, not null
+     */
+    @NonNull
+    public static ObjectMapper createObjectMapper(@NonNull JsonFactory factory) {
+        ObjectMapper objectMapper = new ObjectMapper(factory);
+        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, false);
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        return objectMapper;
+    }
+
+    @NonNull
+    @Override
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    @NonNull
+    @Override
+    public String getContentType(@NonNull String charset) {
+        return binary ? mediaType : mediaType + "; charset=" + charset;
+    }
+
+    @Override
+    public boolean isBinary() {
+        return binary;
+    }
+
+    @NonNull
+    @Override
+    public ObjectReader getReader(@NonNull JavaType type) {
+        return readerCache.getReader(type);
+    }
+
+    @NonNull
+    @Override
+    public ObjectWriter getWriter() {
+        // the writer follows the current mapper configuration
+        return readerCache.getObjectMapper().writer();
+    }
+
+    /**
+     * Get the mapper reading and writing the format
+     * @return the object mapper, not null
+     */
+    @NonNull
+    public ObjectMapper getObjectMapper() {
+        return readerCache.getObjectMapper();
+    }
+}
@@ -0,0 +1,33 @@
+package com.neopixl.spitfire.codec;
+
+import androidx.annotation.NonNull;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Codec of the Smile format, the binary equivalent of JSON.
+ * <p>Requires the <b>com.fasterxml.jackson.dataformat:jackson-dataformat-smile</b> dependency, which is not added by the library.</p>
+ */
+public class SmileCodec extends JacksonCodec {
+
+    /**
+     * Media type of the Smile format
+     */
+    public static final String MEDIA_TYPE = "application/x-jackson-smile";
+
+    /**
+     * Create a codec with a mapper configured as the default mapper of the SpitfireManager
+     */
+    public SmileCodec() {
+        this(createObjectMapper(new SmileFactory()));
+    }
+
+    /**
+     * Create a codec
+     * @param objectMapper a mapper using a <b>SmileFactory</b>, should be fully configured, not null
+     */
+    public SmileCodec(@NonNull ObjectMapper objectMapper) {
+        super(MEDIA_TYPE, true, objectMapper);
+    }
+}
@@ -0,0 +1,21 @@
+package com.neopixl.spitfire.listener;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.Request;
+
+import java.util.List;
+
+/**
+ * Listener receiving the elements of a JSON array response while the array is read.
+ * @param <E> The type of the array elements
+ */
+public interface ArrayStreamListener<E> {
+
+    /**
+     * Called for each batch of parsed elements, in the order of the array
+     * @param request the current request
+     * @param items the parsed elements of the batch, not null and never empty
+     */
+    void onItems(@NonNull Request<?> request, @NonNull List<E> items);
+}
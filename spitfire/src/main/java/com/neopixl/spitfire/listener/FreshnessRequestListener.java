@@ -0,0 +1,39 @@
+package com.neopixl.spitfire.listener;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.neopixl.spitfire.model.Freshness;
+
+/**
+ * Listener receiving the freshness of each response, used for the stale-while-revalidate delivery.
+ * <p>When the cache entry should be refreshed, the cached response is delivered at once as {@link Freshness#STALE}
+ * while a revalidation request (ETag / If-Modified-Since) runs: the listener is called a second time only if the
+ * server returns a new content. A cached response confirmed by the server (HTTP 304) is delivered as
+ * {@link Freshness#REVALIDATED} instead of a null result.</p>
+ * @param <T> The type used as the response for the request
+ */
+public interface FreshnessRequestListener<T> extends RequestListener<T> {
+
+    /**
+     * Called when the request has succeeded
+     * @param request the current request
+     * @param response the network response
+     * @param result the parsed response
+     * @param freshness the freshness of the response
+     */
+    void onSuccess(@NonNull Request<T> request, @NonNull NetworkResponse response, @Nullable T result, @NonNull Freshness freshness);
+
+    /**
+     * Not called by the requests, the response is given to {@link #onSuccess(Request, NetworkResponse, Object, Freshness)}
+     * @param request the current request
+     * @param response the network response
+     * @param result the parsed response
+     */
+    @Override
+    default void onSuccess(@NonNull Request<T> request, @NonNull NetworkResponse response, @Nullable T result) {
+        onSuccess(request, response, result, Freshness.FRESH);
+    }
+}
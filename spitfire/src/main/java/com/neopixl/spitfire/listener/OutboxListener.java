@@ -0,0 +1,36 @@
+package com.neopixl.spitfire.listener;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.outbox.OutboxEntry;
+
+/**
+ * Listener receiving the results of the requests replayed by a {@link com.neopixl.spitfire.outbox.RequestOutbox}.
+ */
+public interface OutboxListener {
+
+    /**
+     * Called when a saved request is sent, the request is removed from the journal
+     * @param entry the saved request, not null
+     * @param response the network response, not null
+     */
+    void onEntrySent(@NonNull OutboxEntry entry, @NonNull NetworkResponse response);
+
+    /**
+     * Called when a saved request fails
+     * @param entry the saved request, not null
+     * @param error the error, can be null
+     * @param discarded true when the request was refused by the server (HTTP 4xx) and removed from the journal,
+     *                  false when the request is kept to be replayed again
+     */
+    void onEntryFailed(@NonNull OutboxEntry entry, @Nullable VolleyError error, boolean discarded);
+
+    /**
+     * Called when the replay is finished
+     * @param pendingCount number of requests still in the journal
+     */
+    void onReplayFinished(int pendingCount);
+}
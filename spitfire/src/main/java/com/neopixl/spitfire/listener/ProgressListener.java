@@ -0,0 +1,32 @@
+package com.neopixl.spitfire.listener;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.Request;
+import com.neopixl.spitfire.model.RequestData;
+
+/**
+ * Listener receiving the upload progress of a request body.
+ * <p>The calls are throttled by the request (see the builders <b>progressInterval</b> and <b>progressStep</b>),
+ * the last call of the request and of each part is never skipped.</p>
+ */
+public interface ProgressListener {
+
+    /**
+     * Called when the body of the request is being written
+     * @param request the current request
+     * @param bytesWritten number of bytes of the body written
+     * @param totalBytes body length, -1 if unknown
+     */
+    void onProgress(@NonNull Request<?> request, long bytesWritten, long totalBytes);
+
+    /**
+     * Called when a data part of the request is being written
+     * @param request the current request
+     * @param name name of the part in the request
+     * @param part the data being written
+     * @param bytesWritten number of bytes of the data written
+     * @param totalBytes data length, -1 if unknown
+     */
+    void onPartProgress(@NonNull Request<?> request, @NonNull String name, @NonNull RequestData part, long bytesWritten, long totalBytes);
+}
@@ -0,0 +1,22 @@
+package com.neopixl.spitfire.listener;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.Request;
+import com.neopixl.spitfire.model.RequestMetrics;
+
+/**
+ * Listener receiving the timing breakdown of the requests, registered with
+ * {@link com.neopixl.spitfire.SpitfireManager#setRequestMetricsListener(RequestMetricsListener)}.
+ * <p>The listener is called after each delivery (success or failure), on the thread calling the request listener:
+ * it should only record the metrics.</p>
+ */
+public interface RequestMetricsListener {
+
+    /**
+     * Called when a response or an error was delivered
+     * @param request the delivered request
+     * @param metrics the timing breakdown of the request
+     */
+    void onRequestMetrics(@NonNull Request<?> request, @NonNull RequestMetrics metrics);
+}
@@ -0,0 +1,24 @@
+package com.neopixl.spitfire.listener;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.Request;
+
+/**
+ * Transformation of the parsed response, called on the network thread before the response is delivered.
+ * <p>When the parsed response cache is enabled, the parsed object may be shared with other requests:
+ * the transformation should return a new object instead of modifying it.</p>
+ * @param <T> The type used as the response for the request
+ */
+public interface ResponseTransformer<T> {
+
+    /**
+     * Transform the parsed response
+     * @param request the current request
+     * @param response the parsed response
+     * @return the response delivered to the listener, a null response is delivered as a parse error
+     */
+    @Nullable
+    T transform(@NonNull Request<T> request, @NonNull T response);
+}
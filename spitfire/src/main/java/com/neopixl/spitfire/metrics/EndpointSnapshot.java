@@ -0,0 +1,121 @@
+package com.neopixl.spitfire.metrics;
+
+import androidx.annotation.NonNull;
+
+import com.neopixl.spitfire.utils.Histogram;
+
+/**
+ * Copy of the metrics aggregated for an endpoint by a {@link MetricsAggregator}
+ */
+public final class EndpointSnapshot {
+
+    @NonNull
+    private final String endpoint;
+    private final long requestCount;
+    private final long errorCount;
+    private final long hedgeCount;
+    private final long hedgeWinCount;
+    @NonNull
+    private final Histogram.Snapshot latency;
+    @NonNull
+    private final Histogram.Snapshot parseTime;
+    @NonNull
+    private final Histogram.Snapshot requestBytes;
+    @NonNull
+    private final Histogram.Snapshot responseBytes;
+
+    EndpointSnapshot(@NonNull String endpoint, long requestCount, long errorCount, long hedgeCount, long hedgeWinCount,
+                     @NonNull Histogram.Snapshot latency, @NonNull Histogram.Snapshot parseTime,
+                     @NonNull Histogram.Snapshot requestBytes, @NonNull Histogram.Snapshot responseBytes) {
+        this.endpoint = endpoint;
+        this.requestCount = requestCount;
+        this.errorCount = errorCount;
+        this.hedgeCount = hedgeCount;
+        this.hedgeWinCount = hedgeWinCount;
+        this.latency = latency;
+        this.parseTime = parseTime;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+    }
+
+    /**
+     * Get the endpoint, the HTTP method and the template of the URL (ex: <b>GET api.neopixl.com/users/{id}</b>)
+     * @return the endpoint, not null
+     */
+    @NonNull
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the number of delivered requests, responses and errors
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return the number of delivered errors
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return the number of delivered requests with a duplicate sent by a <b>HedgingRequestQueue</b>
+     */
+    public long getHedgeCount() {
+        return hedgeCount;
+    }
+
+    /**
+     * @return the number of delivered requests whose duplicate received its response before the original request
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount;
+    }
+
+    /**
+     * Get the ratio of hedged requests
+     * @return the number of hedged requests divided by the number of delivered requests, 0 without request
+     */
+    public double getHedgeRate() {
+        return requestCount > 0 ? (double) hedgeCount / requestCount : 0;
+    }
+
+    /**
+     * Get the end-to-end latency, from the request queuing to the end of the delivery
+     * @return the histogram in nanoseconds, not null
+     */
+    @NonNull
+    public Histogram.Snapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * Get the time spent parsing the responses
+     * @return the histogram in nanoseconds, not null
+     */
+    @NonNull
+    public Histogram.Snapshot getParseTime() {
+        return parseTime;
+    }
+
+    /**
+     * Get the size of the request bodies
+     * @return the histogram in bytes, not null
+     */
+    @NonNull
+    public Histogram.Snapshot getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * Get the size of the response contents
+     * @return the histogram in bytes, not null
+     */
+    @NonNull
+    public Histogram.Snapshot getResponseBytes() {
+        return responseBytes;
+    }
+}
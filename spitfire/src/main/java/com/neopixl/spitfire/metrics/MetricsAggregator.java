@@ -0,0 +1,191 @@
+package com.neopixl.spitfire.metrics;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.Request;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.neopixl.spitfire.listener.RequestMetricsListener;
+import com.neopixl.spitfire.model.RequestMetrics;
+import com.neopixl.spitfire.utils.EndpointMap;
+import com.neopixl.spitfire.utils.EndpointTemplate;
+import com.neopixl.spitfire.utils.Histogram;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregate the {@link RequestMetrics} by endpoint in lock-free histograms: end-to-end latency, parse time,
+ * request and response sizes, with the number of hedged requests (see {@link RequestMetrics#isHedged()}). The endpoint is the HTTP method and the template of the URL (see {@link EndpointTemplate}).
+ * <p>Register the aggregator with <b>SpitfireManager.setRequestMetricsListener</b>, then read the percentiles with
+ * {@link #snapshot()} or export them with {@link #toJson()}.</p>
+ * <p>The number of endpoints is limited, the requests of the other endpoints are aggregated in {@link #OTHER_ENDPOINT}.</p>
+ */
+public class MetricsAggregator implements RequestMetricsListener {
+
+    /**
+     * Default maximum number of endpoints
+     */
+    public static final int DEFAULT_MAX_ENDPOINTS = 200;
+
+    /**
+     * Endpoint of the requests received when the maximum number of endpoints is reached
+     */
+    public static final String OTHER_ENDPOINT = EndpointMap.OTHER_ENDPOINT;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final double[] EXPORTED_PERCENTILES = {50, 95, 99};
+
+    @NonNull
+    private final EndpointMap<EndpointHistograms> endpoints;
+
+    /**
+     * Create an aggregator with {@link #DEFAULT_MAX_ENDPOINTS}
+     */
+    public MetricsAggregator() {
+        this(DEFAULT_MAX_ENDPOINTS);
+    }
+
+    /**
+     * Create an aggregator
+     * @param maxEndpoints maximum number of endpoints, greater than 0
+     */
+    public MetricsAggregator(int maxEndpoints) {
+        this.endpoints = new EndpointMap<EndpointHistograms>(maxEndpoints) {
+            @NonNull
+            @Override
+            protected EndpointHistograms create() {
+                return new EndpointHistograms();
+            }
+        };
+    }
+
+    @Override
+    public void onRequestMetrics(@NonNull Request<?> request, @NonNull RequestMetrics metrics) {
+        endpoints.get(EndpointTemplate.getEndpoint(request)).record(metrics);
+    }
+
+    /**
+     * Copy the metrics of all the endpoints
+     * @return the metrics by endpoint, sorted by endpoint, not null
+     */
+    @NonNull
+    public Map<String, EndpointSnapshot> snapshot() {
+        Map<String, EndpointSnapshot> snapshots = new TreeMap<>();
+        for (Map.Entry<String, EndpointHistograms> entry : endpoints.asMap().entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Export the metrics of all the endpoints as JSON, with the count, min, max, mean, p50, p95 and p99 of each histogram
+     * @return the JSON document, not null
+     */
+    @NonNull
+    public String toJson() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeJson(writer);
+        } catch (IOException e) {
+            // A StringWriter does not throw
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Write the metrics of all the endpoints as JSON, see {@link #toJson()}
+     * @param writer the destination, not closed, not null
+     * @throws IOException when the writer fails
+     */
+    public void writeJson(@NonNull Writer writer) throws IOException {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("endpoints");
+        for (EndpointSnapshot snapshot : snapshot().values()) {
+            generator.writeStartObject();
+            generator.writeStringField("endpoint", snapshot.getEndpoint());
+            generator.writeNumberField("requests", snapshot.getRequestCount());
+            generator.writeNumberField("errors", snapshot.getErrorCount());
+            generator.writeNumberField("hedges", snapshot.getHedgeCount());
+            generator.writeNumberField("hedgeWins", snapshot.getHedgeWinCount());
+            writeHistogram(generator, "latencyNanos", snapshot.getLatency());
+            writeHistogram(generator, "parseNanos", snapshot.getParseTime());
+            writeHistogram(generator, "requestBytes", snapshot.getRequestBytes());
+            writeHistogram(generator, "responseBytes", snapshot.getResponseBytes());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    /**
+     * Remove the metrics of all the endpoints
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private static void writeHistogram(@NonNull JsonGenerator generator, @NonNull String name, @NonNull Histogram.Snapshot histogram) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeNumberField("count", histogram.getCount());
+        generator.writeNumberField("min", histogram.getMin());
+        generator.writeNumberField("max", histogram.getMax());
+        generator.writeNumberField("mean", histogram.getMean());
+        for (double percentile : EXPORTED_PERCENTILES) {
+            generator.writeNumberField("p" + (int) percentile, histogram.getValueAtPercentile(percentile));
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Histograms of an endpoint
+     */
+    private static final class EndpointHistograms {
+
+        private final AtomicLong requestCount = new AtomicLong();
+        private final AtomicLong errorCount = new AtomicLong();
+        private final AtomicLong hedgeCount = new AtomicLong();
+        private final AtomicLong hedgeWinCount = new AtomicLong();
+        private final Histogram latency = new Histogram();
+        private final Histogram parseTime = new Histogram();
+        private final Histogram requestBytes = new Histogram();
+        private final Histogram responseBytes = new Histogram();
+
+        void record(@NonNull RequestMetrics metrics) {
+            requestCount.incrementAndGet();
+            if (!metrics.isSuccess()) {
+                errorCount.incrementAndGet();
+            }
+            if (metrics.isHedged()) {
+                hedgeCount.incrementAndGet();
+            }
+            if (metrics.isHedgeWon()) {
+                hedgeWinCount.incrementAndGet();
+            }
+            recordMeasured(latency, metrics.getTotalNanos());
+            recordMeasured(parseTime, metrics.getParseNanos());
+            recordMeasured(requestBytes, metrics.getRequestBytes());
+            recordMeasured(responseBytes, metrics.getResponseBytes());
+        }
+
+        @NonNull
+        EndpointSnapshot snapshot(@NonNull String endpoint) {
+            return new EndpointSnapshot(endpoint, requestCount.get(), errorCount.get(), hedgeCount.get(), hedgeWinCount.get(),
+                    latency.snapshot(), parseTime.snapshot(), requestBytes.snapshot(), responseBytes.snapshot());
+        }
+
+        private static void recordMeasured(@NonNull Histogram histogram, long value) {
+            if (value != RequestMetrics.NOT_MEASURED) {
+                histogram.record(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.neopixl.spitfire.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Compression of the JSON and form request bodies, sent with a <b>Content-Encoding</b> header.
+ * <p>Only the bodies reaching the minimum size are compressed. The server should accept the compressed bodies.</p>
+ */
+public final class BodyCompression {
+
+    /**
+     * Default minimum size of the compressed bodies, 1 KB
+     */
+    public static final int DEFAULT_MIN_SIZE = 1024;
+
+    /**
+     * Compression format
+     */
+    public enum Algorithm {
+        /**
+         * gzip format (RFC 1952)
+         */
+        GZIP("gzip"),
+        /**
+         * deflate format, zlib stream (RFC 1950)
+         */
+        DEFLATE("deflate");
+
+        @NonNull
+        private final String contentEncoding;
+
+        Algorithm(@NonNull String contentEncoding) {
+            this.contentEncoding = contentEncoding;
+        }
+
+        /**
+         * @return the value of the Content-Encoding header, not null
+         */
+        @NonNull
+        public String getContentEncoding() {
+            return contentEncoding;
+        }
+    }
+
+    @NonNull
+    private final Algorithm algorithm;
+    private final int minSize;
+
+    /**
+     * Create a compression of the bodies larger than {@link #DEFAULT_MIN_SIZE}
+     * @param algorithm the compression format, not null
+     */
+    public BodyCompression(@NonNull Algorithm algorithm) {
+        this(algorithm, DEFAULT_MIN_SIZE);
+    }
+
+    /**
+     * Create a compression
+     * @param algorithm the compression format, not null
+     * @param minSize minimum size of the compressed bodies in bytes, 0 to compress all the bodies
+     */
+    public BodyCompression(@NonNull Algorithm algorithm, int minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("The minimum size should not be negative");
+        }
+        this.algorithm = algorithm;
+        this.minSize = minSize;
+    }
+
+    /**
+     * @return the compression format, not null
+     */
+    @NonNull
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return the minimum size of the compressed bodies in bytes
+     */
+    public int getMinSize() {
+        return minSize;
+    }
+}
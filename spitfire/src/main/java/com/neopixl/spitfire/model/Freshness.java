@@ -0,0 +1,23 @@
+package com.neopixl.spitfire.model;
+
+/**
+ * Freshness of a response delivered to a {@link com.neopixl.spitfire.listener.FreshnessRequestListener}
+ */
+public enum Freshness {
+
+    /**
+     * The response is read from the cache and should be refreshed (soft TTL passed): a revalidation is running,
+     * the listener is called again only if the server returns a new content.
+     */
+    STALE,
+
+    /**
+     * The response is new content from the server, or is read from a cache entry which does not need to be refreshed.
+     */
+    FRESH,
+
+    /**
+     * The response is read from the cache after the server confirmed it did not change (HTTP 304).
+     */
+    REVALIDATED
+}
@@ -3,6 +3,19 @@ package com.neopixl.spitfire.model;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
 /**
  * Created by Florian ALONSO on 10/14/16.
  * For Neopixl
@@ -10,12 +23,41 @@ import androidx.annotation.Nullable;
 
 public class RequestData {
 
+    /**
+     * Open a new stream on the data each time the data is sent
+     */
+    public interface StreamProvider {
+
+        /**
+         * Open the stream, called on the network thread
+         *
+         * @return a new stream on the data, closed by the caller, not null
+         * @throws IOException when the stream can not be opened
+         */
+        @NonNull
+        InputStream openStream() throws IOException;
+    }
+
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
     @NonNull
     private String fileName = "";
 
     @NonNull
     private byte[] content = new byte[0];
 
+    @Nullable
+    private File file;
+
+    @Nullable
+    private ByteBuffer buffer;
+
+    @Nullable
+    private InputStream inputStream;
+    @Nullable
+    private StreamProvider streamProvider;
+    private long inputStreamLength = -1;
+
     @Nullable
     private String type;
 
@@ -49,6 +91,87 @@ public class RequestData {
         type = mimeType;
     }
 
+    /**
+     * Constructor with a file, the file content is read only when the data is sent.
+     *
+     * @param name     label of data, not null
+     * @param file     the file to send, not null
+     * @param mimeType mime data like "image/jpeg", not null
+     */
+    public RequestData(@NonNull String name, @NonNull File file, @NonNull String mimeType) {
+        fileName = name;
+        this.file = file;
+        type = mimeType;
+    }
+
+    /**
+     * Constructor with a stream, the stream is read only when the data is sent.
+     * <p>A stream can only be read once: if the request is retried, the data can not be sent again.</p>
+     *
+     * @param name        label of data, not null
+     * @param inputStream the stream to send, not null
+     * @param length      number of bytes of the stream, -1 if unknown
+     * @param mimeType    mime data like "image/jpeg", not null
+     */
+    public RequestData(@NonNull String name, @NonNull InputStream inputStream, long length, @NonNull String mimeType) {
+        fileName = name;
+        this.inputStream = inputStream;
+        this.inputStreamLength = length;
+        type = mimeType;
+    }
+
+    /**
+     * Constructor with a buffer, like a {@link MappedByteBuffer} (see {@link #fromMappedFile(String, File, String)}).
+     * <p>The remaining bytes of the buffer are sent, the position of the buffer is not modified.</p>
+     *
+     * @param name     label of data, not null
+     * @param buffer   the buffer to send, not null
+     * @param mimeType mime data like "image/jpeg", not null
+     */
+    public RequestData(@NonNull String name, @NonNull ByteBuffer buffer, @NonNull String mimeType) {
+        fileName = name;
+        this.buffer = buffer;
+        type = mimeType;
+    }
+
+    /**
+     * Constructor with a stream provider, a new stream is opened each time the data is sent.
+     * <p>Unlike a single stream, the data can be sent again if the request is retried.</p>
+     *
+     * @param name           label of data, not null
+     * @param streamProvider opens the stream to send, not null
+     * @param length         number of bytes of the stream, -1 if unknown
+     * @param mimeType       mime data like "image/jpeg", not null
+     */
+    public RequestData(@NonNull String name, @NonNull StreamProvider streamProvider, long length, @NonNull String mimeType) {
+        fileName = name;
+        this.streamProvider = streamProvider;
+        this.inputStreamLength = length;
+        type = mimeType;
+    }
+
+    /**
+     * Create a data backed by a memory-mapped file, the file content is paged in by the system and is not copied in the heap.
+     *
+     * @param name     label of data, not null
+     * @param file     the file to map, not null
+     * @param mimeType mime data like "image/jpeg", not null
+     * @return the data, not null
+     * @throws IOException when the file can not be mapped
+     */
+    @NonNull
+    public static RequestData fromMappedFile(@NonNull String name, @NonNull File file, @NonNull String mimeType) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            MappedByteBuffer mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RequestData(name, mappedBuffer, mimeType);
+        } finally {
+            // the mapping stays valid once the file is closed
+            randomAccessFile.close();
+        }
+    }
+
     /**
      * Get the file name.
      *
@@ -70,12 +193,26 @@ public class RequestData {
 
     /**
      * Get the content
+     * <p>When the data is backed by a file, a buffer or a stream, the content is read and loaded in memory on each
+     * call, consider using {@link #writeContent(OutputStream)} instead. A single stream is consumed by this call, it
+     * cannot be sent afterwards.</p>
      *
      * @return byte file data, not null
+     * @throws RuntimeException when the file or the stream cannot be read, wrapping the <b>IOException</b>
      */
     @NonNull
     public byte[] getContent() {
-        return content;
+        if (!isExternalContent()) {
+            return content;
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            writeContent(outputStream);
+        } catch (IOException e) {
+            // an empty content would be sent silently
+            throw new RuntimeException("The content of " + fileName + " cannot be read", e);
+        }
+        return outputStream.toByteArray();
     }
 
     /**
@@ -85,6 +222,121 @@ public class RequestData {
      */
     public void setContent(@NonNull byte[] content) {
         this.content = content;
+        resetExternalContent();
+    }
+
+    /**
+     * Get the number of bytes of the content, without reading it.
+     *
+     * @return the content length, -1 if unknown
+     */
+    public long getContentLength() {
+        if (file != null) {
+            return file.length();
+        } else if (buffer != null) {
+            return buffer.remaining();
+        } else if (inputStream != null || streamProvider != null) {
+            return inputStreamLength;
+        }
+        return content.length;
+    }
+
+    /**
+     * Write the content in the given stream.
+     * <p>The files and the buffers are transferred with NIO channels, the streams are copied with a small buffer:
+     * the content is never fully loaded in the heap.</p>
+     *
+     * @param outputStream the destination of the content, not null
+     * @throws IOException when the content can not be read or written
+     */
+    public void writeContent(@NonNull OutputStream outputStream) throws IOException {
+        if (file != null) {
+            FileInputStream fileInputStream = new FileInputStream(file);
+            try {
+                FileChannel channel = fileInputStream.getChannel();
+                transfer(channel, 0, channel.size(), Channels.newChannel(outputStream));
+            } finally {
+                fileInputStream.close();
+            }
+        } else if (buffer != null) {
+            transfer(buffer.duplicate(), Channels.newChannel(outputStream));
+        } else if (streamProvider != null) {
+            InputStream providedStream = streamProvider.openStream();
+            try {
+                copy(providedStream, outputStream);
+            } finally {
+                providedStream.close();
+            }
+        } else if (inputStream != null) {
+            try {
+                copy(inputStream, outputStream);
+            } finally {
+                inputStream.close();
+            }
+        } else {
+            outputStream.write(content);
+        }
+    }
+
+    /**
+     * Write a range of the content in the given stream, used to send the content by chunks.
+     * <p>The files and the buffers are read directly at the given offset, the stream providers open a new stream
+     * and skip the first bytes. A single stream can not be read by range, see {@link #isRepeatable()}.</p>
+     *
+     * @param outputStream the destination of the content, not null
+     * @param offset       index of the first byte to write
+     * @param length       number of bytes to write
+     * @throws IOException when the content can not be read or written, or is shorter than the range
+     */
+    public void writeContent(@NonNull OutputStream outputStream, long offset, long length) throws IOException {
+        long contentLength = getContentLength();
+        if (offset < 0 || length < 0 || (contentLength >= 0 && offset + length > contentLength)) {
+            throw new IndexOutOfBoundsException("Invalid range " + offset + "+" + length + " for a length of " + contentLength);
+        }
+        if (file != null) {
+            FileInputStream fileInputStream = new FileInputStream(file);
+            try {
+                transfer(fileInputStream.getChannel(), offset, length, Channels.newChannel(outputStream));
+            } finally {
+                fileInputStream.close();
+            }
+        } else if (buffer != null) {
+            ByteBuffer range = buffer.duplicate();
+            range.position(buffer.position() + (int) offset);
+            range.limit(range.position() + (int) length);
+            transfer(range, Channels.newChannel(outputStream));
+        } else if (streamProvider != null) {
+            InputStream providedStream = streamProvider.openStream();
+            try {
+                skipFully(providedStream, offset);
+                copy(providedStream, outputStream, length);
+            } finally {
+                providedStream.close();
+            }
+        } else if (inputStream != null) {
+            throw new IOException("A single stream can not be read by range, use a StreamProvider");
+        } else {
+            outputStream.write(content, (int) offset, (int) length);
+        }
+    }
+
+    /**
+     * Check if the content can be read several times, a single stream can only be read once.
+     *
+     * @return true if the content can be sent again
+     */
+    public boolean isRepeatable() {
+        return inputStream == null;
+    }
+
+    /**
+     * Get the file backing the content
+     *
+     * @return the file, can be null
+     */
+    @Nullable
+    public File getFile() {
+        return file;
     }
 
     /**
@@ -111,5 +363,71 @@ public class RequestData {
      */
     public void clear() {
         content = new byte[0];
+        resetExternalContent();
+    }
+
+    private boolean isExternalContent() {
+        return file != null || buffer != null || inputStream != null || streamProvider != null;
+    }
+
+    private void resetExternalContent() {
+        file = null;
+        buffer = null;
+        inputStream = null;
+        streamProvider = null;
+        inputStreamLength = -1;
+    }
+
+    private static void transfer(@NonNull FileChannel source, long offset, long length, @NonNull WritableByteChannel target) throws IOException {
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            long transferred = source.transferTo(position, end - position, target);
+            if (transferred <= 0) {
+                throw new IOException("The file could not be transferred, " + (position - offset) + " of " + length + " bytes written");
+            }
+            position += transferred;
+        }
+    }
+
+    private static void transfer(@NonNull ByteBuffer source, @NonNull WritableByteChannel target) throws IOException {
+        while (source.hasRemaining()) {
+            target.write(source);
+        }
+    }
+
+    private static void copy(@NonNull InputStream inputStream, @NonNull OutputStream outputStream, long length) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long remaining = length;
+        while (remaining > 0) {
+            int count = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (count == -1) {
+                throw new IOException("The stream ended before the end of the range");
+            }
+            outputStream.write(buffer, 0, count);
+            remaining -= count;
+        }
+    }
+
+    private static void skipFully(@NonNull InputStream inputStream, long length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            long skipped = inputStream.skip(remaining);
+            if (skipped <= 0) {
+                if (inputStream.read() == -1) {
+                    throw new IOException("The stream ended before the start of the range");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static void copy(@NonNull InputStream inputStream, @NonNull OutputStream outputStream) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, count);
+        }
     }
 }
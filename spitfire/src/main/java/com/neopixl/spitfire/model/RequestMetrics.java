@@ -0,0 +1,343 @@
+package com.neopixl.spitfire.model;
+
+/**
+ * Timing breakdown of a delivered request, in nanoseconds.
+ * <p>The phases which did not happen for the request (for example the network for a response read from the cache)
+ * are {@link #NOT_MEASURED}.</p>
+ */
+public final class RequestMetrics {
+
+    /**
+     * Value of the phases which did not happen
+     */
+    public static final long NOT_MEASURED = -1;
+
+    private final int statusCode;
+    private final boolean success;
+    private final boolean cacheHit;
+    private final boolean hedged;
+    private final boolean hedgeWon;
+    private final long queueWaitNanos;
+    private final long cacheLookupNanos;
+    private final long networkNanos;
+    private final long serializationNanos;
+    private final long parseNanos;
+    private final long deliveryNanos;
+    private final long totalNanos;
+    private final long requestBytes;
+    private final long responseBytes;
+
+    /**
+     * Class Builder used to create the metrics, all the phases are {@link #NOT_MEASURED} by default
+     */
+    public static class Builder {
+
+        private int statusCode = -1;
+        private boolean success;
+        private boolean cacheHit;
+        private boolean hedged;
+        private boolean hedgeWon;
+        private long queueWaitNanos = NOT_MEASURED;
+        private long cacheLookupNanos = NOT_MEASURED;
+        private long networkNanos = NOT_MEASURED;
+        private long serializationNanos = NOT_MEASURED;
+        private long parseNanos = NOT_MEASURED;
+        private long deliveryNanos = NOT_MEASURED;
+        private long totalNanos = NOT_MEASURED;
+        private long requestBytes = NOT_MEASURED;
+        private long responseBytes = NOT_MEASURED;
+
+        /**
+         * Set the HTTP status code of the delivered response
+         * @param statusCode the status code, -1 without response
+         * @return Builder {@link Builder}
+         */
+        public Builder statusCode(int statusCode) {
+            this.statusCode = statusCode;
+            return this;
+        }
+
+        /**
+         * Set whether a response or an error was delivered
+         * @param success true for a response
+         * @return Builder {@link Builder}
+         */
+        public Builder success(boolean success) {
+            this.success = success;
+            return this;
+        }
+
+        /**
+         * Set whether the response was read from the cache
+         * @param cacheHit true for a cached response
+         * @return Builder {@link Builder}
+         */
+        public Builder cacheHit(boolean cacheHit) {
+            this.cacheHit = cacheHit;
+            return this;
+        }
+
+        /**
+         * Set whether a duplicate of the request was sent by a <b>HedgingRequestQueue</b>
+         * @param hedged true when a duplicate was sent
+         * @return Builder {@link Builder}
+         */
+        public Builder hedged(boolean hedged) {
+            this.hedged = hedged;
+            return this;
+        }
+
+        /**
+         * Set whether the duplicate of the request received its response before the original request
+         * @param hedgeWon true when the duplicate won
+         * @return Builder {@link Builder}
+         */
+        public Builder hedgeWon(boolean hedgeWon) {
+            this.hedgeWon = hedgeWon;
+            return this;
+        }
+
+        /**
+         * Set the time spent waiting in the request queues
+         * @param queueWaitNanos the time in nanoseconds
+         * @return Builder {@link Builder}
+         */
+        public Builder queueWaitNanos(long queueWaitNanos) {
+            this.queueWaitNanos = queueWaitNanos;
+            return this;
+        }
+
+        /**
+         * Set the time spent reading the cache
+         * @param cacheLookupNanos the time in nanoseconds
+         * @return Builder {@link Builder}
+         */
+        public Builder cacheLookupNanos(long cacheLookupNanos) {
+            this.cacheLookupNanos = cacheLookupNanos;
+            return this;
+        }
+
+        /**
+         * Set the network time
+         * @param networkNanos the time in nanoseconds
+         * @return Builder {@link Builder}
+         */
+        public Builder networkNanos(long networkNanos) {
+            this.networkNanos = networkNanos;
+            return this;
+        }
+
+        /**
+         * Set the time spent creating the body
+         * @param serializationNanos the time in nanoseconds
+         * @return Builder {@link Builder}
+         */
+        public Builder serializationNanos(long serializationNanos) {
+            this.serializationNanos = serializationNanos;
+            return this;
+        }
+
+        /**
+         * Set the time spent parsing the response
+         * @param parseNanos the time in nanoseconds
+         * @return Builder {@link Builder}
+         */
+        public Builder parseNanos(long parseNanos) {
+            this.parseNanos = parseNanos;
+            return this;
+        }
+
+        /**
+         * Set the time spent in the request listener
+         * @param deliveryNanos the time in nanoseconds
+         * @return Builder {@link Builder}
+         */
+        public Builder deliveryNanos(long deliveryNanos) {
+            this.deliveryNanos = deliveryNanos;
+            return this;
+        }
+
+        /**
+         * Set the time between the request queuing and the end of the delivery
+         * @param totalNanos the time in nanoseconds
+         * @return Builder {@link Builder}
+         */
+        public Builder totalNanos(long totalNanos) {
+            this.totalNanos = totalNanos;
+            return this;
+        }
+
+        /**
+         * Set the size of the request body
+         * @param requestBytes the size in bytes
+         * @return Builder {@link Builder}
+         */
+        public Builder requestBytes(long requestBytes) {
+            this.requestBytes = requestBytes;
+            return this;
+        }
+
+        /**
+         * Set the size of the response content
+         * @param responseBytes the size in bytes
+         * @return Builder {@link Builder}
+         */
+        public Builder responseBytes(long responseBytes) {
+            this.responseBytes = responseBytes;
+            return this;
+        }
+
+        /**
+         * Create the metrics
+         * @return the metrics, not null
+         */
+        public RequestMetrics build() {
+            return new RequestMetrics(this);
+        }
+    }
+
+    private RequestMetrics(Builder builder) {
+        this.statusCode = builder.statusCode;
+        this.success = builder.success;
+        this.cacheHit = builder.cacheHit;
+        this.hedged = builder.hedged;
+        this.hedgeWon = builder.hedgeWon;
+        this.queueWaitNanos = builder.queueWaitNanos;
+        this.cacheLookupNanos = builder.cacheLookupNanos;
+        this.networkNanos = builder.networkNanos;
+        this.serializationNanos = builder.serializationNanos;
+        this.parseNanos = builder.parseNanos;
+        this.deliveryNanos = builder.deliveryNanos;
+        this.totalNanos = builder.totalNanos;
+        this.requestBytes = builder.requestBytes;
+        this.responseBytes = builder.responseBytes;
+    }
+
+    /**
+     * Get the HTTP status code of the delivered response
+     * @return the status code, -1 without response
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return true when a response was delivered, false for an error
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * @return true when the response was read from the cache
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * @return true when a duplicate of the request was sent by a <b>HedgingRequestQueue</b>
+     */
+    public boolean isHedged() {
+        return hedged;
+    }
+
+    /**
+     * @return true when the duplicate of the request received its response before the original request
+     */
+    public boolean isHedgeWon() {
+        return hedgeWon;
+    }
+
+    /**
+     * Get the time spent waiting in the cache and network queues
+     * @return the time in nanoseconds, or {@link #NOT_MEASURED}
+     */
+    public long getQueueWaitNanos() {
+        return queueWaitNanos;
+    }
+
+    /**
+     * Get the time spent reading the cache
+     * @return the time in nanoseconds, or {@link #NOT_MEASURED}
+     */
+    public long getCacheLookupNanos() {
+        return cacheLookupNanos;
+    }
+
+    /**
+     * Get the network time given by the Volley network, with a millisecond precision
+     * @return the time in nanoseconds, or {@link #NOT_MEASURED}
+     */
+    public long getNetworkNanos() {
+        return networkNanos;
+    }
+
+    /**
+     * Get the time spent creating the body
+     * @return the time in nanoseconds, or {@link #NOT_MEASURED}
+     */
+    public long getSerializationNanos() {
+        return serializationNanos;
+    }
+
+    /**
+     * Get the time spent parsing the response
+     * @return the time in nanoseconds, or {@link #NOT_MEASURED}
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Get the time spent in the request listener
+     * @return the time in nanoseconds, or {@link #NOT_MEASURED}
+     */
+    public long getDeliveryNanos() {
+        return deliveryNanos;
+    }
+
+    /**
+     * Get the time between the request queuing and the end of the delivery
+     * @return the time in nanoseconds, or {@link #NOT_MEASURED}
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Get the size of the request body
+     * @return the size in bytes, or {@link #NOT_MEASURED} when the size of a streamed body is unknown
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * Get the size of the response content
+     * @return the size in bytes, or {@link #NOT_MEASURED} without response
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMetrics{" +
+                "statusCode=" + statusCode +
+                ", success=" + success +
+                ", cacheHit=" + cacheHit +
+                ", hedged=" + hedged +
+                ", hedgeWon=" + hedgeWon +
+                ", queueWaitNanos=" + queueWaitNanos +
+                ", cacheLookupNanos=" + cacheLookupNanos +
+                ", networkNanos=" + networkNanos +
+                ", serializationNanos=" + serializationNanos +
+                ", parseNanos=" + parseNanos +
+                ", deliveryNanos=" + deliveryNanos +
+                ", totalNanos=" + totalNanos +
+                ", requestBytes=" + requestBytes +
+                ", responseBytes=" + responseBytes +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package com.neopixl.spitfire.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.NetworkResponse;
+import com.neopixl.spitfire.listener.FreshnessRequestListener;
+
+/**
+ * Result of a request completed through a {@link com.neopixl.spitfire.request.SpitfireFuture}
+ * @param <T> The type used as the response for the request
+ */
+public final class SpitfireResponse<T> {
+
+    @Nullable
+    private final T result;
+    @NonNull
+    private final NetworkResponse networkResponse;
+    @NonNull
+    private final Freshness freshness;
+
+    /**
+     * Create a result of a response received from the server
+     * @param result the parsed response, can be null
+     * @param networkResponse the network response, not null
+     */
+    public SpitfireResponse(@Nullable T result, @NonNull NetworkResponse networkResponse) {
+        this(result, networkResponse, Freshness.FRESH);
+    }
+
+    /**
+     * Create a result
+     * @param result the parsed response, can be null
+     * @param networkResponse the network response, not null
+     * @param freshness the freshness of the response, not null
+     */
+    public SpitfireResponse(@Nullable T result, @NonNull NetworkResponse networkResponse, @NonNull Freshness freshness) {
+        this.result = result;
+        this.networkResponse = networkResponse;
+        this.freshness = freshness;
+    }
+
+    /**
+     * Get the parsed response
+     * @return the parsed response, can be null (for example with a HTTP 204)
+     */
+    @Nullable
+    public T getResult() {
+        return result;
+    }
+
+    /**
+     * Get the network response
+     * @return the network response, not null
+     */
+    @NonNull
+    public NetworkResponse getNetworkResponse() {
+        return networkResponse;
+    }
+
+    /**
+     * Get the freshness of the response, see {@link FreshnessRequestListener}
+     * @return the freshness, not null
+     */
+    @NonNull
+    public Freshness getFreshness() {
+        return freshness;
+    }
+}
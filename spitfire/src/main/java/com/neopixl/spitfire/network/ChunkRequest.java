@@ -0,0 +1,86 @@
+package com.neopixl.spitfire.network;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request sending one chunk of a resumable body, only given to the HTTP stack.
+ * <p>The URL, method, headers and timeouts are the ones of the original request.</p>
+ */
+final class ChunkRequest extends Request<Void> implements StreamingBody {
+
+    @NonNull
+    private final Request<?> request;
+    @NonNull
+    private final ResumableBody resumableBody;
+    @NonNull
+    private final Map<String, String> chunkHeaders;
+    private final long offset;
+    private final long length;
+
+    ChunkRequest(@NonNull Request<?> request, @NonNull ResumableBody resumableBody, @NonNull Map<String, String> chunkHeaders, long offset, long length) {
+        super(request.getMethod(), request.getUrl(), null);
+        this.request = request;
+        this.resumableBody = resumableBody;
+        this.chunkHeaders = chunkHeaders;
+        this.offset = offset;
+        this.length = length;
+        setRetryPolicy(request.getRetryPolicy());
+        setShouldCache(false);
+    }
+
+    @Override
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        Map<String, String> headers = new HashMap<>(request.getHeaders());
+        headers.putAll(chunkHeaders);
+        return headers;
+    }
+
+    @Override
+    public String getBodyContentType() {
+        return request.getBodyContentType();
+    }
+
+    @Override
+    public byte[] getBody() throws AuthFailureError {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) length);
+        try {
+            resumableBody.writeBodyRange(outputStream, offset, length);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public long getBodyContentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeBody(@NonNull OutputStream outputStream) throws IOException, AuthFailureError {
+        resumableBody.writeBodyRange(outputStream, offset, length);
+    }
+
+    @Override
+    protected Response<Void> parseNetworkResponse(NetworkResponse response) {
+        // The response is read by the network, the chunk request is never queued
+        return Response.success(null, null);
+    }
+
+    @Override
+    protected void deliverResponse(Void response) {
+        // The chunk request is never queued
+    }
+}
@@ -0,0 +1,36 @@
+package com.neopixl.spitfire.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.neopixl.spitfire.upload.ResumableUpload;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Implemented by the requests able to send their body by chunks.
+ * <p>When the request has a {@link ResumableUpload} and is performed by a {@link SpitfireNetwork}, the body is sent
+ * with one HTTP request for each chunk, starting from the offset saved for the upload.</p>
+ */
+public interface ResumableBody extends StreamingBody {
+
+    /**
+     * Get the resumable upload settings
+     * @return the settings, null to send the body with a single HTTP request
+     */
+    @Nullable
+    ResumableUpload getResumableUpload();
+
+    /**
+     * Write a range of the body in the connection stream.
+     * Note: This method is called on the network thread, the stream is closed by the caller.
+     * @param outputStream the connection stream, not null
+     * @param offset index of the first byte to write
+     * @param length number of bytes to write
+     * @throws IOException when the body can not be written
+     * @throws AuthFailureError In the event of auth failure.
+     */
+    void writeBodyRange(@NonNull OutputStream outputStream, long offset, long length) throws IOException, AuthFailureError;
+}
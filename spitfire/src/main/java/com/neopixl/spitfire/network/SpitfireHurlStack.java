@@ -0,0 +1,263 @@
+package com.neopixl.spitfire.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Header;
+import com.android.volley.Request;
+import com.android.volley.Request.Method;
+import com.android.volley.toolbox.BaseHttpStack;
+import com.android.volley.toolbox.HttpResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * HTTP stack based on <b>HttpURLConnection</b>, like the Volley <b>HurlStack</b>.
+ * <p>The body of the requests implementing {@link StreamingBody} is written directly in the connection,
+ * using the fixed length streaming mode when the body length is known, so the body is never built in memory.</p>
+ */
+public class SpitfireHurlStack extends BaseHttpStack {
+
+    private static final String HEADER_CONTENT_TYPE = "Content-Type";
+    private static final int BODY_BUFFER_SIZE = 8 * 1024;
+    private static final int HTTP_CONTINUE = 100;
+
+    @Nullable
+    private final SSLSocketFactory sslSocketFactory;
+
+    /**
+     * Create a stack using the default SSL socket factory
+     */
+    public SpitfireHurlStack() {
+        this(null);
+    }
+
+    /**
+     * Create a stack
+     * @param sslSocketFactory SSL factory to use for HTTPS connections, can be null
+     */
+    public SpitfireHurlStack(@Nullable SSLSocketFactory sslSocketFactory) {
+        this.sslSocketFactory = sslSocketFactory;
+    }
+
+    @Override
+    public HttpResponse executeRequest(Request<?> request, Map<String, String> additionalHeaders) throws IOException, AuthFailureError {
+        HashMap<String, String> map = new HashMap<>();
+        map.putAll(request.getHeaders());
+        map.putAll(additionalHeaders);
+
+        URL parsedUrl = new URL(request.getUrl());
+        HttpURLConnection connection = openConnection(parsedUrl, request);
+        boolean keepConnectionOpen = false;
+        try {
+            for (Map.Entry<String, String> header : map.entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            setConnectionParametersForRequest(connection, request);
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode == -1) {
+                throw new IOException("Could not retrieve response code from HttpUrlConnection.");
+            }
+
+            List<Header> headers = convertHeaders(connection.getHeaderFields());
+            if (!hasResponseBody(request.getMethod(), responseCode)) {
+                return new HttpResponse(responseCode, headers);
+            }
+
+            keepConnectionOpen = true;
+            return new HttpResponse(responseCode, headers, connection.getContentLength(), new UrlConnectionInputStream(connection));
+        } finally {
+            if (!keepConnectionOpen) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Create a connection for the given URL
+     * @param url the URL
+     * @return an opened connection
+     * @throws IOException when the connection can not be opened
+     */
+    @NonNull
+    protected HttpURLConnection createConnection(@NonNull URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setInstanceFollowRedirects(HttpURLConnection.getFollowRedirects());
+        return connection;
+    }
+
+    @NonNull
+    private HttpURLConnection openConnection(@NonNull URL url, @NonNull Request<?> request) throws IOException {
+        HttpURLConnection connection = createConnection(url);
+
+        int timeoutMs = request.getTimeoutMs();
+        connection.setConnectTimeout(timeoutMs);
+        connection.setReadTimeout(timeoutMs);
+        connection.setUseCaches(false);
+        connection.setDoInput(true);
+
+        if ("https".equals(url.getProtocol()) && sslSocketFactory != null) {
+            ((HttpsURLConnection) connection).setSSLSocketFactory(sslSocketFactory);
+        }
+        return connection;
+    }
+
+    private static void setConnectionParametersForRequest(@NonNull HttpURLConnection connection, @NonNull Request<?> request) throws IOException, AuthFailureError {
+        switch (request.getMethod()) {
+            case Method.DEPRECATED_GET_OR_POST:
+                byte[] postBody = request.getBody();
+                if (postBody != null) {
+                    connection.setRequestMethod("POST");
+                    addBody(connection, request, postBody);
+                }
+                break;
+            case Method.GET:
+                connection.setRequestMethod("GET");
+                break;
+            case Method.DELETE:
+                connection.setRequestMethod("DELETE");
+                break;
+            case Method.POST:
+                connection.setRequestMethod("POST");
+                addBodyIfExists(connection, request);
+                break;
+            case Method.PUT:
+                connection.setRequestMethod("PUT");
+                addBodyIfExists(connection, request);
+                break;
+            case Method.HEAD:
+                connection.setRequestMethod("HEAD");
+                break;
+            case Method.OPTIONS:
+                connection.setRequestMethod("OPTIONS");
+                break;
+            case Method.TRACE:
+                connection.setRequestMethod("TRACE");
+                break;
+            case Method.PATCH:
+                connection.setRequestMethod("PATCH");
+                addBodyIfExists(connection, request);
+                break;
+            default:
+                throw new IllegalStateException("Unknown method type.");
+        }
+    }
+
+    private static void addBodyIfExists(@NonNull HttpURLConnection connection, @NonNull Request<?> request) throws IOException, AuthFailureError {
+        if (request instanceof StreamingBody) {
+            addStreamingBody(connection, request, (StreamingBody) request);
+            return;
+        }
+        byte[] body = request.getBody();
+        if (body != null) {
+            addBody(connection, request, body);
+        }
+    }
+
+    private static void addBody(@NonNull HttpURLConnection connection, @NonNull Request<?> request, @NonNull byte[] body) throws IOException {
+        connection.setDoOutput(true);
+        setContentTypeIfNeeded(connection, request);
+        connection.setFixedLengthStreamingMode(body.length);
+        DataOutputStream outputStream = new DataOutputStream(connection.getOutputStream());
+        try {
+            outputStream.write(body);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private static void addStreamingBody(@NonNull HttpURLConnection connection, @NonNull Request<?> request, @NonNull StreamingBody streamingBody) throws IOException, AuthFailureError {
+        long contentLength = streamingBody.getBodyContentLength();
+        if (contentLength == 0) {
+            return;
+        }
+
+        connection.setDoOutput(true);
+        setContentTypeIfNeeded(connection, request);
+        if (contentLength > 0 && contentLength <= Integer.MAX_VALUE) {
+            connection.setFixedLengthStreamingMode((int) contentLength);
+        } else {
+            connection.setChunkedStreamingMode(0);
+        }
+
+        OutputStream outputStream = new BufferedOutputStream(connection.getOutputStream(), BODY_BUFFER_SIZE);
+        try {
+            streamingBody.writeBody(outputStream);
+            outputStream.flush();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private static void setContentTypeIfNeeded(@NonNull HttpURLConnection connection, @NonNull Request<?> request) {
+        if (!connection.getRequestProperties().containsKey(HEADER_CONTENT_TYPE)) {
+            connection.setRequestProperty(HEADER_CONTENT_TYPE, request.getBodyContentType());
+        }
+    }
+
+    private static boolean hasResponseBody(int requestMethod, int responseCode) {
+        return requestMethod != Method.HEAD
+                && !(HTTP_CONTINUE <= responseCode && responseCode < HttpURLConnection.HTTP_OK)
+                && responseCode != HttpURLConnection.HTTP_NO_CONTENT
+                && responseCode != HttpURLConnection.HTTP_NOT_MODIFIED;
+    }
+
+    @NonNull
+    private static List<Header> convertHeaders(@NonNull Map<String, List<String>> responseHeaders) {
+        List<Header> headerList = new ArrayList<>(responseHeaders.size());
+        for (Map.Entry<String, List<String>> entry : responseHeaders.entrySet()) {
+            // HttpUrlConnection includes the status line as a header with a null key; omit it here
+            if (entry.getKey() != null) {
+                for (String value : entry.getValue()) {
+                    headerList.add(new Header(entry.getKey(), value));
+                }
+            }
+        }
+        return headerList;
+    }
+
+    /**
+     * Stream closing the connection when the response content is closed
+     */
+    private static class UrlConnectionInputStream extends FilterInputStream {
+
+        @NonNull
+        private final HttpURLConnection connection;
+
+        UrlConnectionInputStream(@NonNull HttpURLConnection connection) {
+            super(inputStreamFromConnection(connection));
+            this.connection = connection;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            connection.disconnect();
+        }
+
+        @NonNull
+        private static InputStream inputStreamFromConnection(@NonNull HttpURLConnection connection) {
+            try {
+                return connection.getInputStream();
+            } catch (IOException e) {
+                return connection.getErrorStream();
+            }
+        }
+    }
+}
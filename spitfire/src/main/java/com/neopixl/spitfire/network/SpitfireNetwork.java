@@ -0,0 +1,273 @@
+package com.neopixl.spitfire.network;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.ClientError;
+import com.android.volley.Header;
+import com.android.volley.Network;
+import com.android.volley.NetworkResponse;
+import com.android.volley.NoConnectionError;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.RetryPolicy;
+import com.android.volley.ServerError;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.BaseHttpStack;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.DiskBasedCache;
+import com.android.volley.toolbox.HttpResponse;
+import com.neopixl.spitfire.upload.ChunkProtocol;
+import com.neopixl.spitfire.upload.ResumableUpload;
+import com.neopixl.spitfire.upload.UploadOffsetStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Network used to perform the Spitfire requests.
+ * <p>The requests implementing {@link StreamingResponse} parse their response straight from the connection stream,
+ * the requests implementing {@link ResumableBody} with a {@link ResumableUpload} send their body by chunks,
+ * all the other requests are performed by a Volley <b>BasicNetwork</b> using the same HTTP stack.</p>
+ */
+public class SpitfireNetwork implements Network {
+
+    private static final String DEFAULT_CACHE_DIR = "volley";
+
+    @NonNull
+    private final BaseHttpStack httpStack;
+    @NonNull
+    private final Network basicNetwork;
+
+    /**
+     * Create a network using a {@link SpitfireHurlStack}
+     */
+    public SpitfireNetwork() {
+        this(new SpitfireHurlStack());
+    }
+
+    /**
+     * Create a network
+     * @param httpStack the HTTP stack used to perform the requests, not null
+     */
+    public SpitfireNetwork(@NonNull BaseHttpStack httpStack) {
+        this.httpStack = httpStack;
+        this.basicNetwork = new BasicNetwork(httpStack);
+    }
+
+    /**
+     * Create and start a request queue using a {@link SpitfireNetwork}, the equivalent of <b>Volley.newRequestQueue</b>
+     * @param context the context used to find the cache directory, not null
+     * @return the started request queue
+     */
+    @NonNull
+    public static RequestQueue newRequestQueue(@NonNull Context context) {
+        File cacheDir = new File(context.getCacheDir(), DEFAULT_CACHE_DIR);
+        RequestQueue queue = new RequestQueue(new DiskBasedCache(cacheDir), new SpitfireNetwork());
+        queue.start();
+        return queue;
+    }
+
+    /**
+     * Get the HTTP stack used by this network
+     * @return the HTTP stack, not null
+     */
+    @NonNull
+    public BaseHttpStack getHttpStack() {
+        return httpStack;
+    }
+
+    @Override
+    public NetworkResponse performRequest(Request<?> request) throws VolleyError {
+        if (request instanceof StreamingResponse) {
+            return performStreamingRequest(request, (StreamingResponse) request);
+        }
+        if (request instanceof ResumableBody) {
+            ResumableUpload resumableUpload = ((ResumableBody) request).getResumableUpload();
+            if (resumableUpload != null) {
+                return performResumableUpload(request, (ResumableBody) request, resumableUpload);
+            }
+        }
+        return basicNetwork.performRequest(request);
+    }
+
+    /**
+     * Perform the request and give the content stream to the request, retrying with the request retry policy on timeouts
+     * while the request is retryable (see {@link StreamingResponse#isRetryable()}).
+     * @param request the request to perform
+     * @param streamingResponse the request, as a streaming response
+     * @return the network response, without data
+     * @throws VolleyError when the request failed
+     */
+    @NonNull
+    private NetworkResponse performStreamingRequest(@NonNull Request<?> request, @NonNull StreamingResponse streamingResponse) throws VolleyError {
+        long requestStart = SystemClock.elapsedRealtime();
+        while (true) {
+            InputStream content = null;
+            try {
+                HttpResponse httpResponse = httpStack.executeRequest(request, Collections.<String, String>emptyMap());
+                int statusCode = httpResponse.getStatusCode();
+                List<Header> headers = httpResponse.getHeaders();
+                content = httpResponse.getContent();
+
+                if (statusCode < HttpURLConnection.HTTP_OK || statusCode > 299) {
+                    byte[] data = content != null ? readFully(content) : new byte[0];
+                    NetworkResponse errorResponse = new NetworkResponse(statusCode, data, false,
+                            SystemClock.elapsedRealtime() - requestStart, headers);
+                    if (statusCode == HttpURLConnection.HTTP_UNAUTHORIZED || statusCode == HttpURLConnection.HTTP_FORBIDDEN) {
+                        throw new AuthFailureError(errorResponse);
+                    } else if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST && statusCode < HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                        throw new ClientError(errorResponse);
+                    }
+                    throw new ServerError(errorResponse);
+                }
+
+                if (content != null) {
+                    streamingResponse.parseNetworkStream(statusCode, headers, content);
+                }
+                return new NetworkResponse(statusCode, new byte[0], false,
+                        SystemClock.elapsedRealtime() - requestStart, headers);
+            } catch (SocketTimeoutException e) {
+                if (!streamingResponse.isRetryable()) {
+                    // a new attempt would give the content already parsed to the application again
+                    request.addMarker("socket-timeout-streamed");
+                    throw new TimeoutError();
+                }
+                attemptRetryOnException("socket", request, new TimeoutError());
+            } catch (MalformedURLException e) {
+                throw new RuntimeException("Bad URL " + request.getUrl(), e);
+            } catch (IOException e) {
+                throw new NoConnectionError(e);
+            } finally {
+                closeQuietly(content);
+            }
+        }
+    }
+
+    /**
+     * Send the body by chunks, starting from the saved offset. The offset acknowledged for each chunk is saved,
+     * the failed chunks are retried with the request retry policy.
+     * @param request the request to perform
+     * @param resumableBody the request, as a resumable body
+     * @param resumableUpload the upload settings
+     * @return the network response of the last chunk
+     * @throws VolleyError when the upload failed, the upload can then be resumed by a new request
+     */
+    @NonNull
+    private NetworkResponse performResumableUpload(@NonNull Request<?> request, @NonNull ResumableBody resumableBody, @NonNull ResumableUpload resumableUpload) throws VolleyError {
+        long requestStart = SystemClock.elapsedRealtime();
+        String uploadId = resumableUpload.getUploadId();
+        UploadOffsetStore offsetStore = resumableUpload.getOffsetStore();
+        ChunkProtocol chunkProtocol = resumableUpload.getChunkProtocol();
+
+        long totalLength = resumableBody.getBodyContentLength();
+        long offset = Math.max(0, Math.min(offsetStore.getOffset(uploadId), totalLength));
+        if (offset > 0) {
+            request.addMarker(String.format("resumable-resume [offset=%s]", offset));
+        }
+
+        while (true) {
+            if (request.isCanceled()) {
+                // the delivery of the error is skipped for the cancelled requests
+                throw new VolleyError("The upload was cancelled at offset " + offset);
+            }
+            long length = Math.min(resumableUpload.getChunkSize(), totalLength - offset);
+            Request<?> chunkRequest = new ChunkRequest(request, resumableBody,
+                    chunkProtocol.getChunkHeaders(offset, length, totalLength), offset, length);
+            InputStream content = null;
+            try {
+                HttpResponse httpResponse = httpStack.executeRequest(chunkRequest, Collections.<String, String>emptyMap());
+                int statusCode = httpResponse.getStatusCode();
+                List<Header> headers = httpResponse.getHeaders();
+                content = httpResponse.getContent();
+                byte[] data = content != null ? readFully(content) : new byte[0];
+                NetworkResponse networkResponse = new NetworkResponse(statusCode, data, false,
+                        SystemClock.elapsedRealtime() - requestStart, headers);
+
+                long committedOffset = chunkProtocol.getCommittedOffset(statusCode, headers, offset, length, totalLength);
+                if (committedOffset < 0) {
+                    if (statusCode == HttpURLConnection.HTTP_UNAUTHORIZED || statusCode == HttpURLConnection.HTTP_FORBIDDEN) {
+                        throw new AuthFailureError(networkResponse);
+                    } else if (statusCode < HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                        throw new ClientError(networkResponse);
+                    }
+                    attemptRetryOnException("server", request, new ServerError(networkResponse));
+                    continue;
+                }
+
+                committedOffset = Math.min(committedOffset, totalLength);
+                if (committedOffset >= totalLength) {
+                    offsetStore.remove(uploadId);
+                    return networkResponse;
+                }
+
+                offsetStore.setOffset(uploadId, committedOffset);
+                if (committedOffset <= offset && length > 0) {
+                    // the server did not commit the chunk, count it as a failed attempt
+                    attemptRetryOnException("chunk", request, new ServerError(networkResponse));
+                }
+                offset = committedOffset;
+            } catch (SocketTimeoutException e) {
+                attemptRetryOnException("socket", request, new TimeoutError());
+            } catch (MalformedURLException e) {
+                throw new RuntimeException("Bad URL " + request.getUrl(), e);
+            } catch (IOException e) {
+                attemptRetryOnException("connection", request, new NoConnectionError(e));
+            } finally {
+                closeQuietly(content);
+            }
+        }
+    }
+
+    /**
+     * Attempt to retry the request, as done by the Volley <b>BasicNetwork</b>
+     * @param logPrefix prefix used for the request marker
+     * @param request the request to retry
+     * @param exception the error which occurred
+     * @throws VolleyError when the retry policy does not allow a new attempt
+     */
+    private static void attemptRetryOnException(@NonNull String logPrefix, @NonNull Request<?> request, @NonNull VolleyError exception) throws VolleyError {
+        RetryPolicy retryPolicy = request.getRetryPolicy();
+        int oldTimeout = request.getTimeoutMs();
+        try {
+            retryPolicy.retry(exception);
+        } catch (VolleyError e) {
+            request.addMarker(String.format("%s-timeout-giveup [timeout=%s]", logPrefix, oldTimeout));
+            throw e;
+        }
+        request.addMarker(String.format("%s-retry [timeout=%s]", logPrefix, oldTimeout));
+    }
+
+    @NonNull
+    private static byte[] readFully(@NonNull InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, count);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        if (inputStream == null) {
+            return;
+        }
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+            // Nothing to do, the response is already handled
+        }
+    }
+}
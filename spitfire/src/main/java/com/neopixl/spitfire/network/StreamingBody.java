@@ -0,0 +1,32 @@
+package com.neopixl.spitfire.network;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.AuthFailureError;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Implemented by the requests able to write their body directly in the connection stream.
+ * <p>When the request is performed by a {@link SpitfireHurlStack}, the body is written by
+ * {@link #writeBody(OutputStream)} instead of being built in memory by <b>getBody()</b>.</p>
+ */
+public interface StreamingBody {
+
+    /**
+     * Get the length of the body, without building it
+     * @return the body length in bytes, -1 if unknown (the body is then sent in chunks)
+     * @throws AuthFailureError In the event of auth failure.
+     */
+    long getBodyContentLength() throws AuthFailureError;
+
+    /**
+     * Write the body in the connection stream.
+     * Note: This method is called on the network thread, the stream is closed by the caller.
+     * @param outputStream the connection stream, not null
+     * @throws IOException when the body can not be written
+     * @throws AuthFailureError In the event of auth failure.
+     */
+    void writeBody(@NonNull OutputStream outputStream) throws IOException, AuthFailureError;
+}
@@ -0,0 +1,36 @@
+package com.neopixl.spitfire.network;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.Header;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Implemented by the requests able to parse their response directly from the connection stream.
+ * <p>When the request is performed by a {@link SpitfireNetwork}, the successful response content is never buffered:
+ * it is given to {@link #parseNetworkStream(int, List, InputStream)} on the network thread.</p>
+ */
+public interface StreamingResponse {
+
+    /**
+     * Parse the response content while it is read from the connection.
+     * Note: This method is called on the network thread, the stream is closed by the caller.
+     * @param statusCode the HTTP status code of the response
+     * @param headers the response headers, not null
+     * @param content the response content, not null
+     * @throws IOException when the connection fails while reading the content
+     */
+    void parseNetworkStream(int statusCode, @NonNull List<Header> headers, @NonNull InputStream content) throws IOException;
+
+    /**
+     * Check if the request can be performed again after a timeout, its content is then parsed again from the start.
+     * Note: This method is called on the network thread.
+     * @return true by default, false when a part of the content was already given to the application
+     */
+    default boolean isRetryable() {
+        return true;
+    }
+}
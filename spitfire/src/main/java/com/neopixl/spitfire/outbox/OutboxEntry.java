@@ -0,0 +1,106 @@
+package com.neopixl.spitfire.outbox;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request saved in a {@link RequestJournal}: the method, URL, headers and body already computed by the original request.
+ */
+public final class OutboxEntry {
+
+    private final long id;
+    private final long createdAt;
+    private final int method;
+    @NonNull
+    private final String url;
+    @NonNull
+    private final Map<String, String> headers;
+    @Nullable
+    private final String bodyContentType;
+    @Nullable
+    private final byte[] body;
+    @Nullable
+    private final String orderingKey;
+
+    OutboxEntry(long id, long createdAt, int method, @NonNull String url, @NonNull Map<String, String> headers,
+                @Nullable String bodyContentType, @Nullable byte[] body, @Nullable String orderingKey) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.method = method;
+        this.url = url;
+        this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        this.bodyContentType = bodyContentType;
+        this.body = body;
+        this.orderingKey = orderingKey;
+    }
+
+    /**
+     * @return the identifier of the entry in the journal, the entries are replayed in the order of their identifiers
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the time at which the entry was saved, in milliseconds since the epoch
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return the <b>com.android.volley.Request.Method</b> of the request
+     */
+    public int getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the URL of the request, not null
+     */
+    @NonNull
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return the headers of the request, not null
+     */
+    @NonNull
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return the content type of the body, can be null
+     */
+    @Nullable
+    public String getBodyContentType() {
+        return bodyContentType;
+    }
+
+    /**
+     * @return the body of the request, can be null
+     */
+    @Nullable
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @return the key of the entries replayed one after the other, null when the entry is not ordered with other entries
+     */
+    @Nullable
+    public String getOrderingKey() {
+        return orderingKey;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEntry{id=" + id + ", method=" + method + ", url='" + url + "', orderingKey=" + orderingKey + "}";
+    }
+}
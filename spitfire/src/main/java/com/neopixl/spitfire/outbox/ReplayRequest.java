@@ -0,0 +1,89 @@
+package com.neopixl.spitfire.outbox;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.RetryPolicy;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.retry.AdaptiveRetryPolicy;
+
+import java.util.Map;
+
+/**
+ * Request sending a saved request again, with the method, URL, headers and body of the journal entry.
+ * <p>The entry is acknowledged on the network thread, before the delivery.</p>
+ */
+final class ReplayRequest extends Request<NetworkResponse> {
+
+    @NonNull
+    private final RequestOutbox outbox;
+    @NonNull
+    private final RequestOutbox.Lane lane;
+    @NonNull
+    private final OutboxEntry entry;
+
+    private volatile boolean discarded;
+
+    ReplayRequest(@NonNull RequestOutbox outbox, @NonNull RequestOutbox.Lane lane, @NonNull OutboxEntry entry) {
+        super(entry.getMethod(), entry.getUrl(), null);
+        this.outbox = outbox;
+        this.lane = lane;
+        this.entry = entry;
+        setRetryPolicy(SpitfireManager.getRetryPolicy(this));
+        setShouldCache(false);
+    }
+
+    @NonNull
+    OutboxEntry getEntry() {
+        return entry;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        return outbox.getHeaders(entry);
+    }
+
+    @Override
+    public String getBodyContentType() {
+        String bodyContentType = entry.getBodyContentType();
+        return bodyContentType != null ? bodyContentType : super.getBodyContentType();
+    }
+
+    @Override
+    public byte[] getBody() {
+        return entry.getBody();
+    }
+
+    @Override
+    protected Response<NetworkResponse> parseNetworkResponse(NetworkResponse response) {
+        // a replayed request is not cached, its response always comes from the network
+        RetryPolicy retryPolicy = getRetryPolicy();
+        if (retryPolicy instanceof AdaptiveRetryPolicy) {
+            ((AdaptiveRetryPolicy) retryPolicy).onResponse(response.networkTimeMs);
+        }
+        outbox.acknowledge(entry);
+        return Response.success(response, null);
+    }
+
+    @Override
+    protected VolleyError parseNetworkError(VolleyError volleyError) {
+        if (outbox.isRefused(volleyError)) {
+            discarded = outbox.acknowledge(entry);
+        }
+        return volleyError;
+    }
+
+    @Override
+    protected void deliverResponse(NetworkResponse response) {
+        outbox.onEntrySent(lane, entry, response);
+    }
+
+    @Override
+    public void deliverError(VolleyError error) {
+        outbox.onEntryFailed(lane, entry, error, discarded);
+    }
+}
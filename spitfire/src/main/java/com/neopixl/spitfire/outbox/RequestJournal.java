@@ -0,0 +1,461 @@
+package com.neopixl.spitfire.outbox;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of the requests saved by a {@link RequestOutbox}.
+ * <p>Each saved request and each acknowledgement is a record protected by a CRC32 checksum: a record partially
+ * written when the process died is ignored, and removed, when the journal is opened again.</p>
+ * <p>An appended request is synced to the disk before {@link #append} returns. The threads appending at the same
+ * time share the same sync (group commit). The acknowledgements are not synced on their own, an acknowledgement
+ * lost by a crash only makes the request sent again: the replay is <i>at least once</i>.</p>
+ * <p>The journal is rewritten with the pending requests only (compaction) when enough requests are acknowledged.</p>
+ */
+public final class RequestJournal implements Closeable {
+
+    /**
+     * Default number of acknowledged requests triggering a compaction
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 64;
+
+    private static final byte RECORD_ENTRY = 1;
+    private static final byte RECORD_ACK = 2;
+    private static final int RECORD_HEADER_LENGTH = 8;
+    /**
+     * Maximum length of a record, a longer record would be read as the end of the journal
+     */
+    static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @NonNull
+    private final File file;
+    private final int compactionThreshold;
+    @NonNull
+    private final Object syncLock = new Object();
+
+    // Guarded by this
+    @NonNull
+    private final LinkedHashMap<Long, OutboxEntry> pendingEntries = new LinkedHashMap<>();
+    @Nullable
+    private FileOutputStream outputStream;
+    private long fileLength;
+    private long nextId = 1;
+    private int acknowledgedCount;
+    private long writtenSequence;
+    private boolean closed;
+
+    // Guarded by syncLock
+    private long syncedSequence;
+
+    private RequestJournal(@NonNull File file, int compactionThreshold) {
+        this.file = file;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Open a journal with the default compaction threshold, the file is created when it does not exist
+     * @param file the journal file, not null
+     * @return the journal, with the requests not acknowledged yet
+     * @throws IOException when the file cannot be read or created
+     */
+    @NonNull
+    public static RequestJournal open(@NonNull File file) throws IOException {
+        return open(file, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Open a journal, the file is created when it does not exist
+     * @param file the journal file, not null
+     * @param compactionThreshold number of acknowledged requests triggering a compaction, greater than 0
+     * @return the journal, with the requests not acknowledged yet
+     * @throws IOException when the file cannot be read or created
+     */
+    @NonNull
+    public static RequestJournal open(@NonNull File file, int compactionThreshold) throws IOException {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("The compaction threshold should be greater than 0");
+        }
+        RequestJournal journal = new RequestJournal(file, compactionThreshold);
+        journal.load();
+        return journal;
+    }
+
+    /**
+     * Save a request, the request is synced to the disk when this method returns
+     * @param method the <b>com.android.volley.Request.Method</b> of the request
+     * @param url the URL of the request, not null
+     * @param headers the headers of the request, not null
+     * @param bodyContentType the content type of the body, can be null
+     * @param body the body, can be null
+     * @param orderingKey the key of the requests replayed one after the other, can be null
+     * @return the saved entry, not null
+     * @throws IOException when the request cannot be written, or when it is too large to be saved
+     */
+    @NonNull
+    public OutboxEntry append(int method, @NonNull String url, @NonNull Map<String, String> headers,
+                              @Nullable String bodyContentType, @Nullable byte[] body, @Nullable String orderingKey) throws IOException {
+        OutboxEntry entry;
+        long sequence;
+        synchronized (this) {
+            checkOpen();
+            entry = new OutboxEntry(nextId, System.currentTimeMillis(), method, url, headers, bodyContentType, body, orderingKey);
+            writeRecord(encodeEntry(entry));
+            nextId++;
+            pendingEntries.put(entry.getId(), entry);
+            sequence = ++writtenSequence;
+        }
+        sync(sequence);
+        return entry;
+    }
+
+    /**
+     * Acknowledge a request which does not need to be sent again, the journal is compacted when enough requests are acknowledged
+     * @param id identifier of the entry
+     * @throws IOException when the acknowledgement cannot be written, the request is then still pending
+     */
+    public void acknowledge(long id) throws IOException {
+        boolean compact;
+        synchronized (this) {
+            checkOpen();
+            if (!pendingEntries.containsKey(id)) {
+                return;
+            }
+            writeRecord(encodeAck(id));
+            writtenSequence++;
+            pendingEntries.remove(id);
+            acknowledgedCount++;
+            compact = pendingEntries.isEmpty() || acknowledgedCount >= compactionThreshold;
+        }
+        if (compact) {
+            try {
+                compact();
+            } catch (IOException e) {
+                // the acknowledgement is written, the compaction is attempted again on the next acknowledgement
+            }
+        }
+    }
+
+    /**
+     * Rewrite the journal with the pending requests only. The new file is synced before it replaces the journal.
+     * @throws IOException when the journal cannot be rewritten, the current journal is then kept
+     */
+    public void compact() throws IOException {
+        // same lock order as sync: the stream is not replaced while it is synced
+        synchronized (syncLock) {
+            synchronized (this) {
+                checkOpen();
+                if (acknowledgedCount == 0) {
+                    return;
+                }
+                File tempFile = new File(file.getPath() + ".tmp");
+                FileOutputStream tempStream = new FileOutputStream(tempFile);
+                long length = 0;
+                try {
+                    OutputStream bufferedStream = new BufferedOutputStream(tempStream);
+                    for (OutboxEntry entry : pendingEntries.values()) {
+                        byte[] record = toRecord(encodeEntry(entry));
+                        bufferedStream.write(record);
+                        length += record.length;
+                    }
+                    bufferedStream.flush();
+                    tempStream.getFD().sync();
+                } finally {
+                    tempStream.close();
+                }
+
+                outputStream.close();
+                boolean renamed = tempFile.renameTo(file);
+                outputStream = new FileOutputStream(file, true);
+                if (!renamed) {
+                    throw new IOException("Cannot replace the journal " + file);
+                }
+                fileLength = length;
+                acknowledgedCount = 0;
+                syncedSequence = writtenSequence;
+            }
+        }
+    }
+
+    /**
+     * Get the requests not acknowledged yet
+     * @return the pending entries, in the order they were saved
+     */
+    @NonNull
+    public synchronized List<OutboxEntry> getPendingEntries() {
+        return new ArrayList<>(pendingEntries.values());
+    }
+
+    /**
+     * @return the number of requests not acknowledged yet
+     */
+    public synchronized int getPendingCount() {
+        return pendingEntries.size();
+    }
+
+    /**
+     * Get the journal file
+     * @return the file, not null
+     */
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Sync the pending acknowledgements and close the journal
+     * @throws IOException when the journal cannot be synced
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    outputStream.getFD().sync();
+                } finally {
+                    outputStream.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sync the journal up to the given record, unless a sync started after this record was written
+     * @param sequence the sequence of the record
+     * @throws IOException when the file cannot be synced
+     */
+    private void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (syncedSequence >= sequence) {
+                // synced by another thread with the records written in the meantime
+                return;
+            }
+            FileOutputStream stream;
+            long target;
+            synchronized (this) {
+                checkOpen();
+                stream = outputStream;
+                target = writtenSequence;
+            }
+            stream.getFD().sync();
+            syncedSequence = target;
+        }
+    }
+
+    private void writeRecord(@NonNull byte[] payload) throws IOException {
+        if (payload.length > MAX_RECORD_LENGTH) {
+            // checked before writing: the record would be dropped with all the records after it by load()
+            throw new IOException("The record is too large: " + payload.length + " bytes, the maximum is " + MAX_RECORD_LENGTH);
+        }
+        byte[] record = toRecord(payload);
+        try {
+            outputStream.write(record);
+            fileLength += record.length;
+        } catch (IOException e) {
+            // remove the partial record, the next records would not be readable after it
+            try {
+                outputStream.getChannel().truncate(fileLength);
+            } catch (IOException ignored) {
+                // the partial record is ignored when the journal is opened again
+            }
+            throw e;
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The journal is closed");
+        }
+    }
+
+    /**
+     * Read the journal file and remove a partial record at its end
+     * @throws IOException when the file cannot be read or created
+     */
+    private void load() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create the directory " + parent);
+        }
+
+        long validLength = 0;
+        if (file.exists()) {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                CRC32 crc = new CRC32();
+                while (true) {
+                    int length = inputStream.readInt();
+                    int checksum = inputStream.readInt();
+                    if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    inputStream.readFully(payload);
+                    crc.reset();
+                    crc.update(payload, 0, length);
+                    if ((int) crc.getValue() != checksum || !readRecord(payload)) {
+                        break;
+                    }
+                    validLength += RECORD_HEADER_LENGTH + length;
+                }
+            } catch (EOFException e) {
+                // end of the journal, or partial record
+            } finally {
+                inputStream.close();
+            }
+
+            if (validLength < file.length()) {
+                RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+                try {
+                    randomAccessFile.setLength(validLength);
+                } finally {
+                    randomAccessFile.close();
+                }
+            }
+        }
+        fileLength = validLength;
+        outputStream = new FileOutputStream(file, true);
+    }
+
+    private boolean readRecord(@NonNull byte[] payload) throws IOException {
+        DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = inputStream.readByte();
+        if (type == RECORD_ENTRY) {
+            OutboxEntry entry = decodeEntry(inputStream);
+            pendingEntries.put(entry.getId(), entry);
+            nextId = Math.max(nextId, entry.getId() + 1);
+            return true;
+        } else if (type == RECORD_ACK) {
+            if (pendingEntries.remove(inputStream.readLong()) != null) {
+                acknowledgedCount++;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @NonNull
+    private static byte[] toRecord(@NonNull byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        byte[] record = new byte[RECORD_HEADER_LENGTH + payload.length];
+        putInt(record, 0, payload.length);
+        putInt(record, 4, (int) crc.getValue());
+        System.arraycopy(payload, 0, record, RECORD_HEADER_LENGTH, payload.length);
+        return record;
+    }
+
+    private static void putInt(@NonNull byte[] array, int offset, int value) {
+        array[offset] = (byte) (value >>> 24);
+        array[offset + 1] = (byte) (value >>> 16);
+        array[offset + 2] = (byte) (value >>> 8);
+        array[offset + 3] = (byte) value;
+    }
+
+    @NonNull
+    private static byte[] encodeEntry(@NonNull OutboxEntry entry) throws IOException {
+        byte[] body = entry.getBody();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + (body != null ? body.length : 0));
+        DataOutputStream outputStream = new DataOutputStream(bytes);
+        outputStream.writeByte(RECORD_ENTRY);
+        outputStream.writeLong(entry.getId());
+        outputStream.writeLong(entry.getCreatedAt());
+        outputStream.writeInt(entry.getMethod());
+        writeString(outputStream, entry.getUrl());
+        writeString(outputStream, entry.getOrderingKey());
+        writeString(outputStream, entry.getBodyContentType());
+        outputStream.writeInt(entry.getHeaders().size());
+        for (Map.Entry<String, String> header : entry.getHeaders().entrySet()) {
+            writeString(outputStream, header.getKey());
+            writeString(outputStream, header.getValue());
+        }
+        writeBytes(outputStream, body);
+        outputStream.flush();
+        return bytes.toByteArray();
+    }
+
+    @NonNull
+    private static OutboxEntry decodeEntry(@NonNull DataInputStream inputStream) throws IOException {
+        long id = inputStream.readLong();
+        long createdAt = inputStream.readLong();
+        int method = inputStream.readInt();
+        String url = readString(inputStream);
+        String orderingKey = readString(inputStream);
+        String bodyContentType = readString(inputStream);
+        int headerCount = inputStream.readInt();
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            headers.put(readString(inputStream), readString(inputStream));
+        }
+        byte[] body = readBytes(inputStream);
+        if (url == null) {
+            throw new IOException("The entry " + id + " has no URL");
+        }
+        return new OutboxEntry(id, createdAt, method, url, headers, bodyContentType, body, orderingKey);
+    }
+
+    @NonNull
+    private static byte[] encodeAck(long id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+        DataOutputStream outputStream = new DataOutputStream(bytes);
+        outputStream.writeByte(RECORD_ACK);
+        outputStream.writeLong(id);
+        outputStream.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(@NonNull DataOutputStream outputStream, @Nullable String value) throws IOException {
+        writeBytes(outputStream, value != null ? value.getBytes(UTF_8) : null);
+    }
+
+    @Nullable
+    private static String readString(@NonNull DataInputStream inputStream) throws IOException {
+        byte[] bytes = readBytes(inputStream);
+        return bytes != null ? new String(bytes, UTF_8) : null;
+    }
+
+    private static void writeBytes(@NonNull DataOutputStream outputStream, @Nullable byte[] value) throws IOException {
+        if (value == null) {
+            outputStream.writeInt(-1);
+            return;
+        }
+        outputStream.writeInt(value.length);
+        outputStream.write(value);
+    }
+
+    @Nullable
+    private static byte[] readBytes(@NonNull DataInputStream inputStream) throws IOException {
+        int length = inputStream.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        inputStream.readFully(value);
+        return value;
+    }
+}
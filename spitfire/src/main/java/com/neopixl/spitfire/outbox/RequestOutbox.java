@@ -0,0 +1,336 @@
+package com.neopixl.spitfire.outbox;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.NoConnectionError;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.VolleyError;
+import com.android.volley.VolleyLog;
+import com.neopixl.spitfire.listener.OutboxListener;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable outbox of the requests which could not be sent because the device was offline.
+ * <p>The requests are saved in a {@link RequestJournal} with their method, URL, headers and body, then sent again by
+ * {@link #replay(RequestQueue)} when the connectivity is back. The requests sharing an ordering key are sent one after
+ * the other in the order they were saved, the other requests are sent concurrently with a bounded number of requests
+ * in flight.</p>
+ * <p>A replayed request is removed from the journal when it is sent, or when it is refused by the server (HTTP 4xx,
+ * except 408 and 429). The saved headers can be updated before each replay by a {@link HeadersProvider}, for example
+ * with a new access token: a request failing with HTTP 401 is then kept and sent again with the new headers, it is
+ * removed without a provider as its saved credentials cannot change. On the other failures, the request and the next requests of its ordering key are kept
+ * for the next replay. A request can be sent more than once, an idempotency key in the headers lets the server ignore
+ * the duplicates.</p>
+ */
+public final class RequestOutbox {
+
+    /**
+     * Update the headers of a saved request before it is sent again
+     */
+    public interface HeadersProvider {
+
+        /**
+         * Get the headers of a replayed request, called on the network thread each time the request is sent
+         *
+         * @param entry the saved request, not null
+         * @param savedHeaders a copy of the headers saved with the request, can be modified, not null
+         * @return the headers sent with the request, not null
+         * @throws AuthFailureError when the credentials cannot be refreshed, the request is kept for the next replay
+         */
+        @NonNull
+        Map<String, String> getHeaders(@NonNull OutboxEntry entry, @NonNull Map<String, String> savedHeaders) throws AuthFailureError;
+    }
+
+    /**
+     * Default maximum number of requests sent at the same time by a replay
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 2;
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    @NonNull
+    private final RequestJournal journal;
+    private final int maxConcurrentRequests;
+    @Nullable
+    private final OutboxListener listener;
+    @Nullable
+    private final HeadersProvider headersProvider;
+
+    // Guarded by this
+    @NonNull
+    private final ArrayDeque<Lane> waitingLanes = new ArrayDeque<>();
+    @Nullable
+    private RequestQueue replayQueue;
+    private int inFlightCount;
+
+    /**
+     * Builder used to create the outbox
+     */
+    public static class Builder {
+
+        @NonNull
+        private final RequestJournal journal;
+        private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+        @Nullable
+        private OutboxListener listener;
+        @Nullable
+        private HeadersProvider headersProvider;
+
+        /**
+         * Constructor for the builder
+         * @param journal the journal storing the requests, not null
+         */
+        public Builder(@NonNull RequestJournal journal) {
+            this.journal = journal;
+        }
+
+        /**
+         * Set the maximum number of requests sent at the same time by a replay
+         * @param maxConcurrentRequests number of requests, greater than 0
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder maxConcurrentRequests(int maxConcurrentRequests) {
+            if (maxConcurrentRequests <= 0) {
+                throw new IllegalArgumentException("The maximum number of concurrent requests should be greater than 0");
+            }
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * Set the listener receiving the results of the replayed requests
+         * @param listener {@link OutboxListener}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder listener(@Nullable OutboxListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Set the provider updating the headers of the replayed requests, for example their credentials.
+         * Without a provider, a request failing with HTTP 401 is removed from the journal.
+         * @param headersProvider {@link HeadersProvider}, can be null to send the saved headers
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder headersProvider(@Nullable HeadersProvider headersProvider) {
+            this.headersProvider = headersProvider;
+            return this;
+        }
+
+        /**
+         * Build the outbox
+         * @return the outbox, not null
+         */
+        @NonNull
+        public RequestOutbox build() {
+            return new RequestOutbox(this);
+        }
+    }
+
+    private RequestOutbox(@NonNull Builder builder) {
+        this.journal = builder.journal;
+        this.maxConcurrentRequests = builder.maxConcurrentRequests;
+        this.listener = builder.listener;
+        this.headersProvider = builder.headersProvider;
+    }
+
+    /**
+     * Check if an error is caused by the lack of connectivity, the request did not reach the server
+     * @param error the error, can be null
+     * @return true when the request can be saved in the outbox
+     */
+    public static boolean isOffline(@Nullable VolleyError error) {
+        return error instanceof NoConnectionError;
+    }
+
+    /**
+     * Save a request, its headers and body are computed if needed.
+     * Note: The request is synced to the disk, this method should not be called on the main thread.
+     * @param request the request to save, not null
+     * @param orderingKey the key of the requests replayed one after the other, can be null
+     * @return the saved entry, not null
+     * @throws IOException when the request cannot be saved
+     */
+    @NonNull
+    public OutboxEntry add(@NonNull Request<?> request, @Nullable String orderingKey) throws IOException {
+        try {
+            byte[] body = request.getBody();
+            return journal.append(request.getMethod(), request.getUrl(), request.getHeaders(),
+                    body != null ? request.getBodyContentType() : null, body, orderingKey);
+        } catch (AuthFailureError e) {
+            throw new IOException("The headers or the body of the request cannot be computed", e);
+        }
+    }
+
+    /**
+     * Send the saved requests again. Nothing is done when a replay is running or when there is no saved request.
+     * @param requestQueue the queue sending the requests, not null
+     * @return true when a replay is started
+     */
+    public synchronized boolean replay(@NonNull RequestQueue requestQueue) {
+        if (replayQueue != null) {
+            return false;
+        }
+        List<OutboxEntry> entries = journal.getPendingEntries();
+        if (entries.isEmpty()) {
+            return false;
+        }
+
+        Map<String, Lane> lanesByKey = new HashMap<>();
+        for (OutboxEntry entry : entries) {
+            String orderingKey = entry.getOrderingKey();
+            Lane lane = orderingKey != null ? lanesByKey.get(orderingKey) : null;
+            if (lane == null) {
+                lane = new Lane();
+                waitingLanes.add(lane);
+                if (orderingKey != null) {
+                    lanesByKey.put(orderingKey, lane);
+                }
+            }
+            lane.entries.add(entry);
+        }
+
+        replayQueue = requestQueue;
+        while (inFlightCount < maxConcurrentRequests && !waitingLanes.isEmpty()) {
+            send(waitingLanes.poll());
+        }
+        return true;
+    }
+
+    /**
+     * Check if a replay is running
+     * @return true when the saved requests are being sent
+     */
+    public synchronized boolean isReplaying() {
+        return replayQueue != null;
+    }
+
+    /**
+     * Get the journal storing the requests
+     * @return the journal, not null
+     */
+    @NonNull
+    public RequestJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Remove a replayed request from the journal.
+     * Note: This method is called on the network thread.
+     * @param entry the saved request
+     * @return true when the request is removed
+     */
+    boolean acknowledge(@NonNull OutboxEntry entry) {
+        try {
+            journal.acknowledge(entry.getId());
+            return true;
+        } catch (IOException e) {
+            VolleyLog.e(e, "The replayed request %s could not be removed from the journal:", entry.getId());
+            return false;
+        }
+    }
+
+    /**
+     * Get the headers of a replayed request.
+     * Note: This method is called on the network thread.
+     * @param entry the saved request
+     * @return the saved headers, updated by the {@link HeadersProvider}
+     * @throws AuthFailureError when the provider cannot update the headers
+     */
+    @NonNull
+    Map<String, String> getHeaders(@NonNull OutboxEntry entry) throws AuthFailureError {
+        Map<String, String> headers = new HashMap<>(entry.getHeaders());
+        return headersProvider != null ? headersProvider.getHeaders(entry, headers) : headers;
+    }
+
+    synchronized void onEntrySent(@NonNull Lane lane, @NonNull OutboxEntry entry, @NonNull NetworkResponse response) {
+        inFlightCount--;
+        lane.entries.poll();
+        if (listener != null) {
+            listener.onEntrySent(entry, response);
+        }
+        sendNext(lane);
+    }
+
+    synchronized void onEntryFailed(@NonNull Lane lane, @NonNull OutboxEntry entry, @Nullable VolleyError error, boolean discarded) {
+        inFlightCount--;
+        if (listener != null) {
+            listener.onEntryFailed(entry, error, discarded);
+        }
+        if (discarded) {
+            lane.entries.poll();
+            sendNext(lane);
+        } else {
+            // the next requests of the lane wait for the next replay, to keep their order
+            sendNext(null);
+        }
+    }
+
+    /**
+     * Send the next request of the lane, or the first request of a waiting lane
+     * @param lane the lane of the last request, can be null to start a waiting lane
+     */
+    private void sendNext(@Nullable Lane lane) {
+        if (lane != null && !lane.entries.isEmpty()) {
+            send(lane);
+            return;
+        }
+        Lane waitingLane = waitingLanes.poll();
+        if (waitingLane != null) {
+            send(waitingLane);
+            return;
+        }
+        if (inFlightCount == 0 && replayQueue != null) {
+            replayQueue = null;
+            if (listener != null) {
+                listener.onReplayFinished(journal.getPendingCount());
+            }
+        }
+    }
+
+    private void send(@NonNull Lane lane) {
+        inFlightCount++;
+        replayQueue.add(new ReplayRequest(this, lane, lane.entries.peek()));
+    }
+
+    /**
+     * Check if a replayed request was refused by the server, it should not be sent again
+     * @param error the error
+     * @return true for a client error, except the timeout and throttling errors, and the authentication errors when
+     * the headers can be updated by a {@link HeadersProvider}
+     */
+    boolean isRefused(@NonNull VolleyError error) {
+        NetworkResponse response = error.networkResponse;
+        if (response == null) {
+            return false;
+        }
+        int statusCode = response.statusCode;
+        return statusCode >= HttpURLConnection.HTTP_BAD_REQUEST && statusCode < HttpURLConnection.HTTP_INTERNAL_ERROR
+                && (statusCode != HttpURLConnection.HTTP_UNAUTHORIZED || headersProvider == null)
+                && statusCode != HttpURLConnection.HTTP_CLIENT_TIMEOUT
+                && statusCode != HTTP_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Saved requests sent one after the other
+     */
+    static final class Lane {
+
+        @NonNull
+        final ArrayDeque<OutboxEntry> entries = new ArrayDeque<>();
+    }
+}
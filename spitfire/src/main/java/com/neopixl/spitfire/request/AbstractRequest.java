@@ -4,26 +4,39 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.android.volley.AuthFailureError;
+import com.android.volley.Cache;
+import com.android.volley.Header;
 import com.android.volley.NetworkResponse;
 import com.android.volley.ParseError;
 import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.RetryPolicy;
 import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.android.volley.VolleyLog;
 import com.android.volley.toolbox.HttpHeaderParser;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.cache.ParsedResponseCache;
+import com.neopixl.spitfire.codec.Codec;
+import com.neopixl.spitfire.codec.JacksonCodec;
+import com.neopixl.spitfire.listener.FreshnessRequestListener;
 import com.neopixl.spitfire.listener.RequestListener;
-
-import java.io.UnsupportedEncodingException;
+import com.neopixl.spitfire.listener.RequestMetricsListener;
+import com.neopixl.spitfire.listener.ResponseTransformer;
+import com.neopixl.spitfire.model.Freshness;
+import com.neopixl.spitfire.network.StreamingBody;
+import com.neopixl.spitfire.retry.AdaptiveRetryPolicy;
+import com.neopixl.spitfire.utils.ParameterEncoder;
+
+import java.io.IOException;
 import java.net.HttpURLConnection;
-import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Created by Florian ALONSO on 12/30/16.
@@ -33,6 +46,11 @@ import java.util.Map;
 
 abstract class AbstractRequest<T> extends Request<T> {
 
+    private static final int CONTENT_PREVIEW_LENGTH = 1024;
+
+    static final String HEADER_CONTENT_TYPE = "Content-Type";
+    private static final String HEADER_ACCEPT = "Accept";
+
     static final List<Integer> HTTP_METHOD_JSON_ALLOWED = new ArrayList<Integer>() {{
         add(com.android.volley.Request.Method.POST);
         add(com.android.volley.Request.Method.PUT);
@@ -42,8 +60,8 @@ abstract class AbstractRequest<T> extends Request<T> {
 
     @NonNull
     private final List<Integer> mAcceptedStatusCodes;
-    @NonNull
-    private final Class<T> classResponse;
+    @Nullable
+    private final JavaType returnType;
     @Nullable
     private byte[] body;
 
@@ -56,6 +74,23 @@ abstract class AbstractRequest<T> extends Request<T> {
     @Nullable
     private NetworkResponse networkResponse;
 
+    @Nullable
+    private volatile CoalescedRequest<T> coalescedRequest;
+    @Nullable
+    private volatile HedgedCall<T> hedgedCall;
+
+    @NonNull
+    private volatile Freshness freshness = Freshness.FRESH;
+
+    @Nullable
+    private final Executor deliveryExecutor;
+    @Nullable
+    private final ResponseTransformer<T> responseTransformer;
+    @Nullable
+    private final RequestTimer timer;
+    @Nullable
+    private final Codec codec;
+
     /**
      * Abstract class Builder used to create a new request
      * @param <T> Type used for the response of the request.
@@ -66,11 +101,18 @@ abstract class AbstractRequest<T> extends Request<T> {
 
         @NonNull
         private final String url;
-        private final Class<T> classResponse;
+        @Nullable
+        private final JavaType returnType;
 
         @Nullable
         private RequestListener<T> mListener;
         private Map<String, String> headers;
+        @Nullable
+        private Executor deliveryExecutor;
+        @Nullable
+        private ResponseTransformer<T> responseTransformer;
+        @Nullable
+        private Codec codec;
 
         /**
          * Default
@@ -79,9 +121,29 @@ abstract class AbstractRequest<T> extends Request<T> {
          * @param classResponse class used to parse the response
          */
         public AbstractBuilder(int method, @NonNull String url, @NonNull Class<T> classResponse) {
+            this(method, url, SpitfireManager.resolveType(classResponse));
+        }
+
+        /**
+         * Constructor used for the generic responses, like List&lt;DummyResponse&gt;
+         * @param method used to send the request
+         * @param url given url to access the resource, not null
+         * @param typeResponse full type used to parse the response, not null
+         */
+        public AbstractBuilder(int method, @NonNull String url, @NonNull TypeReference<T> typeResponse) {
+            this(method, url, SpitfireManager.resolveType(typeResponse.getType()));
+        }
+
+        /**
+         * Constructor used with an already resolved type, the type should match &lt;T&gt;
+         * @param method used to send the request
+         * @param url given url to access the resource, not null
+         * @param javaTypeResponse type used to parse the response, not null
+         */
+        public AbstractBuilder(int method, @NonNull String url, @NonNull JavaType javaTypeResponse) {
             this.method = method;
             this.url = url;
-            this.classResponse = classResponse;
+            this.returnType = javaTypeResponse.hasRawClass(Void.class) ? null : javaTypeResponse;
         }
 
         /**
@@ -106,12 +168,78 @@ abstract class AbstractRequest<T> extends Request<T> {
             return this;
         }
 
+        /**
+         * Sets the executor calling the listener, instead of the delivery of the request queue (the main thread by default).
+         * When not set, the executor of the {@link SpitfireManager} is used.
+         * @param deliveryExecutor the executor, can be null
+         * @return the builder
+         */
+        @NonNull
+        public AbstractBuilder<T, RequestType> deliveryExecutor(@Nullable Executor deliveryExecutor) {
+            this.deliveryExecutor = deliveryExecutor;
+            return this;
+        }
+
+        /**
+         * Sets the transformation applied to the parsed response on the network thread, before the delivery
+         * @param responseTransformer {@link ResponseTransformer}, can be null
+         * @return the builder
+         */
+        @NonNull
+        public AbstractBuilder<T, RequestType> responseTransformer(@Nullable ResponseTransformer<T> responseTransformer) {
+            this.responseTransformer = responseTransformer;
+            return this;
+        }
+
+        /**
+         * Sets the codec writing the body and reading the response. The Content-Type and Accept headers follow the codec.
+         * When not set, the default codec of the {@link SpitfireManager} is used.
+         * @param codec {@link Codec}, can be null
+         * @return the builder
+         */
+        @NonNull
+        public AbstractBuilder<T, RequestType> codec(@Nullable Codec codec) {
+            this.codec = codec;
+            return this;
+        }
+
         /**
          * You must implement this method in your subclass.
          * @return AbstractNeoRequest
          */
         @NonNull
         abstract public RequestType build() ;
+
+        /**
+         * Build the request, add it to the queue and get a future completed by the request.
+         * The listener of the builder, if any, is also called.
+         * @param requestQueue the queue performing the request, not null
+         * @return the future of the response, not null
+         */
+        @NonNull
+        public SpitfireFuture<T> buildAsync(@NonNull RequestQueue requestQueue) {
+            RequestListener<T> builderListener = mListener;
+            SpitfireFuture<T> future = new SpitfireFuture<>(builderListener);
+            RequestType request;
+            this.mListener = future;
+            try {
+                request = build();
+            } finally {
+                this.mListener = builderListener;
+            }
+            future.setRequest(request);
+            enqueue(requestQueue, request);
+            return future;
+        }
+
+        /**
+         * Add the request built by {@link #buildAsync(RequestQueue)} to the queue
+         * @param requestQueue the queue performing the request, not null
+         * @param request the built request, not null
+         */
+        void enqueue(@NonNull RequestQueue requestQueue, @NonNull RequestType request) {
+            requestQueue.add(request);
+        }
     }
 
 
@@ -125,11 +253,17 @@ abstract class AbstractRequest<T> extends Request<T> {
         Map<String, String> builderHeaders = builder.headers;
 
         this.headers = builderHeaders!=null ? builderHeaders : new HashMap<String, String>();
-        this.classResponse = builder.classResponse;
+        this.returnType = builder.returnType;
 
         setShouldCache(builder.method == Method.GET);
 
         this.mListener = builder.mListener;
+        this.deliveryExecutor = builder.deliveryExecutor != null ? builder.deliveryExecutor : SpitfireManager.getDeliveryExecutor();
+        this.responseTransformer = builder.responseTransformer;
+        this.codec = builder.codec;
+
+        RequestMetricsListener metricsListener = SpitfireManager.getRequestMetricsListener();
+        this.timer = metricsListener != null ? new RequestTimer(metricsListener) : null;
 
         mAcceptedStatusCodes = new ArrayList<>();
         mAcceptedStatusCodes.add(HttpURLConnection.HTTP_OK);
@@ -137,7 +271,7 @@ abstract class AbstractRequest<T> extends Request<T> {
         mAcceptedStatusCodes.add(HttpURLConnection.HTTP_ACCEPTED);
         mAcceptedStatusCodes.add(HttpURLConnection.HTTP_CREATED);
 
-        setRetryPolicy(SpitfireManager.getDefaultRetryPolicy());
+        setRetryPolicy(SpitfireManager.getRetryPolicy(this));
     }
 
     /**
@@ -173,10 +307,61 @@ abstract class AbstractRequest<T> extends Request<T> {
      * @param response The response
      */
     @Override
-    protected void deliverResponse(@NonNull T response) {
-        if (mListener != null && this.networkResponse != null) {
-            mListener.onSuccess(this, networkResponse, response);
+    protected void deliverResponse(@NonNull final T response) {
+        final RequestListener<T> listener = mListener;
+        final NetworkResponse currentResponse = this.networkResponse;
+        final Freshness currentFreshness = freshness;
+        if (currentResponse == null || (listener == null && timer == null)) {
+            return;
+        }
+
+        if (deliveryExecutor == null) {
+            notifySuccess(listener, currentResponse, response, currentFreshness);
+            return;
+        }
+        deliveryExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!isCanceled()) {
+                    notifySuccess(listener, currentResponse, response, currentFreshness);
+                }
+            }
+        });
+    }
+
+    private void notifySuccess(@Nullable RequestListener<T> listener, @NonNull NetworkResponse response, @Nullable T result, @NonNull Freshness freshness) {
+        long deliveryStart = timer != null ? System.nanoTime() : 0;
+        if (listener instanceof FreshnessRequestListener) {
+            ((FreshnessRequestListener<T>) listener).onSuccess(this, response, result, freshness);
+        } else if (listener != null) {
+            listener.onSuccess(this, response, result);
+        }
+        if (timer != null) {
+            timer.report(this, response, true, deliveryStart, getRequestBytes());
+        }
+    }
+
+    private void notifyFailure(@Nullable RequestListener<T> listener, @Nullable NetworkResponse response, @Nullable VolleyError error) {
+        long deliveryStart = timer != null ? System.nanoTime() : 0;
+        if (listener != null) {
+            listener.onFailure(this, response, error);
         }
+        if (timer != null) {
+            timer.report(this, response, false, deliveryStart, getRequestBytes());
+        }
+    }
+
+    /**
+     * Delivers the response of a network call made on behalf of this request, shared with identical requests
+     * (see {@link CoalescingRequestQueue}) or hedged (see {@link HedgingRequestQueue})
+     * @param response the network response of the shared call
+     * @param result the parsed response, can be null
+     * @param freshness the freshness of the response
+     */
+    void deliverCoalescedResponse(@NonNull NetworkResponse response, @Nullable T result, @NonNull Freshness freshness) {
+        this.networkResponse = response;
+        this.freshness = freshness;
+        deliverResponse(result);
     }
 
     /**
@@ -185,17 +370,115 @@ abstract class AbstractRequest<T> extends Request<T> {
      * @param error <b>VolleyError</b>
      */
     @Override
-    public void deliverError(@Nullable VolleyError error) {
+    public void deliverError(@Nullable final VolleyError error) {
         if (error != null && error.networkResponse != null && this.networkResponse == null) {
             this.networkResponse = error.networkResponse;
         }
 
+        final RequestListener<T> listener = mListener;
+        final NetworkResponse currentResponse = this.networkResponse;
+        if (listener == null && timer == null) {
+            return;
+        }
+
+        if (deliveryExecutor == null) {
+            notifyFailure(listener, currentResponse, error);
+            return;
+        }
+        deliveryExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!isCanceled()) {
+                    notifyFailure(listener, currentResponse, error);
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancel the request. When the request shares its network call with identical requests,
+     * only this request is detached: the call is cancelled once all its requests are cancelled.
+     * The attempts of a hedged request and the future of the request, if any, are cancelled.
+     */
+    @Override
+    public void cancel() {
+        super.cancel();
+        CoalescedRequest<T> request = coalescedRequest;
+        if (request != null) {
+            request.detach(this);
+        }
+        HedgedCall<T> call = hedgedCall;
+        if (call != null) {
+            call.cancel();
+        }
+        if (mListener instanceof SpitfireFuture) {
+            ((SpitfireFuture<T>) mListener).cancel(false);
+        }
+    }
+
+    /**
+     * Get the size of the request body for the metrics, without building a body which was not sent
+     * @return the size in bytes, -1 if unknown
+     */
+    private long getRequestBytes() {
+        if (this instanceof StreamingBody) {
+            try {
+                return ((StreamingBody) this).getBodyContentLength();
+            } catch (AuthFailureError e) {
+                return -1;
+            }
+        }
+        byte[] currentBody = body;
+        return currentBody != null ? currentBody.length : 0;
+    }
 
-        if (mListener != null) {
-            mListener.onFailure(this, networkResponse, error);
+    /**
+     * Adds a marker to the request event log, also used to time the request phases when a
+     * {@link RequestMetricsListener} is registered.
+     * @param tag the marker
+     */
+    @Override
+    public void addMarker(String tag) {
+        super.addMarker(tag);
+        if (timer != null) {
+            timer.mark(tag);
         }
     }
 
+    /**
+     * Set the shared network call delivering the response of this request
+     * @param coalescedRequest the shared call, not null
+     */
+    void setCoalescedRequest(@NonNull CoalescedRequest<T> coalescedRequest) {
+        this.coalescedRequest = coalescedRequest;
+    }
+
+    /**
+     * Set the attempts sending this request for a {@link HedgingRequestQueue}
+     * @param hedgedCall the hedged call, not null
+     */
+    void setHedgedCall(@NonNull HedgedCall<T> hedgedCall) {
+        this.hedgedCall = hedgedCall;
+    }
+
+    /**
+     * Get the transformation of the parsed response
+     * @return the transformer, can be null
+     */
+    @Nullable
+    ResponseTransformer<T> getResponseTransformer() {
+        return responseTransformer;
+    }
+
+    /**
+     * Check if the listener receives the freshness of the responses, the cached content confirmed by the server is
+     * then parsed and delivered
+     * @return true for a {@link FreshnessRequestListener}
+     */
+    boolean hasFreshnessListener() {
+        return mListener instanceof FreshnessRequestListener;
+    }
+
     /**
      * Parses the network response {@link NetworkResponse} and returns the expected Type for the request.
      * @param response {@link NetworkResponse} The response for the request (Success or error).
@@ -204,57 +487,266 @@ abstract class AbstractRequest<T> extends Request<T> {
     @Override
     @NonNull
     protected Response<T> parseNetworkResponse(@NonNull NetworkResponse response) {
+        // the network time of the responses gives the timeouts of the adaptive retry strategy
+        RetryPolicy retryPolicy = getRetryPolicy();
+        if (retryPolicy instanceof AdaptiveRetryPolicy && !isCacheHit(response, getCacheEntry())) {
+            ((AdaptiveRetryPolicy) retryPolicy).onResponse(response.networkTimeMs);
+        }
+        if (timer == null) {
+            return parseResponse(response);
+        }
+        long parseStart = System.nanoTime();
+        Response<T> parsedResponse = parseResponse(response);
+        timer.setParseNanos(System.nanoTime() - parseStart, isCacheHit(response, getCacheEntry()));
+        return parsedResponse;
+    }
+
+    @NonNull
+    private Response<T> parseResponse(@NonNull NetworkResponse response) {
         this.networkResponse = response;
 
-        if (response.statusCode == HttpURLConnection.HTTP_NOT_MODIFIED
+        Cache.Entry readCacheEntry = getCacheEntry();
+        boolean cacheHit = isCacheHit(response, readCacheEntry);
+        this.freshness = getFreshness(response, readCacheEntry, cacheHit);
+
+        // with a freshness listener, the cached content confirmed by the server is parsed and delivered
+        boolean revalidated = mListener instanceof FreshnessRequestListener
+                && response.notModified && response.data != null && response.data.length > 0;
+        if (!revalidated && (response.statusCode == HttpURLConnection.HTTP_NOT_MODIFIED
                 || response.statusCode == HttpURLConnection.HTTP_NO_CONTENT
-                || response.notModified) {
+                || response.notModified)) {
             setShouldCache(false);
             return Response.success(null, HttpHeaderParser.parseCacheHeaders(response));
         }
 
-        JavaType returnType = getReturnType();
+        ParsedResponseCache responseCache = shouldCache() ? SpitfireManager.getParsedResponseCache() : null;
+
         T returnData = null;
+        if (returnType != null && responseCache != null && cacheHit) {
+            returnData = getParsedResponse(responseCache, readCacheEntry);
+            if (returnData != null) {
+                addMarker("parsed-cache-hit");
+                return transformResponse(returnData, response, HttpHeaderParser.parseCacheHeaders(response));
+            }
+        }
+
         if (returnType != null) {
             try {
-                if (response.data != null) {
-                    returnData = SpitfireManager.getObjectMapper().readValue(response.data, returnType);
-                }
+                returnData = parseResponseContent(response, returnType);
             } catch (Exception e) {
                 VolleyLog.e(e, "An error occurred while parsing network response:");
                 returnData = null;
             }
         }
 
-        if (returnData == null && classResponse != Void.class) {
+        if (returnData == null && returnType != null) {
             ParseError parseError = new ParseError(response);
-            String content = "";
-            if (response.data != null) {
-                content = new String(response.data);
+            VolleyLog.e(parseError, "Return data is null. API returned : "+ getContentPreview(response));
+            return Response.error(parseError);
+        }
+
+        Cache.Entry cacheEntry = HttpHeaderParser.parseCacheHeaders(response);
+        if (returnData != null && responseCache != null) {
+            // a revalidated entry is stored again in the Volley cache with the new headers
+            Cache.Entry parsedCacheEntry = cacheHit && !response.notModified ? readCacheEntry : cacheEntry;
+            if (parsedCacheEntry != null) {
+                responseCache.put(getCacheKey(), returnType, parsedCacheEntry, returnData);
             }
-            VolleyLog.e(parseError, "Return data is null. API returned : "+ content);
+        }
+        return transformResponse(returnData, response, cacheEntry);
+    }
+
+    /**
+     * Apply the response transformer, if any, to the parsed response
+     * @param returnData the parsed response, can be null
+     * @param response the network response
+     * @param cacheEntry the cache entry of the response, can be null
+     * @return the response to deliver, not null
+     */
+    @NonNull
+    private Response<T> transformResponse(@Nullable T returnData, @NonNull NetworkResponse response, @Nullable Cache.Entry cacheEntry) {
+        if (returnData == null || responseTransformer == null) {
+            return Response.success(returnData, cacheEntry);
+        }
+
+        T transformedData;
+        try {
+            transformedData = responseTransformer.transform(this, returnData);
+        } catch (RuntimeException e) {
+            VolleyLog.e(e, "An error occurred while transforming the response:");
+            return Response.error(new ParseError(e));
+        }
+        if (transformedData == null) {
+            ParseError parseError = new ParseError(response);
+            VolleyLog.e(parseError, "The transformed response is null");
             return Response.error(parseError);
         }
+        return Response.success(transformedData, cacheEntry);
+    }
+
+    /**
+     * The Volley cache dispatcher parses a response built with the data of the cache entry
+     * @param response the parsed response
+     * @param readCacheEntry the cache entry of the request, can be null
+     * @return true when the response is read from the cache entry
+     */
+    private static boolean isCacheHit(@NonNull NetworkResponse response, @Nullable Cache.Entry readCacheEntry) {
+        return readCacheEntry != null && readCacheEntry.data != null && readCacheEntry.data == response.data;
+    }
+
+    /**
+     * Get the freshness of a response
+     * @param response the parsed response
+     * @param readCacheEntry the cache entry of the request, can be null
+     * @param cacheHit true when the response is read from the cache entry
+     * @return the freshness, not null
+     */
+    @NonNull
+    private static Freshness getFreshness(@NonNull NetworkResponse response, @Nullable Cache.Entry readCacheEntry, boolean cacheHit) {
+        if (response.notModified) {
+            return Freshness.REVALIDATED;
+        }
+        if (cacheHit && readCacheEntry.refreshNeeded()) {
+            return Freshness.STALE;
+        }
+        return Freshness.FRESH;
+    }
 
-        return Response.success(returnData, HttpHeaderParser.parseCacheHeaders(response));
+    /**
+     * Get the object already parsed from the cache entry
+     * @param responseCache the cache of the parsed responses
+     * @param cacheEntry the entry read from the Volley cache
+     * @return the parsed object, null when it is not cached or has another type
+     */
+    @Nullable
+    private T getParsedResponse(@NonNull ParsedResponseCache responseCache, @NonNull Cache.Entry cacheEntry) {
+        Object value = responseCache.get(getCacheKey(), returnType, cacheEntry);
+        if (value == null || !returnType.getRawClass().isInstance(value)) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        T returnData = (T) value;
+        return returnData;
     }
 
     /**
-     * Returns the type for the response.
-     * @return null, Array, List, Map or Object.
+     * Parses the content of the network response.
+     * Note: This method is called on the network thread.
+     * @param response {@link NetworkResponse} The response for the request
+     * @param returnType the type used to parse the response
+     * @return the parsed content, can be null
+     * @throws IOException when the content cannot be parsed
      */
     @Nullable
-    private JavaType getReturnType() {
-        if (classResponse == Void.class) {
+    T parseResponseContent(@NonNull NetworkResponse response, @NonNull JavaType returnType) throws IOException {
+        if (response.data == null) {
             return null;
-        } else if (classResponse.isArray()) {
-            return TypeFactory.defaultInstance().constructArrayType(classResponse.getComponentType());
-        } else if (classResponse == List.class) {
-            return TypeFactory.defaultInstance().constructCollectionType(List.class, classResponse.getComponentType());
-        } else if (classResponse == Map.class) {
-            return TypeFactory.defaultInstance().constructMapType(Map.class, String.class, classResponse.getComponentType());
         }
-        return TypeFactory.defaultInstance().constructType(classResponse);
+        return getResponseCodec(getContentType(response)).getReader(returnType).readValue(response.data);
+    }
+
+    /**
+     * Get the codec reading a response: the codec registered for the response Content-Type (see {@link SpitfireManager#findCodec(String)}),
+     * otherwise the codec of the request.
+     * @param contentType the Content-Type of the response, can be null
+     * @return the codec, not null
+     */
+    @NonNull
+    final Codec getResponseCodec(@Nullable String contentType) {
+        Codec requestCodec = getCodec();
+        if (contentType == null || hasMediaType(contentType, requestCodec.getMediaType())) {
+            return requestCodec;
+        }
+        Codec responseCodec = SpitfireManager.findCodec(contentType);
+        return responseCodec != null ? responseCodec : requestCodec;
+    }
+
+    private static boolean hasMediaType(@NonNull String contentType, @NonNull String mediaType) {
+        int length = mediaType.length();
+        return contentType.regionMatches(true, 0, mediaType, 0, length)
+                && (contentType.length() == length || contentType.charAt(length) == ';' || contentType.charAt(length) == ' ');
+    }
+
+    /**
+     * Get the Content-Type of a response
+     * @param response the network response, not null
+     * @return the content type, can be null
+     */
+    @Nullable
+    static String getContentType(@NonNull NetworkResponse response) {
+        if (response.headers == null) {
+            return null;
+        }
+        String contentType = response.headers.get(HEADER_CONTENT_TYPE);
+        if (contentType != null) {
+            return contentType;
+        }
+        for (Map.Entry<String, String> header : response.headers.entrySet()) {
+            if (HEADER_CONTENT_TYPE.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the Content-Type of a streamed response
+     * @param headers the response headers, not null
+     * @return the content type, can be null
+     */
+    @Nullable
+    static String getContentType(@NonNull List<Header> headers) {
+        for (Header header : headers) {
+            if (HEADER_CONTENT_TYPE.equalsIgnoreCase(header.getName())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the beginning of the response content, used for logs without copying a large response.
+     * @param response the network response
+     * @return the beginning of the content, not null
+     */
+    @NonNull
+    private static String getContentPreview(@NonNull NetworkResponse response) {
+        if (response.data == null) {
+            return "";
+        }
+        int length = Math.min(response.data.length, CONTENT_PREVIEW_LENGTH);
+        String content = new String(response.data, 0, length);
+        if (length < response.data.length) {
+            content += "... (" + response.data.length + " bytes)";
+        }
+        return content;
+    }
+
+    /**
+     * Get the freshness of the last parsed response, given to a {@link FreshnessRequestListener}
+     * @return the freshness, not null
+     */
+    @NonNull
+    public Freshness getFreshness() {
+        return freshness;
+    }
+
+    /**
+     * Returns the codec writing the body and reading the response.
+     * @return the codec of the builder, otherwise the default codec of the {@link SpitfireManager}, not null
+     */
+    @NonNull
+    public final Codec getCodec() {
+        return codec != null ? codec : SpitfireManager.getDefaultCodec();
+    }
+
+    /**
+     * Returns the type used to parse the response.
+     * @return the resolved type, null for a <b>Void</b> response.
+     */
+    @Nullable
+    public JavaType getReturnType() {
+        return returnType;
     }
 
     /**
@@ -273,12 +765,30 @@ abstract class AbstractRequest<T> extends Request<T> {
         }
 
         String bodyContentType = getBodyContentType();
-        if (bodyContentType == null && currentHeader.containsKey("Content-Type")) {
-            currentHeader.remove("Content-Type");
+        if (bodyContentType == null && currentHeader.containsKey(HEADER_CONTENT_TYPE)) {
+            currentHeader.remove(HEADER_CONTENT_TYPE);
+        }
+
+        String mediaType = getCodec().getMediaType();
+        if (!JacksonCodec.MEDIA_TYPE_JSON.equals(mediaType) && !containsHeader(currentHeader, HEADER_ACCEPT)) {
+            // the server can still answer in JSON, the response is then read by the JSON codec
+            currentHeader.put(HEADER_ACCEPT, mediaType + ", " + JacksonCodec.MEDIA_TYPE_JSON + ";q=0.9");
         }
         return currentHeader;
     }
 
+    /**
+     * Check if a header is set, the names of the headers are case-insensitive
+     */
+    static boolean containsHeader(@NonNull Map<String, String> headers, @NonNull String name) {
+        for (String key : headers.keySet()) {
+            if (name.equalsIgnoreCase(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns the raw POST or PUT body to be sent.
      *
@@ -295,7 +805,13 @@ abstract class AbstractRequest<T> extends Request<T> {
     @Nullable
     public final byte[] getBody() throws AuthFailureError {
         if (body == null) {
-            body = calculateBody();
+            if (timer == null) {
+                body = calculateBody();
+            } else {
+                long serializationStart = System.nanoTime();
+                body = calculateBody();
+                timer.addSerializationNanos(System.nanoTime() - serializationStart);
+            }
         }
         return body;
     }
@@ -318,27 +834,6 @@ abstract class AbstractRequest<T> extends Request<T> {
             return null;
         }
         Map<String, String> params = this.getParams();
-        return params != null && params.size() > 0 ? this.encodeParameters(params, this.getParamsEncoding()) : null;
-    }
-
-    @NonNull
-    private byte[] encodeParameters(@NonNull Map<String, String> params, @NonNull String paramsEncoding) {
-        StringBuilder encodedParams = new StringBuilder();
-
-        try {
-            Iterator iterator = params.entrySet().iterator();
-
-            while(iterator.hasNext()) {
-                java.util.Map.Entry<String, String> entry = (java.util.Map.Entry)iterator.next();
-                encodedParams.append(URLEncoder.encode(entry.getKey(), paramsEncoding));
-                encodedParams.append('=');
-                encodedParams.append(URLEncoder.encode(entry.getValue(), paramsEncoding));
-                encodedParams.append('&');
-            }
-
-            return encodedParams.toString().getBytes(paramsEncoding);
-        } catch (UnsupportedEncodingException var6) {
-            throw new RuntimeException("Encoding not supported: " + paramsEncoding, var6);
-        }
+        return params != null && params.size() > 0 ? ParameterEncoder.encodeForm(params, this.getParamsEncoding()) : null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,458 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.Header;
+import com.android.volley.NetworkResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.codec.Codec;
+import com.neopixl.spitfire.listener.ArrayStreamListener;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.listener.ResponseTransformer;
+import com.neopixl.spitfire.model.BodyCompression;
+import com.neopixl.spitfire.network.SpitfireNetwork;
+import com.neopixl.spitfire.network.StreamingResponse;
+import com.neopixl.spitfire.outbox.RequestOutbox;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request reading a JSON array response element by element.
+ * <p>The elements are given to the {@link ArrayStreamListener} by batches while the array is read, only the current batch
+ * is kept in memory. When the whole array is read, the {@link RequestListener} receives the number of elements.</p>
+ * <p>At most {@link Builder#maxPendingBatches(int)} batches wait for the items listener: when the listener is slower than
+ * the network, the reading waits for it, so the memory used does not grow with the size of the array.</p>
+ * <p>The array is read from the connection stream when the request queue uses a {@link SpitfireNetwork}, otherwise it is
+ * read from the buffered response. The responses are not cached.</p>
+ * @param <E> The type of the array elements
+ */
+public class ArrayStreamRequest<E> extends BaseRequest<Integer> implements StreamingResponse {
+
+    /**
+     * Default number of elements given to the listener at once
+     */
+    public static final int DEFAULT_BATCH_SIZE = 20;
+
+    /**
+     * Default number of batches given to the items executor and not yet handled by the listener
+     */
+    public static final int DEFAULT_MAX_PENDING_BATCHES = 2;
+
+    // the reading waiting for the listener checks regularly whether the request is cancelled
+    private static final long CANCEL_CHECK_INTERVAL_MS = 100;
+
+    @NonNull
+    private final JavaType elementType;
+    private final int batchSize;
+    private final int maxPendingBatches;
+    @Nullable
+    private final ArrayStreamListener<E> itemsListener;
+    @NonNull
+    private final Executor itemsExecutor;
+    @NonNull
+    private final Semaphore pendingBatches;
+
+    private volatile boolean streamed;
+    private volatile boolean itemsDelivered;
+    private volatile int streamedCount;
+    @Nullable
+    private volatile JsonProcessingException streamError;
+
+    /**
+     * Class Builder used to create a new request
+     * @param <E> The type of the array elements
+     */
+    public static class Builder<E> extends BaseRequest.Builder<Integer> {
+
+        @NonNull
+        private final JavaType elementType;
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        private int maxPendingBatches = DEFAULT_MAX_PENDING_BATCHES;
+        @Nullable
+        private ArrayStreamListener<E> itemsListener;
+        @Nullable
+        private Executor itemsExecutor;
+
+        /**
+         * Default
+         *
+         * @param method        used to send the request
+         * @param url           given url to access the resource, not null
+         * @param elementClass  class used to parse each element of the array
+         */
+        public Builder(int method, @NonNull String url, @NonNull Class<E> elementClass) {
+            this(method, url, SpitfireManager.resolveType(elementClass));
+        }
+
+        /**
+         * Constructor used for the generic elements
+         *
+         * @param method        used to send the request
+         * @param url           given url to access the resource, not null
+         * @param elementType   full type used to parse each element of the array, not null
+         */
+        public Builder(int method, @NonNull String url, @NonNull TypeReference<E> elementType) {
+            this(method, url, SpitfireManager.resolveType(elementType.getType()));
+        }
+
+        /**
+         * Constructor used with an already resolved type, the type should match &lt;E&gt;
+         *
+         * @param method        used to send the request
+         * @param url           given url to access the resource, not null
+         * @param elementType   type used to parse each element of the array, not null
+         */
+        public Builder(int method, @NonNull String url, @NonNull JavaType elementType) {
+            super(method, url, Integer.class);
+            this.elementType = elementType;
+        }
+
+        /**
+         * Set the number of elements given to the items listener at once (default {@link #DEFAULT_BATCH_SIZE})
+         * @param batchSize number of elements, greater than 0
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<E> batchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("The batch size should be greater than 0");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Set the number of batches given to the items executor and not yet handled by the listener
+         * (default {@link #DEFAULT_MAX_PENDING_BATCHES}), the reading waits for the listener beyond this number
+         * @param maxPendingBatches number of batches, greater than 0
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<E> maxPendingBatches(int maxPendingBatches) {
+            if (maxPendingBatches <= 0) {
+                throw new IllegalArgumentException("The number of pending batches should be greater than 0");
+            }
+            this.maxPendingBatches = maxPendingBatches;
+            return this;
+        }
+
+        /**
+         * Set the listener receiving the elements
+         * @param itemsListener {@link ArrayStreamListener}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<E> itemsListener(@Nullable ArrayStreamListener<E> itemsListener) {
+            this.itemsListener = itemsListener;
+            return this;
+        }
+
+        /**
+         * Set the executor used to call the items listener (default: the main thread)
+         * @param itemsExecutor the executor, can be null to use the main thread
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<E> itemsExecutor(@Nullable Executor itemsExecutor) {
+            this.itemsExecutor = itemsExecutor;
+            return this;
+        }
+
+        /**
+         * Specifies the object
+         * @param jsonObject The object to be embedded in the body, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<E> json(@Nullable Object jsonObject) {
+            super.json(jsonObject);
+            return this;
+        }
+
+        /**
+         * Set the parameters for the request
+         * @param parameters Map&lt;String, String&gt;, not null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<E> parameters(@NonNull Map<String, String> parameters) {
+            super.parameters(parameters);
+            return this;
+        }
+
+        /**
+         * Set the compression of the JSON or form body, sent with a Content-Encoding header
+         * @param bodyCompression {@link BodyCompression}, can be null to use the compression of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<E> bodyCompression(@Nullable BodyCompression bodyCompression) {
+            super.bodyCompression(bodyCompression);
+            return this;
+        }
+
+        /**
+         * Save the POST, PUT and PATCH requests failing because the device is offline, to send them again later
+         * @param outbox {@link RequestOutbox}, can be null
+         * @param orderingKey the key of the requests replayed one after the other, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<E> outbox(@Nullable RequestOutbox outbox, @Nullable String orderingKey) {
+            super.outbox(outbox, orderingKey);
+            return this;
+        }
+
+        /**
+         * Set the codec writing the body and reading the array elements
+         * @param codec {@link Codec}, can be null to use the default codec of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<E> codec(@Nullable Codec codec) {
+            super.codec(codec);
+            return this;
+        }
+
+        /**
+         * Set the listener for the request, called with the number of elements when the whole array is read
+         * @param listener {@link RequestListener}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<E> listener(@Nullable RequestListener<Integer> listener) {
+            super.listener(listener);
+            return this;
+        }
+
+        /**
+         * Set the executor calling the listener, instead of the delivery of the request queue
+         * @param deliveryExecutor the executor, can be null to use the executor of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<E> deliveryExecutor(@Nullable Executor deliveryExecutor) {
+            super.deliveryExecutor(deliveryExecutor);
+            return this;
+        }
+
+        /**
+         * Set the transformation applied to the parsed response on the network thread
+         * @param responseTransformer {@link ResponseTransformer}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<E> responseTransformer(@Nullable ResponseTransformer<Integer> responseTransformer) {
+            super.responseTransformer(responseTransformer);
+            return this;
+        }
+
+        /**
+         * Set the headers for the request
+         * @param headers used to send the request, not null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<E> headers(@Nullable Map<String, String> headers) {
+            super.headers(headers);
+            return this;
+        }
+
+        /**
+         * Create a request based on the current request
+         * @return The request
+         */
+        @NonNull
+        @Override
+        public ArrayStreamRequest<E> build() {
+            return new ArrayStreamRequest<E>(this);
+        }
+    }
+
+    /**
+     * Constructor using the builder
+     * @param builder {@link Builder}
+     */
+    protected ArrayStreamRequest(Builder<E> builder) {
+        super(builder);
+        this.elementType = builder.elementType;
+        this.batchSize = builder.batchSize;
+        this.maxPendingBatches = builder.maxPendingBatches;
+        this.itemsListener = builder.itemsListener;
+        this.itemsExecutor = builder.itemsExecutor != null ? builder.itemsExecutor : new MainThreadExecutor();
+        this.pendingBatches = new Semaphore(builder.maxPendingBatches);
+
+        setShouldCache(false);
+    }
+
+    /**
+     * Read the array while it is read from the connection.
+     * Note: This method is called internally by the {@link SpitfireNetwork}, you should never call it directly.
+     * @param statusCode the HTTP status code of the response
+     * @param headers the response headers
+     * @param content the response content
+     * @throws IOException when the connection fails while reading the content
+     */
+    @Override
+    public void parseNetworkStream(int statusCode, @NonNull List<Header> headers, @NonNull InputStream content) throws IOException {
+        streamed = true;
+        streamedCount = 0;
+        streamError = null;
+
+        if (statusCode == HttpURLConnection.HTTP_NO_CONTENT) {
+            return;
+        }
+        try {
+            MappingIterator<E> iterator = getResponseCodec(getContentType(headers)).getReader(elementType).readValues(content);
+            streamedCount = readItems(iterator);
+        } catch (JsonProcessingException e) {
+            // The content is invalid, this is a parse error and not a connection error
+            streamError = e;
+        }
+    }
+
+    /**
+     * Check if the request can be sent again after a timeout
+     * @return false once a batch was given to the items listener, a new attempt would give the same items again
+     */
+    @Override
+    public boolean isRetryable() {
+        return !itemsDelivered;
+    }
+
+    @Nullable
+    @Override
+    Integer parseResponseContent(@NonNull NetworkResponse response, @NonNull JavaType returnType) throws IOException {
+        if (streamed) {
+            JsonProcessingException error = streamError;
+            if (error != null) {
+                throw error;
+            }
+            return streamedCount;
+        }
+        if (response.data == null) {
+            return null;
+        }
+        MappingIterator<E> iterator = getResponseCodec(getContentType(response)).getReader(elementType).readValues(response.data);
+        return readItems(iterator);
+    }
+
+    /**
+     * Read all the elements and give them to the listener by batches. The reading stops when the request is cancelled.
+     * @param iterator iterator on the array elements
+     * @return the number of elements read
+     * @throws IOException when an element cannot be read
+     */
+    private int readItems(@NonNull MappingIterator<E> iterator) throws IOException {
+        int count = 0;
+        List<E> batch = new ArrayList<>(batchSize);
+        try {
+            while (!isCanceled() && iterator.hasNextValue()) {
+                batch.add(iterator.nextValue());
+                count++;
+                if (batch.size() >= batchSize) {
+                    deliverItems(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                deliverItems(batch);
+            }
+        } finally {
+            iterator.close();
+        }
+        return count;
+    }
+
+    /**
+     * Give a batch to the items listener, waiting while too many batches are not yet handled by the listener
+     * @param items the batch
+     * @throws InterruptedIOException when the thread is interrupted while waiting
+     */
+    private void deliverItems(@NonNull final List<E> items) throws InterruptedIOException {
+        final ArrayStreamListener<E> listener = itemsListener;
+        if (listener == null || !acquirePendingBatch()) {
+            return;
+        }
+        itemsDelivered = true;
+        itemsExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!isCanceled()) {
+                        listener.onItems(ArrayStreamRequest.this, items);
+                    }
+                } finally {
+                    pendingBatches.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Wait until the listener can receive a new batch
+     * @return false when the request is cancelled while waiting
+     * @throws InterruptedIOException when the thread is interrupted while waiting
+     */
+    private boolean acquirePendingBatch() throws InterruptedIOException {
+        try {
+            while (!pendingBatches.tryAcquire(CANCEL_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                if (isCanceled()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the items listener");
+        }
+    }
+
+    /**
+     * Get the type of the array elements
+     * @return the element type, not null
+     */
+    @NonNull
+    public JavaType getElementType() {
+        return elementType;
+    }
+
+    /**
+     * Get the number of elements given to the items listener at once
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Get the number of batches given to the items executor and not yet handled by the listener, at most
+     * @return the number of batches
+     */
+    public int getMaxPendingBatches() {
+        return maxPendingBatches;
+    }
+}
@@ -5,16 +5,27 @@ import androidx.annotation.Nullable;
 
 import com.android.volley.AuthFailureError;
 import com.android.volley.Request;
+import com.android.volley.VolleyError;
 import com.android.volley.VolleyLog;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.codec.Codec;
 import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.listener.ResponseTransformer;
+import com.neopixl.spitfire.model.BodyCompression;
+import com.neopixl.spitfire.network.StreamingBody;
+import com.neopixl.spitfire.outbox.OutboxEntry;
+import com.neopixl.spitfire.outbox.RequestOutbox;
+import com.neopixl.spitfire.utils.CanonicalUrlBuilder;
+import com.neopixl.spitfire.utils.ParameterEncoder;
 
 import org.json.JSONObject;
 
-import java.net.URLEncoder;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Created by Florian ALONSO on 12/30/16.
@@ -23,12 +34,29 @@ import java.util.Map;
 
 public class BaseRequest<T> extends AbstractRequest<T> {
 
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+
     @Nullable
     private final Object jsonObject;
 
     @Nullable
     private final Map<String, String> parameters;
 
+    @Nullable
+    private final BodyCompression bodyCompression;
+
+    @Nullable
+    private volatile String bodyContentEncoding;
+
+    @Nullable
+    private final RequestOutbox outbox;
+
+    @Nullable
+    private final String outboxOrderingKey;
+
+    @Nullable
+    private volatile OutboxEntry outboxEntry;
+
     /**
      * Class Builder used to create a new request
      */
@@ -40,6 +68,15 @@ public class BaseRequest<T> extends AbstractRequest<T> {
         @Nullable
         private Object jsonObject;
 
+        @Nullable
+        private BodyCompression bodyCompression;
+
+        @Nullable
+        private RequestOutbox outbox;
+
+        @Nullable
+        private String outboxOrderingKey;
+
         /**
          * Default
          *
@@ -51,6 +88,28 @@ public class BaseRequest<T> extends AbstractRequest<T> {
             super(method, url, classResponse);
         }
 
+        /**
+         * Constructor used for the generic responses, like List&lt;DummyResponse&gt;
+         *
+         * @param method        used to send the request
+         * @param url           given url to access the resource, not null
+         * @param typeResponse  full type used to parse the response, not null
+         */
+        public Builder(int method, @NonNull String url, @NonNull TypeReference<T> typeResponse) {
+            super(method, url, typeResponse);
+        }
+
+        /**
+         * Constructor used with an already resolved type, the type should match &lt;T&gt;
+         *
+         * @param method            used to send the request
+         * @param url               given url to access the resource, not null
+         * @param javaTypeResponse  type used to parse the response, not null
+         */
+        public Builder(int method, @NonNull String url, @NonNull JavaType javaTypeResponse) {
+            super(method, url, javaTypeResponse);
+        }
+
         /**
          * Specifies the object
          * @param jsonObject The object to be embedded in the body, can be null
@@ -73,6 +132,42 @@ public class BaseRequest<T> extends AbstractRequest<T> {
             return this;
         }
 
+        /**
+         * Set the compression of the JSON or form body, sent with a Content-Encoding header
+         * @param bodyCompression {@link BodyCompression}, can be null to use the compression of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> bodyCompression(@Nullable BodyCompression bodyCompression) {
+            this.bodyCompression = bodyCompression;
+            return this;
+        }
+
+        /**
+         * Save the POST, PUT and PATCH requests failing because the device is offline, to send them again later
+         * @param outbox {@link RequestOutbox}, can be null
+         * @param orderingKey the key of the requests replayed one after the other, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> outbox(@Nullable RequestOutbox outbox, @Nullable String orderingKey) {
+            this.outbox = outbox;
+            this.outboxOrderingKey = orderingKey;
+            return this;
+        }
+
+        /**
+         * Set the codec writing the body and reading the response
+         * @param codec {@link Codec}, can be null to use the default codec of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> codec(@Nullable Codec codec) {
+            super.codec(codec);
+            return this;
+        }
+
         /**
          * Set the listener for the request
          * @param listener {@link RequestListener}, can be null
@@ -85,6 +180,30 @@ public class BaseRequest<T> extends AbstractRequest<T> {
             return this;
         }
 
+        /**
+         * Set the executor calling the listener, instead of the delivery of the request queue
+         * @param deliveryExecutor the executor, can be null to use the executor of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> deliveryExecutor(@Nullable Executor deliveryExecutor) {
+            super.deliveryExecutor(deliveryExecutor);
+            return this;
+        }
+
+        /**
+         * Set the transformation applied to the parsed response on the network thread
+         * @param responseTransformer {@link ResponseTransformer}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> responseTransformer(@Nullable ResponseTransformer<T> responseTransformer) {
+            super.responseTransformer(responseTransformer);
+            return this;
+        }
+
         /**
          * Set the headers for the request
          * @param headers used to send the request, not null
@@ -117,6 +236,9 @@ public class BaseRequest<T> extends AbstractRequest<T> {
 
         this.parameters = builder.parameters;
         this.jsonObject = builder.jsonObject;
+        this.bodyCompression = builder.bodyCompression != null ? builder.bodyCompression : SpitfireManager.getBodyCompression();
+        this.outbox = builder.outbox;
+        this.outboxOrderingKey = builder.outboxOrderingKey;
 
         if (builder.method == Method.GET && jsonObject != null) {
             throw new IllegalArgumentException("Cannot use json body request with GET");
@@ -124,12 +246,12 @@ public class BaseRequest<T> extends AbstractRequest<T> {
     }
 
     /**
-     * Get the json content type  (default : "application/json; charset=UTF-8")
+     * Get the json content type, given by the codec of the request (default : "application/json; charset=UTF-8")
      * @return the current content type
      */
     @NonNull
     public String getJsonContentType() {
-        return "application/json; charset=" + getParamsEncoding();
+        return getCodec().getContentType(getParamsEncoding());
     }
 
     /**
@@ -164,9 +286,101 @@ public class BaseRequest<T> extends AbstractRequest<T> {
         String bodyContentType = getBodyContentType();
         int method = getMethod();
         if (method != Method.GET && bodyContentType != null && bodyContentType.equals(getJsonContentType())) {
+            return bodyCompression != null ? getCompressedJsonBody(bodyCompression) : getJsonBody();
+        }
+        byte[] formBody = super.calculateBody();
+        if (formBody == null || bodyCompression == null) {
+            return formBody;
+        }
+        try {
+            return setContentEncoding(JsonBodyWriter.compress(formBody, bodyCompression));
+        } catch (IOException e) {
+            VolleyLog.e(e, "An error occurred while compressing the body:");
+            return formBody;
+        }
+    }
+
+    /**
+     * Returns the JSON body, compressed while it is serialized when it reaches the minimum size of the compression
+     * @param compression the compression of the body
+     * @return the body, can be null
+     */
+    @Nullable
+    private byte[] getCompressedJsonBody(@NonNull BodyCompression compression) {
+        try {
+            byte[] body = setContentEncoding(JsonBodyWriter.write(getCodec().getWriter(), getJsonObject(), compression));
+            if (VolleyLog.DEBUG) {
+                VolleyLog.d("Sending JSON BODY (%s bytes, content encoding: %s)", body.length, bodyContentEncoding);
+            }
+            return body;
+        } catch (IOException e) {
             return getJsonBody();
         }
-        return super.calculateBody();
+    }
+
+    @NonNull
+    private byte[] setContentEncoding(@NonNull JsonBodyWriter.Body body) {
+        this.bodyContentEncoding = body.contentEncoding;
+        return body.data;
+    }
+
+    /**
+     * Returns the headers of the request, with the Content-Encoding of a compressed body.
+     * @throws AuthFailureError In the event of auth failure.
+     * @return Map&lt;String, String&gt;
+     */
+    @Override
+    @NonNull
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        Map<String, String> headers = super.getHeaders();
+        if (bodyCompression != null && getMethod() != Method.GET && !(this instanceof StreamingBody)) {
+            // the body is calculated once, the stacks read the headers before the body
+            getBody();
+            String contentEncoding = bodyContentEncoding;
+            if (contentEncoding != null) {
+                headers.put(HEADER_CONTENT_ENCODING, contentEncoding);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Get the compression of the JSON or form body
+     * @return the compression, null when the body is not compressed
+     */
+    @Nullable
+    public BodyCompression getBodyCompression() {
+        return bodyCompression;
+    }
+
+    /**
+     * Save the request in the outbox when it failed because the device is offline, before the error is delivered.
+     * Note: This method is called on the network thread.
+     * @param volleyError the error
+     * @return the error, not modified
+     */
+    @Override
+    protected VolleyError parseNetworkError(VolleyError volleyError) {
+        RequestOutbox currentOutbox = outbox;
+        int method = getMethod();
+        if (currentOutbox != null && outboxEntry == null && RequestOutbox.isOffline(volleyError)
+                && (method == Method.POST || method == Method.PUT || method == Method.PATCH)) {
+            try {
+                outboxEntry = currentOutbox.add(this, outboxOrderingKey);
+            } catch (IOException e) {
+                VolleyLog.e(e, "The request could not be saved in the outbox:");
+            }
+        }
+        return super.parseNetworkError(volleyError);
+    }
+
+    /**
+     * Get the entry saved in the outbox when the request failed because the device was offline
+     * @return the saved entry, null when the request was not saved
+     */
+    @Nullable
+    public OutboxEntry getOutboxEntry() {
+        return outboxEntry;
     }
 
 
@@ -181,17 +395,24 @@ public class BaseRequest<T> extends AbstractRequest<T> {
     @Nullable
     public byte[] getJsonBody() {
         byte ptext[];
+        Codec codec = getCodec();
         try {
-            ptext = SpitfireManager.getObjectMapper().writeValueAsBytes(getJsonObject());
-        } catch (JsonProcessingException e) {
+            ptext = JsonBodyWriter.write(codec.getWriter(), getJsonObject());
+        } catch (IOException e) {
             JSONObject object = new JSONObject(getParams());
             ptext = object.toString().getBytes();
         }
 
-        try {
-            VolleyLog.d("Sending JSON BODY : " + new String(ptext, getParamsEncoding()));
-        } catch (Exception e) {
-            VolleyLog.d("Sending JSON BODY");
+        if (VolleyLog.DEBUG) {
+            if (codec.isBinary()) {
+                VolleyLog.d("Sending %s BODY (%s bytes)", codec.getMediaType(), ptext.length);
+                return ptext;
+            }
+            try {
+                VolleyLog.d("Sending JSON BODY : " + new String(ptext, getParamsEncoding()));
+            } catch (Exception e) {
+                VolleyLog.d("Sending JSON BODY");
+            }
         }
         return ptext;
     }
@@ -232,6 +453,8 @@ public class BaseRequest<T> extends AbstractRequest<T> {
 
     /**
      * Converts a base URL, endpoint, and parameters into a full URL
+     * <p>When the canonical URLs are enabled ({@link SpitfireManager#setCanonicalUrlEnabled(boolean)}),
+     * the parameters are sorted and encoded by the {@link CanonicalUrlBuilder}.</p>
      *
      * @param method The <b>com.android.volley.Request.Method</b> of the URL
      * @param url    The URL, not null
@@ -242,25 +465,10 @@ public class BaseRequest<T> extends AbstractRequest<T> {
     @NonNull
     protected String parseGetUrl(int method, @NonNull String url, @Nullable Map<String, String> params, @NonNull String encoding) {
         if (method == Request.Method.GET && params != null && !params.isEmpty()) {
-            final StringBuilder result = new StringBuilder(url);
-            final int startLength = result.length();
-            for (String key : params.keySet()) {
-                try {
-                    final String encodedKey = URLEncoder.encode(key, encoding);
-                    final String encodedValue = URLEncoder.encode(params.get(key), encoding);
-                    if (result.length() > startLength) {
-                        result.append("&");
-                    } else {
-                        result.append("?");
-                    }
-                    result.append(encodedKey);
-                    result.append("=");
-                    result.append(encodedValue);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+            if (SpitfireManager.isCanonicalUrlEnabled()) {
+                return CanonicalUrlBuilder.build(url, params, encoding);
             }
-            return result.toString();
+            return ParameterEncoder.appendQuery(url, params, encoding);
         } else {
             return url;
         }
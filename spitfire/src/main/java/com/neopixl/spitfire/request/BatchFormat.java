@@ -0,0 +1,48 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Format of the body of a {@link BatchRequest}: the way the requests are combined in a single body, and the way
+ * the combined response is split back into a response for each request.
+ * <p>The default format is {@link MultipartBatchFormat} (multipart/mixed), another format can be used to send
+ * the requests in a JSON envelope.</p>
+ */
+public interface BatchFormat {
+
+    /**
+     * Get the Content-Type of the batch body
+     * @return the content type, not null
+     */
+    @NonNull
+    String getContentType();
+
+    /**
+     * Write the requests in the batch body.
+     * Note: This method is called on the network thread.
+     * @param outputStream the batch body, not null
+     * @param requests the requests to combine, in the order of the batch, not null
+     * @throws IOException when the body cannot be written
+     * @throws AuthFailureError when the headers or the body of a request cannot be computed
+     */
+    void writeRequests(@NonNull OutputStream outputStream, @NonNull List<? extends Request<?>> requests) throws IOException, AuthFailureError;
+
+    /**
+     * Split the batch response into the responses of the requests.
+     * Note: This method is called on the network thread.
+     * @param response the response of the batch, not null
+     * @param requestCount the number of requests in the batch
+     * @return the responses in the order of the requests, an element is null when the request has no response
+     * @throws IOException when the batch response cannot be read
+     */
+    @NonNull
+    List<NetworkResponse> readResponses(@NonNull NetworkResponse response, int requestCount) throws IOException;
+}
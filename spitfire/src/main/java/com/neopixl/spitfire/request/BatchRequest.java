@@ -0,0 +1,304 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.ClientError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.RetryPolicy;
+import com.android.volley.ServerError;
+import com.android.volley.VolleyError;
+import com.android.volley.VolleyLog;
+import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.network.StreamingResponse;
+import com.neopixl.spitfire.retry.AdaptiveRetryPolicy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request sending several requests in a single HTTP round trip to a batch endpoint.
+ * <p>The requests are combined in one body by a {@link BatchFormat} ({@link MultipartBatchFormat} by default).
+ * The batch response is split into a response for each request, parsed on the network thread with the type of
+ * the request, then delivered to the listener of each request as if it was sent alone. When the batch fails,
+ * the error is delivered to all the requests.</p>
+ * <p>The batched requests are not added to the queue: they are not cached, and they are cancelled with the
+ * batch, or one by one with their own <b>cancel()</b>.</p>
+ */
+public class BatchRequest extends Request<List<Response<?>>> {
+
+    @NonNull
+    private final List<BaseRequest<?>> requests;
+    @NonNull
+    private final BatchFormat format;
+    @NonNull
+    private final Map<String, String> headers;
+
+    @Nullable
+    private byte[] body;
+    @Nullable
+    private volatile List<VolleyError> requestErrors;
+
+    /**
+     * Builder used to create the batch
+     */
+    public static class Builder {
+
+        @NonNull
+        private final String url;
+        @NonNull
+        private final List<BaseRequest<?>> requests = new ArrayList<>();
+        @Nullable
+        private BatchFormat format;
+        @Nullable
+        private Map<String, String> headers;
+
+        /**
+         * Constructor for the builder
+         * @param url the URL of the batch endpoint, the batch is sent with POST, not null
+         */
+        public Builder(@NonNull String url) {
+            this.url = url;
+        }
+
+        /**
+         * Add a request to the batch, the request is not cached.
+         * The streaming requests and the parallel uploads cannot be batched
+         * @param request the request, not null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder add(@NonNull BaseRequest<?> request) {
+            if (request instanceof StreamingResponse || request instanceof ParallelUploadRequest) {
+                throw new IllegalArgumentException("Cannot batch a streaming request or a parallel upload");
+            }
+            requests.add(request);
+            return this;
+        }
+
+        /**
+         * Set the format of the batch body
+         * @param format {@link BatchFormat}, can be null to use a {@link MultipartBatchFormat}
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder format(@Nullable BatchFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * Set the headers of the batch request, the batched requests keep their own headers
+         * @param headers used to send the batch, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder headers(@Nullable Map<String, String> headers) {
+            this.headers = headers;
+            return this;
+        }
+
+        /**
+         * Build the batch
+         * @return the batch request, not null
+         */
+        @NonNull
+        public BatchRequest build() {
+            return new BatchRequest(this);
+        }
+    }
+
+    private BatchRequest(@NonNull Builder builder) {
+        super(Method.POST, builder.url, null);
+        if (builder.requests.isEmpty()) {
+            throw new IllegalArgumentException("Cannot send an empty batch");
+        }
+
+        this.requests = Collections.unmodifiableList(new ArrayList<>(builder.requests));
+        this.format = builder.format != null ? builder.format : new MultipartBatchFormat();
+        this.headers = builder.headers != null ? new HashMap<>(builder.headers) : new HashMap<String, String>();
+
+        for (BaseRequest<?> request : requests) {
+            request.setShouldCache(false);
+        }
+        setShouldCache(false);
+        setRetryPolicy(SpitfireManager.getRetryPolicy(this));
+    }
+
+    /**
+     * Get the batched requests
+     * @return the requests in the order of the batch, not null
+     */
+    @NonNull
+    public List<BaseRequest<?>> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Get the format of the batch body
+     * @return the format, not null
+     */
+    @NonNull
+    public BatchFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        return new HashMap<>(headers);
+    }
+
+    @Override
+    public String getBodyContentType() {
+        return format.getContentType();
+    }
+
+    /**
+     * Returns the batch body, combining the bodies of the requests. The body is computed only once.
+     * @throws AuthFailureError when the headers or the body of a request cannot be computed, or when the body cannot be written
+     * @return byte[], not null
+     */
+    @Override
+    @Nullable
+    public byte[] getBody() throws AuthFailureError {
+        if (body == null) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try {
+                format.writeRequests(outputStream, requests);
+                body = outputStream.toByteArray();
+            } catch (IOException e) {
+                // an empty batch would be sent to the endpoint without a body
+                throw new AuthFailureError("An error occurred while writing the batch body", e);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Cancel the batch and the batched requests
+     */
+    @Override
+    public void cancel() {
+        super.cancel();
+        for (BaseRequest<?> request : requests) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Split the batch response and parse the response of each request.
+     * Note: This method is called on the network thread.
+     * @param response the response of the batch
+     * @return the parsed responses of the requests, in the order of the batch
+     */
+    @Override
+    protected Response<List<Response<?>>> parseNetworkResponse(NetworkResponse response) {
+        // the batch endpoint has its own latency, the batched requests are not sent
+        RetryPolicy retryPolicy = getRetryPolicy();
+        if (retryPolicy instanceof AdaptiveRetryPolicy) {
+            ((AdaptiveRetryPolicy) retryPolicy).onResponse(response.networkTimeMs);
+        }
+
+        List<NetworkResponse> responses;
+        try {
+            responses = format.readResponses(response, requests.size());
+        } catch (IOException e) {
+            VolleyLog.e(e, "An error occurred while reading the batch response:");
+            return Response.error(new ParseError(response));
+        }
+
+        List<Response<?>> parsedResponses = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            NetworkResponse requestResponse = i < responses.size() ? responses.get(i) : null;
+            parsedResponses.add(parseRequestResponse(requests.get(i), requestResponse));
+        }
+        return Response.success(parsedResponses, null);
+    }
+
+    @NonNull
+    private static <T> Response<T> parseRequestResponse(@NonNull BaseRequest<T> request, @Nullable NetworkResponse response) {
+        if (response == null) {
+            return Response.error(request.parseNetworkError(new ParseError(new IOException("The batch response has no response for the request " + request.getUrl()))));
+        }
+        int statusCode = response.statusCode;
+        if ((statusCode < HttpURLConnection.HTTP_OK || statusCode >= HttpURLConnection.HTTP_MULT_CHOICE)
+                && statusCode != HttpURLConnection.HTTP_NOT_MODIFIED) {
+            return Response.error(request.parseNetworkError(getError(response)));
+        }
+        return request.parseNetworkResponse(response);
+    }
+
+    /**
+     * Get the error of a failed request, the same error as a request sent alone
+     * @param response the response of the request
+     * @return the error, not null
+     */
+    @NonNull
+    private static VolleyError getError(@NonNull NetworkResponse response) {
+        int statusCode = response.statusCode;
+        if (statusCode == HttpURLConnection.HTTP_UNAUTHORIZED || statusCode == HttpURLConnection.HTTP_FORBIDDEN) {
+            return new AuthFailureError(response);
+        }
+        if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST && statusCode < HttpURLConnection.HTTP_INTERNAL_ERROR) {
+            return new ClientError(response);
+        }
+        return new ServerError(response);
+    }
+
+    /**
+     * Parse the batch error for each request, so each request handles it as if it was sent alone.
+     * Note: This method is called on the network thread.
+     * @param volleyError the error of the batch
+     * @return the error, not modified
+     */
+    @Override
+    protected VolleyError parseNetworkError(VolleyError volleyError) {
+        List<VolleyError> errors = new ArrayList<>(requests.size());
+        for (BaseRequest<?> request : requests) {
+            errors.add(request.parseNetworkError(volleyError));
+        }
+        requestErrors = errors;
+        return volleyError;
+    }
+
+    @Override
+    protected void deliverResponse(List<Response<?>> responses) {
+        for (int i = 0; i < requests.size(); i++) {
+            deliver(requests.get(i), responses.get(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void deliver(@NonNull BaseRequest<T> request, @NonNull Response<?> response) {
+        if (request.isCanceled()) {
+            return;
+        }
+        if (response.isSuccess()) {
+            request.markDelivered();
+            request.deliverResponse((T) response.result);
+        } else {
+            request.deliverError(response.error);
+        }
+    }
+
+    @Override
+    public void deliverError(VolleyError error) {
+        List<VolleyError> errors = requestErrors;
+        for (int i = 0; i < requests.size(); i++) {
+            BaseRequest<?> request = requests.get(i);
+            if (!request.isCanceled()) {
+                request.deliverError(errors != null ? errors.get(i) : error);
+            }
+        }
+    }
+}
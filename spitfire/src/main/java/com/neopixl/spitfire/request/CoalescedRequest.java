@@ -0,0 +1,231 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Cache;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request performing a single network call and a single parse for identical requests.
+ * <p>The first attached request is used as a template (URL, headers, cache key, parse), the result is delivered to
+ * all the attached requests which are not cancelled. The call is cancelled when all the attached requests are cancelled.</p>
+ * <p>When the results are copied, the response is also parsed for each attached request, and no request can join
+ * the call once the response is parsed.</p>
+ * @param <T> The type used as the response of the attached requests
+ */
+final class CoalescedRequest<T> extends com.android.volley.Request<T> {
+
+    @NonNull
+    private final String key;
+    @NonNull
+    private final AbstractRequest<T> template;
+    @NonNull
+    private final List<AbstractRequest<T>> attachedRequests = new ArrayList<>();
+    private final boolean copyResults;
+    private boolean closed;
+
+    @Nullable
+    private volatile NetworkResponse networkResponse;
+    @Nullable
+    private volatile Map<AbstractRequest<T>, Response<T>> copies;
+
+    CoalescedRequest(@NonNull String key, @NonNull AbstractRequest<T> template, boolean copyResults) {
+        super(template.getMethod(), template.getUrl(), null);
+        this.key = key;
+        this.template = template;
+        this.copyResults = copyResults;
+
+        setRetryPolicy(template.getRetryPolicy());
+        setShouldCache(template.shouldCache());
+    }
+
+    /**
+     * Attach a request to this call
+     * @param request the request receiving the result, not null
+     * @return false when the call cannot be joined anymore (already delivered or cancelled), or when the request
+     * would not receive the same result as the template (another transformer or kind of listener)
+     */
+    boolean attach(@NonNull AbstractRequest<T> request) {
+        if (request.getResponseTransformer() != template.getResponseTransformer()
+                || request.hasFreshnessListener() != template.hasFreshnessListener()) {
+            return false;
+        }
+        synchronized (attachedRequests) {
+            if (closed || isCanceled() || hasHadResponseDelivered()) {
+                return false;
+            }
+            attachedRequests.add(request);
+        }
+        request.setCoalescedRequest(this);
+        return true;
+    }
+
+    /**
+     * Detach a cancelled request, the call is cancelled when no request is attached anymore
+     * @param request the cancelled request, not null
+     */
+    void detach(@NonNull AbstractRequest<?> request) {
+        boolean empty;
+        synchronized (attachedRequests) {
+            if (!attachedRequests.remove(request)) {
+                return;
+            }
+            empty = attachedRequests.isEmpty();
+            if (empty) {
+                closed = true;
+            }
+        }
+        if (empty) {
+            cancel();
+        }
+    }
+
+    /**
+     * Prevent new requests from joining this call, called when the call is finished
+     */
+    void close() {
+        synchronized (attachedRequests) {
+            closed = true;
+        }
+    }
+
+    /**
+     * Get the key shared by the identical requests
+     * @return the key, not null
+     */
+    @NonNull
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the number of requests waiting for the result
+     * @return the number of attached requests
+     */
+    int getAttachedCount() {
+        synchronized (attachedRequests) {
+            return attachedRequests.size();
+        }
+    }
+
+    /**
+     * Cancel the attached requests with the given tag
+     * @param tag the tag of the requests to cancel, not null
+     */
+    void cancelAttached(@NonNull Object tag) {
+        List<AbstractRequest<T>> requests;
+        synchronized (attachedRequests) {
+            requests = new ArrayList<>(attachedRequests);
+        }
+        for (AbstractRequest<T> request : requests) {
+            if (request.getTag() == tag) {
+                request.cancel();
+            }
+        }
+    }
+
+    @Override
+    public com.android.volley.Request<?> setCacheEntry(Cache.Entry entry) {
+        // the template parses the responses, it needs the cache entry read by the cache dispatcher
+        template.setCacheEntry(entry);
+        return super.setCacheEntry(entry);
+    }
+
+    @Override
+    public String getUrl() {
+        return template.getUrl();
+    }
+
+    @Override
+    public String getCacheKey() {
+        return template.getCacheKey();
+    }
+
+    @Override
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        return template.getHeaders();
+    }
+
+    @Override
+    public String getBodyContentType() {
+        return template.getBodyContentType();
+    }
+
+    @Override
+    public byte[] getBody() throws AuthFailureError {
+        return template.getBody();
+    }
+
+    @Override
+    public Priority getPriority() {
+        return template.getPriority();
+    }
+
+    @Override
+    protected Response<T> parseNetworkResponse(NetworkResponse response) {
+        networkResponse = response;
+        Response<T> parsedResponse = template.parseNetworkResponse(response);
+        if (copyResults) {
+            // a request joining now would not receive its own copy
+            close();
+            Map<AbstractRequest<T>, Response<T>> parsedCopies = new IdentityHashMap<>();
+            for (AbstractRequest<T> request : getDeliveredRequests()) {
+                if (request != template) {
+                    request.setCacheEntry(template.getCacheEntry());
+                    parsedCopies.put(request, request.parseNetworkResponse(response));
+                }
+            }
+            copies = parsedCopies;
+        }
+        return parsedResponse;
+    }
+
+    @Override
+    protected void deliverResponse(T response) {
+        NetworkResponse currentResponse = networkResponse;
+        if (currentResponse == null) {
+            return;
+        }
+        Map<AbstractRequest<T>, Response<T>> currentCopies = copies;
+        for (AbstractRequest<T> request : getDeliveredRequests()) {
+            Response<T> copy = currentCopies != null ? currentCopies.get(request) : null;
+            if (copy == null) {
+                request.deliverCoalescedResponse(currentResponse, response, template.getFreshness());
+            } else if (copy.isSuccess()) {
+                request.deliverCoalescedResponse(currentResponse, copy.result, request.getFreshness());
+            } else {
+                request.deliverError(copy.error);
+            }
+        }
+    }
+
+    @Override
+    public void deliverError(VolleyError error) {
+        close();
+        for (AbstractRequest<T> request : getDeliveredRequests()) {
+            request.deliverError(error);
+        }
+    }
+
+    @NonNull
+    private List<AbstractRequest<T>> getDeliveredRequests() {
+        List<AbstractRequest<T>> requests = new ArrayList<>();
+        synchronized (attachedRequests) {
+            for (AbstractRequest<T> request : attachedRequests) {
+                if (!request.isCanceled()) {
+                    requests.add(request);
+                }
+            }
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,172 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.fasterxml.jackson.databind.JavaType;
+import com.neopixl.spitfire.listener.ResponseTransformer;
+import com.neopixl.spitfire.network.StreamingResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Layer around a <b>RequestQueue</b> sharing a single network call between identical GET requests.
+ * <p>A {@link BaseRequest} GET added while an identical request is in flight (same method, URL with the parameters,
+ * headers, request class and response type) is attached to the existing call: the response is parsed once and
+ * delivered to the listener of each attached request. Cancelling a request only detaches it, the call is cancelled
+ * when all its requests are cancelled.</p>
+ * <p>By default all the listeners receive <b>the same instance</b> of the parsed response: a listener modifying it changes
+ * the response of the other listeners. Treat the responses as read-only, or create the layer with <b>copyResults</b>
+ * so the response is parsed once for each attached request.</p>
+ * <p>The other requests, and the streaming requests, are added to the queue as usual.</p>
+ */
+public class CoalescingRequestQueue {
+
+    @NonNull
+    private final RequestQueue requestQueue;
+    @NonNull
+    private final Map<String, CoalescedRequest<?>> inFlightRequests = new HashMap<>();
+    private final boolean copyResults;
+
+    /**
+     * Create the coalescing layer, the listeners of identical requests share the same parsed response
+     * @param requestQueue the queue performing the requests, not null
+     */
+    public CoalescingRequestQueue(@NonNull RequestQueue requestQueue) {
+        this(requestQueue, false);
+    }
+
+    /**
+     * Create the coalescing layer
+     * @param requestQueue the queue performing the requests, not null
+     * @param copyResults true to parse the shared response for each attached request, so each listener receives its
+     *                    own instance. false to parse it once and give the same instance to all the listeners
+     */
+    public CoalescingRequestQueue(@NonNull RequestQueue requestQueue, boolean copyResults) {
+        this.requestQueue = requestQueue;
+        this.copyResults = copyResults;
+        this.requestQueue.addRequestFinishedListener(new RequestQueue.RequestFinishedListener<Object>() {
+            @Override
+            public void onRequestFinished(Request<Object> request) {
+                if (request instanceof CoalescedRequest) {
+                    onCoalescedRequestFinished((CoalescedRequest<?>) request);
+                }
+            }
+        });
+    }
+
+    /**
+     * Add a request, the request is attached to an identical call in flight when possible
+     * @param request the request to add, not null
+     * @param <T> The type used as the response for the request
+     * @return the given request
+     */
+    @NonNull
+    public <T> Request<T> add(@NonNull Request<T> request) {
+        if (!isCoalescable(request)) {
+            return requestQueue.add(request);
+        }
+        BaseRequest<T> baseRequest = (BaseRequest<T>) request;
+        String key = getCoalescingKey(baseRequest);
+        if (key == null) {
+            return requestQueue.add(request);
+        }
+
+        CoalescedRequest<T> coalescedRequest;
+        synchronized (inFlightRequests) {
+            @SuppressWarnings("unchecked")
+            CoalescedRequest<T> inFlightRequest = (CoalescedRequest<T>) inFlightRequests.get(key);
+            if (inFlightRequest != null && inFlightRequest.attach(baseRequest)) {
+                baseRequest.addMarker("coalesced");
+                return request;
+            }
+            coalescedRequest = new CoalescedRequest<>(key, baseRequest, copyResults);
+            coalescedRequest.attach(baseRequest);
+            inFlightRequests.put(key, coalescedRequest);
+        }
+        requestQueue.add(coalescedRequest);
+        return request;
+    }
+
+    /**
+     * Cancel all the requests with the given tag, including the requests attached to a shared call
+     * @param tag the tag of the requests to cancel, not null
+     */
+    public void cancelAll(@NonNull Object tag) {
+        requestQueue.cancelAll(tag);
+
+        List<CoalescedRequest<?>> requests;
+        synchronized (inFlightRequests) {
+            requests = new ArrayList<CoalescedRequest<?>>(inFlightRequests.values());
+        }
+        for (CoalescedRequest<?> request : requests) {
+            request.cancelAttached(tag);
+        }
+    }
+
+    /**
+     * Get the number of shared calls in flight
+     * @return the number of calls
+     */
+    public int getInFlightCount() {
+        synchronized (inFlightRequests) {
+            return inFlightRequests.size();
+        }
+    }
+
+    /**
+     * Get the queue performing the requests
+     * @return the request queue, not null
+     */
+    @NonNull
+    public RequestQueue getRequestQueue() {
+        return requestQueue;
+    }
+
+    private static boolean isCoalescable(@NonNull Request<?> request) {
+        return request instanceof BaseRequest
+                && !(request instanceof StreamingResponse)
+                && request.getMethod() == Request.Method.GET;
+    }
+
+    /**
+     * Get the key identifying the identical requests
+     * @param request the request, not null
+     * @return the key, null when the request should not be shared
+     */
+    @Nullable
+    private static String getCoalescingKey(@NonNull BaseRequest<?> request) {
+        Map<String, String> headers;
+        try {
+            headers = new TreeMap<>(request.getHeaders());
+        } catch (AuthFailureError e) {
+            return null;
+        }
+        JavaType returnType = request.getReturnType();
+        // the result delivered to the attached requests also depends on the transformer and the listener
+        ResponseTransformer<?> transformer = request.getResponseTransformer();
+        return request.getMethod()
+                + " " + request.getUrl()
+                + " " + headers
+                + " " + request.getClass().getName()
+                + " " + (returnType != null ? returnType.toCanonical() : "void")
+                + " " + (transformer != null ? transformer.getClass().getName() + "@" + System.identityHashCode(transformer) : "none")
+                + " " + (request.hasFreshnessListener() ? "freshness" : "plain");
+    }
+
+    private void onCoalescedRequestFinished(@NonNull CoalescedRequest<?> request) {
+        request.close();
+        synchronized (inFlightRequests) {
+            if (inFlightRequests.get(request.getKey()) == request) {
+                inFlightRequests.remove(request.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * State shared by the attempts of a hedged request (see {@link HedgingRequestQueue}).
+ * <p>The first attempt receiving a response wins and the other attempt is cancelled. An error is delivered when the
+ * winner fails, or when all the sent attempts failed. The cached response of a soft-expired entry does not win: it is
+ * delivered, no duplicate is sent afterwards, and the refresh of the original attempt still wins.</p>
+ * @param <T> The type used as the response of the hedged request
+ */
+final class HedgedCall<T> {
+
+    @NonNull
+    private final HedgingRequestQueue queue;
+    @NonNull
+    private final AbstractRequest<T> template;
+    @NonNull
+    private final String endpoint;
+    private final long startMs;
+    @NonNull
+    private final HedgedRequest<T> primary;
+
+    @Nullable
+    private HedgedRequest<T> hedge;
+    @Nullable
+    private HedgedRequest<T> winner;
+    private int failedCount;
+    private boolean finished;
+    private boolean cachedResponseDelivered;
+
+    HedgedCall(@NonNull HedgingRequestQueue queue, @NonNull AbstractRequest<T> template, @NonNull String endpoint, long startMs) {
+        this.queue = queue;
+        this.template = template;
+        this.endpoint = endpoint;
+        this.startMs = startMs;
+        this.primary = new HedgedRequest<>(this, template, false);
+        template.setHedgedCall(this);
+    }
+
+    @NonNull
+    AbstractRequest<T> getTemplate() {
+        return template;
+    }
+
+    @NonNull
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the time the request was added, in milliseconds of {@link android.os.SystemClock#uptimeMillis()}
+     */
+    long getStartMs() {
+        return startMs;
+    }
+
+    @NonNull
+    HedgedRequest<T> getPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return true while no attempt received a response, no error or cached response was delivered and the request is not cancelled
+     */
+    synchronized boolean isWaiting() {
+        return !finished && winner == null && hedge == null && !cachedResponseDelivered && !template.isCanceled();
+    }
+
+    /**
+     * Create the duplicate attempt
+     * @return the duplicate, null when the call does not wait for a response anymore
+     */
+    @Nullable
+    synchronized HedgedRequest<T> startHedge() {
+        if (!isWaiting()) {
+            return null;
+        }
+        hedge = new HedgedRequest<>(this, template, true);
+        return hedge;
+    }
+
+    /**
+     * Cancel the attempts, called when the hedged request is cancelled
+     */
+    void cancel() {
+        HedgedRequest<T> currentHedge;
+        synchronized (this) {
+            finished = true;
+            currentHedge = hedge;
+        }
+        queue.onCallFinished(this);
+        primary.cancel();
+        if (currentHedge != null) {
+            currentHedge.cancel();
+        }
+    }
+
+    /**
+     * Cancel the hedged request when it has the given tag, as <b>RequestQueue.cancelAll</b> does
+     * @param tag the tag of the requests to cancel, not null
+     */
+    void cancelTagged(@NonNull Object tag) {
+        if (template.getTag() == tag) {
+            template.cancel();
+        }
+    }
+
+    /**
+     * Claim the response for an attempt, called before parsing it. The other attempt is cancelled
+     * @param attempt the attempt which received a response, not null
+     * @param networkResponse true for a response of the network, its latency is recorded, false for a cache hit
+     * @return false when the other attempt already won
+     */
+    boolean claim(@NonNull HedgedRequest<T> attempt, boolean networkResponse) {
+        HedgedRequest<T> loser;
+        synchronized (this) {
+            if (finished || winner != null) {
+                return false;
+            }
+            winner = attempt;
+            loser = attempt == primary ? hedge : primary;
+        }
+        if (loser != null) {
+            loser.cancel();
+        }
+        if (networkResponse) {
+            queue.onAttemptWon(this, attempt);
+        }
+        return true;
+    }
+
+    /**
+     * Deliver the cached response of a soft-expired entry, the call still waits for the refresh
+     * @return true when the response should be delivered
+     */
+    synchronized boolean deliverCachedResponse() {
+        if (finished || winner != null) {
+            return false;
+        }
+        cachedResponseDelivered = true;
+        return true;
+    }
+
+    /**
+     * Finish the call with the response of an attempt
+     * @param attempt the attempt delivering its response, not null
+     * @return true when the response should be delivered
+     */
+    boolean finish(@NonNull HedgedRequest<T> attempt) {
+        synchronized (this) {
+            if (finished || winner != attempt) {
+                return false;
+            }
+            finished = true;
+        }
+        queue.onCallFinished(this);
+        return true;
+    }
+
+    /**
+     * Record the error of an attempt
+     * @param attempt the failed attempt, not null
+     * @return true when the error should be delivered, false when the other attempt can still succeed
+     */
+    boolean fail(@NonNull HedgedRequest<T> attempt) {
+        synchronized (this) {
+            if (finished) {
+                return false;
+            }
+            if (winner == null) {
+                failedCount++;
+                if (failedCount < (hedge != null ? 2 : 1)) {
+                    return false;
+                }
+            } else if (winner != attempt) {
+                return false;
+            }
+            finished = true;
+        }
+        queue.onCallFinished(this);
+        return true;
+    }
+}
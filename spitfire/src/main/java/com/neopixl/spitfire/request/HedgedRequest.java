@@ -0,0 +1,136 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Cache;
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Response;
+import com.android.volley.RetryPolicy;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.retry.AdaptiveRetryPolicy;
+
+import java.util.Map;
+
+/**
+ * Attempt of a hedged request: the original attempt, or the duplicate sent when the response is late.
+ * <p>The attempt uses the hedged request as a template (URL, headers, cache key, parse). The first attempt receiving a
+ * response wins: the other attempt is cancelled and its response is not parsed. The duplicate skips the cache, so it
+ * is not held back by the Volley cache dispatcher while the original attempt is in flight.</p>
+ * <p>The original attempt uses the retry policy of the template. The duplicate gets a new policy of the same adaptive
+ * strategy, or the timeout of the template without retry: the maximum number of retries of a policy cannot be read.</p>
+ * @param <T> The type used as the response of the hedged request
+ */
+final class HedgedRequest<T> extends com.android.volley.Request<T> {
+
+    @NonNull
+    private final HedgedCall<T> call;
+    @NonNull
+    private final AbstractRequest<T> template;
+    private final boolean hedge;
+
+    @Nullable
+    private volatile NetworkResponse networkResponse;
+    private volatile boolean intermediate;
+
+    HedgedRequest(@NonNull HedgedCall<T> call, @NonNull AbstractRequest<T> template, boolean hedge) {
+        super(template.getMethod(), template.getUrl(), null);
+        this.call = call;
+        this.template = template;
+        this.hedge = hedge;
+
+        setTag(template.getTag());
+        if (hedge) {
+            setShouldCache(false);
+            // a policy counts the retries of a single request, the duplicate cannot share the policy of the template
+            RetryPolicy templatePolicy = template.getRetryPolicy();
+            setRetryPolicy(templatePolicy instanceof AdaptiveRetryPolicy
+                    ? ((AdaptiveRetryPolicy) templatePolicy).copy(this)
+                    : new DefaultRetryPolicy(templatePolicy.getCurrentTimeout(), 0, DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
+        } else {
+            setShouldCache(template.shouldCache());
+            setRetryPolicy(template.getRetryPolicy());
+        }
+    }
+
+    /**
+     * @return true for the duplicate, false for the original attempt
+     */
+    boolean isHedge() {
+        return hedge;
+    }
+
+    @Override
+    public com.android.volley.Request<?> setCacheEntry(Cache.Entry entry) {
+        // the template parses the responses, it needs the cache entry read by the cache dispatcher
+        if (!hedge) {
+            template.setCacheEntry(entry);
+        }
+        return super.setCacheEntry(entry);
+    }
+
+    @Override
+    public String getUrl() {
+        return template.getUrl();
+    }
+
+    @Override
+    public String getCacheKey() {
+        return template.getCacheKey();
+    }
+
+    @Override
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        return template.getHeaders();
+    }
+
+    @Override
+    public String getBodyContentType() {
+        return template.getBodyContentType();
+    }
+
+    @Override
+    public byte[] getBody() throws AuthFailureError {
+        return template.getBody();
+    }
+
+    @Override
+    public Priority getPriority() {
+        return template.getPriority();
+    }
+
+    @Override
+    protected Response<T> parseNetworkResponse(NetworkResponse response) {
+        Cache.Entry cacheEntry = getCacheEntry();
+        boolean cacheHit = cacheEntry != null && !response.notModified && cacheEntry.data == response.data;
+        // a soft-expired entry is delivered, then this attempt is sent to the network to refresh it
+        intermediate = cacheHit && cacheEntry.refreshNeeded();
+        if (!intermediate && !call.claim(this, !cacheHit)) {
+            // the other attempt won, this attempt is cancelled and its response is dropped
+            return Response.error(new VolleyError("The hedged request already has a response"));
+        }
+        networkResponse = response;
+        return template.parseNetworkResponse(response);
+    }
+
+    @Override
+    protected void deliverResponse(T response) {
+        NetworkResponse currentResponse = networkResponse;
+        if (currentResponse == null || template.isCanceled()) {
+            return;
+        }
+        if (intermediate ? !call.deliverCachedResponse() : !call.finish(this)) {
+            return;
+        }
+        template.deliverCoalescedResponse(currentResponse, response, template.getFreshness());
+    }
+
+    @Override
+    public void deliverError(VolleyError error) {
+        if (call.fail(this) && !template.isCanceled()) {
+            template.deliverError(error);
+        }
+    }
+}
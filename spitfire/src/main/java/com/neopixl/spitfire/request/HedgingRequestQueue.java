@@ -0,0 +1,382 @@
+package com.neopixl.spitfire.request;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.neopixl.spitfire.network.StreamingResponse;
+import com.neopixl.spitfire.retry.RetryBudget;
+import com.neopixl.spitfire.utils.EndpointTemplate;
+import com.neopixl.spitfire.utils.LatencyTracker;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Layer around a <b>RequestQueue</b> hedging the {@link BaseRequest} GETs against the slow responses.
+ * <p>The latencies of the requests are recorded by endpoint (HTTP method and template of the URL, see {@link EndpointTemplate})
+ * in a {@link LatencyTracker}. When a request has no response after a percentile of the latencies of its endpoint (p95 by default), a duplicate is
+ * sent. The first response wins: the other call is cancelled and its response is not parsed. Nothing is hedged until
+ * enough latencies are recorded for the endpoint.</p>
+ * <p>The duplicates are limited by a {@link RetryBudget}: each request deposits the hedge ratio (5% by default) and each
+ * duplicate withdraws 1. The number of requests, duplicates, duplicates winning and duplicates refused by the budget
+ * are available to report the hedging in the metrics. The {@link com.neopixl.spitfire.model.RequestMetrics} of a request
+ * also tell if a duplicate was sent and won, so a <b>MetricsAggregator</b> reports the hedge rate by endpoint.</p>
+ * <p>Only the GETs are hedged, they are idempotent. The other requests, and the streaming requests, are added to the queue as usual.</p>
+ */
+public class HedgingRequestQueue {
+
+    /**
+     * Default percentile of the latencies after which a duplicate is sent
+     */
+    public static final double DEFAULT_PERCENTILE = 95;
+
+    /**
+     * Default minimum delay before a duplicate is sent, in milliseconds
+     */
+    public static final int DEFAULT_MIN_DELAY_MS = 10;
+
+    /**
+     * Default number of latencies needed to hedge the requests of an endpoint
+     */
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+
+    /**
+     * Default number of latencies after which the latencies of an endpoint are discarded
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 1000;
+
+    /**
+     * Default ratio of duplicates, 5% of the requests
+     */
+    public static final double DEFAULT_HEDGE_RATIO = 0.05;
+
+    /**
+     * Default maximum number of endpoints
+     */
+    public static final int DEFAULT_MAX_ENDPOINTS = 200;
+
+    private static final long NO_HEDGE = -1;
+
+    @NonNull
+    private final RequestQueue requestQueue;
+    private final int minDelayMs;
+    @NonNull
+    private final LatencyTracker latencies;
+    @NonNull
+    private final RetryBudget hedgeBudget;
+    @NonNull
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    @NonNull
+    private final Set<HedgedCall<?>> inFlightCalls = new HashSet<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+    private final AtomicLong budgetExhaustedCount = new AtomicLong();
+
+    /**
+     * Builder used to create the hedging layer
+     */
+    public static class Builder {
+
+        @NonNull
+        private final RequestQueue requestQueue;
+        private double percentile = DEFAULT_PERCENTILE;
+        private int minDelayMs = DEFAULT_MIN_DELAY_MS;
+        private int minSamples = DEFAULT_MIN_SAMPLES;
+        private int windowSize = DEFAULT_WINDOW_SIZE;
+        private int maxEndpoints = DEFAULT_MAX_ENDPOINTS;
+        @Nullable
+        private RetryBudget hedgeBudget;
+
+        /**
+         * Create the builder
+         * @param requestQueue the queue performing the requests, not null
+         */
+        public Builder(@NonNull RequestQueue requestQueue) {
+            this.requestQueue = requestQueue;
+        }
+
+        /**
+         * Set the percentile of the latencies after which a duplicate is sent, p95 by default
+         * @param percentile the percentile, between 0 and 100
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder hedgePercentile(double percentile) {
+            if (percentile <= 0 || percentile > 100) {
+                throw new IllegalArgumentException("The percentile should be between 0 and 100");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Set the minimum delay before a duplicate is sent, 10 ms by default
+         * @param minDelayMs the delay in milliseconds, 0 or more
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder minDelay(int minDelayMs) {
+            if (minDelayMs < 0) {
+                throw new IllegalArgumentException("The minimum delay should be 0 or more");
+            }
+            this.minDelayMs = minDelayMs;
+            return this;
+        }
+
+        /**
+         * Set the number of latencies needed to hedge the requests of an endpoint (20 by default), and the number of
+         * latencies after which they are discarded (1000 by default)
+         * @param minSamples the minimum number of latencies, greater than 0
+         * @param windowSize the size of the window, greater than or equal to the minimum number of latencies
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder samples(int minSamples, int windowSize) {
+            if (minSamples <= 0 || windowSize < minSamples) {
+                throw new IllegalArgumentException("The minimum number of samples should be greater than 0 and lower than the window");
+            }
+            this.minSamples = minSamples;
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Set the budget limiting the duplicates
+         * @param hedgeBudget {@link RetryBudget} where each duplicate withdraws 1, can be null to use a budget of
+         *                    {@link #DEFAULT_HEDGE_RATIO} of the requests
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder hedgeBudget(@Nullable RetryBudget hedgeBudget) {
+            this.hedgeBudget = hedgeBudget;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of endpoints, 200 by default
+         * @param maxEndpoints number of endpoints, greater than 0
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder maxEndpoints(int maxEndpoints) {
+            if (maxEndpoints <= 0) {
+                throw new IllegalArgumentException("The maximum number of endpoints should be greater than 0");
+            }
+            this.maxEndpoints = maxEndpoints;
+            return this;
+        }
+
+        /**
+         * Build the hedging layer
+         * @return the hedging layer, not null
+         */
+        @NonNull
+        public HedgingRequestQueue build() {
+            return new HedgingRequestQueue(this);
+        }
+    }
+
+    private HedgingRequestQueue(@NonNull Builder builder) {
+        this.requestQueue = builder.requestQueue;
+        this.minDelayMs = builder.minDelayMs;
+        this.latencies = new LatencyTracker(builder.percentile, builder.minSamples, builder.windowSize, builder.maxEndpoints);
+        this.hedgeBudget = builder.hedgeBudget != null ? builder.hedgeBudget
+                : new RetryBudget(DEFAULT_HEDGE_RATIO, RetryBudget.DEFAULT_MAX_BALANCE);
+    }
+
+    /**
+     * Add a request, a duplicate is sent if the response of a GET is late
+     * @param request the request to add, not null
+     * @param <T> The type used as the response for the request
+     * @return the given request
+     */
+    @NonNull
+    public <T> Request<T> add(@NonNull Request<T> request) {
+        if (!isHedgeable(request)) {
+            return requestQueue.add(request);
+        }
+        String endpoint = EndpointTemplate.getEndpoint(request);
+        requestCount.incrementAndGet();
+        hedgeBudget.recordRequest();
+
+        final HedgedCall<T> call = new HedgedCall<>(this, (BaseRequest<T>) request, endpoint, SystemClock.uptimeMillis());
+        synchronized (inFlightCalls) {
+            inFlightCalls.add(call);
+        }
+        requestQueue.add(call.getPrimary());
+        long delayMs = getHedgeDelayMs(endpoint);
+        if (delayMs != NO_HEDGE) {
+            handler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    sendHedge(call);
+                }
+            }, delayMs);
+        }
+        return request;
+    }
+
+    /**
+     * Cancel all the requests with the given tag, including the hedged requests and their attempts.
+     * The tag should be set before adding the requests
+     * @param tag the tag of the requests to cancel, not null
+     */
+    public void cancelAll(@NonNull Object tag) {
+        requestQueue.cancelAll(tag);
+
+        List<HedgedCall<?>> calls;
+        synchronized (inFlightCalls) {
+            calls = new ArrayList<HedgedCall<?>>(inFlightCalls);
+        }
+        for (HedgedCall<?> call : calls) {
+            call.cancelTagged(tag);
+        }
+    }
+
+    /**
+     * Get the delay after which a duplicate of a request is sent
+     * @param request the request, not null
+     * @return the delay in milliseconds, -1 when the request is not hedged
+     */
+    public long getHedgeDelayMs(@NonNull Request<?> request) {
+        return isHedgeable(request) ? getHedgeDelayMs(EndpointTemplate.getEndpoint(request)) : NO_HEDGE;
+    }
+
+    /**
+     * Get the number of hedged requests in flight
+     * @return the number of requests
+     */
+    public int getInFlightCount() {
+        synchronized (inFlightCalls) {
+            return inFlightCalls.size();
+        }
+    }
+
+    /**
+     * @return the number of hedgeable requests added
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of duplicates sent
+     */
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    /**
+     * @return the number of duplicates which received their response before the original request
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    /**
+     * @return the number of duplicates not sent because the budget was exhausted
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.get();
+    }
+
+    /**
+     * Get the ratio of duplicates sent
+     * @return the number of duplicates divided by the number of hedgeable requests, 0 without request
+     */
+    public double getHedgeRate() {
+        long requests = requestCount.get();
+        return requests > 0 ? (double) hedgeCount.get() / requests : 0;
+    }
+
+    /**
+     * Get the budget limiting the duplicates
+     * @return the budget, not null
+     */
+    @NonNull
+    public RetryBudget getHedgeBudget() {
+        return hedgeBudget;
+    }
+
+    /**
+     * Get the queue performing the requests
+     * @return the request queue, not null
+     */
+    @NonNull
+    public RequestQueue getRequestQueue() {
+        return requestQueue;
+    }
+
+    /**
+     * Remove the latencies of all the endpoints, the counters are kept
+     */
+    public void reset() {
+        latencies.reset();
+    }
+
+    void recordLatency(@NonNull Request<?> request, long latencyMs) {
+        latencies.record(EndpointTemplate.getEndpoint(request), latencyMs);
+    }
+
+    /**
+     * Called when an attempt of a hedged request received the first response
+     * @param call the hedged request, not null
+     * @param attempt the winning attempt, not null
+     */
+    void onAttemptWon(@NonNull HedgedCall<?> call, @NonNull HedgedRequest<?> attempt) {
+        latencies.record(call.getEndpoint(), SystemClock.uptimeMillis() - call.getStartMs());
+        if (attempt.isHedge()) {
+            hedgeWinCount.incrementAndGet();
+            call.getTemplate().addMarker("hedge-won");
+        }
+    }
+
+    /**
+     * Called when a hedged request is finished or cancelled
+     * @param call the hedged request, not null
+     */
+    void onCallFinished(@NonNull HedgedCall<?> call) {
+        synchronized (inFlightCalls) {
+            inFlightCalls.remove(call);
+        }
+    }
+
+    private void sendHedge(@NonNull HedgedCall<?> call) {
+        if (!call.isWaiting()) {
+            return;
+        }
+        if (!hedgeBudget.tryAcquireRetry()) {
+            budgetExhaustedCount.incrementAndGet();
+            call.getTemplate().addMarker("hedge-budget-exhausted");
+            return;
+        }
+        HedgedRequest<?> hedge = call.startHedge();
+        if (hedge == null) {
+            return;
+        }
+        hedgeCount.incrementAndGet();
+        call.getTemplate().addMarker("hedge-sent");
+        requestQueue.add(hedge);
+    }
+
+    private long getHedgeDelayMs(@NonNull String endpoint) {
+        long latencyMs = latencies.getPercentile(endpoint);
+        return latencyMs != LatencyTracker.NOT_AVAILABLE ? Math.max(minDelayMs, latencyMs) : NO_HEDGE;
+    }
+
+    private static boolean isHedgeable(@NonNull Request<?> request) {
+        return request instanceof BaseRequest
+                && !(request instanceof StreamingResponse)
+                && request.getMethod() == Request.Method.GET;
+    }
+}
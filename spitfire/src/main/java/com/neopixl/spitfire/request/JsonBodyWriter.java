@@ -0,0 +1,134 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.toolbox.ByteArrayPool;
+import com.android.volley.toolbox.PoolingByteArrayOutputStream;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.neopixl.spitfire.model.BodyCompression;
+import com.neopixl.spitfire.utils.CompressingOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Serializes the JSON bodies, or the bodies of another codec, into buffers recycled from a shared <b>ByteArrayPool</b>.
+ * <p>The value is written once in a pooled buffer, then copied into the body array: the growing buffers of
+ * <b>ObjectWriter.writeValueAsBytes</b> are not allocated for each request. The compressed bodies are written
+ * in the same buffers.</p>
+ */
+final class JsonBodyWriter {
+
+    /**
+     * Maximum number of bytes kept by the pool, the larger buffers are not recycled
+     */
+    static final int POOL_SIZE = 64 * 1024;
+
+    /**
+     * Size of the buffer requested for a new body
+     */
+    static final int INITIAL_BUFFER_SIZE = 1024;
+
+    @NonNull
+    private static final ByteArrayPool POOL = new ByteArrayPool(POOL_SIZE);
+
+    private JsonBodyWriter() {
+    }
+
+    /**
+     * Serialize the value in a pooled buffer
+     * @param objectWriter the writer used to serialize the value, not null
+     * @param value the value to serialize, can be null
+     * @return the serialized value, not null
+     * @throws IOException when the value cannot be serialized
+     */
+    @NonNull
+    static byte[] write(@NonNull ObjectWriter objectWriter, @Nullable Object value) throws IOException {
+        PoolingByteArrayOutputStream outputStream = new PoolingByteArrayOutputStream(POOL, INITIAL_BUFFER_SIZE);
+        try {
+            writeValue(objectWriter, outputStream, value);
+            return outputStream.toByteArray();
+        } finally {
+            // the buffer goes back to the pool
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Serialize the value in a pooled buffer, the serialized value is compressed while it is written
+     * once it reaches the minimum size of the compression
+     * @param objectWriter the writer used to serialize the value, not null
+     * @param value the value to serialize, can be null
+     * @param compression the compression of the body, not null
+     * @return the body, not null
+     * @throws IOException when the value cannot be serialized
+     */
+    @NonNull
+    static Body write(@NonNull ObjectWriter objectWriter, @Nullable Object value, @NonNull BodyCompression compression) throws IOException {
+        PoolingByteArrayOutputStream outputStream = new PoolingByteArrayOutputStream(POOL, INITIAL_BUFFER_SIZE);
+        try {
+            CompressingOutputStream compressingStream = newCompressingStream(outputStream, compression, compression.getMinSize());
+            try {
+                writeValue(objectWriter, compressingStream, value);
+            } finally {
+                compressingStream.finish();
+            }
+            return new Body(outputStream.toByteArray(), compressingStream.isCompressed() ? compression.getAlgorithm().getContentEncoding() : null);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Compress an encoded body when it reaches the minimum size of the compression
+     * @param body the body, not null
+     * @param compression the compression of the body, not null
+     * @return the body, not null
+     * @throws IOException when the body cannot be compressed
+     */
+    @NonNull
+    static Body compress(@NonNull byte[] body, @NonNull BodyCompression compression) throws IOException {
+        if (body.length < compression.getMinSize()) {
+            return new Body(body, null);
+        }
+        PoolingByteArrayOutputStream outputStream = new PoolingByteArrayOutputStream(POOL, INITIAL_BUFFER_SIZE);
+        try {
+            CompressingOutputStream compressingStream = newCompressingStream(outputStream, compression, 0);
+            compressingStream.write(body);
+            compressingStream.finish();
+            return new Body(outputStream.toByteArray(), compression.getAlgorithm().getContentEncoding());
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private static void writeValue(@NonNull ObjectWriter objectWriter, @NonNull OutputStream outputStream, @Nullable Object value) throws IOException {
+        // the stream is kept open to read its content
+        objectWriter
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValue(outputStream, value);
+    }
+
+    @NonNull
+    private static CompressingOutputStream newCompressingStream(@NonNull OutputStream outputStream, @NonNull BodyCompression compression, int minSize) {
+        return new CompressingOutputStream(outputStream, compression.getAlgorithm() == BodyCompression.Algorithm.GZIP, minSize);
+    }
+
+    /**
+     * Encoded body, with the content encoding of the compressed bodies
+     */
+    static final class Body {
+
+        @NonNull
+        final byte[] data;
+        @Nullable
+        final String contentEncoding;
+
+        Body(@NonNull byte[] data, @Nullable String contentEncoding) {
+            this.data = data;
+            this.contentEncoding = contentEncoding;
+        }
+    }
+}
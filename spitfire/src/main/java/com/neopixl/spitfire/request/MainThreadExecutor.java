@@ -0,0 +1,22 @@
+package com.neopixl.spitfire.request;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor running the commands on the main thread, like the default Volley response delivery.
+ */
+final class MainThreadExecutor implements Executor {
+
+    @NonNull
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        handler.post(command);
+    }
+}
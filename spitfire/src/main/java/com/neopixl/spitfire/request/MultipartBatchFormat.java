@@ -0,0 +1,300 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Header;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.neopixl.spitfire.utils.RequestMethods;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch format sending the requests as the parts of a <b>multipart/mixed</b> body.
+ * <p>Each part has the <b>application/http</b> type and contains a full HTTP request: the request line with the path
+ * and query of the URL, the headers and the body. The part of the n-th request has the Content-ID &lt;n&gt;.</p>
+ * <p>The server answers with a <b>multipart/mixed</b> body containing an HTTP response in each part. A response is
+ * matched to its request with the number of its Content-ID (&lt;response-n&gt; or &lt;n&gt;), otherwise with the
+ * position of its part.</p>
+ */
+public class MultipartBatchFormat implements BatchFormat {
+
+    /**
+     * Media type of the batch body and of the batch response
+     */
+    public static final String MEDIA_TYPE = "multipart/mixed";
+
+    private static final String PART_CONTENT_TYPE = "application/http";
+    private static final String HTTP_VERSION = "HTTP/1.1";
+    private static final String HEADER_CONTENT_ID = "Content-ID";
+    private static final String HEADER_CONTENT_LENGTH = "Content-Length";
+    private static final String HEADER_HOST = "Host";
+    private static final String BOUNDARY_PARAMETER = "boundary=";
+
+    // the headers and delimiters are ASCII, ISO-8859-1 keeps each byte as a char
+    private static final Charset HEADER_CHARSET = Charset.forName("ISO-8859-1");
+    private static final byte[] CRLF = MultipartWriter.LINE_END.getBytes(HEADER_CHARSET);
+
+    @NonNull
+    private final String boundary;
+
+    /**
+     * Create the format with a new boundary
+     */
+    public MultipartBatchFormat() {
+        this(MultipartWriter.newBoundary("batch-"));
+    }
+
+    /**
+     * Create the format with the given boundary
+     * @param boundary the boundary of the batch body, should not be found in the requests, not null
+     */
+    public MultipartBatchFormat(@NonNull String boundary) {
+        this.boundary = boundary;
+    }
+
+    @NonNull
+    @Override
+    public String getContentType() {
+        return MEDIA_TYPE + "; " + BOUNDARY_PARAMETER + boundary;
+    }
+
+    @Override
+    public void writeRequests(@NonNull OutputStream outputStream, @NonNull List<? extends Request<?>> requests) throws IOException, AuthFailureError {
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        for (int i = 0; i < requests.size(); i++) {
+            MultipartWriter.writeBoundary(dataOutputStream, boundary);
+            MultipartWriter.writeHeader(dataOutputStream, AbstractRequest.HEADER_CONTENT_TYPE, PART_CONTENT_TYPE);
+            MultipartWriter.writeHeader(dataOutputStream, HEADER_CONTENT_ID, "<" + (i + 1) + ">");
+            MultipartWriter.writeHeadersEnd(dataOutputStream);
+            writeRequest(dataOutputStream, requests.get(i));
+            dataOutputStream.writeBytes(MultipartWriter.LINE_END);
+        }
+        MultipartWriter.writeClosingBoundary(dataOutputStream, boundary);
+        dataOutputStream.flush();
+    }
+
+    private void writeRequest(@NonNull DataOutputStream dataOutputStream, @NonNull Request<?> request) throws IOException, AuthFailureError {
+        byte[] body = request.getBody();
+        String url = request.getUrl();
+        URL parsedUrl = parseUrl(url);
+        // the request target is the path and query, the requests are sent to the host of the batch endpoint
+        String target = parsedUrl == null ? url : parsedUrl.getFile().isEmpty() ? "/" : parsedUrl.getFile();
+        dataOutputStream.writeBytes(getMethodName(request.getMethod(), body) + " " + target + " " + HTTP_VERSION + MultipartWriter.LINE_END);
+
+        Map<String, String> headers = request.getHeaders();
+        if (parsedUrl != null && !AbstractRequest.containsHeader(headers, HEADER_HOST)) {
+            MultipartWriter.writeHeader(dataOutputStream, HEADER_HOST, parsedUrl.getAuthority());
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            // the body headers are computed from the body
+            if (!AbstractRequest.HEADER_CONTENT_TYPE.equalsIgnoreCase(header.getKey())
+                    && !HEADER_CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                MultipartWriter.writeHeader(dataOutputStream, header.getKey(), header.getValue());
+            }
+        }
+        if (body != null) {
+            MultipartWriter.writeHeader(dataOutputStream, AbstractRequest.HEADER_CONTENT_TYPE, request.getBodyContentType());
+            MultipartWriter.writeHeader(dataOutputStream, HEADER_CONTENT_LENGTH, String.valueOf(body.length));
+        }
+        MultipartWriter.writeHeadersEnd(dataOutputStream);
+        if (body != null) {
+            dataOutputStream.write(body);
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<NetworkResponse> readResponses(@NonNull NetworkResponse response, int requestCount) throws IOException {
+        String contentType = AbstractRequest.getContentType(response);
+        String responseBoundary = contentType != null ? getBoundary(contentType) : null;
+        if (responseBoundary == null) {
+            throw new IOException("The batch response is not a multipart response: " + contentType);
+        }
+        byte[] data = response.data != null ? response.data : new byte[0];
+        byte[] delimiter = (MultipartWriter.TWO_HYPHENS + responseBoundary).getBytes(HEADER_CHARSET);
+        byte[] nextDelimiter = (MultipartWriter.LINE_END + MultipartWriter.TWO_HYPHENS + responseBoundary).getBytes(HEADER_CHARSET);
+
+        NetworkResponse[] responses = new NetworkResponse[requestCount];
+        int position = indexOf(data, delimiter, 0, data.length);
+        if (position < 0) {
+            throw new IOException("The batch response has no part");
+        }
+        int partCount = 0;
+        while (true) {
+            position += delimiter.length;
+            if (startsWith(data, position, MultipartWriter.TWO_HYPHENS.getBytes(HEADER_CHARSET))) {
+                break;
+            }
+            int lineEnd = indexOf(data, CRLF, position, data.length);
+            int partEnd = lineEnd >= 0 ? indexOf(data, nextDelimiter, lineEnd, data.length) : -1;
+            if (partEnd < 0) {
+                throw new IOException("The batch response is truncated");
+            }
+
+            List<Header> partHeaders = new ArrayList<>();
+            int contentStart = readHeaders(data, lineEnd + CRLF.length, partEnd, partHeaders);
+            NetworkResponse partResponse = readResponse(data, contentStart, partEnd, response.networkTimeMs);
+            int index = getResponseIndex(getHeader(partHeaders, HEADER_CONTENT_ID), partCount);
+            if (partResponse != null && index >= 0 && index < requestCount && responses[index] == null) {
+                responses[index] = partResponse;
+            }
+            partCount++;
+            position = partEnd + CRLF.length;
+        }
+        return Arrays.asList(responses);
+    }
+
+    /**
+     * Read the HTTP response of a part
+     * @return the response, null when the part does not contain a status line
+     */
+    @Nullable
+    private static NetworkResponse readResponse(@NonNull byte[] data, int start, int end, long networkTimeMs) {
+        int lineEnd = indexOf(data, CRLF, start, end);
+        String statusLine = new String(data, start, (lineEnd >= 0 ? lineEnd : end) - start, HEADER_CHARSET).trim();
+        // HTTP/1.1 200 OK
+        String[] statusParts = statusLine.split(" ");
+        if (statusParts.length < 2 || !statusParts[0].startsWith("HTTP/")) {
+            return null;
+        }
+        int statusCode;
+        try {
+            statusCode = Integer.parseInt(statusParts[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        List<Header> headers = new ArrayList<>();
+        int bodyStart = lineEnd >= 0 ? readHeaders(data, lineEnd + CRLF.length, end, headers) : end;
+        byte[] body = Arrays.copyOfRange(data, bodyStart, end);
+        return new NetworkResponse(statusCode, body, statusCode == HttpURLConnection.HTTP_NOT_MODIFIED, networkTimeMs, headers);
+    }
+
+    /**
+     * Read header lines until the empty line
+     * @return the position after the empty line, or the end when there is no empty line
+     */
+    private static int readHeaders(@NonNull byte[] data, int start, int end, @NonNull List<Header> headers) {
+        int position = start;
+        while (position < end) {
+            int lineEnd = indexOf(data, CRLF, position, end);
+            if (lineEnd < 0) {
+                lineEnd = end;
+            }
+            if (lineEnd == position) {
+                return position + CRLF.length;
+            }
+            String line = new String(data, position, lineEnd - position, HEADER_CHARSET);
+            int separator = line.indexOf(':');
+            if (separator > 0) {
+                headers.add(new Header(line.substring(0, separator).trim(), line.substring(separator + 1).trim()));
+            }
+            position = lineEnd + CRLF.length;
+        }
+        return end;
+    }
+
+    /**
+     * Get the index of the request answered by a part, from the number at the end of its Content-ID
+     * @param contentId the Content-ID of the part, like &lt;response-2&gt;, can be null
+     * @param partIndex the position of the part, used when the Content-ID has no number
+     * @return the index of the request
+     */
+    private static int getResponseIndex(@Nullable String contentId, int partIndex) {
+        if (contentId == null) {
+            return partIndex;
+        }
+        String value = contentId.trim();
+        if (value.startsWith("<") && value.endsWith(">")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        int numberStart = value.length();
+        while (numberStart > 0 && Character.isDigit(value.charAt(numberStart - 1))) {
+            numberStart--;
+        }
+        if (numberStart == value.length()) {
+            return partIndex;
+        }
+        try {
+            return Integer.parseInt(value.substring(numberStart)) - 1;
+        } catch (NumberFormatException e) {
+            return partIndex;
+        }
+    }
+
+    @Nullable
+    static String getBoundary(@NonNull String contentType) {
+        if (!contentType.regionMatches(true, 0, MEDIA_TYPE, 0, MEDIA_TYPE.length())) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            String trimmedParameter = parameter.trim();
+            if (trimmedParameter.regionMatches(true, 0, BOUNDARY_PARAMETER, 0, BOUNDARY_PARAMETER.length())) {
+                String value = trimmedParameter.substring(BOUNDARY_PARAMETER.length());
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                return value.isEmpty() ? null : value;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static String getHeader(@NonNull List<Header> headers, @NonNull String name) {
+        for (Header header : headers) {
+            if (name.equalsIgnoreCase(header.getName())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    @NonNull
+    private static String getMethodName(int method, @Nullable byte[] body) {
+        if (method == Request.Method.DEPRECATED_GET_OR_POST) {
+            return body != null ? "POST" : "GET";
+        }
+        return RequestMethods.getName(method);
+    }
+
+    @Nullable
+    private static URL parseUrl(@NonNull String url) {
+        try {
+            return new URL(url);
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    private static boolean startsWith(@NonNull byte[] data, int position, @NonNull byte[] prefix) {
+        return position + prefix.length <= data.length && indexOf(data, prefix, position, position + prefix.length) == position;
+    }
+
+    private static int indexOf(@NonNull byte[] data, @NonNull byte[] pattern, int from, int to) {
+        int last = to - pattern.length;
+        for (int i = Math.max(from, 0); i <= last; i++) {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
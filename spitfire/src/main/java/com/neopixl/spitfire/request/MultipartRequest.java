@@ -5,36 +5,51 @@ import androidx.annotation.Nullable;
 
 import com.android.volley.AuthFailureError;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.neopixl.spitfire.SpitfireManager;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.neopixl.spitfire.codec.Codec;
+import com.neopixl.spitfire.listener.ProgressListener;
 import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.listener.ResponseTransformer;
+import com.neopixl.spitfire.model.BodyCompression;
 import com.neopixl.spitfire.model.RequestData;
+import com.neopixl.spitfire.network.StreamingBody;
+import com.neopixl.spitfire.outbox.RequestOutbox;
+import com.neopixl.spitfire.utils.CountingOutputStream;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Created by Florian ALONSO on 12/30/16.
  */
 
-public class MultipartRequest<T> extends BaseRequest<T> {
+public class MultipartRequest<T> extends BaseRequest<T> implements StreamingBody {
 
     private static final String JSON_KEY_DEFAULT = "jsonObject";
 
-    private final String twoHyphens = "--";
-    private final String lineEnd = "\r\n";
-    private final String boundary = "bound-" + System.currentTimeMillis();
+    private final String boundary = MultipartWriter.newBoundary("bound-");
 
     @Nullable
     private final HashMap<String, List<RequestData>> multiPartData;
     @NonNull
     private String jsonKey = MultipartRequest.JSON_KEY_DEFAULT;
+    @Nullable
+    private byte[] serializedJson;
+    @Nullable
+    private Long bodyContentLength;
+    @Nullable
+    private final UploadProgress uploadProgress;
+    @Nullable
+    private UploadProgress.Tracker progressTracker;
 
     /**
      * Builder used to create the final request
@@ -46,6 +61,12 @@ public class MultipartRequest<T> extends BaseRequest<T> {
         private final HashMap<String, List<RequestData>> multiPartData = new HashMap<>();
         @NonNull
         private String jsonKey = MultipartRequest.JSON_KEY_DEFAULT;
+        @Nullable
+        private ProgressListener progressListener;
+        @Nullable
+        private Executor progressExecutor;
+        private long progressIntervalMs = UploadProgress.DEFAULT_INTERVAL_MS;
+        private int progressPercentStep = UploadProgress.DEFAULT_PERCENT_STEP;
 
         /**
          * Constructor for the builder
@@ -57,6 +78,26 @@ public class MultipartRequest<T> extends BaseRequest<T> {
             super(method, url, classResponse);
         }
 
+        /**
+         * Constructor for the builder, used for the generic responses
+         * @param method The <b>com.android.volley.Request.Method</b> of the URL
+         * @param url    The URL
+         * @param typeResponse the full type used to parse the response associated to the request.
+         */
+        public Builder(int method, @NonNull String url, @NonNull TypeReference<T> typeResponse) {
+            super(method, url, typeResponse);
+        }
+
+        /**
+         * Constructor for the builder, used with an already resolved type
+         * @param method The <b>com.android.volley.Request.Method</b> of the URL
+         * @param url    The URL
+         * @param javaTypeResponse the type used to parse the response associated to the request, should match &lt;T&gt;
+         */
+        public Builder(int method, @NonNull String url, @NonNull JavaType javaTypeResponse) {
+            super(method, url, javaTypeResponse);
+        }
+
         /**
          * Specifies the object
          * @param jsonObject The object to be embedded in the body, can be null
@@ -92,6 +133,43 @@ public class MultipartRequest<T> extends BaseRequest<T> {
             return this;
         }
 
+        /**
+         * Not supported: the multipart body is never compressed
+         * @param bodyCompression ignored
+         * @return never returns
+         * @throws IllegalStateException always
+         */
+        @NonNull
+        @Override
+        public Builder<T> bodyCompression(@Nullable BodyCompression bodyCompression) {
+            throw new IllegalStateException("The multipart body is never compressed, only the JSON and form bodies of the other requests");
+        }
+
+        /**
+         * Save the POST, PUT and PATCH requests failing because the device is offline, to send them again later
+         * @param outbox {@link RequestOutbox}, can be null
+         * @param orderingKey the key of the requests replayed one after the other, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> outbox(@Nullable RequestOutbox outbox, @Nullable String orderingKey) {
+            super.outbox(outbox, orderingKey);
+            return this;
+        }
+
+        /**
+         * Set the codec writing the JSON part and reading the response
+         * @param codec {@link Codec}, can be null to use the default codec of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> codec(@Nullable Codec codec) {
+            super.codec(codec);
+            return this;
+        }
+
         /**
          * Set the listener for the request
          * @param listener {@link RequestListener}, can be null
@@ -104,6 +182,30 @@ public class MultipartRequest<T> extends BaseRequest<T> {
             return this;
         }
 
+        /**
+         * Set the executor calling the listener, instead of the delivery of the request queue
+         * @param deliveryExecutor the executor, can be null to use the executor of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> deliveryExecutor(@Nullable Executor deliveryExecutor) {
+            super.deliveryExecutor(deliveryExecutor);
+            return this;
+        }
+
+        /**
+         * Set the transformation applied to the parsed response on the network thread
+         * @param responseTransformer {@link ResponseTransformer}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> responseTransformer(@Nullable ResponseTransformer<T> responseTransformer) {
+            super.responseTransformer(responseTransformer);
+            return this;
+        }
+
         /**
          * Set the headers for the request
          * @param headers used to send the request, not null
@@ -174,6 +276,51 @@ public class MultipartRequest<T> extends BaseRequest<T> {
             return this;
         }
 
+        /**
+         * Set the listener receiving the upload progress.
+         * <p>The progress is only reported when the body is streamed in the connection (see <b>SpitfireNetwork</b>).</p>
+         * @param progressListener {@link ProgressListener}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> progressListener(@Nullable ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        /**
+         * Set the executor used to call the progress listener, by default the listener is called on the main thread
+         * @param progressExecutor the executor, can be null to use the main thread
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> progressExecutor(@Nullable Executor progressExecutor) {
+            this.progressExecutor = progressExecutor;
+            return this;
+        }
+
+        /**
+         * Set the minimum time between two progress calls, 100 ms by default
+         * @param intervalMs interval in milliseconds, 0 to report each write
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> progressInterval(long intervalMs) {
+            this.progressIntervalMs = UploadProgress.checkInterval(intervalMs);
+            return this;
+        }
+
+        /**
+         * Set the minimum progress between two progress calls, 1% by default
+         * @param percentStep step in percent of the total (0 to 100), 0 to report each write
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> progressStep(int percentStep) {
+            this.progressPercentStep = UploadProgress.checkPercentStep(percentStep);
+            return this;
+        }
+
         /**
          * Build a new MultipartNeoRequest object based on the Builder's parameters
          * @return MultipartNeoRequest {@link MultipartRequest}
@@ -189,6 +336,9 @@ public class MultipartRequest<T> extends BaseRequest<T> {
 
         this.multiPartData = builder.multiPartData;
         this.jsonKey = builder.jsonKey;
+        this.uploadProgress = builder.progressListener != null
+                ? new UploadProgress(builder.progressListener, builder.progressExecutor, builder.progressIntervalMs, builder.progressPercentStep)
+                : null;
 
         if (builder.method == Method.GET) {
             throw new IllegalArgumentException("Cannot use multipart with GET request");
@@ -224,31 +374,82 @@ public class MultipartRequest<T> extends BaseRequest<T> {
         DataOutputStream dos = new DataOutputStream(bos);
 
         try {
-            // populate text payload
-            Object jsonBody = getJsonObject();
-            if (jsonBody == null) {
-                Map<String, String> params = getParams();
-                if (params != null && params.size() > 0) {
-                    textParse(dos, params, getParamsEncoding());
-                }
-            } else {
-                jsonParse(dos, jsonBody);
+            writeParts(dos);
+            return bos.toByteArray();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the length of the body, computed from the size of each part without reading the data.
+     * <p>The length is computed only once in the lifetime of the request</p>
+     *
+     * @throws AuthFailureError In the event of auth failure.
+     * @return the body length, -1 if the length of a part is unknown
+     */
+    @Override
+    public long getBodyContentLength() throws AuthFailureError {
+        if (bodyContentLength == null) {
+            BodyLengthOutputStream lengthOutputStream = new BodyLengthOutputStream();
+            try {
+                writeParts(lengthOutputStream);
+                bodyContentLength = lengthOutputStream.getLength();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return -1;
             }
+        }
+        return bodyContentLength;
+    }
 
-            // populate data byte payload
-            Map<String, List<RequestData>> data = getMultiPartData();
-            if (data != null && data.size() > 0) {
-                dataParse(dos, data);
+    /**
+     * Write the body in the connection stream, the data parts are copied with a small buffer
+     * so the body is never built in memory.
+     *
+     * @param outputStream the connection stream, not null
+     * @throws IOException when a part can not be read or written
+     * @throws AuthFailureError In the event of auth failure.
+     */
+    @Override
+    public void writeBody(@NonNull OutputStream outputStream) throws IOException, AuthFailureError {
+        UploadProgress.Tracker tracker = uploadProgress != null
+                ? uploadProgress.newTracker(this, outputStream, getBodyContentLength())
+                : null;
+        progressTracker = tracker;
+        try {
+            DataOutputStream dos = new DataOutputStream(tracker != null ? tracker : outputStream);
+            writeParts(dos);
+            dos.flush();
+            if (tracker != null) {
+                tracker.finish();
             }
+        } finally {
+            progressTracker = null;
+        }
+    }
 
-            // close multipart form data after text and file data
-            dos.writeBytes(twoHyphens + boundary + twoHyphens + lineEnd);
+    private void writeParts(@NonNull DataOutputStream dos) throws IOException, AuthFailureError {
+        // populate text payload
+        Object jsonBody = getJsonObject();
+        if (jsonBody == null) {
+            Map<String, String> params = getParams();
+            if (params != null && params.size() > 0) {
+                textParse(dos, params, getParamsEncoding());
+            }
+        } else {
+            jsonParse(dos, jsonBody);
+        }
 
-            return bos.toByteArray();
-        } catch (IOException e) {
-            e.printStackTrace();
+        // populate data byte payload
+        Map<String, List<RequestData>> data = getMultiPartData();
+        if (data != null && data.size() > 0) {
+            dataParse(dos, data);
         }
-        return null;
+
+        // close multipart form data after text and file data
+        MultipartWriter.writeClosingBoundary(dos, boundary);
     }
 
     /**
@@ -273,7 +474,7 @@ public class MultipartRequest<T> extends BaseRequest<T> {
     }
 
     /**
-     * Parse object into data output stream with JSON
+     * Parse object into data output stream with the codec of the request (JSON by default)
      * With callback to text params
      *
      * @param dataOutputStream data output stream handle string parsing
@@ -282,15 +483,18 @@ public class MultipartRequest<T> extends BaseRequest<T> {
      */
     void jsonParse(@NonNull DataOutputStream dataOutputStream, @NonNull Object jsonObject) throws IOException {
         try {
-            String json = SpitfireManager.getObjectMapper().writeValueAsString(jsonObject);
-            StringBuilder stringBuilder = new StringBuilder();
-            stringBuilder.append(twoHyphens + boundary + lineEnd);
-            stringBuilder.append("Content-Disposition: form-data; name=\""+ jsonKey + "\"" + lineEnd);
-            stringBuilder.append("Content-Type: application/json" + lineEnd);
-            stringBuilder.append(lineEnd);
-            stringBuilder.append(json);
-            stringBuilder.append(lineEnd);
-            dataOutputStream.writeBytes(stringBuilder.toString());
+            Codec codec = getCodec();
+            if (serializedJson == null) {
+                serializedJson = codec.getWriter().writeValueAsBytes(jsonObject);
+            }
+            byte[] json = serializedJson;
+            MultipartWriter.writeBoundary(dataOutputStream, boundary);
+            MultipartWriter.writeHeader(dataOutputStream, "Content-Disposition", "form-data; name=\"" + jsonKey + "\"");
+            MultipartWriter.writeHeader(dataOutputStream, "Content-Type", codec.getMediaType());
+            MultipartWriter.writeHeadersEnd(dataOutputStream);
+            // the serialized bytes are written as is, the binary formats cannot go through a string
+            dataOutputStream.write(json);
+            dataOutputStream.writeBytes(MultipartWriter.LINE_END);
         } catch (JsonProcessingException e) {// shouldn't really happen, but is declared as possibility so:
             textParse(dataOutputStream, getParams(), getParamsEncoding());
         }
@@ -320,11 +524,11 @@ public class MultipartRequest<T> extends BaseRequest<T> {
      * @throws IOException
      */
     void buildTextPart(@NonNull DataOutputStream dataOutputStream, @NonNull String parameterName, @NonNull String parameterValue) throws IOException {
-        dataOutputStream.writeBytes(twoHyphens + boundary + lineEnd);
-        dataOutputStream.writeBytes("Content-Disposition: form-data; name=\"" + parameterName + "\"" + lineEnd);
-        //dataOutputStream.writeBytes("Content-Type: text/plain; charset=UTF-8" + lineEnd);
-        dataOutputStream.writeBytes(lineEnd);
-        dataOutputStream.writeBytes(parameterValue + lineEnd);
+        MultipartWriter.writeBoundary(dataOutputStream, boundary);
+        MultipartWriter.writeHeader(dataOutputStream, "Content-Disposition", "form-data; name=\"" + parameterName + "\"");
+        //MultipartWriter.writeHeader(dataOutputStream, "Content-Type", "text/plain; charset=UTF-8");
+        MultipartWriter.writeHeadersEnd(dataOutputStream);
+        dataOutputStream.writeBytes(parameterValue + MultipartWriter.LINE_END);
     }
 
     /**
@@ -336,31 +540,28 @@ public class MultipartRequest<T> extends BaseRequest<T> {
      * @throws IOException
      */
     void buildDataPart(@NonNull DataOutputStream dataOutputStream, @NonNull RequestData dataFile, @NonNull String inputName) throws IOException {
-        dataOutputStream.writeBytes(twoHyphens + boundary + lineEnd);
-        dataOutputStream.writeBytes("Content-Disposition: form-data; name=\"" +
-                inputName + "\"; filename=\"" + dataFile.getFileName() + "\"" + lineEnd);
+        MultipartWriter.writeBoundary(dataOutputStream, boundary);
+        MultipartWriter.writeHeader(dataOutputStream, "Content-Disposition", "form-data; name=\"" +
+                inputName + "\"; filename=\"" + dataFile.getFileName() + "\"");
         if (dataFile.getType() != null && !dataFile.getType().trim().isEmpty()) {
-            dataOutputStream.writeBytes("Content-Type: " + dataFile.getType() + lineEnd);
+            MultipartWriter.writeHeader(dataOutputStream, "Content-Type", dataFile.getType());
         }
-        dataOutputStream.writeBytes(lineEnd);
-
-        ByteArrayInputStream fileInputStream = new ByteArrayInputStream(dataFile.getContent());
-        int bytesAvailable = fileInputStream.available();
-
-        int maxBufferSize = 1024 * 1024;
-        int bufferSize = Math.min(bytesAvailable, maxBufferSize);
-        byte[] buffer = new byte[bufferSize];
-
-        int bytesRead = fileInputStream.read(buffer, 0, bufferSize);
-
-        while (bytesRead > 0) {
-            dataOutputStream.write(buffer, 0, bufferSize);
-            bytesAvailable = fileInputStream.available();
-            bufferSize = Math.min(bytesAvailable, maxBufferSize);
-            bytesRead = fileInputStream.read(buffer, 0, bufferSize);
+        MultipartWriter.writeHeadersEnd(dataOutputStream);
+
+        if (dataOutputStream instanceof BodyLengthOutputStream) {
+            ((BodyLengthOutputStream) dataOutputStream).skip(dataFile.getContentLength());
+        } else {
+            UploadProgress.Tracker tracker = progressTracker;
+            if (tracker != null) {
+                tracker.startPart(inputName, dataFile);
+            }
+            dataFile.writeContent(dataOutputStream);
+            if (tracker != null) {
+                tracker.endPart();
+            }
         }
 
-        dataOutputStream.writeBytes(lineEnd);
+        dataOutputStream.writeBytes(MultipartWriter.LINE_END);
     }
 
     /**
@@ -380,4 +581,28 @@ public class MultipartRequest<T> extends BaseRequest<T> {
     public String getJsonKey() {
         return jsonKey;
     }
+
+    /**
+     * Stream only counting the bytes of the body, the data parts are counted from their length
+     */
+    private static class BodyLengthOutputStream extends DataOutputStream {
+
+        private boolean unknownLength;
+
+        BodyLengthOutputStream() {
+            super(new CountingOutputStream());
+        }
+
+        void skip(long length) {
+            if (length < 0) {
+                unknownLength = true;
+            } else {
+                ((CountingOutputStream) out).skip(length);
+            }
+        }
+
+        long getLength() {
+            return unknownLength ? -1 : ((CountingOutputStream) out).getCount();
+        }
+    }
 }
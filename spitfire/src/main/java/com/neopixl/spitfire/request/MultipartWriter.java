@@ -0,0 +1,69 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes the delimiters and headers of the multipart bodies, shared by the multipart requests and the batches.
+ * <p>The delimiters and headers are written as ASCII, the content of the parts is written by the caller.</p>
+ */
+final class MultipartWriter {
+
+    static final String TWO_HYPHENS = "--";
+    static final String LINE_END = "\r\n";
+
+    private MultipartWriter() {
+    }
+
+    /**
+     * Create a boundary unlikely to be found in the parts
+     * @param prefix the prefix of the boundary, not null
+     * @return the boundary, not null
+     */
+    @NonNull
+    static String newBoundary(@NonNull String prefix) {
+        return prefix + System.currentTimeMillis();
+    }
+
+    /**
+     * Write the delimiter starting a part
+     * @param dataOutputStream the body stream
+     * @param boundary the boundary of the body
+     * @throws IOException when the stream cannot be written
+     */
+    static void writeBoundary(@NonNull DataOutputStream dataOutputStream, @NonNull String boundary) throws IOException {
+        dataOutputStream.writeBytes(TWO_HYPHENS + boundary + LINE_END);
+    }
+
+    /**
+     * Write a header line of a part
+     * @param dataOutputStream the body stream
+     * @param name the name of the header
+     * @param value the value of the header
+     * @throws IOException when the stream cannot be written
+     */
+    static void writeHeader(@NonNull DataOutputStream dataOutputStream, @NonNull String name, @NonNull String value) throws IOException {
+        dataOutputStream.writeBytes(name + ": " + value + LINE_END);
+    }
+
+    /**
+     * Write the end of the part headers
+     * @param dataOutputStream the body stream
+     * @throws IOException when the stream cannot be written
+     */
+    static void writeHeadersEnd(@NonNull DataOutputStream dataOutputStream) throws IOException {
+        dataOutputStream.writeBytes(LINE_END);
+    }
+
+    /**
+     * Write the delimiter closing the body, after the last part
+     * @param dataOutputStream the body stream
+     * @param boundary the boundary of the body
+     * @throws IOException when the stream cannot be written
+     */
+    static void writeClosingBoundary(@NonNull DataOutputStream dataOutputStream, @NonNull String boundary) throws IOException {
+        dataOutputStream.writeBytes(TWO_HYPHENS + boundary + TWO_HYPHENS + LINE_END);
+    }
+}
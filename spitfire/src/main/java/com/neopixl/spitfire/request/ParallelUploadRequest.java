@@ -0,0 +1,535 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.VolleyError;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.neopixl.spitfire.codec.Codec;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.listener.ResponseTransformer;
+import com.neopixl.spitfire.model.BodyCompression;
+import com.neopixl.spitfire.model.RequestData;
+import com.neopixl.spitfire.outbox.RequestOutbox;
+import com.neopixl.spitfire.upload.PartProtocol;
+import com.neopixl.spitfire.upload.UploadedPart;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Upload sending the data as parts uploaded concurrently, then a commit request, like the S3 multipart uploads.
+ * <p>The request itself is the commit request: it is added to the queue by {@link #start(RequestQueue)} once all
+ * the parts are uploaded, and its listener receives the result (or the first error) only once. Added directly to a
+ * queue, the request fails with an <b>AuthFailureError</b> instead of committing an upload without part.
+ * Each part is retried with the default retry policy of the {@link com.neopixl.spitfire.SpitfireManager}.</p>
+ * @param <T> The type used as the response of the commit request
+ */
+public class ParallelUploadRequest<T> extends BaseRequest<T> {
+
+    /**
+     * Default size of the parts, 8 MB
+     */
+    public static final long DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Default maximum number of parts uploaded at the same time
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    @NonNull
+    private final RequestData partData;
+    @NonNull
+    private final PartProtocol partProtocol;
+    private final long partSize;
+    private final int maxInFlight;
+    private final int partCount;
+    @Nullable
+    private final Map<String, String> userHeaders;
+
+    @NonNull
+    private final Object lock = new Object();
+    @NonNull
+    private final List<PartUploadRequest> inFlightParts = new ArrayList<>();
+    @NonNull
+    private final List<UploadedPart> uploadedParts = new ArrayList<>();
+    private int nextPartNumber = 1;
+    private boolean failed;
+    @Nullable
+    private RequestQueue requestQueue;
+    @Nullable
+    private volatile Object commitBody;
+    private volatile boolean committing;
+
+    /**
+     * Builder used to create the upload
+     * @param <T> type of the commit response
+     */
+    public static class Builder<T> extends BaseRequest.Builder<T> {
+
+        @Nullable
+        private RequestData partData;
+        @Nullable
+        private PartProtocol partProtocol;
+        private long partSize = DEFAULT_PART_SIZE;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        @Nullable
+        private Map<String, String> headers;
+
+        /**
+         * Constructor for the builder
+         * @param method The <b>com.android.volley.Request.Method</b> of the commit request
+         * @param url    The URL of the commit request
+         * @param classResponse the class used to parse the commit response
+         */
+        public Builder(int method, @NonNull String url, @NonNull Class<T> classResponse) {
+            super(method, url, classResponse);
+        }
+
+        /**
+         * Constructor for the builder, used for the generic responses
+         * @param method The <b>com.android.volley.Request.Method</b> of the commit request
+         * @param url    The URL of the commit request
+         * @param typeResponse the full type used to parse the commit response
+         */
+        public Builder(int method, @NonNull String url, @NonNull TypeReference<T> typeResponse) {
+            super(method, url, typeResponse);
+        }
+
+        /**
+         * Constructor for the builder, used with an already resolved type
+         * @param method The <b>com.android.volley.Request.Method</b> of the commit request
+         * @param url    The URL of the commit request
+         * @param javaTypeResponse the type used to parse the commit response, should match &lt;T&gt;
+         */
+        public Builder(int method, @NonNull String url, @NonNull JavaType javaTypeResponse) {
+            super(method, url, javaTypeResponse);
+        }
+
+        /**
+         * Set the data to upload, it should be repeatable (not a single stream) and have a known length
+         * @param partData {@link RequestData}, not null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> partData(@NonNull RequestData partData) {
+            this.partData = partData;
+            return this;
+        }
+
+        /**
+         * Set the protocol giving the part URLs and the commit body
+         * @param partProtocol {@link PartProtocol}, not null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> partProtocol(@NonNull PartProtocol partProtocol) {
+            this.partProtocol = partProtocol;
+            return this;
+        }
+
+        /**
+         * Set the size of the parts, 8 MB by default
+         * @param partSize number of bytes, greater than 0
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> partSize(long partSize) {
+            if (partSize <= 0) {
+                throw new IllegalArgumentException("The part size should be greater than 0");
+            }
+            this.partSize = partSize;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of parts uploaded at the same time, 4 by default
+         * @param maxInFlight number of parts, greater than 0
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> maxInFlight(int maxInFlight) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("The maximum number of parts in flight should be greater than 0");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Not supported: the body of the commit request is created by the {@link PartProtocol} once all the parts are uploaded
+         * @param jsonObject ignored
+         * @return never returns
+         * @throws IllegalStateException always
+         */
+        @NonNull
+        @Override
+        public Builder<T> json(@Nullable Object jsonObject) {
+            throw new IllegalStateException("The commit body is created by the PartProtocol, it cannot be set with json()");
+        }
+
+        /**
+         * Set the parameters for the commit request
+         * @param parameters Map&lt;String, String&gt;, not null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> parameters(@NonNull Map<String, String> parameters) {
+            super.parameters(parameters);
+            return this;
+        }
+
+        /**
+         * Set the compression of the JSON or form body, sent with a Content-Encoding header.
+         * Only the commit body is compressed
+         * @param bodyCompression {@link BodyCompression}, can be null to use the compression of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> bodyCompression(@Nullable BodyCompression bodyCompression) {
+            super.bodyCompression(bodyCompression);
+            return this;
+        }
+
+        /**
+         * Save the commit request when it fails because the device is offline, the parts are not saved
+         * @param outbox {@link RequestOutbox}, can be null
+         * @param orderingKey the key of the requests replayed one after the other, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> outbox(@Nullable RequestOutbox outbox, @Nullable String orderingKey) {
+            super.outbox(outbox, orderingKey);
+            return this;
+        }
+
+        /**
+         * Set the codec writing the commit body and reading the response
+         * @param codec {@link Codec}, can be null to use the default codec of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> codec(@Nullable Codec codec) {
+            super.codec(codec);
+            return this;
+        }
+
+        /**
+         * Set the listener receiving the commit response, or the first error of the upload
+         * @param listener {@link RequestListener}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> listener(@Nullable RequestListener<T> listener) {
+            super.listener(listener);
+            return this;
+        }
+
+        /**
+         * Set the executor calling the listener, instead of the delivery of the request queue
+         * @param deliveryExecutor the executor, can be null to use the executor of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> deliveryExecutor(@Nullable Executor deliveryExecutor) {
+            super.deliveryExecutor(deliveryExecutor);
+            return this;
+        }
+
+        /**
+         * Set the transformation applied to the parsed response on the network thread
+         * @param responseTransformer {@link ResponseTransformer}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> responseTransformer(@Nullable ResponseTransformer<T> responseTransformer) {
+            super.responseTransformer(responseTransformer);
+            return this;
+        }
+
+        /**
+         * Set the headers for the commit request and the part requests
+         * @param headers used to send the requests, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> headers(@Nullable Map<String, String> headers) {
+            super.headers(headers);
+            this.headers = headers != null ? new HashMap<>(headers) : null;
+            return this;
+        }
+
+        /**
+         * Start the upload built by {@link #buildAsync(RequestQueue)}
+         * @param requestQueue the queue used for the parts and the commit request, not null
+         * @param request the built upload, not null
+         */
+        @Override
+        void enqueue(@NonNull RequestQueue requestQueue, @NonNull BaseRequest<T> request) {
+            ((ParallelUploadRequest<T>) request).start(requestQueue);
+        }
+
+        /**
+         * Build a new upload based on the Builder's parameters
+         * @return the upload {@link ParallelUploadRequest}
+         */
+        @NonNull
+        @Override
+        public ParallelUploadRequest<T> build() {
+            return new ParallelUploadRequest<T>(this);
+        }
+    }
+
+    private ParallelUploadRequest(@NonNull Builder<T> builder) {
+        super(builder);
+
+        if (builder.partData == null) {
+            throw new IllegalArgumentException("Partdata should not be null.");
+        }
+        if (builder.partProtocol == null) {
+            throw new IllegalArgumentException("The part protocol should not be null.");
+        }
+        if (!builder.partData.isRepeatable() || builder.partData.getContentLength() < 0) {
+            throw new IllegalArgumentException("A parallel upload needs a repeatable part data with a known length");
+        }
+
+        this.partData = builder.partData;
+        this.partProtocol = builder.partProtocol;
+        this.partSize = builder.partSize;
+        this.maxInFlight = builder.maxInFlight;
+        this.userHeaders = builder.headers;
+
+        long contentLength = partData.getContentLength();
+        this.partCount = (int) ((contentLength + partSize - 1) / partSize);
+        setShouldCache(false);
+    }
+
+    /**
+     * Start the upload: the parts are added to the queue, then the commit request once all the parts are uploaded.
+     * @param queue the queue used for the parts and the commit request, not null
+     */
+    public void start(@NonNull RequestQueue queue) {
+        synchronized (lock) {
+            if (requestQueue != null) {
+                throw new IllegalStateException("The upload is already started");
+            }
+            requestQueue = queue;
+        }
+
+        if (partCount == 0) {
+            commit();
+        } else {
+            enqueueParts();
+        }
+    }
+
+    /**
+     * Cancel the upload, the parts in flight are cancelled and the listener is not called.
+     */
+    @Override
+    public void cancel() {
+        super.cancel();
+        List<PartUploadRequest> parts;
+        synchronized (lock) {
+            parts = new ArrayList<>(inFlightParts);
+            inFlightParts.clear();
+        }
+        for (PartUploadRequest part : parts) {
+            part.cancel();
+        }
+    }
+
+    /**
+     * Returns the headers of the commit request
+     * @throws AuthFailureError when the request was added to a queue without {@link #start(RequestQueue)}
+     * @return Map&lt;String, String&gt;
+     */
+    @Override
+    @NonNull
+    public Map<String, String> getHeaders() throws AuthFailureError {
+        checkCommitting();
+        return super.getHeaders();
+    }
+
+    /**
+     * Returns the body of the commit request
+     * @throws AuthFailureError when the request was added to a queue without {@link #start(RequestQueue)}
+     * @return byte[] or null
+     */
+    @Override
+    @Nullable
+    byte[] calculateBody() throws AuthFailureError {
+        checkCommitting();
+        return super.calculateBody();
+    }
+
+    /**
+     * Get the body of the commit request, created by the {@link PartProtocol} once all the parts are uploaded
+     * @return the commit body, can be null
+     */
+    @Override
+    @Nullable
+    public Object getJsonObject() {
+        return commitBody;
+    }
+
+    /**
+     * Get the number of parts of the upload
+     * @return the part count
+     */
+    public int getPartCount() {
+        return partCount;
+    }
+
+    /**
+     * Get the maximum number of parts uploaded at the same time
+     * @return the maximum number of parts in flight
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Get the data to upload
+     * @return the data, not null
+     */
+    @NonNull
+    public RequestData getPartData() {
+        return partData;
+    }
+
+    private void enqueueParts() {
+        List<PartUploadRequest> parts = new ArrayList<>();
+        RequestQueue queue;
+        synchronized (lock) {
+            queue = requestQueue;
+            while (!failed && !isCanceled() && inFlightParts.size() < maxInFlight && nextPartNumber <= partCount) {
+                PartUploadRequest part = createPart(nextPartNumber++);
+                inFlightParts.add(part);
+                parts.add(part);
+            }
+        }
+        if (queue == null) {
+            return;
+        }
+        for (PartUploadRequest part : parts) {
+            queue.add(part);
+        }
+    }
+
+    @NonNull
+    private PartUploadRequest createPart(int partNumber) {
+        long offset = (partNumber - 1) * partSize;
+        long length = Math.min(partSize, partData.getContentLength() - offset);
+
+        Map<String, String> headers = new HashMap<>();
+        if (userHeaders != null) {
+            headers.putAll(userHeaders);
+        }
+        headers.putAll(partProtocol.getPartHeaders(partNumber, offset, length, partData.getContentLength()));
+
+        PartUploadRequest.Builder builder = new PartUploadRequest.Builder(partProtocol.getPartUrl(partNumber),
+                partData, partNumber, offset, length);
+        builder.headers(headers);
+        builder.listener(new RequestListener<Void>() {
+            @Override
+            public void onSuccess(@NonNull Request<Void> request, @NonNull NetworkResponse response, @Nullable Void result) {
+                onPartUploaded((PartUploadRequest) request, response);
+            }
+
+            @Override
+            public void onFailure(@NonNull Request<Void> request, @Nullable NetworkResponse response, @Nullable VolleyError error) {
+                onPartFailed((PartUploadRequest) request, error);
+            }
+        });
+        return builder.build();
+    }
+
+    private void onPartUploaded(@NonNull PartUploadRequest part, @NonNull NetworkResponse response) {
+        String tag = partProtocol.getPartTag(part.getPartNumber(), response);
+        boolean complete;
+        synchronized (lock) {
+            inFlightParts.remove(part);
+            uploadedParts.add(new UploadedPart(part.getPartNumber(), part.getOffset(), part.getLength(), tag));
+            complete = !failed && uploadedParts.size() == partCount;
+        }
+
+        if (isCanceled()) {
+            return;
+        }
+        if (complete) {
+            commit();
+        } else {
+            enqueueParts();
+        }
+    }
+
+    private void onPartFailed(@NonNull PartUploadRequest part, @Nullable VolleyError error) {
+        List<PartUploadRequest> parts;
+        synchronized (lock) {
+            if (failed) {
+                return;
+            }
+            failed = true;
+            inFlightParts.remove(part);
+            parts = new ArrayList<>(inFlightParts);
+            inFlightParts.clear();
+        }
+        for (PartUploadRequest inFlightPart : parts) {
+            inFlightPart.cancel();
+        }
+
+        if (!isCanceled()) {
+            // the commit request is never queued, the error is delivered directly to its listener
+            deliverError(error != null ? error : new VolleyError("The part " + part.getPartNumber() + " failed"));
+        }
+    }
+
+    /**
+     * Check that the parts are uploaded before the commit request is sent
+     * @throws AuthFailureError when the request is sent before the parts, it was added to a queue directly
+     */
+    private void checkCommitting() throws AuthFailureError {
+        if (!committing) {
+            throw new AuthFailureError("The upload should be started with start(RequestQueue), not added to a queue");
+        }
+    }
+
+    private void commit() {
+        List<UploadedPart> parts;
+        RequestQueue queue;
+        synchronized (lock) {
+            parts = new ArrayList<>(uploadedParts);
+            queue = requestQueue;
+        }
+        Collections.sort(parts, new Comparator<UploadedPart>() {
+            @Override
+            public int compare(UploadedPart first, UploadedPart second) {
+                return first.getPartNumber() - second.getPartNumber();
+            }
+        });
+        commitBody = partProtocol.getCommitBody(Collections.unmodifiableList(parts));
+        committing = true;
+        if (queue != null) {
+            queue.add(this);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.AuthFailureError;
+import com.neopixl.spitfire.model.RequestData;
+import com.neopixl.spitfire.network.StreamingBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Request sending one part of a {@link ParallelUploadRequest}, the part is a range of the upload data.
+ */
+final class PartUploadRequest extends AbstractRequest<Void> implements StreamingBody {
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    @NonNull
+    private final RequestData partData;
+    private final int partNumber;
+    private final long offset;
+    private final long length;
+
+    /**
+     * Builder used to create a part request
+     */
+    static final class Builder extends AbstractBuilder<Void, PartUploadRequest> {
+
+        @NonNull
+        private final RequestData partData;
+        private final int partNumber;
+        private final long offset;
+        private final long length;
+
+        Builder(@NonNull String url, @NonNull RequestData partData, int partNumber, long offset, long length) {
+            super(Method.PUT, url, Void.class);
+            this.partData = partData;
+            this.partNumber = partNumber;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @NonNull
+        @Override
+        public PartUploadRequest build() {
+            return new PartUploadRequest(this);
+        }
+    }
+
+    private PartUploadRequest(@NonNull Builder builder) {
+        super(builder);
+        this.partData = builder.partData;
+        this.partNumber = builder.partNumber;
+        this.offset = builder.offset;
+        this.length = builder.length;
+    }
+
+    @Override
+    @NonNull
+    public String getBodyContentType() {
+        return partData.getType() != null ? partData.getType() : DEFAULT_CONTENT_TYPE;
+    }
+
+    @Override
+    @Nullable
+    byte[] calculateBody() throws AuthFailureError {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream((int) length);
+        try {
+            partData.writeContent(bos, offset, length);
+            return bos.toByteArray();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public long getBodyContentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeBody(@NonNull OutputStream outputStream) throws IOException {
+        partData.writeContent(outputStream, offset, length);
+    }
+
+    /**
+     * Get the number of the part, starting at 1
+     * @return the part number
+     */
+    int getPartNumber() {
+        return partNumber;
+    }
+
+    /**
+     * Get the index of the first byte of the part
+     * @return the offset
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get the number of bytes of the part
+     * @return the length
+     */
+    long getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,149 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.neopixl.spitfire.listener.RequestMetricsListener;
+import com.neopixl.spitfire.model.RequestMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the phases of a request, only created when a {@link RequestMetricsListener} is registered.
+ * <p>The queue and cache phases are found with the markers added by the Volley dispatchers, the hedging with the
+ * markers added by the {@link HedgingRequestQueue}.</p>
+ */
+final class RequestTimer {
+
+    private static final long UNSET = Long.MIN_VALUE;
+    private static final String HTTP_CONTENT_LENGTH = "Content-Length";
+
+    @NonNull
+    private final RequestMetricsListener listener;
+    private final long createdNanos = System.nanoTime();
+
+    private volatile long queuedNanos = UNSET;
+    private volatile long cacheTakeNanos = UNSET;
+    private volatile long cacheDoneNanos = UNSET;
+    private volatile long networkTakeNanos = UNSET;
+    private volatile long serializationNanos = RequestMetrics.NOT_MEASURED;
+    private volatile long parseNanos = RequestMetrics.NOT_MEASURED;
+    private volatile boolean cacheHit;
+    private volatile boolean hedged;
+    private volatile boolean hedgeWon;
+
+    RequestTimer(@NonNull RequestMetricsListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Record the time of a Volley marker
+     * @param marker the marker added to the request
+     */
+    void mark(@NonNull String marker) {
+        switch (marker) {
+            case "add-to-queue":
+                queuedNanos = System.nanoTime();
+                break;
+            case "cache-queue-take":
+                cacheTakeNanos = System.nanoTime();
+                break;
+            case "cache-miss":
+            case "cache-hit-expired":
+            case "cache-hit":
+                if (cacheDoneNanos == UNSET) {
+                    cacheDoneNanos = System.nanoTime();
+                }
+                break;
+            case "network-queue-take":
+                networkTakeNanos = System.nanoTime();
+                break;
+            case "hedge-sent":
+                hedged = true;
+                break;
+            case "hedge-won":
+                hedgeWon = true;
+                break;
+            default:
+                break;
+        }
+    }
+
+    void addSerializationNanos(long nanos) {
+        long current = serializationNanos;
+        serializationNanos = current == RequestMetrics.NOT_MEASURED ? nanos : current + nanos;
+    }
+
+    void setParseNanos(long nanos, boolean cacheHit) {
+        this.parseNanos = nanos;
+        this.cacheHit = cacheHit;
+    }
+
+    /**
+     * Give the metrics of the delivery to the listener
+     * @param request the delivered request
+     * @param response the delivered network response, can be null
+     * @param success true for a response, false for an error
+     * @param deliveryStartNanos the time before the request listener was called
+     * @param requestBytes the size of the request body, -1 if unknown
+     */
+    void report(@NonNull Request<?> request, @Nullable NetworkResponse response, boolean success, long deliveryStartNanos, long requestBytes) {
+        long now = System.nanoTime();
+        long startNanos = queuedNanos != UNSET ? queuedNanos : createdNanos;
+        boolean currentCacheHit = cacheHit;
+
+        RequestMetrics metrics = new RequestMetrics.Builder()
+                .statusCode(response != null ? response.statusCode : -1)
+                .success(success)
+                .cacheHit(currentCacheHit)
+                .hedged(hedged)
+                .hedgeWon(hedgeWon)
+                .queueWaitNanos(getQueueWaitNanos())
+                .cacheLookupNanos(cacheTakeNanos != UNSET && cacheDoneNanos != UNSET ? cacheDoneNanos - cacheTakeNanos : RequestMetrics.NOT_MEASURED)
+                .networkNanos(response != null && !currentCacheHit ? TimeUnit.MILLISECONDS.toNanos(response.networkTimeMs) : RequestMetrics.NOT_MEASURED)
+                .serializationNanos(serializationNanos)
+                .parseNanos(parseNanos)
+                .deliveryNanos(now - deliveryStartNanos)
+                .totalNanos(now - startNanos)
+                .requestBytes(requestBytes)
+                .responseBytes(response != null ? getResponseBytes(response) : RequestMetrics.NOT_MEASURED)
+                .build();
+        listener.onRequestMetrics(request, metrics);
+    }
+
+    /**
+     * Get the size of the response content, the streamed responses have no data but can have a <b>Content-Length</b>
+     * @param response the delivered response
+     * @return the size in bytes
+     */
+    private static long getResponseBytes(@NonNull NetworkResponse response) {
+        if (response.data != null && response.data.length > 0) {
+            return response.data.length;
+        }
+        String contentLength = response.headers != null ? response.headers.get(HTTP_CONTENT_LENGTH) : null;
+        if (contentLength != null) {
+            try {
+                return Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException ignored) {
+                // Invalid header, the content is considered as empty
+            }
+        }
+        return 0;
+    }
+
+    private long getQueueWaitNanos() {
+        if (queuedNanos == UNSET) {
+            return RequestMetrics.NOT_MEASURED;
+        }
+        if (cacheTakeNanos == UNSET) {
+            return networkTakeNanos != UNSET ? networkTakeNanos - queuedNanos : RequestMetrics.NOT_MEASURED;
+        }
+        long queueWait = cacheTakeNanos - queuedNanos;
+        if (networkTakeNanos != UNSET && cacheDoneNanos != UNSET) {
+            queueWait += networkTakeNanos - cacheDoneNanos;
+        }
+        return queueWait;
+    }
+}
@@ -0,0 +1,249 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.listener.FreshnessRequestListener;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.model.Freshness;
+import com.neopixl.spitfire.model.SpitfireResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Future completed by a request, created by the builders <b>buildAsync</b>.
+ * <p>Cancelling the future cancels the request, and cancelling the request cancels the future. A failed request
+ * completes the future with an <b>ExecutionException</b> caused by the <b>VolleyError</b>.</p>
+ * <p>The future is completed when the response is delivered: with the default delivery (the main thread), the blocking
+ * methods should not be called from the main thread.</p>
+ * <p>The future is completed by the first delivered response: a stale cached response completes it with
+ * {@link Freshness#STALE}, see {@link SpitfireResponse#getFreshness()}. The listener given to the builder receives
+ * all the responses, with their freshness when it is a {@link FreshnessRequestListener}.</p>
+ * @param <T> The type used as the response for the request
+ */
+public class SpitfireFuture<T> implements Future<SpitfireResponse<T>>, FreshnessRequestListener<T> {
+
+    @Nullable
+    private final RequestListener<T> listener;
+    @NonNull
+    private final List<Runnable> callbacks = new ArrayList<>();
+
+    @Nullable
+    private volatile Request<?> request;
+    private boolean completed;
+    private boolean cancelled;
+    @Nullable
+    private SpitfireResponse<T> response;
+    @Nullable
+    private VolleyError error;
+
+    /**
+     * Create a future
+     * @param listener listener also called when the request completes, can be null
+     */
+    SpitfireFuture(@Nullable RequestListener<T> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Set the request completing this future
+     * @param request the request, not null
+     */
+    void setRequest(@NonNull Request<?> request) {
+        this.request = request;
+        if (isCancelled()) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Get the request completing this future
+     * @return the request, can be null before the request is built
+     */
+    @Nullable
+    public Request<?> getRequest() {
+        return request;
+    }
+
+    @Override
+    public void onSuccess(@NonNull Request<T> request, @NonNull NetworkResponse response, @Nullable T result, @NonNull Freshness freshness) {
+        complete(new SpitfireResponse<>(result, response, freshness), null);
+        if (listener instanceof FreshnessRequestListener) {
+            ((FreshnessRequestListener<T>) listener).onSuccess(request, response, result, freshness);
+        } else if (listener != null) {
+            listener.onSuccess(request, response, result);
+        }
+    }
+
+    @Override
+    public void onFailure(@NonNull Request<T> request, @Nullable NetworkResponse response, @Nullable VolleyError error) {
+        complete(null, error != null ? error : new VolleyError("The request failed without error"));
+        if (listener != null) {
+            listener.onFailure(request, response, error);
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized (this) {
+            if (completed) {
+                return false;
+            }
+            completed = true;
+            cancelled = true;
+            notifyAll();
+        }
+        Request<?> currentRequest = request;
+        if (currentRequest != null) {
+            currentRequest.cancel();
+        }
+        runCallbacks();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return completed;
+    }
+
+    @Override
+    public SpitfireResponse<T> get() throws InterruptedException, ExecutionException {
+        try {
+            return doGet(-1);
+        } catch (TimeoutException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Override
+    public SpitfireResponse<T> get(long timeout, @NonNull TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return doGet(Math.max(0, unit.toNanos(timeout)));
+    }
+
+    /**
+     * Run the callback when the future is completed (success, failure or cancel),
+     * the callback is run at once if the future is already completed.
+     * @param callback the callback, not null
+     * @param executor the executor running the callback, not null
+     */
+    public void addCallback(@NonNull final Runnable callback, @NonNull final Executor executor) {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(callback);
+            }
+        };
+        synchronized (this) {
+            if (!completed) {
+                callbacks.add(task);
+                return;
+            }
+        }
+        task.run();
+    }
+
+    /**
+     * Wait for all the futures with a single deadline. When a future fails or the deadline is reached,
+     * the futures which are not completed are cancelled.
+     * @param futures the futures to wait for, not null
+     * @param timeout the maximum time to wait for all the futures
+     * @param unit the unit of the timeout, not null
+     * @param <T> The type used as the response for the requests
+     * @return the results, in the order of the futures
+     * @throws InterruptedException when the thread is interrupted, the futures are then cancelled
+     * @throws ExecutionException when a request failed
+     * @throws TimeoutException when all the requests are not completed before the deadline
+     */
+    @NonNull
+    public static <T> List<SpitfireResponse<T>> awaitAll(@NonNull List<? extends Future<SpitfireResponse<T>>> futures,
+                                                         long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<SpitfireResponse<T>> responses = new ArrayList<>(futures.size());
+        boolean succeeded = false;
+        try {
+            for (Future<SpitfireResponse<T>> future : futures) {
+                long remaining = deadline - System.nanoTime();
+                responses.add(future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS));
+            }
+            succeeded = true;
+            return responses;
+        } finally {
+            if (!succeeded) {
+                for (Future<SpitfireResponse<T>> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for the completion
+     * @param timeoutNanos maximum waiting time, -1 to wait without timeout
+     */
+    @NonNull
+    private synchronized SpitfireResponse<T> doGet(long timeoutNanos) throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (!completed) {
+            if (timeoutNanos < 0) {
+                wait();
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+
+        if (cancelled) {
+            throw new CancellationException();
+        }
+        if (error != null) {
+            throw new ExecutionException(error);
+        }
+        if (response == null) {
+            throw new IllegalStateException("The future is completed without response");
+        }
+        return response;
+    }
+
+    private void complete(@Nullable SpitfireResponse<T> response, @Nullable VolleyError error) {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            this.completed = true;
+            this.response = response;
+            this.error = error;
+            notifyAll();
+        }
+        runCallbacks();
+    }
+
+    private void runCallbacks() {
+        List<Runnable> tasks;
+        synchronized (this) {
+            tasks = new ArrayList<>(callbacks);
+            callbacks.clear();
+        }
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.neopixl.spitfire.request;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.Header;
+import com.android.volley.NetworkResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.codec.Codec;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.listener.ResponseTransformer;
+import com.neopixl.spitfire.model.BodyCompression;
+import com.neopixl.spitfire.network.SpitfireNetwork;
+import com.neopixl.spitfire.network.StreamingResponse;
+import com.neopixl.spitfire.outbox.RequestOutbox;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Request parsing its response directly from the connection stream, the response content is never fully buffered.
+ * <p>The streaming is done only when the request queue uses a {@link SpitfireNetwork}, with any other network
+ * the request behaves like a {@link BaseRequest}. The streamed responses are not cached.</p>
+ * @param <T> The type used as the response for the request
+ */
+public class StreamRequest<T> extends BaseRequest<T> implements StreamingResponse {
+
+    private volatile boolean streamed;
+    @Nullable
+    private volatile T streamedResult;
+    @Nullable
+    private volatile JsonProcessingException streamError;
+
+    /**
+     * Class Builder used to create a new request
+     */
+    public static class Builder<T> extends BaseRequest.Builder<T> {
+
+        /**
+         * Default
+         *
+         * @param method        used to send the request
+         * @param url           given url to access the resource, not null
+         * @param classResponse class used to parse the response
+         */
+        public Builder(int method, @NonNull String url, @NonNull Class<T> classResponse) {
+            super(method, url, classResponse);
+        }
+
+        /**
+         * Constructor used for the generic responses, like List&lt;DummyResponse&gt;
+         *
+         * @param method        used to send the request
+         * @param url           given url to access the resource, not null
+         * @param typeResponse  full type used to parse the response, not null
+         */
+        public Builder(int method, @NonNull String url, @NonNull TypeReference<T> typeResponse) {
+            super(method, url, typeResponse);
+        }
+
+        /**
+         * Constructor used with an already resolved type, the type should match &lt;T&gt;
+         *
+         * @param method            used to send the request
+         * @param url               given url to access the resource, not null
+         * @param javaTypeResponse  type used to parse the response, not null
+         */
+        public Builder(int method, @NonNull String url, @NonNull JavaType javaTypeResponse) {
+            super(method, url, javaTypeResponse);
+        }
+
+        /**
+         * Specifies the object
+         * @param jsonObject The object to be embedded in the body, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> json(@Nullable Object jsonObject) {
+            super.json(jsonObject);
+            return this;
+        }
+
+        /**
+         * Set the parameters for the request
+         * @param parameters Map&lt;String, String&gt;, not null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> parameters(@NonNull Map<String, String> parameters) {
+            super.parameters(parameters);
+            return this;
+        }
+
+        /**
+         * Set the compression of the JSON or form body, sent with a Content-Encoding header
+         * @param bodyCompression {@link BodyCompression}, can be null to use the compression of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> bodyCompression(@Nullable BodyCompression bodyCompression) {
+            super.bodyCompression(bodyCompression);
+            return this;
+        }
+
+        /**
+         * Save the POST, PUT and PATCH requests failing because the device is offline, to send them again later
+         * @param outbox {@link RequestOutbox}, can be null
+         * @param orderingKey the key of the requests replayed one after the other, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> outbox(@Nullable RequestOutbox outbox, @Nullable String orderingKey) {
+            super.outbox(outbox, orderingKey);
+            return this;
+        }
+
+        /**
+         * Set the codec writing the body and reading the response
+         * @param codec {@link Codec}, can be null to use the default codec of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> codec(@Nullable Codec codec) {
+            super.codec(codec);
+            return this;
+        }
+
+        /**
+         * Set the listener for the request
+         * @param listener {@link RequestListener}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> listener(@Nullable RequestListener<T> listener) {
+            super.listener(listener);
+            return this;
+        }
+
+        /**
+         * Set the executor calling the listener, instead of the delivery of the request queue
+         * @param deliveryExecutor the executor, can be null to use the executor of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> deliveryExecutor(@Nullable Executor deliveryExecutor) {
+            super.deliveryExecutor(deliveryExecutor);
+            return this;
+        }
+
+        /**
+         * Set the transformation applied to the parsed response on the network thread
+         * @param responseTransformer {@link ResponseTransformer}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> responseTransformer(@Nullable ResponseTransformer<T> responseTransformer) {
+            super.responseTransformer(responseTransformer);
+            return this;
+        }
+
+        /**
+         * Set the headers for the request
+         * @param headers used to send the request, not null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> headers(@Nullable Map<String, String> headers) {
+            super.headers(headers);
+            return this;
+        }
+
+        /**
+         * Create a request based on the current request
+         * @return The request
+         */
+        @NonNull
+        @Override
+        public StreamRequest<T> build() {
+            return new StreamRequest<T>(this);
+        }
+    }
+
+    /**
+     * Constructor using the builder
+     * @param builder {@link Builder}
+     */
+    protected StreamRequest(Builder<T> builder) {
+        super(builder);
+        setShouldCache(false);
+    }
+
+    /**
+     * Parse the response content while it is read from the connection.
+     * Note: This method is called internally by the {@link SpitfireNetwork}, you should never call it directly.
+     * @param statusCode the HTTP status code of the response
+     * @param headers the response headers
+     * @param content the response content
+     * @throws IOException when the connection fails while reading the content
+     */
+    @Override
+    public void parseNetworkStream(int statusCode, @NonNull List<Header> headers, @NonNull InputStream content) throws IOException {
+        streamed = true;
+        streamedResult = null;
+        streamError = null;
+
+        JavaType returnType = getReturnType();
+        if (returnType == null || statusCode == HttpURLConnection.HTTP_NO_CONTENT) {
+            return;
+        }
+        try {
+            streamedResult = getResponseCodec(getContentType(headers)).getReader(returnType).readValue(content);
+        } catch (JsonProcessingException e) {
+            // The content is invalid, this is a parse error and not a connection error
+            streamError = e;
+        }
+    }
+
+    @Nullable
+    @Override
+    T parseResponseContent(@NonNull NetworkResponse response, @NonNull JavaType returnType) throws IOException {
+        if (!streamed) {
+            return super.parseResponseContent(response, returnType);
+        }
+        JsonProcessingException error = streamError;
+        if (error != null) {
+            throw error;
+        }
+        return streamedResult;
+    }
+}
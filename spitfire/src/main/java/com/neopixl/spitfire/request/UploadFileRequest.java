@@ -4,26 +4,45 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.android.volley.AuthFailureError;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.neopixl.spitfire.codec.Codec;
+import com.neopixl.spitfire.listener.ProgressListener;
 import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.listener.ResponseTransformer;
 import com.neopixl.spitfire.model.RequestData;
+import com.neopixl.spitfire.network.ResumableBody;
+import com.neopixl.spitfire.upload.ResumableUpload;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Created by Florian ALONSO on 14/10/16.
  */
 
-public class UploadFileRequest<T> extends AbstractRequest<T> {
+public class UploadFileRequest<T> extends AbstractRequest<T> implements ResumableBody {
 
     private final RequestData partData;
+    @Nullable
+    private final UploadProgress uploadProgress;
+    @Nullable
+    private final ResumableUpload resumableUpload;
 
     public static class Builder<T> extends AbstractBuilder<T, UploadFileRequest<T>> {
 
         private RequestData partData;
+        @Nullable
+        private ProgressListener progressListener;
+        @Nullable
+        private Executor progressExecutor;
+        private long progressIntervalMs = UploadProgress.DEFAULT_INTERVAL_MS;
+        private int progressPercentStep = UploadProgress.DEFAULT_PERCENT_STEP;
+        @Nullable
+        private ResumableUpload resumableUpload;
 
         /**
          * Default
@@ -36,11 +55,103 @@ public class UploadFileRequest<T> extends AbstractRequest<T> {
             super(method, url, classResponse);
         }
 
+        /**
+         * Constructor used for the generic responses
+         *
+         * @param method        used to send the request
+         * @param url           given url to access the resource
+         * @param typeResponse  full type used to parse the response
+         */
+        public Builder(int method, @NonNull String url, @NonNull TypeReference<T> typeResponse) {
+            super(method, url, typeResponse);
+        }
+
+        /**
+         * Constructor used with an already resolved type
+         *
+         * @param method            used to send the request
+         * @param url               given url to access the resource
+         * @param javaTypeResponse  type used to parse the response, should match &lt;T&gt;
+         */
+        public Builder(int method, @NonNull String url, @NonNull JavaType javaTypeResponse) {
+            super(method, url, javaTypeResponse);
+        }
+
         public Builder<T> partData(@NonNull RequestData partData) {
             this.partData = partData;
             return this;
         }
 
+        /**
+         * Set the listener receiving the upload progress.
+         * <p>The progress is only reported when the body is streamed in the connection (see <b>SpitfireNetwork</b>).</p>
+         * @param progressListener {@link ProgressListener}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> progressListener(@Nullable ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        /**
+         * Set the executor used to call the progress listener, by default the listener is called on the main thread
+         * @param progressExecutor the executor, can be null to use the main thread
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> progressExecutor(@Nullable Executor progressExecutor) {
+            this.progressExecutor = progressExecutor;
+            return this;
+        }
+
+        /**
+         * Set the minimum time between two progress calls, 100 ms by default
+         * @param intervalMs interval in milliseconds, 0 to report each write
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> progressInterval(long intervalMs) {
+            this.progressIntervalMs = UploadProgress.checkInterval(intervalMs);
+            return this;
+        }
+
+        /**
+         * Set the minimum progress between two progress calls, 1% by default
+         * @param percentStep step in percent of the total (0 to 100), 0 to report each write
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> progressStep(int percentStep) {
+            this.progressPercentStep = UploadProgress.checkPercentStep(percentStep);
+            return this;
+        }
+
+        /**
+         * Set the codec reading the response, the file is sent as is
+         * @param codec {@link Codec}, can be null to use the default codec of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> codec(@Nullable Codec codec) {
+            super.codec(codec);
+            return this;
+        }
+
+        /**
+         * Send the part data by chunks, a failed upload then restarts from the last chunk acknowledged by the server.
+         * <p>The part data should have a known length and be repeatable (not a single stream),
+         * and the request should be performed by a <b>SpitfireNetwork</b>.</p>
+         * @param resumableUpload {@link ResumableUpload}, can be null to send the data with a single request
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder<T> resumable(@Nullable ResumableUpload resumableUpload) {
+            this.resumableUpload = resumableUpload;
+            return this;
+        }
+
         @NonNull
         @Override
         public Builder<T> listener(@Nullable RequestListener<T> listener) {
@@ -48,6 +159,30 @@ public class UploadFileRequest<T> extends AbstractRequest<T> {
             return this;
         }
 
+        /**
+         * Set the executor calling the listener, instead of the delivery of the request queue
+         * @param deliveryExecutor the executor, can be null to use the executor of the SpitfireManager
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> deliveryExecutor(@Nullable Executor deliveryExecutor) {
+            super.deliveryExecutor(deliveryExecutor);
+            return this;
+        }
+
+        /**
+         * Set the transformation applied to the parsed response on the network thread
+         * @param responseTransformer {@link ResponseTransformer}, can be null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        @Override
+        public Builder<T> responseTransformer(@Nullable ResponseTransformer<T> responseTransformer) {
+            super.responseTransformer(responseTransformer);
+            return this;
+        }
+
         @NonNull
         @Override
         public Builder<T> headers(@Nullable Map headers) {
@@ -73,6 +208,9 @@ public class UploadFileRequest<T> extends AbstractRequest<T> {
     public UploadFileRequest(Builder<T> builder) {
         super(builder);
         this.partData = builder.partData;
+        this.uploadProgress = builder.progressListener != null
+                ? new UploadProgress(builder.progressListener, builder.progressExecutor, builder.progressIntervalMs, builder.progressPercentStep)
+                : null;
 
         if (partData == null) {
             throw new IllegalArgumentException("Partdata should not be null.");
@@ -85,6 +223,14 @@ public class UploadFileRequest<T> extends AbstractRequest<T> {
         if (builder.method == Method.GET) {
             throw new IllegalArgumentException("Cannot use streamfile with GET request");
         }
+
+        this.resumableUpload = builder.resumableUpload;
+        if (resumableUpload != null) {
+            if (!partData.isRepeatable() || partData.getContentLength() < 0) {
+                throw new IllegalArgumentException("A resumable upload needs a repeatable part data with a known length");
+            }
+            setShouldCache(false);
+        }
     }
 
     /**
@@ -113,31 +259,82 @@ public class UploadFileRequest<T> extends AbstractRequest<T> {
     @Override
     @Nullable
     byte[] calculateBody() throws AuthFailureError {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        DataOutputStream dos = new DataOutputStream(bos);
+        long contentLength = getPartData().getContentLength();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(contentLength > 0 && contentLength < Integer.MAX_VALUE ? (int) contentLength : 32);
 
         try {
-            ByteArrayInputStream fileInputStream = new ByteArrayInputStream(getPartData().getContent());
-            int bytesAvailable = fileInputStream.available();
+            getPartData().writeContent(bos);
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new AuthFailureError("An error occurred while reading the part data", e);
+        }
+    }
 
-            int maxBufferSize = 1024 * 1024;
-            int bufferSize = Math.min(bytesAvailable, maxBufferSize);
-            byte[] buffer = new byte[bufferSize];
+    /**
+     * Returns the length of the part data, without reading it.
+     * @return the body length, -1 if unknown
+     */
+    @Override
+    public long getBodyContentLength() {
+        return getPartData().getContentLength();
+    }
 
-            int bytesRead = fileInputStream.read(buffer, 0, bufferSize);
+    /**
+     * Write the part data in the connection stream, the files and the buffers are transferred with NIO channels.
+     * @param outputStream the connection stream, not null
+     * @throws IOException when the data can not be read or written
+     */
+    @Override
+    public void writeBody(@NonNull OutputStream outputStream) throws IOException {
+        writePartData(outputStream, 0, -1);
+    }
 
-            while (bytesRead > 0) {
-                dos.write(buffer, 0, bufferSize);
-                bytesAvailable = fileInputStream.available();
-                bufferSize = Math.min(bytesAvailable, maxBufferSize);
-                bytesRead = fileInputStream.read(buffer, 0, bufferSize);
-            }
+    /**
+     * Write a range of the part data in the connection stream, used by the resumable uploads.
+     * @param outputStream the connection stream, not null
+     * @param offset index of the first byte to write
+     * @param length number of bytes to write
+     * @throws IOException when the data can not be read or written
+     */
+    @Override
+    public void writeBodyRange(@NonNull OutputStream outputStream, long offset, long length) throws IOException {
+        writePartData(outputStream, offset, length);
+    }
 
-            return bos.toByteArray();
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Get the resumable upload settings
+     * @return the settings, null if the data is sent with a single request
+     */
+    @Nullable
+    @Override
+    public ResumableUpload getResumableUpload() {
+        return resumableUpload;
+    }
+
+    /**
+     * Write the part data, or a range of it
+     * @param length number of bytes to write, -1 to write the whole data
+     */
+    private void writePartData(@NonNull OutputStream outputStream, long offset, long length) throws IOException {
+        OutputStream destination = outputStream;
+        UploadProgress.Tracker tracker = null;
+        if (uploadProgress != null) {
+            tracker = uploadProgress.newTracker(this, outputStream, getBodyContentLength());
+            tracker.startPart(getPartData().getFileName(), getPartData());
+            tracker.skip(offset);
+            destination = tracker;
+        }
+
+        if (length < 0) {
+            getPartData().writeContent(destination);
+        } else {
+            getPartData().writeContent(destination, offset, length);
+        }
+
+        if (tracker != null) {
+            tracker.endPart();
+            tracker.finish();
         }
-        return null;
     }
 
     /**
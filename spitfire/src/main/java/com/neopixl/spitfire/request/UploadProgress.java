@@ -0,0 +1,167 @@
+package com.neopixl.spitfire.request;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.Request;
+import com.neopixl.spitfire.listener.ProgressListener;
+import com.neopixl.spitfire.model.RequestData;
+import com.neopixl.spitfire.utils.CountingOutputStream;
+import com.neopixl.spitfire.utils.ProgressThrottle;
+
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * Upload progress settings of a request, creating the stream counting the body bytes while it is written.
+ */
+final class UploadProgress {
+
+    static final long DEFAULT_INTERVAL_MS = 100;
+    static final int DEFAULT_PERCENT_STEP = 1;
+
+    @NonNull
+    private final ProgressListener listener;
+    @NonNull
+    private final Executor executor;
+    private final long intervalMs;
+    private final int percentStep;
+
+    UploadProgress(@NonNull ProgressListener listener, @Nullable Executor executor, long intervalMs, int percentStep) {
+        this.listener = listener;
+        this.executor = executor != null ? executor : new MainThreadExecutor();
+        this.intervalMs = intervalMs;
+        this.percentStep = percentStep;
+    }
+
+    /**
+     * Create the stream counting the body written in the given stream
+     * @param request the request writing its body
+     * @param outputStream the connection stream
+     * @param totalBytes body length, -1 if unknown
+     * @return the counting stream, not null
+     */
+    @NonNull
+    Tracker newTracker(@NonNull Request<?> request, @NonNull OutputStream outputStream, long totalBytes) {
+        return new Tracker(request, outputStream, totalBytes);
+    }
+
+    /**
+     * Validate the interval given to a builder
+     */
+    static long checkInterval(long intervalMs) {
+        if (intervalMs < 0) {
+            throw new IllegalArgumentException("The progress interval should not be negative");
+        }
+        return intervalMs;
+    }
+
+    /**
+     * Validate the step given to a builder
+     */
+    static int checkPercentStep(int percentStep) {
+        if (percentStep < 0 || percentStep > 100) {
+            throw new IllegalArgumentException("The progress step should be between 0 and 100");
+        }
+        return percentStep;
+    }
+
+    /**
+     * Stream counting the bytes of the body and of the current part, the notifications are posted on the executor
+     */
+    final class Tracker extends CountingOutputStream {
+
+        @NonNull
+        private final Request<?> request;
+        private final long totalBytes;
+        @NonNull
+        private final ProgressThrottle throttle = new ProgressThrottle(intervalMs, percentStep);
+
+        @Nullable
+        private String partName;
+        @Nullable
+        private RequestData part;
+        private long partStart;
+        private long partTotalBytes;
+        @Nullable
+        private ProgressThrottle partThrottle;
+
+        private Tracker(@NonNull Request<?> request, @NonNull OutputStream outputStream, long totalBytes) {
+            super(outputStream);
+            this.request = request;
+            this.totalBytes = totalBytes;
+        }
+
+        /**
+         * Start counting a data part, the bytes written until {@link #endPart()} are attributed to the part
+         */
+        void startPart(@NonNull String name, @NonNull RequestData data) {
+            partName = name;
+            part = data;
+            partStart = getCount();
+            partTotalBytes = data.getContentLength();
+            partThrottle = new ProgressThrottle(intervalMs, percentStep);
+        }
+
+        /**
+         * Stop counting the current part, its last progress is notified
+         */
+        void endPart() {
+            if (partName != null && part != null && partThrottle != null
+                    && partThrottle.shouldNotifyCompletion(getCount() - partStart)) {
+                postPartProgress(partName, part, getCount() - partStart, partTotalBytes);
+            }
+            partName = null;
+            part = null;
+            partThrottle = null;
+        }
+
+        /**
+         * Notify the last progress of the body, called once the body is written
+         */
+        void finish() {
+            if (throttle.shouldNotifyCompletion(getCount())) {
+                postProgress(getCount(), totalBytes);
+            }
+        }
+
+        @Override
+        protected void onBytesWritten(int length) {
+            super.onBytesWritten(length);
+            long now = SystemClock.elapsedRealtime();
+            if (partName != null && part != null && partThrottle != null) {
+                long partBytesWritten = getCount() - partStart;
+                if (partThrottle.shouldNotify(partBytesWritten, partTotalBytes, now)) {
+                    postPartProgress(partName, part, partBytesWritten, partTotalBytes);
+                }
+            }
+            if (throttle.shouldNotify(getCount(), totalBytes, now)) {
+                postProgress(getCount(), totalBytes);
+            }
+        }
+
+        private void postProgress(final long bytesWritten, final long total) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!request.isCanceled()) {
+                        listener.onProgress(request, bytesWritten, total);
+                    }
+                }
+            });
+        }
+
+        private void postPartProgress(@NonNull final String name, @NonNull final RequestData data, final long bytesWritten, final long total) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!request.isCanceled()) {
+                        listener.onPartProgress(request, name, data, bytesWritten, total);
+                    }
+                }
+            });
+        }
+    }
+}
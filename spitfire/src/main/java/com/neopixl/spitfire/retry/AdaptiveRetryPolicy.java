@@ -0,0 +1,114 @@
+package com.neopixl.spitfire.retry;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.Request;
+import com.android.volley.RetryPolicy;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.utils.EndpointTemplate;
+
+/**
+ * Retry policy of a request created by an {@link AdaptiveRetryStrategy}.
+ * <p>The timeout is given by the latencies observed on the endpoint of the request, and doubled on each retry.
+ * A retry waits a jittered exponential backoff on the network thread, and is only allowed by the retry budget
+ * of the strategy.</p>
+ * <p>The request is counted in the retry budget when it is sent, the first time the network reads its timeout:
+ * a policy replaced or a request answered by the cache does not count.</p>
+ */
+public final class AdaptiveRetryPolicy implements RetryPolicy {
+
+    @NonNull
+    private final AdaptiveRetryStrategy strategy;
+    @NonNull
+    private final Request<?> request;
+
+    @Nullable
+    private String endpoint;
+    private int currentTimeoutMs = -1;
+    private int currentRetryCount;
+
+    AdaptiveRetryPolicy(@NonNull AdaptiveRetryStrategy strategy, @NonNull Request<?> request) {
+        this.strategy = strategy;
+        this.request = request;
+    }
+
+    @Override
+    public int getCurrentTimeout() {
+        if (currentTimeoutMs < 0) {
+            currentTimeoutMs = strategy.getTimeoutMs(getEndpoint());
+            strategy.getRetryBudget().recordRequest();
+        }
+        return currentTimeoutMs;
+    }
+
+    @Override
+    public int getCurrentRetryCount() {
+        return currentRetryCount;
+    }
+
+    /**
+     * Prepare a new attempt, or throw the error when the retries or the retry budget are exhausted.
+     * Note: This method is called on the network thread, it waits for the backoff before returning.
+     * @param error the error of the last attempt
+     * @throws VolleyError when the request should not be retried
+     */
+    @Override
+    public void retry(VolleyError error) throws VolleyError {
+        int timeoutMs = getCurrentTimeout();
+        if (error instanceof TimeoutError) {
+            // the request took at least the timeout, the endpoint timeout grows with the slow requests
+            strategy.recordLatency(getEndpoint(), timeoutMs);
+        }
+        if (currentRetryCount >= strategy.getMaxRetries()) {
+            throw error;
+        }
+        if (!strategy.getRetryBudget().tryAcquireRetry()) {
+            request.addMarker("retry-budget-exhausted");
+            throw error;
+        }
+
+        currentRetryCount++;
+        currentTimeoutMs = (int) Math.min(strategy.getMaxTimeoutMs(), 2L * timeoutMs);
+        long backoffMs = strategy.getBackoffMs(currentRetryCount);
+        if (backoffMs > 0) {
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * Record the network time of a response received without retry, the responses of a request which was not sent
+     * with this policy are ignored
+     * Note: This method is called on the network thread.
+     * @param networkTimeMs the network time of the response, in milliseconds
+     */
+    public void onResponse(long networkTimeMs) {
+        if (currentRetryCount == 0 && currentTimeoutMs >= 0) {
+            strategy.recordLatency(getEndpoint(), networkTimeMs);
+        }
+    }
+
+    /**
+     * Create a new policy of the same strategy for another request, for example the duplicate of a hedged request
+     * @param otherRequest the request using the new policy, not null
+     * @return the new policy, not null
+     */
+    @NonNull
+    public AdaptiveRetryPolicy copy(@NonNull Request<?> otherRequest) {
+        return new AdaptiveRetryPolicy(strategy, otherRequest);
+    }
+
+    @NonNull
+    private String getEndpoint() {
+        if (endpoint == null) {
+            endpoint = EndpointTemplate.getEndpoint(request);
+        }
+        return endpoint;
+    }
+}
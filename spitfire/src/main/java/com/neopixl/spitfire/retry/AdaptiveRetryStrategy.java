@@ -0,0 +1,324 @@
+package com.neopixl.spitfire.retry;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.Request;
+import com.android.volley.RetryPolicy;
+import com.neopixl.spitfire.utils.EndpointTemplate;
+import com.neopixl.spitfire.utils.LatencyTracker;
+
+import java.util.Random;
+
+/**
+ * Retry strategy deriving the timeouts from the observed latencies, with a jittered exponential backoff and a retry budget.
+ * <p>The network times of the responses are recorded by endpoint (HTTP method and template of the URL, see {@link EndpointTemplate})
+ * in a {@link LatencyTracker}. Once enough responses are recorded, the timeout of the endpoint is a percentile of the latencies
+ * (p99 by default) multiplied by the timeout multiplier, between the minimum and maximum timeouts. Before that, the maximum
+ * timeout is used. The histogram is reset after each window of responses, so the timeouts follow the endpoint.</p>
+ * <p>A request is retried at most {@link Builder#maxRetries(int)} times, with a timeout doubled on each retry, after a
+ * random delay between 0 and <b>initialBackoff * 2^(retry - 1)</b> (capped by the maximum backoff). The delay is spent on
+ * the network thread, keep it short. All the retries share a {@link RetryBudget}.</p>
+ * <p>Register the strategy with <b>SpitfireManager.setRetryPolicyFactory</b>, it applies to the requests created afterwards.</p>
+ */
+public final class AdaptiveRetryStrategy implements RetryPolicyFactory {
+
+    /**
+     * Default percentile of the latencies used as timeout
+     */
+    public static final double DEFAULT_PERCENTILE = 99;
+
+    /**
+     * Default multiplier applied to the percentile
+     */
+    public static final float DEFAULT_TIMEOUT_MULTIPLIER = 1.5f;
+
+    /**
+     * Default minimum timeout, in milliseconds
+     */
+    public static final int DEFAULT_MIN_TIMEOUT_MS = 1000;
+
+    /**
+     * Default maximum timeout, in milliseconds, the timeout of the SpitfireManager default retry policy
+     */
+    public static final int DEFAULT_MAX_TIMEOUT_MS = 30000;
+
+    /**
+     * Default number of latencies needed to compute the timeout of an endpoint
+     */
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+
+    /**
+     * Default number of latencies after which the latencies of an endpoint are discarded
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 1000;
+
+    /**
+     * Default maximum number of retries of a request
+     */
+    public static final int DEFAULT_MAX_RETRIES = 2;
+
+    /**
+     * Default maximum delay before the first retry, in milliseconds
+     */
+    public static final int DEFAULT_INITIAL_BACKOFF_MS = 100;
+
+    /**
+     * Default cap of the delays before the retries, in milliseconds
+     */
+    public static final int DEFAULT_MAX_BACKOFF_MS = 1000;
+
+    /**
+     * Default maximum number of endpoints
+     */
+    public static final int DEFAULT_MAX_ENDPOINTS = 200;
+
+    private final float timeoutMultiplier;
+    private final int minTimeoutMs;
+    private final int maxTimeoutMs;
+    private final int maxRetries;
+    private final int initialBackoffMs;
+    private final int maxBackoffMs;
+    @NonNull
+    private final RetryBudget retryBudget;
+    @NonNull
+    private final Random random;
+    @NonNull
+    private final LatencyTracker latencies;
+
+    /**
+     * Builder used to create the strategy
+     */
+    public static class Builder {
+
+        private double percentile = DEFAULT_PERCENTILE;
+        private float timeoutMultiplier = DEFAULT_TIMEOUT_MULTIPLIER;
+        private int minTimeoutMs = DEFAULT_MIN_TIMEOUT_MS;
+        private int maxTimeoutMs = DEFAULT_MAX_TIMEOUT_MS;
+        private int minSamples = DEFAULT_MIN_SAMPLES;
+        private int windowSize = DEFAULT_WINDOW_SIZE;
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+        private int initialBackoffMs = DEFAULT_INITIAL_BACKOFF_MS;
+        private int maxBackoffMs = DEFAULT_MAX_BACKOFF_MS;
+        private int maxEndpoints = DEFAULT_MAX_ENDPOINTS;
+        @Nullable
+        private RetryBudget retryBudget;
+        @Nullable
+        private Random random;
+
+        /**
+         * Set the percentile of the latencies used as timeout, p99 by default
+         * @param percentile the percentile, between 0 and 100
+         * @param timeoutMultiplier the multiplier applied to the percentile, 1 or more (1.5 by default)
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder timeoutPercentile(double percentile, float timeoutMultiplier) {
+            if (percentile <= 0 || percentile > 100 || timeoutMultiplier < 1) {
+                throw new IllegalArgumentException("The percentile should be between 0 and 100, the multiplier should be 1 or more");
+            }
+            this.percentile = percentile;
+            this.timeoutMultiplier = timeoutMultiplier;
+            return this;
+        }
+
+        /**
+         * Set the bounds of the timeouts, 1 to 30 seconds by default. The maximum timeout is used until enough latencies are recorded
+         * @param minTimeoutMs the minimum timeout in milliseconds, greater than 0
+         * @param maxTimeoutMs the maximum timeout in milliseconds, greater than or equal to the minimum timeout
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder timeoutBounds(int minTimeoutMs, int maxTimeoutMs) {
+            if (minTimeoutMs <= 0 || maxTimeoutMs < minTimeoutMs) {
+                throw new IllegalArgumentException("The timeouts should be greater than 0, the minimum lower than the maximum");
+            }
+            this.minTimeoutMs = minTimeoutMs;
+            this.maxTimeoutMs = maxTimeoutMs;
+            return this;
+        }
+
+        /**
+         * Set the number of latencies needed to compute the timeout of an endpoint (20 by default), and the number of
+         * latencies after which they are discarded (1000 by default)
+         * @param minSamples the minimum number of latencies, greater than 0
+         * @param windowSize the size of the window, greater than or equal to the minimum number of latencies
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder samples(int minSamples, int windowSize) {
+            if (minSamples <= 0 || windowSize < minSamples) {
+                throw new IllegalArgumentException("The minimum number of samples should be greater than 0 and lower than the window");
+            }
+            this.minSamples = minSamples;
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of retries of a request, 2 by default
+         * @param maxRetries number of retries, 0 or more
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder maxRetries(int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("The maximum number of retries should be 0 or more");
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Set the backoff before the retries, from 100 ms to 1 second by default
+         * @param initialBackoffMs the maximum delay before the first retry in milliseconds, 0 to retry immediately
+         * @param maxBackoffMs the cap of the delays in milliseconds, greater than or equal to the initial backoff
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder backoff(int initialBackoffMs, int maxBackoffMs) {
+            if (initialBackoffMs < 0 || maxBackoffMs < initialBackoffMs) {
+                throw new IllegalArgumentException("The backoff should be 0 or more, the initial backoff lower than the maximum");
+            }
+            this.initialBackoffMs = initialBackoffMs;
+            this.maxBackoffMs = maxBackoffMs;
+            return this;
+        }
+
+        /**
+         * Set the budget shared by the retries
+         * @param retryBudget {@link RetryBudget}, can be null to use a budget of 10% of the requests
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder retryBudget(@Nullable RetryBudget retryBudget) {
+            this.retryBudget = retryBudget;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of endpoints, 200 by default
+         * @param maxEndpoints number of endpoints, greater than 0
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder maxEndpoints(int maxEndpoints) {
+            if (maxEndpoints <= 0) {
+                throw new IllegalArgumentException("The maximum number of endpoints should be greater than 0");
+            }
+            this.maxEndpoints = maxEndpoints;
+            return this;
+        }
+
+        @NonNull
+        Builder random(@NonNull Random random) {
+            this.random = random;
+            return this;
+        }
+
+        /**
+         * Build the strategy
+         * @return the strategy, not null
+         */
+        @NonNull
+        public AdaptiveRetryStrategy build() {
+            return new AdaptiveRetryStrategy(this);
+        }
+    }
+
+    private AdaptiveRetryStrategy(@NonNull Builder builder) {
+        this.timeoutMultiplier = builder.timeoutMultiplier;
+        this.minTimeoutMs = builder.minTimeoutMs;
+        this.maxTimeoutMs = builder.maxTimeoutMs;
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoffMs = builder.initialBackoffMs;
+        this.maxBackoffMs = builder.maxBackoffMs;
+        this.retryBudget = builder.retryBudget != null ? builder.retryBudget : new RetryBudget();
+        this.random = builder.random != null ? builder.random : new Random();
+        this.latencies = new LatencyTracker(builder.percentile, builder.minSamples, builder.windowSize, builder.maxEndpoints);
+    }
+
+    /**
+     * Create the retry policy of a request, the request is counted in the retry budget when it is sent
+     * @param request the request, not null
+     * @return a new {@link AdaptiveRetryPolicy}, not null
+     */
+    @NonNull
+    @Override
+    public RetryPolicy create(@NonNull Request<?> request) {
+        return new AdaptiveRetryPolicy(this, request);
+    }
+
+    /**
+     * Get the current timeout of the endpoint of a request
+     * @param request the request, not null
+     * @return the timeout in milliseconds
+     */
+    public int getTimeoutMs(@NonNull Request<?> request) {
+        return getTimeoutMs(EndpointTemplate.getEndpoint(request));
+    }
+
+    /**
+     * Get the budget shared by the retries
+     * @return the budget, not null
+     */
+    @NonNull
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * Get the maximum number of retries of a request
+     * @return number of retries
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Get the maximum timeout, used until enough latencies are recorded for an endpoint
+     * @return the timeout in milliseconds
+     */
+    public int getMaxTimeoutMs() {
+        return maxTimeoutMs;
+    }
+
+    /**
+     * Remove the latencies of all the endpoints
+     */
+    public void reset() {
+        latencies.reset();
+    }
+
+    int getTimeoutMs(@NonNull String endpoint) {
+        long latencyMs = latencies.getPercentile(endpoint);
+        if (latencyMs == LatencyTracker.NOT_AVAILABLE) {
+            return maxTimeoutMs;
+        }
+        long timeout = (long) Math.ceil(latencyMs * (double) timeoutMultiplier);
+        return (int) Math.max(minTimeoutMs, Math.min(maxTimeoutMs, timeout));
+    }
+
+    void recordLatency(@NonNull String endpoint, long latencyMs) {
+        latencies.record(endpoint, latencyMs);
+    }
+
+    /**
+     * Get a random delay before a retry ("full jitter"), so the clients failing together do not retry together
+     * @param retryCount the number of the retry, starting at 1
+     * @return the delay in milliseconds
+     */
+    long getBackoffMs(int retryCount) {
+        if (initialBackoffMs == 0) {
+            return 0;
+        }
+        long ceiling = initialBackoffMs;
+        for (int i = 1; i < retryCount && ceiling < maxBackoffMs; i++) {
+            ceiling *= 2;
+        }
+        ceiling = Math.min(ceiling, maxBackoffMs);
+        synchronized (random) {
+            return (long) (random.nextDouble() * (ceiling + 1));
+        }
+    }
+}
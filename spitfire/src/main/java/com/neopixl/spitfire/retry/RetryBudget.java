@@ -0,0 +1,90 @@
+package com.neopixl.spitfire.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget limiting the retries to a ratio of the requests, so an outage does not turn into a retry storm.
+ * <p>Each request deposits the retry ratio in the budget (0.1 by default) and each retry withdraws 1: in the long run
+ * the retries are at most 10% of the requests. The balance is capped, it starts full to allow a burst of retries.
+ * The budget is lock-free and shared by all the requests of an {@link AdaptiveRetryStrategy}.</p>
+ */
+public final class RetryBudget {
+
+    /**
+     * Default ratio of retries, 10% of the requests
+     */
+    public static final double DEFAULT_RETRY_RATIO = 0.1;
+
+    /**
+     * Default maximum number of retries saved in the budget
+     */
+    public static final int DEFAULT_MAX_BALANCE = 10;
+
+    // the balance is counted in thousandths of retry
+    private static final long RETRY_COST = 1000;
+
+    private final long deposit;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    /**
+     * Create a budget with {@link #DEFAULT_RETRY_RATIO} and {@link #DEFAULT_MAX_BALANCE}
+     */
+    public RetryBudget() {
+        this(DEFAULT_RETRY_RATIO, DEFAULT_MAX_BALANCE);
+    }
+
+    /**
+     * Create a budget
+     * @param retryRatio the maximum ratio of retries, between 0 and 1 (ex: 0.1 for 10% of the requests)
+     * @param maxBalance the maximum number of retries saved in the budget, 0 or more
+     */
+    public RetryBudget(double retryRatio, int maxBalance) {
+        if (retryRatio < 0 || retryRatio > 1) {
+            throw new IllegalArgumentException("The retry ratio should be between 0 and 1");
+        }
+        if (maxBalance < 0) {
+            throw new IllegalArgumentException("The maximum balance should be 0 or more");
+        }
+        this.deposit = Math.round(retryRatio * RETRY_COST);
+        this.maxBalance = maxBalance * RETRY_COST;
+        this.balance = new AtomicLong(this.maxBalance);
+    }
+
+    /**
+     * Record a new request, its share of retry is deposited
+     */
+    public void recordRequest() {
+        while (true) {
+            long currentBalance = balance.get();
+            long newBalance = Math.min(maxBalance, currentBalance + deposit);
+            if (newBalance == currentBalance || balance.compareAndSet(currentBalance, newBalance)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Withdraw a retry from the budget
+     * @return true when the retry is allowed, false when the budget is exhausted
+     */
+    public boolean tryAcquireRetry() {
+        while (true) {
+            long currentBalance = balance.get();
+            if (currentBalance < RETRY_COST) {
+                return false;
+            }
+            if (balance.compareAndSet(currentBalance, currentBalance - RETRY_COST)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Get the number of retries currently allowed
+     * @return the balance, in retries
+     */
+    public double getBalance() {
+        return (double) balance.get() / RETRY_COST;
+    }
+}
@@ -0,0 +1,23 @@
+package com.neopixl.spitfire.retry;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.Request;
+import com.android.volley.RetryPolicy;
+
+/**
+ * Factory creating the retry policy of each request, registered with
+ * {@link com.neopixl.spitfire.SpitfireManager#setRetryPolicyFactory(RetryPolicyFactory)}.
+ */
+public interface RetryPolicyFactory {
+
+    /**
+     * Create the retry policy of a request.
+     * Note: This method is called by the constructor of the request, the request may not be fully built:
+     * its URL should only be read when the request is performed.
+     * @param request the request, not null
+     * @return a new retry policy for this request only, not null
+     */
+    @NonNull
+    RetryPolicy create(@NonNull Request<?> request);
+}
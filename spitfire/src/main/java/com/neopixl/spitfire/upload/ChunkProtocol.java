@@ -0,0 +1,38 @@
+package com.neopixl.spitfire.upload;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.Header;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Protocol used to send a body by chunks and to read the offset acknowledged by the server.
+ * <p>See {@link ContentRangeChunkProtocol} for the default implementation.</p>
+ */
+public interface ChunkProtocol {
+
+    /**
+     * Get the headers describing a chunk, added to the request headers
+     * @param offset index of the first byte of the chunk
+     * @param length number of bytes of the chunk
+     * @param totalLength length of the whole body
+     * @return the headers, not null
+     */
+    @NonNull
+    Map<String, String> getChunkHeaders(long offset, long length, long totalLength);
+
+    /**
+     * Read the response to a chunk.
+     * Note: This method is called on the network thread.
+     * @param statusCode HTTP status of the response
+     * @param headers headers of the response, not null
+     * @param offset index of the first byte of the chunk
+     * @param length number of bytes of the chunk
+     * @param totalLength length of the whole body
+     * @return the number of bytes committed by the server (the total length once the upload is complete),
+     * or -1 if the response is an error
+     */
+    long getCommittedOffset(int statusCode, @NonNull List<Header> headers, long offset, long length, long totalLength);
+}
@@ -0,0 +1,84 @@
+package com.neopixl.spitfire.upload;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.Header;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chunk protocol using the <b>Content-Range</b> header, like the resumable uploads of most storage services.
+ * <p>Each chunk is sent with <code>Content-Range: bytes first-last/total</code>. The server answers an intermediate
+ * chunk with a <b>308</b> status (or a 2xx status) and a <code>Range: bytes=0-last</code> header giving the bytes
+ * it has committed, and answers the last chunk with a 2xx status and the final response.</p>
+ */
+public class ContentRangeChunkProtocol implements ChunkProtocol {
+
+    /**
+     * Status used by the servers to acknowledge an intermediate chunk
+     */
+    public static final int HTTP_RESUME_INCOMPLETE = 308;
+
+    private static final String HEADER_CONTENT_RANGE = "Content-Range";
+    private static final String HEADER_RANGE = "Range";
+    private static final String BYTES_UNIT = "bytes";
+
+    @NonNull
+    @Override
+    public Map<String, String> getChunkHeaders(long offset, long length, long totalLength) {
+        String range = length > 0 ? offset + "-" + (offset + length - 1) : "*";
+        return Collections.singletonMap(HEADER_CONTENT_RANGE, BYTES_UNIT + " " + range + "/" + totalLength);
+    }
+
+    @Override
+    public long getCommittedOffset(int statusCode, @NonNull List<Header> headers, long offset, long length, long totalLength) {
+        boolean success = statusCode >= 200 && statusCode <= 299;
+        if (!success && statusCode != HTTP_RESUME_INCOMPLETE) {
+            return -1;
+        }
+
+        long rangeEnd = getRangeEnd(headers);
+        if (rangeEnd >= 0) {
+            return rangeEnd + 1;
+        } else if (success) {
+            return offset + length;
+        }
+        // 308 without range: nothing committed yet
+        return 0;
+    }
+
+    /**
+     * Get the last byte index of the <b>Range</b> header
+     * @param headers the response headers
+     * @return the index, -1 if there is no valid range
+     */
+    private static long getRangeEnd(@NonNull List<Header> headers) {
+        String range = findHeader(headers, HEADER_RANGE);
+        if (range == null) {
+            return -1;
+        }
+        // "bytes=0-1234"
+        int separator = range.lastIndexOf('-');
+        if (separator < 0 || separator == range.length() - 1) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(range.substring(separator + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Nullable
+    private static String findHeader(@NonNull List<Header> headers, @NonNull String name) {
+        for (Header header : headers) {
+            if (name.equalsIgnoreCase(header.getName())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
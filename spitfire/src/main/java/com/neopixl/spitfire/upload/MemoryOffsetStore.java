@@ -0,0 +1,30 @@
+package com.neopixl.spitfire.upload;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Offset store kept in memory: an upload can be resumed after a failure, but not after a process restart.
+ */
+public class MemoryOffsetStore implements UploadOffsetStore {
+
+    @NonNull
+    private final ConcurrentHashMap<String, Long> offsets = new ConcurrentHashMap<>();
+
+    @Override
+    public long getOffset(@NonNull String uploadId) {
+        Long offset = offsets.get(uploadId);
+        return offset != null ? offset : 0;
+    }
+
+    @Override
+    public void setOffset(@NonNull String uploadId, long offset) {
+        offsets.put(uploadId, offset);
+    }
+
+    @Override
+    public void remove(@NonNull String uploadId) {
+        offsets.remove(uploadId);
+    }
+}
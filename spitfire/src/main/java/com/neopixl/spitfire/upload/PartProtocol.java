@@ -0,0 +1,52 @@
+package com.neopixl.spitfire.upload;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.volley.NetworkResponse;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Protocol of a parallel upload, like the S3 multipart uploads: each part is sent with a <b>PUT</b> request,
+ * then a commit request lists the uploaded parts.
+ */
+public interface PartProtocol {
+
+    /**
+     * Get the URL used to send a part
+     * @param partNumber number of the part, starting at 1
+     * @return the URL, not null
+     */
+    @NonNull
+    String getPartUrl(int partNumber);
+
+    /**
+     * Get the headers added to the request headers to send a part
+     * @param partNumber number of the part, starting at 1
+     * @param offset index of the first byte of the part
+     * @param length number of bytes of the part
+     * @param totalLength length of the whole data
+     * @return the headers, not null
+     */
+    @NonNull
+    Map<String, String> getPartHeaders(int partNumber, long offset, long length, long totalLength);
+
+    /**
+     * Read the identifier given by the server for a part, like the <b>ETag</b> header
+     * @param partNumber number of the part, starting at 1
+     * @param response the response to the part request
+     * @return the identifier, can be null
+     */
+    @Nullable
+    String getPartTag(int partNumber, @NonNull NetworkResponse response);
+
+    /**
+     * Create the JSON body of the commit request, called once all the parts are uploaded
+     * @param parts the uploaded parts, ordered by part number
+     * @return the object sent as JSON, can be null for an empty body
+     */
+    @Nullable
+    Object getCommitBody(@NonNull List<UploadedPart> parts);
+}
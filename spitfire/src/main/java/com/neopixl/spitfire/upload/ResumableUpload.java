@@ -0,0 +1,123 @@
+package com.neopixl.spitfire.upload;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Settings of a resumable upload: the body is sent by chunks and the offset committed by the server is saved,
+ * so a failed upload restarts from the last acknowledged chunk.
+ */
+public final class ResumableUpload {
+
+    /**
+     * Default chunk size, 1 MB
+     */
+    public static final long DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    @NonNull
+    private final String uploadId;
+    @NonNull
+    private final UploadOffsetStore offsetStore;
+    @NonNull
+    private final ChunkProtocol chunkProtocol;
+    private final long chunkSize;
+
+    /**
+     * Builder used to create the upload settings
+     */
+    public static class Builder {
+
+        @NonNull
+        private final String uploadId;
+        @NonNull
+        private final UploadOffsetStore offsetStore;
+        @NonNull
+        private ChunkProtocol chunkProtocol = new ContentRangeChunkProtocol();
+        private long chunkSize = DEFAULT_CHUNK_SIZE;
+
+        /**
+         * Constructor for the builder
+         * @param uploadId identifier of the upload in the store, it should be the same when the upload is resumed
+         * @param offsetStore the store of the committed offsets, not null
+         */
+        public Builder(@NonNull String uploadId, @NonNull UploadOffsetStore offsetStore) {
+            this.uploadId = uploadId;
+            this.offsetStore = offsetStore;
+        }
+
+        /**
+         * Set the size of the chunks
+         * @param chunkSize number of bytes, greater than 0
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder chunkSize(long chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("The chunk size should be greater than 0");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Set the protocol used to send the chunks, {@link ContentRangeChunkProtocol} by default
+         * @param chunkProtocol the protocol, not null
+         * @return Builder {@link Builder}
+         */
+        @NonNull
+        public Builder chunkProtocol(@NonNull ChunkProtocol chunkProtocol) {
+            this.chunkProtocol = chunkProtocol;
+            return this;
+        }
+
+        /**
+         * Build the upload settings
+         * @return the settings, not null
+         */
+        @NonNull
+        public ResumableUpload build() {
+            return new ResumableUpload(this);
+        }
+    }
+
+    private ResumableUpload(@NonNull Builder builder) {
+        this.uploadId = builder.uploadId;
+        this.offsetStore = builder.offsetStore;
+        this.chunkProtocol = builder.chunkProtocol;
+        this.chunkSize = builder.chunkSize;
+    }
+
+    /**
+     * Get the identifier of the upload in the store
+     * @return the identifier, not null
+     */
+    @NonNull
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    /**
+     * Get the store of the committed offsets
+     * @return the store, not null
+     */
+    @NonNull
+    public UploadOffsetStore getOffsetStore() {
+        return offsetStore;
+    }
+
+    /**
+     * Get the protocol used to send the chunks
+     * @return the protocol, not null
+     */
+    @NonNull
+    public ChunkProtocol getChunkProtocol() {
+        return chunkProtocol;
+    }
+
+    /**
+     * Get the size of the chunks
+     * @return number of bytes
+     */
+    public long getChunkSize() {
+        return chunkSize;
+    }
+}
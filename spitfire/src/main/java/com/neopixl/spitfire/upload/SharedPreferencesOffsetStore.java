@@ -0,0 +1,53 @@
+package com.neopixl.spitfire.upload;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Offset store saved in the shared preferences: an upload can be resumed after a process restart.
+ * <p>The offsets are committed synchronously, the store is only used on the network thread.</p>
+ */
+public class SharedPreferencesOffsetStore implements UploadOffsetStore {
+
+    /**
+     * Default name of the preferences file
+     */
+    public static final String DEFAULT_PREFERENCES_NAME = "spitfire_upload_offsets";
+
+    @NonNull
+    private final SharedPreferences preferences;
+
+    /**
+     * Create a store using the default preferences file
+     * @param context the context, not null
+     */
+    public SharedPreferencesOffsetStore(@NonNull Context context) {
+        this(context, DEFAULT_PREFERENCES_NAME);
+    }
+
+    /**
+     * Create a store
+     * @param context the context, not null
+     * @param preferencesName name of the preferences file, not null
+     */
+    public SharedPreferencesOffsetStore(@NonNull Context context, @NonNull String preferencesName) {
+        this.preferences = context.getApplicationContext().getSharedPreferences(preferencesName, Context.MODE_PRIVATE);
+    }
+
+    @Override
+    public long getOffset(@NonNull String uploadId) {
+        return preferences.getLong(uploadId, 0);
+    }
+
+    @Override
+    public void setOffset(@NonNull String uploadId, long offset) {
+        preferences.edit().putLong(uploadId, offset).commit();
+    }
+
+    @Override
+    public void remove(@NonNull String uploadId) {
+        preferences.edit().remove(uploadId).commit();
+    }
+}
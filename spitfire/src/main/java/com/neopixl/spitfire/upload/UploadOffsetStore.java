@@ -0,0 +1,30 @@
+package com.neopixl.spitfire.upload;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Store of the offsets committed by the server for the resumable uploads.
+ * <p>The methods are called on the network thread.</p>
+ */
+public interface UploadOffsetStore {
+
+    /**
+     * Get the committed offset of an upload
+     * @param uploadId identifier of the upload
+     * @return the number of bytes already committed, 0 if unknown
+     */
+    long getOffset(@NonNull String uploadId);
+
+    /**
+     * Save the committed offset of an upload
+     * @param uploadId identifier of the upload
+     * @param offset the number of bytes committed by the server
+     */
+    void setOffset(@NonNull String uploadId, long offset);
+
+    /**
+     * Remove an upload, called when the upload is complete
+     * @param uploadId identifier of the upload
+     */
+    void remove(@NonNull String uploadId);
+}
@@ -0,0 +1,62 @@
+package com.neopixl.spitfire.upload;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A part of a parallel upload acknowledged by the server.
+ */
+public final class UploadedPart {
+
+    private final int partNumber;
+    private final long offset;
+    private final long length;
+    @Nullable
+    private final String tag;
+
+    /**
+     * Create an uploaded part
+     * @param partNumber number of the part, starting at 1
+     * @param offset index of the first byte of the part
+     * @param length number of bytes of the part
+     * @param tag identifier given by the server for the part (like an ETag), can be null
+     */
+    public UploadedPart(int partNumber, long offset, long length, @Nullable String tag) {
+        this.partNumber = partNumber;
+        this.offset = offset;
+        this.length = length;
+        this.tag = tag;
+    }
+
+    /**
+     * Get the number of the part, starting at 1
+     * @return the part number
+     */
+    public int getPartNumber() {
+        return partNumber;
+    }
+
+    /**
+     * Get the index of the first byte of the part
+     * @return the offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get the number of bytes of the part
+     * @return the length
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Get the identifier given by the server for the part
+     * @return the tag, can be null
+     */
+    @Nullable
+    public String getTag() {
+        return tag;
+    }
+}
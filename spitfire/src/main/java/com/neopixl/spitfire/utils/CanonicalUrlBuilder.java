@@ -0,0 +1,159 @@
+package com.neopixl.spitfire.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Builds canonical URLs: the parameters are sorted by name and percent-encoded in a single form, so identical
+ * requests always get the same URL (and the same cache key) whatever the order of their parameters map.
+ * <p>Only the unreserved characters of RFC 3986 (letters, digits, <b>-</b>, <b>.</b>, <b>_</b> and <b>~</b>)
+ * are kept, all the other characters are encoded as uppercase <b>%XX</b> sequences (a space becomes <b>%20</b>).
+ * The parameters with a null name or value are skipped.</p>
+ */
+public final class CanonicalUrlBuilder {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final String UTF_8 = "UTF-8";
+
+    /**
+     * Room reserved in the builder for the encoded characters
+     */
+    private static final int ENCODING_MARGIN = 16;
+
+    private CanonicalUrlBuilder() {
+    }
+
+    /**
+     * Append the sorted and encoded parameters to the URL
+     * @param url the URL, can already contain a query, not null
+     * @param params the parameters, can be null
+     * @param encoding the name of the charset used to encode the parameters, not null
+     * @return the canonical URL, not null
+     */
+    @NonNull
+    public static String build(@NonNull String url, @Nullable Map<String, String> params, @NonNull String encoding) {
+        if (params == null || params.isEmpty()) {
+            return url;
+        }
+        Charset charset = getCharset(encoding);
+
+        String[] keys = new String[params.size()];
+        int keyCount = 0;
+        int length = url.length() + ENCODING_MARGIN;
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                keys[keyCount++] = entry.getKey();
+                length += entry.getKey().length() + entry.getValue().length() + 2;
+            }
+        }
+        if (keyCount == 0) {
+            return url;
+        }
+        Arrays.sort(keys, 0, keyCount);
+
+        StringBuilder result = new StringBuilder(length);
+        result.append(url);
+        char separator = url.indexOf('?') >= 0 ? '&' : '?';
+        for (int i = 0; i < keyCount; i++) {
+            result.append(separator);
+            appendEncoded(result, keys[i], charset);
+            result.append('=');
+            appendEncoded(result, params.get(keys[i]), charset);
+            separator = '&';
+        }
+        return result.toString();
+    }
+
+    /**
+     * Percent-encode a value in the canonical form
+     * @param value the value to encode, not null
+     * @param encoding the name of the charset used to encode the value, not null
+     * @return the encoded value, not null
+     */
+    @NonNull
+    public static String encode(@NonNull String value, @NonNull String encoding) {
+        StringBuilder result = new StringBuilder(value.length() + ENCODING_MARGIN);
+        appendEncoded(result, value, getCharset(encoding));
+        return result.toString();
+    }
+
+    /**
+     * Percent-encode a value directly in the builder
+     * @param builder the builder receiving the encoded value
+     * @param value the value to encode
+     * @param charset the charset used for the encoded characters
+     */
+    private static void appendEncoded(@NonNull StringBuilder builder, @NonNull String value, @NonNull Charset charset) {
+        boolean utf8 = UTF_8.equals(charset.name());
+        int length = value.length();
+        int index = 0;
+        while (index < length) {
+            char character = value.charAt(index);
+            if (isUnreserved(character)) {
+                builder.append(character);
+                index++;
+                continue;
+            }
+
+            int codePoint = value.codePointAt(index);
+            int charCount = Character.charCount(codePoint);
+            if (utf8) {
+                appendUtf8(builder, codePoint);
+            } else {
+                for (byte encodedByte : value.substring(index, index + charCount).getBytes(charset)) {
+                    appendByte(builder, encodedByte);
+                }
+            }
+            index += charCount;
+        }
+    }
+
+    private static void appendUtf8(@NonNull StringBuilder builder, int codePoint) {
+        if (codePoint < 0x80) {
+            appendByte(builder, codePoint);
+        } else if (codePoint < 0x800) {
+            appendByte(builder, 0xC0 | (codePoint >> 6));
+            appendByte(builder, 0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            if (Character.isSurrogate((char) codePoint)) {
+                // unpaired surrogate, encoded as a replacement character like String.getBytes
+                appendByte(builder, '?');
+                return;
+            }
+            appendByte(builder, 0xE0 | (codePoint >> 12));
+            appendByte(builder, 0x80 | ((codePoint >> 6) & 0x3F));
+            appendByte(builder, 0x80 | (codePoint & 0x3F));
+        } else {
+            appendByte(builder, 0xF0 | (codePoint >> 18));
+            appendByte(builder, 0x80 | ((codePoint >> 12) & 0x3F));
+            appendByte(builder, 0x80 | ((codePoint >> 6) & 0x3F));
+            appendByte(builder, 0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    private static void appendByte(@NonNull StringBuilder builder, int value) {
+        builder.append('%');
+        builder.append(HEX_DIGITS[(value >> 4) & 0x0F]);
+        builder.append(HEX_DIGITS[value & 0x0F]);
+    }
+
+    private static boolean isUnreserved(char character) {
+        return (character >= 'a' && character <= 'z')
+                || (character >= 'A' && character <= 'Z')
+                || (character >= '0' && character <= '9')
+                || character == '-' || character == '.' || character == '_' || character == '~';
+    }
+
+    @NonNull
+    private static Charset getCharset(@NonNull String encoding) {
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Encoding not supported: " + encoding, e);
+        }
+    }
+}
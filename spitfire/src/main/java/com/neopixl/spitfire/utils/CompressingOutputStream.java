@@ -0,0 +1,163 @@
+package com.neopixl.spitfire.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stream compressing the written content with gzip or deflate (zlib format) once it reaches a minimum size.
+ * <p>The content is kept as is until the minimum size is reached, then the compressor is started and the content
+ * is compressed while it is written: the uncompressed content is never fully buffered.
+ * The smaller contents are written as is by {@link #finish()}.</p>
+ * <p>The target stream is never closed by this stream. Not thread safe.</p>
+ */
+public final class CompressingOutputStream extends OutputStream {
+
+    private static final int COMPRESSOR_BUFFER_SIZE = 8 * 1024;
+    private static final int INITIAL_PENDING_SIZE = 1024;
+
+    @NonNull
+    private final OutputStream target;
+    private final boolean gzip;
+    private final int minSize;
+
+    private byte[] pending;
+    private int pendingCount;
+    private DeflaterOutputStream compressor;
+    private Deflater deflater;
+    private boolean finished;
+
+    /**
+     * Create a stream
+     * @param target the stream receiving the content, not null
+     * @param gzip true for the gzip format, false for the deflate (zlib) format
+     * @param minSize minimum size of the content to compress it, 0 to always compress
+     */
+    public CompressingOutputStream(@NonNull OutputStream target, boolean gzip, int minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("The minimum size should not be negative");
+        }
+        this.target = target;
+        this.gzip = gzip;
+        this.minSize = minSize;
+        this.pending = new byte[Math.min(minSize, INITIAL_PENDING_SIZE)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkNotFinished();
+        if (compressor == null && pendingCount + 1 < minSize) {
+            ensurePendingCapacity(pendingCount + 1);
+            pending[pendingCount++] = (byte) b;
+            return;
+        }
+        startCompression();
+        compressor.write(b);
+    }
+
+    @Override
+    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+        checkNotFinished();
+        if (compressor == null && pendingCount + len < minSize) {
+            ensurePendingCapacity(pendingCount + len);
+            System.arraycopy(b, off, pending, pendingCount, len);
+            pendingCount += len;
+            return;
+        }
+        startCompression();
+        compressor.write(b, off, len);
+    }
+
+    /**
+     * Write the end of the content in the target stream: the remaining compressed data,
+     * or the whole content when it is smaller than the minimum size. The target stream is not closed.
+     * @throws IOException when the target stream fails
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (compressor == null && pendingCount < minSize) {
+            target.write(pending, 0, pendingCount);
+            pending = null;
+            return;
+        }
+        try {
+            startCompression();
+            compressor.finish();
+        } finally {
+            releaseCompressor();
+        }
+    }
+
+    /**
+     * Same as {@link #finish()}, the target stream is not closed
+     * @throws IOException when the target stream fails
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    /**
+     * @return true when the content is compressed, the minimum size being reached
+     */
+    public boolean isCompressed() {
+        return compressor != null;
+    }
+
+    private void startCompression() throws IOException {
+        if (compressor != null) {
+            return;
+        }
+        if (gzip) {
+            compressor = new GzipOutputStream(target);
+        } else {
+            deflater = new Deflater();
+            compressor = new DeflaterOutputStream(target, deflater, COMPRESSOR_BUFFER_SIZE);
+        }
+        compressor.write(pending, 0, pendingCount);
+        pending = null;
+    }
+
+    private void releaseCompressor() {
+        if (compressor instanceof GzipOutputStream) {
+            ((GzipOutputStream) compressor).end();
+        } else if (deflater != null) {
+            deflater.end();
+        }
+    }
+
+    private void ensurePendingCapacity(int capacity) {
+        if (capacity > pending.length) {
+            byte[] newPending = new byte[Math.min(Math.max(capacity, pending.length * 2), minSize)];
+            System.arraycopy(pending, 0, newPending, 0, pendingCount);
+            pending = newPending;
+        }
+    }
+
+    private void checkNotFinished() throws IOException {
+        if (finished) {
+            throw new IOException("The stream is finished");
+        }
+    }
+
+    /**
+     * Gzip stream releasing its deflater without closing the target stream
+     */
+    private static final class GzipOutputStream extends GZIPOutputStream {
+
+        GzipOutputStream(@NonNull OutputStream out) throws IOException {
+            super(out, COMPRESSOR_BUFFER_SIZE);
+        }
+
+        void end() {
+            def.end();
+        }
+    }
+}
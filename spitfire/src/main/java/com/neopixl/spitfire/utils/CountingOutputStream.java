@@ -0,0 +1,85 @@
+package com.neopixl.spitfire.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream counting the bytes written. Without a destination stream, the bytes are only counted.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+
+    /**
+     * Create a stream discarding the bytes, used to compute a length
+     */
+    public CountingOutputStream() {
+        this(null);
+    }
+
+    /**
+     * Create a stream counting the bytes written in the given stream
+     * @param outputStream the destination stream, can be null to discard the bytes
+     */
+    public CountingOutputStream(@Nullable OutputStream outputStream) {
+        super(outputStream);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (out != null) {
+            out.write(b);
+        }
+        onBytesWritten(1);
+    }
+
+    @Override
+    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+        if (out != null) {
+            out.write(b, off, len);
+        }
+        onBytesWritten(len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+    }
+
+    /**
+     * Count bytes without writing them
+     * @param length number of bytes to add to the count
+     */
+    public void skip(long length) {
+        count += length;
+    }
+
+    /**
+     * Get the number of bytes written (or skipped)
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Called after each write
+     * @param length number of bytes written
+     */
+    protected void onBytesWritten(int length) {
+        count += length;
+    }
+}
@@ -0,0 +1,88 @@
+package com.neopixl.spitfire.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe map of a value by endpoint (see {@link EndpointTemplate#getEndpoint(com.android.volley.Request)}),
+ * with a bounded number of endpoints: once the maximum is reached, the other endpoints share the value of {@link #OTHER_ENDPOINT}.
+ * @param <V> The type of the values, created by {@link #create()}
+ */
+public abstract class EndpointMap<V> {
+
+    /**
+     * Endpoint of the values requested when the maximum number of endpoints is reached
+     */
+    public static final String OTHER_ENDPOINT = "other";
+
+    @NonNull
+    private final ConcurrentMap<String, V> values = new ConcurrentHashMap<>();
+    private final int maxEndpoints;
+
+    /**
+     * Create the map
+     * @param maxEndpoints maximum number of endpoints, greater than 0
+     */
+    protected EndpointMap(int maxEndpoints) {
+        if (maxEndpoints <= 0) {
+            throw new IllegalArgumentException("The maximum number of endpoints should be greater than 0");
+        }
+        this.maxEndpoints = maxEndpoints;
+    }
+
+    /**
+     * Create the value of a new endpoint
+     * @return the value, not null
+     */
+    @NonNull
+    protected abstract V create();
+
+    /**
+     * Get the value of an endpoint, created on the first call
+     * @param endpoint the endpoint, not null
+     * @return the value of the endpoint, or the value of {@link #OTHER_ENDPOINT} when the maximum is reached, not null
+     */
+    @NonNull
+    public V get(@NonNull String endpoint) {
+        V value = values.get(endpoint);
+        if (value != null) {
+            return value;
+        }
+        // the limit can be exceeded by a few concurrent endpoints, the map only needs to stay bounded
+        String key = values.size() < maxEndpoints ? endpoint : OTHER_ENDPOINT;
+        value = create();
+        V existingValue = values.putIfAbsent(key, value);
+        return existingValue != null ? existingValue : value;
+    }
+
+    /**
+     * Get the value of an endpoint without creating it
+     * @param endpoint the endpoint, not null
+     * @return the value of the endpoint, or the value of {@link #OTHER_ENDPOINT}, null when none is created
+     */
+    @Nullable
+    public V find(@NonNull String endpoint) {
+        V value = values.get(endpoint);
+        return value != null ? value : values.get(OTHER_ENDPOINT);
+    }
+
+    /**
+     * @return a read-only view of the values by endpoint, not null
+     */
+    @NonNull
+    public Map<String, V> asMap() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Remove the values of all the endpoints
+     */
+    public void clear() {
+        values.clear();
+    }
+}
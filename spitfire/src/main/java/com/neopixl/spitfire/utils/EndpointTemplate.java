@@ -0,0 +1,98 @@
+package com.neopixl.spitfire.utils;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.Request;
+
+/**
+ * Build the template of an endpoint from a request URL, used to aggregate the metrics of the requests on the same resource.
+ * <p>The scheme, the query and the fragment are removed, and the path segments looking like identifiers
+ * (numbers, UUIDs and long hexadecimal strings) are replaced by {@link #ID_PLACEHOLDER}:
+ * <b>https://api.neopixl.com/users/42/posts?page=2</b> becomes <b>api.neopixl.com/users/{id}/posts</b>.</p>
+ */
+public final class EndpointTemplate {
+
+    /**
+     * Replacement of the identifiers in the path
+     */
+    public static final String ID_PLACEHOLDER = "{id}";
+
+    private static final int MIN_HEX_ID_LENGTH = 16;
+
+    private EndpointTemplate() {
+    }
+
+    /**
+     * Get the endpoint of a request: the name of its method and the template of its URL, as <b>GET api.neopixl.com/users/{id}</b>
+     * @param request the request, not null
+     * @return the endpoint, not null
+     */
+    @NonNull
+    public static String getEndpoint(@NonNull Request<?> request) {
+        return RequestMethods.getName(request.getMethod()) + " " + getTemplate(request.getUrl());
+    }
+
+    /**
+     * Get the template of an URL
+     * @param url the request URL, not null
+     * @return the template, not null
+     */
+    @NonNull
+    public static String getTemplate(@NonNull String url) {
+        int end = url.length();
+        int queryIndex = url.indexOf('?');
+        if (queryIndex >= 0) {
+            end = queryIndex;
+        }
+        int fragmentIndex = url.indexOf('#');
+        if (fragmentIndex >= 0 && fragmentIndex < end) {
+            end = fragmentIndex;
+        }
+        int schemeIndex = url.indexOf("://");
+        int start = schemeIndex >= 0 && schemeIndex < end ? schemeIndex + 3 : 0;
+
+        StringBuilder template = new StringBuilder(end - start);
+        int segmentStart = start;
+        boolean host = schemeIndex >= 0;
+        while (segmentStart <= end) {
+            int segmentEnd = url.indexOf('/', segmentStart);
+            if (segmentEnd < 0 || segmentEnd > end) {
+                segmentEnd = end;
+            }
+            if (segmentStart > start) {
+                template.append('/');
+            }
+            if (!host && isIdentifier(url, segmentStart, segmentEnd)) {
+                template.append(ID_PLACEHOLDER);
+            } else {
+                template.append(url, segmentStart, segmentEnd);
+            }
+            host = false;
+            segmentStart = segmentEnd + 1;
+        }
+        return template.toString();
+    }
+
+    /**
+     * Check if a path segment is an identifier: a number, a UUID or a long hexadecimal string
+     */
+    private static boolean isIdentifier(@NonNull String url, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return false;
+        }
+        boolean digits = true;
+        boolean hex = true;
+        boolean uuid = length == 36;
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            int position = i - start;
+            boolean dashPosition = position == 8 || position == 13 || position == 18 || position == 23;
+            boolean hexChar = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            digits &= c >= '0' && c <= '9';
+            hex &= hexChar;
+            uuid &= dashPosition ? c == '-' : hexChar;
+        }
+        return digits || uuid || (hex && length >= MIN_HEX_ID_LENGTH);
+    }
+}
@@ -0,0 +1,162 @@
+package com.neopixl.spitfire.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of positive values (latencies, sizes), with log-linear buckets as an HdrHistogram.
+ * <p>Each power of two is split in {@link #SUB_BUCKET_COUNT} buckets: the values up to 15 are exact,
+ * the other values are recorded with a relative precision of 1/16 (about 6%), from 0 to <b>Long.MAX_VALUE</b>.
+ * Recording a value is a few atomic operations, without allocation.</p>
+ */
+public final class Histogram {
+
+    /**
+     * Number of buckets for each power of two
+     */
+    public static final int SUB_BUCKET_COUNT = 16;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Record a value, the negative values are recorded as 0
+     * @param value the value
+     */
+    public void record(long value) {
+        long recordedValue = Math.max(0, value);
+        counts.incrementAndGet(getBucketIndex(recordedValue));
+        sum.addAndGet(recordedValue);
+
+        long currentMin = min.get();
+        while (recordedValue < currentMin && !min.compareAndSet(currentMin, recordedValue)) {
+            currentMin = min.get();
+        }
+        long currentMax = max.get();
+        while (recordedValue > currentMax && !max.compareAndSet(currentMax, recordedValue)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Copy the current state of the histogram. The values recorded during the copy may be partially included.
+     * @return the snapshot, not null
+     */
+    @NonNull
+    public Snapshot snapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = counts.get(i);
+            count += bucketCounts[i];
+        }
+        return new Snapshot(bucketCounts, count, sum.get(), min.get(), max.get());
+    }
+
+    /**
+     * Remove all the values. The values recorded during the reset may be partially kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        sum.set(0);
+        min.set(Long.MAX_VALUE);
+        max.set(Long.MIN_VALUE);
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long getHighestValue(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+        int shift = (bucketIndex - SUB_BUCKET_COUNT) >> SUB_BUCKET_BITS;
+        long subBucket = (bucketIndex - SUB_BUCKET_COUNT) & (SUB_BUCKET_COUNT - 1);
+        return ((SUB_BUCKET_COUNT + subBucket) << shift) + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable copy of a histogram
+     */
+    public static final class Snapshot {
+
+        @NonNull
+        private final long[] bucketCounts;
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        Snapshot(@NonNull long[] bucketCounts, long count, long sum, long min, long max) {
+            this.bucketCounts = bucketCounts;
+            this.count = count;
+            this.sum = sum;
+            this.min = count > 0 ? min : 0;
+            this.max = count > 0 ? max : 0;
+        }
+
+        /**
+         * @return the number of recorded values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the smallest recorded value, 0 without value
+         */
+        public long getMin() {
+            return min;
+        }
+
+        /**
+         * @return the largest recorded value, 0 without value
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @return the mean of the recorded values, 0 without value
+         */
+        public double getMean() {
+            return count > 0 ? (double) sum / count : 0;
+        }
+
+        /**
+         * Get the value at a percentile, as the highest value of its bucket
+         * @param percentile the percentile, between 0 and 100 (ex: 99 for the p99)
+         * @return the value, 0 without value
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            double clampedPercentile = Math.min(Math.max(percentile, 0), 100);
+            long rank = Math.max(1, (long) Math.ceil(clampedPercentile / 100 * count));
+            long cumulatedCount = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                cumulatedCount += bucketCounts[i];
+                if (cumulatedCount >= rank) {
+                    return Math.max(min, Math.min(getHighestValue(i), max));
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.neopixl.spitfire.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Percentile of the latencies of each endpoint, recorded in a {@link Histogram} by endpoint (see {@link EndpointMap}).
+ * <p>The percentile of an endpoint is available once enough latencies are recorded, and computed again every few latencies.
+ * The histogram is reset after each window of latencies, so the percentile follows the endpoint: the last percentile is
+ * kept until enough latencies of the new window are recorded.</p>
+ */
+public final class LatencyTracker {
+
+    /**
+     * Percentile of an endpoint without enough latencies
+     */
+    public static final long NOT_AVAILABLE = -1;
+
+    // the percentile is computed again every few latencies, not on each latency
+    private static final int UPDATE_INTERVAL = 16;
+
+    private final double percentile;
+    private final int minSamples;
+    private final int windowSize;
+    @NonNull
+    private final EndpointMap<EndpointLatency> endpoints;
+
+    /**
+     * Create a tracker
+     * @param percentile the percentile of the latencies, between 0 and 100
+     * @param minSamples the number of latencies needed to compute the percentile of an endpoint, greater than 0
+     * @param windowSize the number of latencies after which the latencies of an endpoint are discarded, greater than or
+     *                   equal to the minimum number of latencies
+     * @param maxEndpoints the maximum number of endpoints, greater than 0
+     */
+    public LatencyTracker(double percentile, int minSamples, int windowSize, int maxEndpoints) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile should be between 0 and 100");
+        }
+        if (minSamples <= 0 || windowSize < minSamples) {
+            throw new IllegalArgumentException("The minimum number of samples should be greater than 0 and lower than the window");
+        }
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.windowSize = windowSize;
+        this.endpoints = new EndpointMap<EndpointLatency>(maxEndpoints) {
+            @NonNull
+            @Override
+            protected EndpointLatency create() {
+                return new EndpointLatency();
+            }
+        };
+    }
+
+    /**
+     * Record a latency
+     * @param endpoint the endpoint, not null
+     * @param latencyMs the latency in milliseconds
+     */
+    public void record(@NonNull String endpoint, long latencyMs) {
+        endpoints.get(endpoint).record(latencyMs);
+    }
+
+    /**
+     * Get the percentile of the latencies of an endpoint
+     * @param endpoint the endpoint, not null
+     * @return the latency in milliseconds, {@link #NOT_AVAILABLE} until enough latencies are recorded
+     */
+    public long getPercentile(@NonNull String endpoint) {
+        EndpointLatency latency = endpoints.find(endpoint);
+        return latency != null ? latency.percentileMs : NOT_AVAILABLE;
+    }
+
+    /**
+     * Remove the latencies of all the endpoints
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * Latencies and percentile of an endpoint
+     */
+    private final class EndpointLatency {
+
+        private final Histogram latencies = new Histogram();
+        private final AtomicInteger sampleCount = new AtomicInteger();
+        private volatile long percentileMs = NOT_AVAILABLE;
+
+        void record(long latencyMs) {
+            latencies.record(latencyMs);
+            int count = sampleCount.incrementAndGet();
+            if (count == minSamples || (count > minSamples && count % UPDATE_INTERVAL == 0)) {
+                updatePercentile();
+            }
+        }
+
+        private void updatePercentile() {
+            Histogram.Snapshot snapshot = latencies.snapshot();
+            if (snapshot.getCount() < minSamples) {
+                return;
+            }
+            percentileMs = snapshot.getValueAtPercentile(percentile);
+            if (snapshot.getCount() >= windowSize) {
+                latencies.reset();
+                sampleCount.set(0);
+            }
+        }
+    }
+}
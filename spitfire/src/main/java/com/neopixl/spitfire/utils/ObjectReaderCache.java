@@ -0,0 +1,108 @@
+package com.neopixl.spitfire.utils;
+
+import androidx.annotation.NonNull;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the resolved {@link JavaType} and of a prebuilt {@link ObjectReader} for each response type.
+ * <p>A cache is bound to a single {@link ObjectMapper}: the readers are created from the mapper configuration
+ * at the time they are first requested, so a new cache must be created when the mapper is replaced.</p>
+ * <p>The registry is safe to use from several threads (Volley network dispatchers) and is bounded: when the
+ * maximum number of entries is reached, the registry is emptied before storing new entries.</p>
+ */
+public final class ObjectReaderCache {
+
+    /**
+     * Default maximum number of entries stored for each registry (types and readers)
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    @NonNull
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+
+    @NonNull
+    private final ConcurrentHashMap<Type, JavaType> types = new ConcurrentHashMap<>();
+    @NonNull
+    private final ConcurrentHashMap<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * Create a cache with the default size
+     * @param objectMapper the mapper used to create the readers, not null
+     */
+    public ObjectReaderCache(@NonNull ObjectMapper objectMapper) {
+        this(objectMapper, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Create a cache
+     * @param objectMapper the mapper used to create the readers, not null
+     * @param maxEntries maximum number of types (and readers) kept in memory, greater than 0
+     */
+    public ObjectReaderCache(@NonNull ObjectMapper objectMapper, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The maximum number of entries should be greater than 0");
+        }
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Get the mapper used to create the readers
+     * @return the object mapper, not null
+     */
+    @NonNull
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Resolve a type (a class or a full generic type) into a {@link JavaType}, only once for each type.
+     * @param type the type to resolve, not null
+     * @return the resolved type, not null
+     */
+    @NonNull
+    public JavaType resolveType(@NonNull Type type) {
+        JavaType javaType = types.get(type);
+        if (javaType == null) {
+            javaType = objectMapper.getTypeFactory().constructType(type);
+            if (types.size() >= maxEntries) {
+                types.clear();
+            }
+            types.put(type, javaType);
+        }
+        return javaType;
+    }
+
+    /**
+     * Get the reader for the given type, the reader is created only once for each type.
+     * @param type the type used to read values, not null
+     * @return a reader bound to the type, not null
+     */
+    @NonNull
+    public ObjectReader getReader(@NonNull JavaType type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            reader = objectMapper.readerFor(type);
+            if (readers.size() >= maxEntries) {
+                readers.clear();
+            }
+            readers.put(type, reader);
+        }
+        return reader;
+    }
+
+    /**
+     * Remove all the cached types and readers
+     */
+    public void clear() {
+        types.clear();
+        readers.clear();
+    }
+}
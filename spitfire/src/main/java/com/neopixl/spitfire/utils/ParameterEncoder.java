@@ -0,0 +1,76 @@
+package com.neopixl.spitfire.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Map;
+
+/**
+ * Encodes the request parameters with <b>URLEncoder</b>, in the order of the parameters map:
+ * the form body of the POST requests and the query of the GET requests when the canonical URLs are disabled
+ * (see {@link CanonicalUrlBuilder}).
+ */
+public final class ParameterEncoder {
+
+    private ParameterEncoder() {
+    }
+
+    /**
+     * Encode the parameters in the application/x-www-form-urlencoded format, as done by Volley
+     * (each parameter is followed by <b>&amp;</b>)
+     * @param params the parameters, not null
+     * @param encoding the name of the charset used to encode the parameters, not null
+     * @return the encoded body, not null
+     * @throws RuntimeException when the encoding is not supported
+     */
+    @NonNull
+    public static byte[] encodeForm(@NonNull Map<String, String> params, @NonNull String encoding) {
+        StringBuilder encodedParams = new StringBuilder();
+        try {
+            for (Map.Entry<String, String> entry : params.entrySet()) {
+                encodedParams.append(URLEncoder.encode(entry.getKey(), encoding));
+                encodedParams.append('=');
+                encodedParams.append(URLEncoder.encode(entry.getValue(), encoding));
+                encodedParams.append('&');
+            }
+            return encodedParams.toString().getBytes(encoding);
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException("Encoding not supported: " + encoding, e);
+        }
+    }
+
+    /**
+     * Append the encoded parameters to the URL query, the parameters which can not be encoded are skipped
+     * @param url the URL, without query, not null
+     * @param params the parameters, can be null
+     * @param encoding the name of the charset used to encode the parameters, not null
+     * @return the full URL, not null
+     */
+    @NonNull
+    public static String appendQuery(@NonNull String url, @Nullable Map<String, String> params, @NonNull String encoding) {
+        if (params == null || params.isEmpty()) {
+            return url;
+        }
+        final StringBuilder result = new StringBuilder(url);
+        final int startLength = result.length();
+        for (String key : params.keySet()) {
+            try {
+                final String encodedKey = URLEncoder.encode(key, encoding);
+                final String encodedValue = URLEncoder.encode(params.get(key), encoding);
+                if (result.length() > startLength) {
+                    result.append("&");
+                } else {
+                    result.append("?");
+                }
+                result.append(encodedKey);
+                result.append("=");
+                result.append(encodedValue);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        return result.toString();
+    }
+}
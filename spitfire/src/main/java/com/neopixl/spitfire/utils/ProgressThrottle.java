@@ -0,0 +1,73 @@
+package com.neopixl.spitfire.utils;
+
+/**
+ * Decide when a progress should be notified, in order to limit the number of notifications.
+ * <p>A progress is notified when both the minimum interval and the minimum step are reached since the last notification.
+ * The completion (all the bytes written) is always notified, only once.</p>
+ * <p>Not thread safe, a throttle is used by the thread writing the bytes.</p>
+ */
+public final class ProgressThrottle {
+
+    private final long minIntervalMs;
+    private final int minPercentStep;
+
+    private long lastBytesWritten = -1;
+    private long lastNotificationMs;
+    private boolean notified;
+
+    /**
+     * Create a throttle
+     * @param minIntervalMs minimum time between two notifications in milliseconds, 0 to ignore
+     * @param minPercentStep minimum progress between two notifications in percent of the total (0 to 100), 0 to ignore
+     */
+    public ProgressThrottle(long minIntervalMs, int minPercentStep) {
+        if (minIntervalMs < 0) {
+            throw new IllegalArgumentException("The interval should not be negative");
+        }
+        if (minPercentStep < 0 || minPercentStep > 100) {
+            throw new IllegalArgumentException("The step should be between 0 and 100");
+        }
+        this.minIntervalMs = minIntervalMs;
+        this.minPercentStep = minPercentStep;
+    }
+
+    /**
+     * Check if the progress should be notified, the progress is then considered as notified
+     * @param bytesWritten number of bytes written
+     * @param totalBytes total number of bytes, -1 if unknown
+     * @param nowMs current time in milliseconds, from a monotonic clock
+     * @return true if the progress should be notified
+     */
+    public boolean shouldNotify(long bytesWritten, long totalBytes, long nowMs) {
+        if (bytesWritten == lastBytesWritten) {
+            return false;
+        }
+        boolean complete = totalBytes >= 0 && bytesWritten >= totalBytes;
+        if (!complete && notified) {
+            if (nowMs - lastNotificationMs < minIntervalMs) {
+                return false;
+            }
+            if (totalBytes > 0 && (bytesWritten - lastBytesWritten) * 100 < minPercentStep * totalBytes) {
+                return false;
+            }
+        }
+        lastBytesWritten = bytesWritten;
+        lastNotificationMs = nowMs;
+        notified = true;
+        return true;
+    }
+
+    /**
+     * Check if the completion should be notified, used when the total is unknown
+     * @param bytesWritten number of bytes written
+     * @return true if this progress was not already notified
+     */
+    public boolean shouldNotifyCompletion(long bytesWritten) {
+        if (bytesWritten == lastBytesWritten) {
+            return false;
+        }
+        lastBytesWritten = bytesWritten;
+        notified = true;
+        return true;
+    }
+}
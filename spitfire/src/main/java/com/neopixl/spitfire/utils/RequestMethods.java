@@ -0,0 +1,48 @@
+package com.neopixl.spitfire.utils;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.Request;
+
+/**
+ * Names of the HTTP methods of the Volley requests ({@link Request.Method})
+ */
+public final class RequestMethods {
+
+    /**
+     * Name of {@link Request.Method#DEPRECATED_GET_OR_POST}, the method depends on the body of the request
+     */
+    public static final String GET_OR_POST = "GET_OR_POST";
+
+    private RequestMethods() {
+    }
+
+    /**
+     * Get the name of a method
+     * @param method the method of the request, see {@link Request.Method}
+     * @return the HTTP method, {@link #GET_OR_POST} for the deprecated method, not null
+     */
+    @NonNull
+    public static String getName(int method) {
+        switch (method) {
+            case Request.Method.GET:
+                return "GET";
+            case Request.Method.POST:
+                return "POST";
+            case Request.Method.PUT:
+                return "PUT";
+            case Request.Method.DELETE:
+                return "DELETE";
+            case Request.Method.HEAD:
+                return "HEAD";
+            case Request.Method.OPTIONS:
+                return "OPTIONS";
+            case Request.Method.TRACE:
+                return "TRACE";
+            case Request.Method.PATCH:
+                return "PATCH";
+            default:
+                return GET_OR_POST;
+        }
+    }
+}
@@ -2,13 +2,20 @@ package com.neopixl.spitfire;
 
 import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.RetryPolicy;
+import com.android.volley.VolleyError;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.neopixl.spitfire.mock.DummyResponse;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 /**
  * Created by Florian ALONSO on 4/27/18.
@@ -31,6 +38,8 @@ public class SpitfireManagerTest {
                 ObjectMapper.class));
         assertNotNull(SpitfireManager.class.getMethod("setDefaultRetryPolicy",
                 DefaultRetryPolicy.class));
+        assertNotNull(SpitfireManager.class.getMethod("setDefaultRetryPolicy",
+                int.class, int.class, float.class));
         assertNotNull(SpitfireManager.class.getMethod("setRequestTimeout",
                 int.class));
     }
@@ -47,6 +56,73 @@ public class SpitfireManagerTest {
         assertEquals("The reference should be the same", objectMapper, SpitfireManager.getObjectMapper());
     }
 
+    @Test
+    public void objectReaderIsCached() throws Exception {
+        JavaType type = SpitfireManager.resolveType(DummyResponse.class);
+        ObjectReader objectReader = SpitfireManager.getObjectReader(type);
+        assertSame("The reader should be reused", objectReader, SpitfireManager.getObjectReader(type));
+    }
+
+    @Test
+    public void objectReaderIsInvalidated() throws Exception {
+        JavaType type = SpitfireManager.resolveType(DummyResponse.class);
+        ObjectReader objectReader = SpitfireManager.getObjectReader(type);
+
+        SpitfireManager.setObjectMapper(new ObjectMapper());
+        assertNotSame("The reader should be created with the new mapper", objectReader, SpitfireManager.getObjectReader(type));
+    }
+
+    @Test
+    public void defaultRetryPolicyIsCopied() throws Exception {
+        SpitfireManager.setDefaultRetryPolicy(5000, 3, 2f);
+        try {
+            RetryPolicy first = SpitfireManager.getDefaultRetryPolicy();
+            RetryPolicy second = SpitfireManager.getDefaultRetryPolicy();
+            assertNotSame("Each request should count its own retries", first, second);
+            assertEquals(5000, first.getCurrentTimeout());
+
+            for (int i = 0; i < 3; i++) {
+                first.retry(new VolleyError());
+            }
+            assertEquals(3, first.getCurrentRetryCount());
+            try {
+                first.retry(new VolleyError());
+                fail("Only 3 retries should be allowed");
+            } catch (VolleyError expected) {
+                // the custom max retries are used
+            }
+            assertEquals(0, second.getCurrentRetryCount());
+        } finally {
+            SpitfireManager.resetDefaultRetryPolicy();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void templateRetryPolicyIsNotModified() throws Exception {
+        DefaultRetryPolicy template = new DefaultRetryPolicy(5000, 3, 2f);
+        SpitfireManager.setDefaultRetryPolicy(template);
+        try {
+            assertEquals(0, template.getCurrentRetryCount());
+            assertEquals(5000, template.getCurrentTimeout());
+            assertEquals(5000, SpitfireManager.getDefaultRetryPolicy().getCurrentTimeout());
+        } finally {
+            SpitfireManager.resetDefaultRetryPolicy();
+        }
+    }
+
+    @Test
+    public void requestTimeoutIsUsedAfterAReset() throws Exception {
+        SpitfireManager.setDefaultRetryPolicy(5000, 3, 2f);
+        SpitfireManager.resetDefaultRetryPolicy();
+        SpitfireManager.setRequestTimeout(10000);
+        try {
+            assertEquals(10000, SpitfireManager.getDefaultRetryPolicy().getCurrentTimeout());
+        } finally {
+            SpitfireManager.setRequestTimeout(30000);
+        }
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void objectMapperNotNullTest() throws Exception {
         SpitfireManager.setObjectMapper(null);
@@ -0,0 +1,100 @@
+package com.neopixl.spitfire.cache;
+
+import com.android.volley.Cache;
+import com.fasterxml.jackson.databind.JavaType;
+import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.utils.CacheTestUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ParsedResponseCacheTest {
+
+    private JavaType type;
+    private DummyResponse value;
+
+    @Before
+    public void setUp() throws Exception {
+        type = SpitfireManager.resolveType(DummyResponse.class);
+        value = new DummyResponse();
+    }
+
+    @Test
+    public void objectIsReturnedForTheSameEntry() throws Exception {
+        ParsedResponseCache cache = new ParsedResponseCache();
+        Cache.Entry entry = CacheTestUtils.makeRandomCacheEntry(new byte[100]);
+
+        cache.put("key", type, entry, value);
+
+        assertSame(value, cache.get("key", type, entry));
+        assertNull("Another type should not share the object", cache.get("key", SpitfireManager.resolveType(String.class), entry));
+        assertEquals(100, cache.getSize());
+    }
+
+    @Test
+    public void otherVersionOfTheEntryIsNotReturned() throws Exception {
+        ParsedResponseCache cache = new ParsedResponseCache();
+        Cache.Entry entry = CacheTestUtils.makeRandomCacheEntry(new byte[100]);
+        cache.put("key", type, entry, value);
+
+        Cache.Entry newEntry = CacheTestUtils.makeRandomCacheEntry(new byte[100]);
+
+        assertNull(cache.get("key", type, newEntry));
+        assertEquals("The outdated object should be removed", 0, cache.getEntryCount());
+    }
+
+    @Test
+    public void expiredEntryIsNotReturned() throws Exception {
+        ParsedResponseCache cache = new ParsedResponseCache();
+        Cache.Entry entry = CacheTestUtils.makeRandomCacheEntry(new byte[100]);
+        entry.ttl = System.currentTimeMillis() + 60000;
+        cache.put("key", type, entry, value);
+        assertSame(value, cache.get("key", type, entry));
+
+        entry.ttl = System.currentTimeMillis() - 1;
+        cache.put("key", type, entry, value);
+        assertNull(cache.get("key", type, entry));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() throws Exception {
+        ParsedResponseCache cache = new ParsedResponseCache(2, 250);
+        Cache.Entry first = CacheTestUtils.makeRandomCacheEntry(new byte[100]);
+        Cache.Entry second = CacheTestUtils.makeRandomCacheEntry(new byte[100]);
+        Cache.Entry third = CacheTestUtils.makeRandomCacheEntry(new byte[100]);
+
+        cache.put("first", type, first, value);
+        cache.put("second", type, second, value);
+        cache.get("first", type, first);
+        cache.put("third", type, third, value);
+
+        assertEquals(2, cache.getEntryCount());
+        assertSame(value, cache.get("first", type, first));
+        assertNull(cache.get("second", type, second));
+
+        cache.put("large", type, CacheTestUtils.makeRandomCacheEntry(new byte[300]), value);
+        assertEquals("An entry larger than the cache should not be stored", 2, cache.getEntryCount());
+
+        cache.put("medium", type, CacheTestUtils.makeRandomCacheEntry(new byte[200]), value);
+        assertEquals("The size should stay below the maximum", 200, cache.getSize());
+    }
+
+    @Test
+    public void removeAllTypesOfAKey() throws Exception {
+        ParsedResponseCache cache = new ParsedResponseCache();
+        Cache.Entry entry = CacheTestUtils.makeRandomCacheEntry(new byte[10]);
+        cache.put("key", type, entry, value);
+        cache.put("key", SpitfireManager.resolveType(String.class), entry, "value");
+        cache.put("other", type, entry, value);
+
+        cache.remove("key");
+
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(10, cache.getSize());
+    }
+}
@@ -0,0 +1,125 @@
+package com.neopixl.spitfire.metrics;
+
+import com.android.volley.Request;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.model.RequestMetrics;
+import com.neopixl.spitfire.request.BaseRequest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class MetricsAggregatorTest {
+
+    @Test
+    public void metricsAreAggregatedByEndpoint() throws Exception {
+        MetricsAggregator aggregator = new MetricsAggregator();
+
+        for (int i = 1; i <= 100; i++) {
+            aggregator.onRequestMetrics(newRequest(Request.Method.GET, "http://neopixl.com/items/" + i), newMetrics(i, true));
+        }
+        aggregator.onRequestMetrics(newRequest(Request.Method.POST, "http://neopixl.com/items"), newMetrics(1, false));
+
+        Map<String, EndpointSnapshot> snapshots = aggregator.snapshot();
+        assertEquals(2, snapshots.size());
+        EndpointSnapshot items = snapshots.get("GET neopixl.com/items/{id}");
+        assertEquals(100, items.getRequestCount());
+        assertEquals(0, items.getErrorCount());
+        assertEquals(50000000, items.getLatency().getValueAtPercentile(50), 50000000 / 16);
+        assertEquals(100000, items.getResponseBytes().getMax());
+        assertEquals(1, snapshots.get("POST neopixl.com/items").getErrorCount());
+    }
+
+    @Test
+    public void notMeasuredPhasesAreIgnored() throws Exception {
+        MetricsAggregator aggregator = new MetricsAggregator();
+        RequestMetrics metrics = new RequestMetrics.Builder()
+                .success(true)
+                .totalNanos(1000)
+                .build();
+
+        aggregator.onRequestMetrics(newRequest(Request.Method.GET, "http://neopixl.com/items"), metrics);
+
+        EndpointSnapshot snapshot = aggregator.snapshot().get("GET neopixl.com/items");
+        assertEquals(1, snapshot.getLatency().getCount());
+        assertEquals(0, snapshot.getParseTime().getCount());
+        assertEquals(0, snapshot.getRequestBytes().getCount());
+    }
+
+    @Test
+    public void endpointsAreLimited() throws Exception {
+        MetricsAggregator aggregator = new MetricsAggregator(2);
+
+        aggregator.onRequestMetrics(newRequest(Request.Method.GET, "http://neopixl.com/a"), newMetrics(1, true));
+        aggregator.onRequestMetrics(newRequest(Request.Method.GET, "http://neopixl.com/b"), newMetrics(1, true));
+        aggregator.onRequestMetrics(newRequest(Request.Method.GET, "http://neopixl.com/c"), newMetrics(1, true));
+        aggregator.onRequestMetrics(newRequest(Request.Method.GET, "http://neopixl.com/a"), newMetrics(1, true));
+
+        Map<String, EndpointSnapshot> snapshots = aggregator.snapshot();
+        assertEquals(3, snapshots.size());
+        assertEquals(2, snapshots.get("GET neopixl.com/a").getRequestCount());
+        assertEquals(1, snapshots.get(MetricsAggregator.OTHER_ENDPOINT).getRequestCount());
+    }
+
+    @Test
+    public void hedgesAreCounted() throws Exception {
+        MetricsAggregator aggregator = new MetricsAggregator();
+        for (int i = 0; i < 8; i++) {
+            aggregator.onRequestMetrics(newRequest(Request.Method.GET, "http://neopixl.com/items"), newMetrics(1, true));
+        }
+        RequestMetrics hedgeWon = new RequestMetrics.Builder().success(true).hedged(true).hedgeWon(true).build();
+        RequestMetrics hedgeLost = new RequestMetrics.Builder().success(true).hedged(true).build();
+        aggregator.onRequestMetrics(newRequest(Request.Method.GET, "http://neopixl.com/items"), hedgeWon);
+        aggregator.onRequestMetrics(newRequest(Request.Method.GET, "http://neopixl.com/items"), hedgeLost);
+
+        EndpointSnapshot snapshot = aggregator.snapshot().get("GET neopixl.com/items");
+        assertEquals(2, snapshot.getHedgeCount());
+        assertEquals(1, snapshot.getHedgeWinCount());
+        assertEquals(0.2, snapshot.getHedgeRate(), 0.001);
+
+        JsonNode endpoint = new ObjectMapper().readTree(aggregator.toJson()).get("endpoints").get(0);
+        assertEquals(2, endpoint.get("hedges").asLong());
+        assertEquals(1, endpoint.get("hedgeWins").asLong());
+    }
+
+    @Test
+    public void metricsAreExportedAsJson() throws Exception {
+        MetricsAggregator aggregator = new MetricsAggregator();
+        aggregator.onRequestMetrics(newRequest(Request.Method.GET, "http://neopixl.com/items/1"), newMetrics(3, true));
+
+        JsonNode json = new ObjectMapper().readTree(aggregator.toJson());
+
+        JsonNode endpoint = json.get("endpoints").get(0);
+        assertEquals("GET neopixl.com/items/{id}", endpoint.get("endpoint").asText());
+        assertEquals(1, endpoint.get("requests").asLong());
+        assertEquals(3000000, endpoint.get("latencyNanos").get("max").asLong());
+        assertTrue(endpoint.get("latencyNanos").has("p99"));
+        assertEquals(300, endpoint.get("parseNanos").get("p50").asLong(), 300 / 16);
+        assertEquals(3000, endpoint.get("responseBytes").get("p95").asLong(), 3000 / 16);
+    }
+
+    private static BaseRequest<DummyResponse> newRequest(int method, String url) {
+        return new BaseRequest.Builder<>(method, url, DummyResponse.class).build();
+    }
+
+    private static RequestMetrics newMetrics(long value, boolean success) {
+        return new RequestMetrics.Builder()
+                .success(success)
+                .statusCode(success ? 200 : 500)
+                .totalNanos(value * 1000000)
+                .parseNanos(value * 100)
+                .requestBytes(0)
+                .responseBytes(value * 1000)
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.neopixl.spitfire.mock;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Header;
+import com.android.volley.Request;
+import com.android.volley.toolbox.BaseHttpStack;
+import com.android.volley.toolbox.HttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP stack acting as a batch endpoint: it reads the requests of a multipart/mixed body and answers each of them
+ * with the response configured for its path, in a multipart/mixed response.
+ * <p>The responses are written in the reverse order, with a Content-ID matching the request.</p>
+ */
+public class FakeBatchServer extends BaseHttpStack {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String BOUNDARY = "response-boundary";
+
+    private final Map<String, Integer> statusCodes = new HashMap<>();
+    private final Map<String, String> contents = new HashMap<>();
+    private final List<ReceivedRequest> receivedRequests = new ArrayList<>();
+    private int batchCount;
+
+    public void setResponse(String path, int statusCode, String content) {
+        statusCodes.put(path, statusCode);
+        contents.put(path, content);
+    }
+
+    public List<ReceivedRequest> getReceivedRequests() {
+        return receivedRequests;
+    }
+
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    @Override
+    public HttpResponse executeRequest(Request<?> request, Map<String, String> additionalHeaders) throws IOException, AuthFailureError {
+        batchCount++;
+        String contentType = request.getBodyContentType();
+        String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+        String body = new String(request.getBody(), UTF_8);
+
+        List<String> responseParts = new ArrayList<>();
+        String[] parts = body.split("--" + boundary);
+        // the first element is the preamble, the last one is the closing delimiter
+        for (int i = 1; i < parts.length - 1; i++) {
+            String part = parts[i];
+            String partHeaders = part.substring(0, part.indexOf("\r\n\r\n"));
+            String contentId = partHeaders.substring(partHeaders.indexOf("<") + 1, partHeaders.indexOf(">"));
+            String httpRequest = part.substring(part.indexOf("\r\n\r\n") + 4, part.length() - 2);
+
+            int headersEnd = httpRequest.indexOf("\r\n\r\n");
+            String[] lines = httpRequest.substring(0, headersEnd).split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            Map<String, String> headers = new HashMap<>();
+            for (int j = 1; j < lines.length; j++) {
+                headers.put(lines[j].substring(0, lines[j].indexOf(':')), lines[j].substring(lines[j].indexOf(':') + 1).trim());
+            }
+            ReceivedRequest receivedRequest = new ReceivedRequest(requestLine[0], requestLine[1], headers, httpRequest.substring(headersEnd + 4));
+            receivedRequests.add(receivedRequest);
+
+            Integer statusCode = statusCodes.get(receivedRequest.path);
+            String content = contents.get(receivedRequest.path);
+            responseParts.add("Content-Type: application/http\r\n"
+                    + "Content-ID: <response-" + contentId + ">\r\n"
+                    + "\r\n"
+                    + "HTTP/1.1 " + (statusCode != null ? statusCode : 404) + " Status\r\n"
+                    + "Content-Type: application/json; charset=UTF-8\r\n"
+                    + "\r\n"
+                    + (content != null ? content : ""));
+        }
+        Collections.reverse(responseParts);
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        for (String responsePart : responseParts) {
+            response.write(("--" + BOUNDARY + "\r\n" + responsePart + "\r\n").getBytes(UTF_8));
+        }
+        response.write(("--" + BOUNDARY + "--\r\n").getBytes(UTF_8));
+        byte[] content = response.toByteArray();
+        List<Header> headers = Collections.singletonList(new Header("Content-Type", "multipart/mixed; boundary=\"" + BOUNDARY + "\""));
+        return new HttpResponse(200, headers, content.length, new ByteArrayInputStream(content));
+    }
+
+    public static class ReceivedRequest {
+
+        public final String method;
+        public final String path;
+        public final Map<String, String> headers;
+        public final String body;
+
+        ReceivedRequest(String method, String path, Map<String, String> headers, String body) {
+            this.method = method;
+            this.path = path;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.neopixl.spitfire.mock;
+
+import com.android.volley.Header;
+import com.android.volley.Request;
+import com.android.volley.toolbox.BaseHttpStack;
+import com.android.volley.toolbox.HttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP stack returning the same response for all the requests, without any connection.
+ */
+public class FakeHttpStack extends BaseHttpStack {
+
+    private int statusCode = 200;
+    private byte[] content = new byte[0];
+    private List<Header> headers = new ArrayList<>();
+    private final List<Request<?>> executedRequests = new ArrayList<>();
+    private boolean offline;
+
+    public void setResponse(int statusCode, byte[] content) {
+        this.statusCode = statusCode;
+        this.content = content;
+    }
+
+    public void addHeader(String name, String value) {
+        headers.add(new Header(name, value));
+    }
+
+    public void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    public List<Request<?>> getExecutedRequests() {
+        return executedRequests;
+    }
+
+    @Override
+    public HttpResponse executeRequest(Request<?> request, Map<String, String> additionalHeaders) throws IOException {
+        executedRequests.add(request);
+        if (offline) {
+            throw new IOException("No connection");
+        }
+        return new HttpResponse(statusCode, headers, content.length, new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,84 @@
+package com.neopixl.spitfire.mock;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Header;
+import com.android.volley.Request;
+import com.android.volley.toolbox.BaseHttpStack;
+import com.android.volley.toolbox.HttpResponse;
+import com.neopixl.spitfire.network.StreamingBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HTTP stack acting as a server accepting resumable uploads with the Content-Range protocol.
+ * <p>The chunks are stored in memory, a chunk can be configured to fail after its body is sent.</p>
+ */
+public class FakeResumableServer extends BaseHttpStack {
+
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+    private final List<String> contentRanges = new ArrayList<>();
+    private final Set<Integer> failingChunks = new HashSet<>();
+    private byte[] finalContent = new byte[0];
+    private int chunkCount;
+
+    public void setFinalContent(byte[] finalContent) {
+        this.finalContent = finalContent;
+    }
+
+    /**
+     * Make a chunk fail with a timeout, the chunk is not committed
+     * @param chunkIndex index of the chunk, counting all the received chunks
+     */
+    public void failChunk(int chunkIndex) {
+        failingChunks.add(chunkIndex);
+    }
+
+    public byte[] getReceivedContent() {
+        return received.toByteArray();
+    }
+
+    public List<String> getContentRanges() {
+        return contentRanges;
+    }
+
+    @Override
+    public HttpResponse executeRequest(Request<?> request, Map<String, String> additionalHeaders) throws IOException, AuthFailureError {
+        int chunkIndex = chunkCount++;
+        String contentRange = request.getHeaders().get("Content-Range");
+        contentRanges.add(contentRange);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ((StreamingBody) request).writeBody(body);
+        if (failingChunks.contains(chunkIndex)) {
+            throw new SocketTimeoutException("Chunk " + chunkIndex + " failed");
+        }
+
+        // "bytes 0-99/1000" or "bytes */1000"
+        String range = contentRange.substring("bytes ".length());
+        long total = Long.parseLong(range.substring(range.indexOf('/') + 1));
+        if (!range.startsWith("*")) {
+            long first = Long.parseLong(range.substring(0, range.indexOf('-')));
+            if (first == received.size()) {
+                received.write(body.toByteArray());
+            }
+        }
+
+        if (received.size() == total) {
+            return new HttpResponse(200, Collections.<Header>emptyList(), finalContent.length, new ByteArrayInputStream(finalContent));
+        }
+        List<Header> headers = new ArrayList<>();
+        if (received.size() > 0) {
+            headers.add(new Header("Range", "bytes=0-" + (received.size() - 1)));
+        }
+        return new HttpResponse(308, headers, 0, new ByteArrayInputStream(new byte[0]));
+    }
+}
@@ -0,0 +1,31 @@
+package com.neopixl.spitfire.mock;
+
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.NoCache;
+import com.neopixl.spitfire.network.SpitfireNetwork;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request queue which is never started, it only records the added requests so the tests can deliver them.
+ */
+public class RecordingRequestQueue extends RequestQueue {
+
+    private final List<Request<?>> addedRequests = new ArrayList<>();
+
+    public RecordingRequestQueue() {
+        super(new NoCache(), new SpitfireNetwork(new FakeHttpStack()));
+    }
+
+    public List<Request<?>> getAddedRequests() {
+        return addedRequests;
+    }
+
+    @Override
+    public <T> Request<T> add(Request<T> request) {
+        addedRequests.add(request);
+        return super.add(request);
+    }
+}
@@ -0,0 +1,161 @@
+package com.neopixl.spitfire.outbox;
+
+import com.android.volley.Request;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestJournalTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("spitfire", ".journal");
+        file.deleteOnExit();
+    }
+
+    @Test
+    public void entriesAreReadWhenTheJournalIsOpenedAgain() throws Exception {
+        RequestJournal journal = RequestJournal.open(file);
+        Map<String, String> headers = Collections.singletonMap("Idempotency-Key", "1234");
+        journal.append(Request.Method.POST, "http://neopixl.com/items", headers, "application/json; charset=UTF-8", "{\"id\":1}".getBytes("UTF-8"), "cart");
+        journal.append(Request.Method.DELETE, "http://neopixl.com/items/2", Collections.<String, String>emptyMap(), null, null, null);
+        journal.close();
+
+        RequestJournal reopened = RequestJournal.open(file);
+        List<OutboxEntry> entries = reopened.getPendingEntries();
+        assertEquals(2, entries.size());
+
+        OutboxEntry first = entries.get(0);
+        assertEquals(1, first.getId());
+        assertEquals(Request.Method.POST, first.getMethod());
+        assertEquals("http://neopixl.com/items", first.getUrl());
+        assertEquals(headers, first.getHeaders());
+        assertEquals("application/json; charset=UTF-8", first.getBodyContentType());
+        assertArrayEquals("{\"id\":1}".getBytes("UTF-8"), first.getBody());
+        assertEquals("cart", first.getOrderingKey());
+
+        OutboxEntry second = entries.get(1);
+        assertNull(second.getBody());
+        assertNull(second.getOrderingKey());
+
+        OutboxEntry third = reopened.append(Request.Method.PUT, "http://neopixl.com/items/3", Collections.<String, String>emptyMap(), null, null, null);
+        assertEquals("The identifiers should continue after the saved entries", 3, third.getId());
+        reopened.close();
+    }
+
+    @Test
+    public void acknowledgedEntriesAreCompacted() throws Exception {
+        RequestJournal journal = RequestJournal.open(file, 2);
+        for (int i = 0; i < 3; i++) {
+            journal.append(Request.Method.POST, "http://neopixl.com/items", Collections.<String, String>emptyMap(), null, new byte[100], null);
+        }
+        long fullLength = file.length();
+
+        journal.acknowledge(1);
+        assertTrue("The acknowledgement should be appended", file.length() > fullLength);
+
+        journal.acknowledge(2);
+        assertEquals("Only the pending entry should be kept", fullLength / 3, file.length());
+
+        journal.acknowledge(3);
+        assertEquals(0, file.length());
+        journal.close();
+
+        assertEquals(0, RequestJournal.open(file).getPendingCount());
+    }
+
+    @Test
+    public void partialRecordIsRemoved() throws Exception {
+        RequestJournal journal = RequestJournal.open(file);
+        journal.append(Request.Method.POST, "http://neopixl.com/items/1", Collections.<String, String>emptyMap(), null, new byte[10], null);
+        long validLength = file.length();
+        journal.append(Request.Method.POST, "http://neopixl.com/items/2", Collections.<String, String>emptyMap(), null, new byte[10], null);
+        journal.close();
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(file.length() - 3);
+        randomAccessFile.close();
+
+        RequestJournal reopened = RequestJournal.open(file);
+        assertEquals(1, reopened.getPendingCount());
+        assertEquals(validLength, file.length());
+
+        reopened.append(Request.Method.POST, "http://neopixl.com/items/3", Collections.<String, String>emptyMap(), null, null, null);
+        reopened.close();
+        assertEquals(2, RequestJournal.open(file).getPendingCount());
+    }
+
+    @Test
+    public void tooLargeRecordIsNotWritten() throws Exception {
+        RequestJournal journal = RequestJournal.open(file);
+        long emptyLength = file.length();
+        try {
+            journal.append(Request.Method.POST, "http://neopixl.com/items/1", Collections.<String, String>emptyMap(), null, new byte[RequestJournal.MAX_RECORD_LENGTH + 1], null);
+            fail("A record larger than the maximum should be refused");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals("Nothing should be written", emptyLength, file.length());
+        assertEquals(0, journal.getPendingCount());
+
+        journal.append(Request.Method.POST, "http://neopixl.com/items/2", Collections.<String, String>emptyMap(), null, new byte[10], null);
+        journal.close();
+
+        List<OutboxEntry> entries = RequestJournal.open(file).getPendingEntries();
+        assertEquals("The next records should still be read", 1, entries.size());
+        assertEquals("http://neopixl.com/items/2", entries.get(0).getUrl());
+    }
+
+    @Test
+    public void concurrentAppendsAreAllSaved() throws Exception {
+        final RequestJournal journal = RequestJournal.open(file);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 25; j++) {
+                            journal.append(Request.Method.POST, "http://neopixl.com/items", Collections.<String, String>emptyMap(), null, new byte[32], null);
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        journal.close();
+
+        List<OutboxEntry> entries = RequestJournal.open(file).getPendingEntries();
+        assertEquals(200, entries.size());
+        Set<Long> ids = new HashSet<>();
+        for (OutboxEntry entry : entries) {
+            ids.add(entry.getId());
+        }
+        assertEquals(200, ids.size());
+    }
+}
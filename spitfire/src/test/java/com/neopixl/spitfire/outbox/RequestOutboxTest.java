@@ -0,0 +1,154 @@
+package com.neopixl.spitfire.outbox;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.listener.OutboxListener;
+import com.neopixl.spitfire.mock.FakeHttpStack;
+import com.neopixl.spitfire.mock.RecordingRequestQueue;
+import com.neopixl.spitfire.network.SpitfireNetwork;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class RequestOutboxTest {
+
+    private String url = "http://neopixl.com/items";
+    private FakeHttpStack stack;
+    private RecordingRequestQueue queue;
+    private RequestJournal journal;
+    private RequestOutbox outbox;
+    private List<String> events;
+
+    @Before
+    public void setUp() throws Exception {
+        File file = File.createTempFile("spitfire", ".journal");
+        file.deleteOnExit();
+        stack = new FakeHttpStack();
+        queue = new RecordingRequestQueue();
+        journal = RequestJournal.open(file);
+        events = new ArrayList<>();
+        outbox = new RequestOutbox.Builder(journal)
+                .maxConcurrentRequests(2)
+                .listener(new OutboxListener() {
+                    @Override
+                    public void onEntrySent(OutboxEntry entry, NetworkResponse response) {
+                        events.add("sent " + entry.getUrl());
+                    }
+
+                    @Override
+                    public void onEntryFailed(OutboxEntry entry, VolleyError error, boolean discarded) {
+                        events.add((discarded ? "discarded " : "failed ") + entry.getUrl());
+                    }
+
+                    @Override
+                    public void onReplayFinished(int pendingCount) {
+                        events.add("finished " + pendingCount);
+                    }
+                })
+                .build();
+    }
+
+    @Test
+    public void replayKeepsTheOrderOfAKey() throws Exception {
+        append("/1", "cart");
+        append("/2", "cart");
+        append("/3", null);
+
+        assertTrue(outbox.replay(queue));
+        assertFalse("A single replay should run", outbox.replay(queue));
+        assertEquals(2, queue.getAddedRequests().size());
+        assertEquals(url + "/1", queue.getAddedRequests().get(0).getUrl());
+        assertEquals(url + "/3", queue.getAddedRequests().get(1).getUrl());
+
+        deliver(0);
+        assertEquals("The next request of the key should be sent", url + "/2", queue.getAddedRequests().get(2).getUrl());
+        deliver(1);
+        deliver(2);
+
+        assertEquals(3, queue.getAddedRequests().size());
+        assertEquals(0, journal.getPendingCount());
+        assertEquals("finished 0", events.get(events.size() - 1));
+        assertFalse(outbox.isReplaying());
+    }
+
+    @Test
+    public void refusedRequestsAreDiscardedAndFailedRequestsAreKept() throws Exception {
+        append("/1", "cart");
+        append("/2", "cart");
+        append("/3", "cart");
+
+        outbox.replay(queue);
+        stack.setResponse(400, new byte[0]);
+        deliver(0);
+        assertEquals("discarded " + url + "/1", events.get(0));
+
+        stack.setResponse(503, new byte[0]);
+        deliver(1);
+        assertEquals("failed " + url + "/2", events.get(1));
+        assertEquals("The last request of the key should wait for the next replay", 2, queue.getAddedRequests().size());
+        assertEquals("finished 2", events.get(2));
+
+        stack.setResponse(200, new byte[0]);
+        assertTrue(outbox.replay(queue));
+        deliver(2);
+        deliver(3);
+        assertEquals(Collections.singletonList("finished 0"), events.subList(events.size() - 1, events.size()));
+        assertEquals(url + "/2", queue.getAddedRequests().get(2).getUrl());
+        assertEquals(url + "/3", queue.getAddedRequests().get(3).getUrl());
+    }
+
+    @Test
+    public void unauthorizedRequestIsKeptWhenItsHeadersCanBeRefreshed() throws Exception {
+        append("/1", null);
+        outbox.replay(queue);
+        stack.setResponse(401, new byte[0]);
+        deliver(0);
+        assertEquals("The saved credentials cannot change", "discarded " + url + "/1", events.get(0));
+
+        RequestOutbox refreshingOutbox = new RequestOutbox.Builder(journal)
+                .headersProvider(new RequestOutbox.HeadersProvider() {
+                    @Override
+                    public Map<String, String> getHeaders(OutboxEntry entry, Map<String, String> savedHeaders) {
+                        savedHeaders.put("Authorization", "Bearer refreshed");
+                        return savedHeaders;
+                    }
+                })
+                .build();
+        append("/2", null);
+        refreshingOutbox.replay(queue);
+        ReplayRequest request = (ReplayRequest) queue.getAddedRequests().get(1);
+        assertEquals("Bearer refreshed", request.getHeaders().get("Authorization"));
+        deliver(1);
+        assertEquals("The request should be sent again with the new headers", 1, journal.getPendingCount());
+    }
+
+    private void append(String path, String orderingKey) throws Exception {
+        journal.append(Request.Method.POST, url + path, Collections.<String, String>emptyMap(), "application/json", "{}".getBytes("UTF-8"), orderingKey);
+    }
+
+    private void deliver(int index) {
+        ReplayRequest request = (ReplayRequest) queue.getAddedRequests().get(index);
+        try {
+            NetworkResponse response = new SpitfireNetwork(stack).performRequest(request);
+            request.deliverResponse(request.parseNetworkResponse(response).result);
+        } catch (VolleyError error) {
+            request.deliverError(request.parseNetworkError(error));
+        }
+    }
+}
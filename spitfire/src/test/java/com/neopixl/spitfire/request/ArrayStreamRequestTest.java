@@ -0,0 +1,227 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.Header;
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.TimeoutError;
+import com.android.volley.toolbox.BaseHttpStack;
+import com.android.volley.toolbox.HttpResponse;
+import com.neopixl.spitfire.listener.ArrayStreamListener;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.mock.FakeHttpStack;
+import com.neopixl.spitfire.network.SpitfireNetwork;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class ArrayStreamRequestTest {
+
+    private String url = "http://neopixl.com/";
+    private FakeHttpStack httpStack;
+    private SpitfireNetwork network;
+    private List<List<DummyResponse>> receivedBatches;
+    private ArrayStreamListener<DummyResponse> itemsListener;
+    private Executor immediateExecutor;
+
+    @Before
+    public void setUp() throws Exception {
+        httpStack = new FakeHttpStack();
+        network = new SpitfireNetwork(httpStack);
+        receivedBatches = new ArrayList<>();
+        itemsListener = new ArrayStreamListener<DummyResponse>() {
+            @Override
+            public void onItems(Request<?> request, List<DummyResponse> items) {
+                receivedBatches.add(items);
+            }
+        };
+        immediateExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+    }
+
+    @Test
+    public void publicMethods() throws Exception {
+        // Catch-all test to find API-breaking changes for the builder.
+        assertNotNull(ArrayStreamRequest.Builder.class.getMethod("batchSize", int.class));
+        assertNotNull(ArrayStreamRequest.Builder.class.getMethod("itemsListener", ArrayStreamListener.class));
+        assertNotNull(ArrayStreamRequest.Builder.class.getMethod("itemsExecutor", Executor.class));
+        assertNotNull(ArrayStreamRequest.Builder.class.getMethod("maxPendingBatches", int.class));
+        assertNotNull(ArrayStreamRequest.Builder.class.getMethod("listener", RequestListener.class));
+        assertNotNull(ArrayStreamRequest.Builder.class.getMethod("headers", Map.class));
+        assertNotNull(ArrayStreamRequest.Builder.class.getMethod("build"));
+
+        assertNotNull(ArrayStreamRequest.Builder.class.getConstructor(int.class, String.class, Class.class));
+    }
+
+    @Test
+    public void streamedItemsAreDeliveredByBatches() throws Exception {
+        httpStack.setResponse(200, "[{\"id\":1},{\"id\":2},{\"id\":3},{\"id\":4},{\"id\":5}]".getBytes("UTF-8"));
+        ArrayStreamRequest<DummyResponse> request = newRequest(2);
+
+        NetworkResponse networkResponse = network.performRequest(request);
+        assertEquals("The items should be delivered while reading", 3, receivedBatches.size());
+
+        Response<Integer> response = request.parseNetworkResponse(networkResponse);
+        assertTrue(response.isSuccess());
+        assertEquals(Integer.valueOf(5), response.result);
+
+        assertEquals(2, receivedBatches.get(0).size());
+        assertEquals(2, receivedBatches.get(1).size());
+        assertEquals(1, receivedBatches.get(2).size());
+        assertEquals(5, receivedBatches.get(2).get(0).getId());
+    }
+
+    @Test
+    public void bufferedItemsAreDeliveredByBatches() throws Exception {
+        ArrayStreamRequest<DummyResponse> request = newRequest(10);
+
+        Response<Integer> response = request.parseNetworkResponse(new NetworkResponse("[{\"id\":1},{\"id\":2}]".getBytes("UTF-8")));
+        assertTrue(response.isSuccess());
+        assertEquals(Integer.valueOf(2), response.result);
+        assertEquals(1, receivedBatches.size());
+        assertEquals(2, receivedBatches.get(0).size());
+    }
+
+    @Test
+    public void emptyArray() throws Exception {
+        httpStack.setResponse(200, "[]".getBytes("UTF-8"));
+        ArrayStreamRequest<DummyResponse> request = newRequest(2);
+
+        Response<Integer> response = request.parseNetworkResponse(network.performRequest(request));
+        assertTrue(response.isSuccess());
+        assertEquals(Integer.valueOf(0), response.result);
+        assertTrue(receivedBatches.isEmpty());
+    }
+
+    @Test
+    public void invalidArray() throws Exception {
+        httpStack.setResponse(200, "[{\"id\":1},{\"id\":".getBytes("UTF-8"));
+        ArrayStreamRequest<DummyResponse> request = newRequest(1);
+
+        Response<Integer> response = request.parseNetworkResponse(network.performRequest(request));
+        assertFalse(response.isSuccess());
+        assertTrue(response.error instanceof ParseError);
+        assertEquals("The valid items should have been delivered", 1, receivedBatches.size());
+    }
+
+    @Test
+    public void timeoutAfterADeliveredBatchIsNotRetried() throws Exception {
+        final byte[] firstItem = "[{\"id\":1},".getBytes("UTF-8");
+        final List<Request<?>> executedRequests = new ArrayList<>();
+        BaseHttpStack slowStack = new BaseHttpStack() {
+            @Override
+            public HttpResponse executeRequest(Request<?> request, Map<String, String> additionalHeaders) {
+                executedRequests.add(request);
+                InputStream content = new SequenceInputStream(new ByteArrayInputStream(firstItem), new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new SocketTimeoutException("Read timed out");
+                    }
+                });
+                return new HttpResponse(200, Collections.<Header>emptyList(), -1, content);
+            }
+        };
+        ArrayStreamRequest<DummyResponse> request = newRequest(1);
+        request.setRetryPolicy(new DefaultRetryPolicy(1000, 3, 1f));
+
+        try {
+            new SpitfireNetwork(slowStack).performRequest(request);
+            fail("The timeout should not be retried");
+        } catch (TimeoutError expected) {
+            // the array is not streamed again
+        }
+        assertEquals(1, executedRequests.size());
+        assertEquals("The delivered items should not be delivered again", 1, receivedBatches.size());
+    }
+
+    @Test
+    public void readingWaitsForASlowListener() throws Exception {
+        final List<Runnable> pendingCommands = new ArrayList<>();
+        final ArrayStreamRequest<DummyResponse> request = new ArrayStreamRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .batchSize(1)
+                .maxPendingBatches(2)
+                .itemsListener(itemsListener)
+                .itemsExecutor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        synchronized (pendingCommands) {
+                            pendingCommands.add(command);
+                        }
+                    }
+                })
+                .build();
+        final NetworkResponse networkResponse = new NetworkResponse("[{\"id\":1},{\"id\":2},{\"id\":3},{\"id\":4},{\"id\":5}]".getBytes("UTF-8"));
+        final Response<?>[] response = new Response<?>[1];
+        Thread parser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                response[0] = request.parseNetworkResponse(networkResponse);
+            }
+        });
+        parser.start();
+
+        parser.join(300);
+        assertTrue("The reading should wait for the listener", parser.isAlive());
+        synchronized (pendingCommands) {
+            assertEquals(2, pendingCommands.size());
+        }
+
+        while (parser.isAlive() || !pendingCommands.isEmpty()) {
+            Runnable command = null;
+            synchronized (pendingCommands) {
+                if (!pendingCommands.isEmpty()) {
+                    command = pendingCommands.remove(0);
+                }
+            }
+            if (command != null) {
+                command.run();
+            } else {
+                parser.join(10);
+            }
+        }
+        assertTrue(response[0].isSuccess());
+        assertEquals(5, receivedBatches.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchSizeShouldBePositive() throws Exception {
+        new ArrayStreamRequest.Builder<>(Request.Method.GET, url, DummyResponse.class).batchSize(0);
+    }
+
+    private ArrayStreamRequest<DummyResponse> newRequest(int batchSize) {
+        return new ArrayStreamRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .batchSize(batchSize)
+                .itemsListener(itemsListener)
+                .itemsExecutor(immediateExecutor)
+                .build();
+    }
+}
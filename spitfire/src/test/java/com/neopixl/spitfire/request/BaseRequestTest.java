@@ -26,6 +26,10 @@ import com.android.volley.Response;
 import com.android.volley.ServerError;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.DiskBasedCache;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.cache.ParsedResponseCache;
 import com.neopixl.spitfire.listener.RequestListener;
 import com.neopixl.spitfire.mock.DummyResponse;
 import com.neopixl.spitfire.utils.CacheTestUtils;
@@ -44,15 +48,18 @@ import java.net.HttpURLConnection;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.PriorityBlockingQueue;
 
 import javax.net.ssl.HttpsURLConnection;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
@@ -159,6 +166,57 @@ public class BaseRequestTest {
 
 
         assertNotNull(BaseRequest.Builder.class.getConstructor(int.class, String.class, Class.class));
+        assertNotNull(BaseRequest.Builder.class.getConstructor(int.class, String.class, TypeReference.class));
+        assertNotNull(BaseRequest.Builder.class.getConstructor(int.class, String.class, JavaType.class));
+    }
+
+    @Test
+    public void genericResponseParsing() throws Exception {
+        BaseRequest.Builder<List<DummyResponse>> builder = new BaseRequest.Builder<>(Request.Method.GET, url, new TypeReference<List<DummyResponse>>() {});
+        BaseRequest<List<DummyResponse>> baseRequest = builder.build();
+
+        NetworkResponse networkResponse = new NetworkResponse("[{\"id\":1},{\"id\":2}]".getBytes("UTF-8"));
+        Response<List<DummyResponse>> response = baseRequest.parseNetworkResponse(networkResponse);
+
+        assertTrue("The response should be parsed", response.isSuccess());
+        assertEquals(2, response.result.size());
+        assertEquals("The elements should be typed", DummyResponse.class, response.result.get(1).getClass());
+        assertEquals(2, response.result.get(1).getId());
+    }
+
+    @Test
+    public void cachedResponseIsParsedOnce() throws Exception {
+        SpitfireManager.setParsedResponseCache(new ParsedResponseCache());
+        try {
+            Cache.Entry cacheEntry = CacheTestUtils.makeRandomCacheEntry("{\"id\":7}".getBytes("UTF-8"));
+
+            BaseRequest<DummyResponse> first = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class).build();
+            first.setCacheEntry(cacheEntry);
+            Response<DummyResponse> firstResponse = first.parseNetworkResponse(new NetworkResponse(cacheEntry.data));
+
+            BaseRequest<DummyResponse> second = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class).build();
+            second.setCacheEntry(cacheEntry);
+            Response<DummyResponse> secondResponse = second.parseNetworkResponse(new NetworkResponse(cacheEntry.data));
+
+            assertEquals(7, firstResponse.result.getId());
+            assertSame("The cached object should be reused", firstResponse.result, secondResponse.result);
+
+            BaseRequest<DummyResponse> network = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class).build();
+            network.setCacheEntry(cacheEntry);
+            Response<DummyResponse> networkResponse = network.parseNetworkResponse(new NetworkResponse("{\"id\":8}".getBytes("UTF-8")));
+            assertEquals("A network response should be parsed", 8, networkResponse.result.getId());
+        } finally {
+            SpitfireManager.setParsedResponseCache(null);
+        }
+    }
+
+    @Test
+    public void genericResponseTypeIsShared() throws Exception {
+        BaseRequest<List<DummyResponse>> first = new BaseRequest.Builder<>(Request.Method.GET, url, new TypeReference<List<DummyResponse>>() {}).build();
+        BaseRequest<List<DummyResponse>> second = new BaseRequest.Builder<>(Request.Method.GET, url, new TypeReference<List<DummyResponse>>() {}).build();
+
+        assertSame("The resolved type should be reused", first.getReturnType(), second.getReturnType());
+        assertNull(new BaseRequest.Builder<>(Request.Method.GET, url, Void.class).build().getReturnType());
     }
 
     @Test
@@ -203,6 +261,23 @@ public class BaseRequestTest {
         }
     }
 
+    @Test
+    public void builderGetCanonicalGeneration() throws Exception {
+        SpitfireManager.setCanonicalUrlEnabled(true);
+        try {
+            BaseRequest<DummyResponse> baseRequest = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                    .parameters(parameters)
+                    .build();
+
+            assertEquals(url + "?limit=50&page=1&specialCharNotEncoded="
+                    + "%25%20%F0%9F%A4%9E%20%F0%9F%8C%8E%20%24%20~%20%21%20%40%20%23%20%24%20%25%20%5E%20%26%20%2A%20%28%20%29%20_%20%2B%20%5C",
+                    baseRequest.getUrl());
+            assertEquals("The cache key should be the canonical url", baseRequest.getUrl(), baseRequest.getCacheKey());
+        } finally {
+            SpitfireManager.setCanonicalUrlEnabled(false);
+        }
+    }
+
     @Test
     public void builderPostGeneration() throws Exception {
         BaseRequest.Builder<DummyResponse> builder = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class);
@@ -296,6 +371,27 @@ public class BaseRequestTest {
         Mockito.verify(baseRequest, Mockito.times(1)).getJsonBody();
     }
 
+    @Test
+    public void requestPostConstruct_pooledJsonBody() throws Exception {
+        List<DummyResponse> childrens = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            childrens.add(dummyRequestObject);
+        }
+        DummyResponse largeObject = new DummyResponse();
+        largeObject.setChildrens(childrens);
+
+        BaseRequest<DummyResponse> largeRequest = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                .json(largeObject)
+                .build();
+        BaseRequest<DummyResponse> smallRequest = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                .json(dummyRequestObject)
+                .build();
+
+        assertArrayEquals(SpitfireManager.getObjectMapper().writeValueAsBytes(largeObject), largeRequest.getJsonBody());
+        assertArrayEquals("A recycled buffer should not leak in the next body",
+                SpitfireManager.getObjectMapper().writeValueAsBytes(dummyRequestObject), smallRequest.getJsonBody());
+    }
+
     @Test
     public void requestPostParamConstruct_contentType() throws Exception {
         BaseRequest.Builder<DummyResponse> builder = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class);
@@ -0,0 +1,207 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.ClientError;
+import com.android.volley.Header;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.BaseHttpStack;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.mock.FakeBatchServer;
+import com.neopixl.spitfire.mock.FakeHttpStack;
+import com.neopixl.spitfire.network.SpitfireNetwork;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class BatchRequestTest {
+
+    private String url = "http://neopixl.com";
+    private FakeBatchServer server;
+    private CountingListener firstListener;
+    private CountingListener secondListener;
+    private CountingListener thirdListener;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeBatchServer();
+        firstListener = new CountingListener();
+        secondListener = new CountingListener();
+        thirdListener = new CountingListener();
+    }
+
+    @Test
+    public void requestsAreSentInOneCallAndDeliveredSeparately() throws Exception {
+        server.setResponse("/items?page=1", 200, "{\"message\":\"first\"}");
+        server.setResponse("/items", 201, "{\"message\":\"created\",\"id\":2}");
+
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("page", "1");
+        DummyResponse item = new DummyResponse();
+        item.setMessage("new");
+        BatchRequest batch = new BatchRequest.Builder(url + "/batch")
+                .add(new BaseRequest.Builder<>(Request.Method.GET, url + "/items", DummyResponse.class)
+                        .parameters(parameters)
+                        .headers(Collections.singletonMap("X-Screen", "home"))
+                        .listener(firstListener)
+                        .build())
+                .add(new BaseRequest.Builder<>(Request.Method.POST, url + "/items", DummyResponse.class)
+                        .json(item)
+                        .listener(secondListener)
+                        .build())
+                .add(new BaseRequest.Builder<>(Request.Method.DELETE, url + "/items/3", DummyResponse.class)
+                        .listener(thirdListener)
+                        .build())
+                .build();
+
+        perform(batch, server);
+
+        assertEquals(1, server.getBatchCount());
+        List<FakeBatchServer.ReceivedRequest> requests = server.getReceivedRequests();
+        assertEquals(3, requests.size());
+        assertEquals("GET", requests.get(0).method);
+        assertEquals("/items?page=1", requests.get(0).path);
+        assertEquals("neopixl.com", requests.get(0).headers.get("Host"));
+        assertEquals("home", requests.get(0).headers.get("X-Screen"));
+        assertNull("A request without body should not have a body content type", requests.get(0).headers.get("Content-Type"));
+        assertEquals("POST", requests.get(1).method);
+        assertEquals("application/json; charset=UTF-8", requests.get(1).headers.get("Content-Type"));
+        assertTrue(requests.get(1).body.contains("\"message\":\"new\""));
+        assertEquals("DELETE", requests.get(2).method);
+
+        assertEquals(1, firstListener.successCount);
+        assertEquals("first", firstListener.lastResult.getMessage());
+        assertEquals(1, secondListener.successCount);
+        assertEquals(2, secondListener.lastResult.getId());
+        assertEquals(1, thirdListener.failureCount);
+        assertTrue(thirdListener.lastError instanceof ClientError);
+        assertEquals(404, thirdListener.lastResponse.statusCode);
+    }
+
+    @Test
+    public void batchErrorIsDeliveredToAllRequests() throws Exception {
+        FakeHttpStack stack = new FakeHttpStack();
+        stack.setResponse(503, new byte[0]);
+        BaseRequest<DummyResponse> cancelledRequest = new BaseRequest.Builder<>(Request.Method.GET, url + "/items/2", DummyResponse.class)
+                .listener(secondListener)
+                .build();
+        BatchRequest batch = new BatchRequest.Builder(url + "/batch")
+                .add(new BaseRequest.Builder<>(Request.Method.GET, url + "/items/1", DummyResponse.class)
+                        .listener(firstListener)
+                        .build())
+                .add(cancelledRequest)
+                .build();
+
+        cancelledRequest.cancel();
+        perform(batch, stack);
+
+        assertEquals(1, firstListener.failureCount);
+        assertEquals(503, firstListener.lastResponse.statusCode);
+        assertEquals("A cancelled request should not be delivered", 0, secondListener.failureCount);
+    }
+
+    @Test
+    public void bodyWriteErrorFailsTheBatch() throws Exception {
+        BatchRequest batch = new BatchRequest.Builder(url + "/batch")
+                .format(new MultipartBatchFormat() {
+                    @Override
+                    public void writeRequests(OutputStream outputStream, List<? extends Request<?>> requests) throws IOException {
+                        throw new IOException("Disk full");
+                    }
+                })
+                .add(new BaseRequest.Builder<>(Request.Method.GET, url + "/items/1", DummyResponse.class)
+                        .listener(firstListener)
+                        .build())
+                .build();
+
+        try {
+            batch.getBody();
+            fail("The batch should not be sent without a body");
+        } catch (AuthFailureError e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void responsesWithoutContentIdAreMatchedByPosition() throws Exception {
+        String content = "preamble\r\n"
+                + "--b\r\n"
+                + "Content-Type: application/http\r\n"
+                + "\r\n"
+                + "HTTP/1.1 200 OK\r\n"
+                + "Content-Type: application/json\r\n"
+                + "\r\n"
+                + "{\"id\":1}\r\n"
+                + "--b\r\n"
+                + "\r\n"
+                + "HTTP/1.1 204 No Content\r\n"
+                + "\r\n"
+                + "\r\n"
+                + "--b--\r\n";
+        NetworkResponse response = new NetworkResponse(200, content.getBytes("UTF-8"), false, 0,
+                Collections.singletonList(new Header("Content-Type", "multipart/mixed; boundary=b")));
+
+        List<NetworkResponse> responses = new MultipartBatchFormat().readResponses(response, 3);
+
+        assertEquals(3, responses.size());
+        assertEquals(200, responses.get(0).statusCode);
+        assertEquals("{\"id\":1}", new String(responses.get(0).data, "UTF-8"));
+        assertEquals("application/json", responses.get(0).headers.get("Content-Type"));
+        assertEquals(204, responses.get(1).statusCode);
+        assertEquals(0, responses.get(1).data.length);
+        assertNull(responses.get(2));
+    }
+
+    private void perform(BatchRequest batch, BaseHttpStack stack) {
+        try {
+            NetworkResponse networkResponse = new SpitfireNetwork(stack).performRequest(batch);
+            Response<List<Response<?>>> response = batch.parseNetworkResponse(networkResponse);
+            batch.deliverResponse(response.result);
+        } catch (VolleyError error) {
+            batch.deliverError(batch.parseNetworkError(error));
+        }
+    }
+
+    private static class CountingListener implements RequestListener<DummyResponse> {
+
+        private int successCount;
+        private int failureCount;
+        private DummyResponse lastResult;
+        private NetworkResponse lastResponse;
+        private VolleyError lastError;
+
+        @Override
+        public void onSuccess(Request<DummyResponse> request, NetworkResponse response, DummyResponse result) {
+            successCount++;
+            lastResult = result;
+            lastResponse = response;
+        }
+
+        @Override
+        public void onFailure(Request<DummyResponse> request, NetworkResponse response, VolleyError error) {
+            failureCount++;
+            lastResponse = response;
+            lastError = error;
+        }
+    }
+}
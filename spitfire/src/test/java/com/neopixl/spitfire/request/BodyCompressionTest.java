@@ -0,0 +1,110 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.Request;
+import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.model.BodyCompression;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class BodyCompressionTest {
+
+    private String url = "http://neopixl.com/items";
+
+    @Test
+    public void largeJsonBodyIsGzipped() throws Exception {
+        List<DummyResponse> items = newItems(1000);
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                .json(items)
+                .bodyCompression(new BodyCompression(BodyCompression.Algorithm.GZIP))
+                .build();
+
+        assertEquals("gzip", request.getHeaders().get("Content-Encoding"));
+        byte[] body = request.getBody();
+        String json = readFully(new GZIPInputStream(new ByteArrayInputStream(body)));
+        assertEquals(new String(request.getJsonBody(), "UTF-8"), json);
+        assertTrue(body.length < json.length() / 5);
+    }
+
+    @Test
+    public void smallJsonBodyIsNotCompressed() throws Exception {
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                .json(newItems(1))
+                .bodyCompression(new BodyCompression(BodyCompression.Algorithm.GZIP, 4096))
+                .build();
+
+        assertFalse(request.getHeaders().containsKey("Content-Encoding"));
+        assertEquals(new String(request.getJsonBody(), "UTF-8"), new String(request.getBody(), "UTF-8"));
+    }
+
+    @Test
+    public void formBodyIsDeflated() throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("content", "neopixl neopixl neopixl neopixl");
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                .parameters(parameters)
+                .bodyCompression(new BodyCompression(BodyCompression.Algorithm.DEFLATE, 0))
+                .build();
+
+        assertEquals("deflate", request.getHeaders().get("Content-Encoding"));
+        assertEquals("content=neopixl+neopixl+neopixl+neopixl&", readFully(new InflaterInputStream(new ByteArrayInputStream(request.getBody()))));
+    }
+
+    @Test
+    public void defaultCompressionIsUsed() throws Exception {
+        SpitfireManager.setBodyCompression(new BodyCompression(BodyCompression.Algorithm.GZIP, 0));
+        try {
+            BaseRequest<DummyResponse> postRequest = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                    .json(newItems(1))
+                    .build();
+            BaseRequest<DummyResponse> getRequest = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                    .build();
+
+            assertEquals("gzip", postRequest.getHeaders().get("Content-Encoding"));
+            assertFalse(getRequest.getHeaders().containsKey("Content-Encoding"));
+            assertNull(getRequest.getBody());
+        } finally {
+            SpitfireManager.setBodyCompression(null);
+        }
+    }
+
+    private static List<DummyResponse> newItems(int count) {
+        List<DummyResponse> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DummyResponse item = new DummyResponse();
+            item.setId(i);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static String readFully(InputStream inputStream) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, count);
+        }
+        return outputStream.toString("UTF-8");
+    }
+}
@@ -0,0 +1,217 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.ServerError;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.listener.FreshnessRequestListener;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.listener.ResponseTransformer;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.model.Freshness;
+import com.neopixl.spitfire.mock.RecordingRequestQueue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class CoalescingRequestQueueTest {
+
+    private String url = "http://neopixl.com/items";
+    private RecordingRequestQueue requestQueue;
+    private CoalescingRequestQueue coalescingQueue;
+    private CountingListener firstListener;
+    private CountingListener secondListener;
+
+    @Before
+    public void setUp() throws Exception {
+        requestQueue = new RecordingRequestQueue();
+        coalescingQueue = new CoalescingRequestQueue(requestQueue);
+        firstListener = new CountingListener();
+        secondListener = new CountingListener();
+    }
+
+    @Test
+    public void identicalRequestsShareOneCall() throws Exception {
+        BaseRequest<DummyResponse> first = buildRequest(Request.Method.GET, "1", firstListener);
+        BaseRequest<DummyResponse> second = buildRequest(Request.Method.GET, "1", secondListener);
+
+        coalescingQueue.add(first);
+        coalescingQueue.add(second);
+
+        assertEquals(1, requestQueue.getAddedRequests().size());
+        assertEquals(1, coalescingQueue.getInFlightCount());
+
+        deliverSuccess(requestQueue.getAddedRequests().get(0));
+
+        assertEquals(1, firstListener.successCount);
+        assertEquals(1, secondListener.successCount);
+        assertSame("The response should be parsed once", firstListener.lastResult, secondListener.lastResult);
+        assertEquals("shared", firstListener.lastResult.getMessage());
+    }
+
+    @Test
+    public void copiedResultsAreNotShared() throws Exception {
+        coalescingQueue = new CoalescingRequestQueue(requestQueue, true);
+        coalescingQueue.add(buildRequest(Request.Method.GET, "1", firstListener));
+        coalescingQueue.add(buildRequest(Request.Method.GET, "1", secondListener));
+        assertEquals(1, requestQueue.getAddedRequests().size());
+
+        deliverSuccess(requestQueue.getAddedRequests().get(0));
+
+        assertEquals(1, firstListener.successCount);
+        assertEquals(1, secondListener.successCount);
+        assertNotSame("Each listener should receive its own response", firstListener.lastResult, secondListener.lastResult);
+        assertEquals("shared", secondListener.lastResult.getMessage());
+    }
+
+    @Test
+    public void differentRequestsAreNotShared() throws Exception {
+        coalescingQueue.add(buildRequest(Request.Method.GET, "1", firstListener));
+        coalescingQueue.add(buildRequest(Request.Method.GET, "2", secondListener));
+        coalescingQueue.add(buildRequest(Request.Method.POST, "1", secondListener));
+        coalescingQueue.add(buildRequest(Request.Method.POST, "1", secondListener));
+
+        assertEquals(4, requestQueue.getAddedRequests().size());
+    }
+
+    @Test
+    public void requestsWithAnotherTransformerAreNotShared() throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("page", "1");
+        BaseRequest<DummyResponse> transformedRequest = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .parameters(parameters)
+                .responseTransformer(new ResponseTransformer<DummyResponse>() {
+                    @Override
+                    public DummyResponse transform(Request<DummyResponse> request, DummyResponse response) {
+                        DummyResponse transformed = new DummyResponse();
+                        transformed.setMessage(response.getMessage().toUpperCase());
+                        return transformed;
+                    }
+                })
+                .listener(secondListener)
+                .build();
+
+        coalescingQueue.add(buildRequest(Request.Method.GET, "1", firstListener));
+        coalescingQueue.add(transformedRequest);
+        assertEquals(2, requestQueue.getAddedRequests().size());
+
+        deliverSuccess(requestQueue.getAddedRequests().get(0));
+        deliverSuccess(requestQueue.getAddedRequests().get(1));
+
+        assertEquals("shared", firstListener.lastResult.getMessage());
+        assertEquals("SHARED", secondListener.lastResult.getMessage());
+    }
+
+    @Test
+    public void freshnessListenerIsNotSharedWithAPlainListener() throws Exception {
+        coalescingQueue.add(buildRequest(Request.Method.GET, "1", firstListener));
+        coalescingQueue.add(buildRequest(Request.Method.GET, "1", new FreshnessRequestListener<DummyResponse>() {
+            @Override
+            public void onSuccess(Request<DummyResponse> request, NetworkResponse response, DummyResponse result, Freshness freshness) {
+            }
+
+            @Override
+            public void onFailure(Request<DummyResponse> request, NetworkResponse response, VolleyError error) {
+            }
+        }));
+
+        assertEquals("A revalidated response is only parsed for a freshness listener", 2, requestQueue.getAddedRequests().size());
+    }
+
+    @Test
+    public void cancelledRequestIsDetached() throws Exception {
+        BaseRequest<DummyResponse> first = buildRequest(Request.Method.GET, "1", firstListener);
+        BaseRequest<DummyResponse> second = buildRequest(Request.Method.GET, "1", secondListener);
+        coalescingQueue.add(first);
+        coalescingQueue.add(second);
+        Request<?> sharedRequest = requestQueue.getAddedRequests().get(0);
+
+        first.cancel();
+        assertFalse("The call should continue for the other requests", sharedRequest.isCanceled());
+
+        deliverSuccess(sharedRequest);
+        assertEquals(0, firstListener.successCount);
+        assertEquals(1, secondListener.successCount);
+    }
+
+    @Test
+    public void callIsCancelledWithTheLastRequest() throws Exception {
+        BaseRequest<DummyResponse> first = buildRequest(Request.Method.GET, "1", firstListener);
+        BaseRequest<DummyResponse> second = buildRequest(Request.Method.GET, "1", secondListener);
+        second.setTag("screen");
+        coalescingQueue.add(first);
+        coalescingQueue.add(second);
+        Request<?> sharedRequest = requestQueue.getAddedRequests().get(0);
+
+        coalescingQueue.cancelAll("screen");
+        assertTrue(second.isCanceled());
+        assertFalse(sharedRequest.isCanceled());
+
+        first.cancel();
+        assertTrue(sharedRequest.isCanceled());
+
+        coalescingQueue.add(buildRequest(Request.Method.GET, "1", firstListener));
+        assertEquals("A cancelled call should not be joined", 2, requestQueue.getAddedRequests().size());
+    }
+
+    @Test
+    public void errorIsDeliveredToAllRequests() throws Exception {
+        coalescingQueue.add(buildRequest(Request.Method.GET, "1", firstListener));
+        coalescingQueue.add(buildRequest(Request.Method.GET, "1", secondListener));
+
+        requestQueue.getAddedRequests().get(0).deliverError(new ServerError());
+
+        assertEquals(1, firstListener.failureCount);
+        assertEquals(1, secondListener.failureCount);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliverSuccess(Request<?> request) throws Exception {
+        CoalescedRequest<DummyResponse> sharedRequest = (CoalescedRequest<DummyResponse>) request;
+        Response<DummyResponse> response = sharedRequest.parseNetworkResponse(
+                new NetworkResponse("{\"message\":\"shared\"}".getBytes("UTF-8")));
+        sharedRequest.deliverResponse(response.result);
+    }
+
+    private BaseRequest<DummyResponse> buildRequest(int method, String page, RequestListener<DummyResponse> listener) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("page", page);
+        return new BaseRequest.Builder<>(method, url, DummyResponse.class)
+                .parameters(parameters)
+                .listener(listener)
+                .build();
+    }
+
+    private static class CountingListener implements RequestListener<DummyResponse> {
+
+        private int successCount;
+        private int failureCount;
+        private DummyResponse lastResult;
+
+        @Override
+        public void onSuccess(Request<DummyResponse> request, NetworkResponse response, DummyResponse result) {
+            successCount++;
+            lastResult = result;
+        }
+
+        @Override
+        public void onFailure(Request<DummyResponse> request, NetworkResponse response, VolleyError error) {
+            failureCount++;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.Header;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.codec.CborCodec;
+import com.neopixl.spitfire.codec.Codec;
+import com.neopixl.spitfire.codec.JacksonCodec;
+import com.neopixl.spitfire.codec.SmileCodec;
+import com.neopixl.spitfire.mock.DummyResponse;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class CodecTest {
+
+    private String url = "http://neopixl.com/items";
+
+    @After
+    public void tearDown() {
+        SpitfireManager.setDefaultCodec(null);
+    }
+
+    @Test
+    public void jsonIsTheDefaultCodec() throws Exception {
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                .json(newItem(1))
+                .build();
+
+        assertSame(SpitfireManager.getJsonCodec(), request.getCodec());
+        assertEquals("application/json; charset=UTF-8", request.getBodyContentType());
+        assertFalse(request.getHeaders().containsKey("Accept"));
+    }
+
+    @Test
+    public void requestCodecSetsTheHeadersAndWritesTheBody() throws Exception {
+        CountingCodec codec = new CountingCodec();
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                .json(newItem(1))
+                .codec(codec)
+                .build();
+
+        assertEquals(CountingCodec.MEDIA_TYPE, request.getBodyContentType());
+        assertEquals(CountingCodec.MEDIA_TYPE + ", application/json;q=0.9", request.getHeaders().get("Accept"));
+        assertArrayEquals(codec.getWriter().writeValueAsBytes(newItem(1)), request.getBody());
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("accept", "*/*");
+        BaseRequest<DummyResponse> customAccept = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .headers(headers)
+                .codec(codec)
+                .build();
+        assertEquals("*/*", customAccept.getHeaders().get("accept"));
+        assertNull(customAccept.getHeaders().get("Accept"));
+    }
+
+    @Test
+    public void responseIsReadByTheCodecOfItsContentType() throws Exception {
+        CountingCodec codec = new CountingCodec();
+        SpitfireManager.setDefaultCodec(codec);
+        try {
+            BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class).build();
+            assertSame(codec, request.getCodec());
+
+            Response<DummyResponse> jsonResponse = request.parseNetworkResponse(newResponse("application/json; charset=utf-8"));
+            assertEquals(1, jsonResponse.result.getId());
+            assertEquals(0, codec.reads.get());
+
+            Response<DummyResponse> codecResponse = request.parseNetworkResponse(newResponse(CountingCodec.MEDIA_TYPE));
+            assertEquals(1, codecResponse.result.getId());
+            assertEquals(1, codec.reads.get());
+
+            request.parseNetworkResponse(newResponse("text/plain"));
+            assertEquals(2, codec.reads.get());
+        } finally {
+            SpitfireManager.unregisterCodec(codec);
+        }
+    }
+
+    @Test
+    public void findCodecMatchesTheMediaType() {
+        CountingCodec codec = new CountingCodec();
+        assertNull(SpitfireManager.findCodec(CountingCodec.MEDIA_TYPE));
+
+        SpitfireManager.registerCodec(codec);
+        try {
+            assertSame(codec, SpitfireManager.findCodec("Application/X-Test; charset=UTF-8"));
+            assertSame(SpitfireManager.getJsonCodec(), SpitfireManager.findCodec("application/problem+json"));
+            assertNull(SpitfireManager.findCodec("text/html"));
+            assertNull(SpitfireManager.findCodec(null));
+        } finally {
+            SpitfireManager.unregisterCodec(codec);
+        }
+    }
+
+    @Test
+    public void binaryCodecsReadTheirOwnBodies() throws Exception {
+        Codec[] codecs = {new SmileCodec(), new CborCodec()};
+        for (Codec codec : codecs) {
+            DummyResponse item = newItem(7);
+            byte[] body = codec.getWriter().writeValueAsBytes(item);
+            DummyResponse read = codec.getReader(SpitfireManager.resolveType(DummyResponse.class)).readValue(body);
+
+            assertEquals(item.getId(), read.getId());
+            assertEquals(item.getMessage(), read.getMessage());
+            assertEquals(codec.getMediaType(), codec.getContentType("UTF-8"));
+        }
+    }
+
+    private static NetworkResponse newResponse(String contentType) throws Exception {
+        return new NetworkResponse(200, "{\"id\":1}".getBytes("UTF-8"), false, 0,
+                Collections.singletonList(new Header("Content-Type", contentType)));
+    }
+
+    private static DummyResponse newItem(int id) {
+        DummyResponse item = new DummyResponse();
+        item.setId(id);
+        item.setMessage("item " + id);
+        return item;
+    }
+
+    /**
+     * Binary codec reading JSON, counting its reads
+     */
+    private static class CountingCodec extends JacksonCodec {
+
+        static final String MEDIA_TYPE = "application/x-test";
+
+        final AtomicInteger reads = new AtomicInteger();
+
+        CountingCodec() {
+            super(MEDIA_TYPE, true, new ObjectMapper());
+        }
+
+        @Override
+        public ObjectReader getReader(JavaType type) {
+            reads.incrementAndGet();
+            return super.getReader(type);
+        }
+    }
+}
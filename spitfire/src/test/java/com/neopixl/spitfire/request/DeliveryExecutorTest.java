@@ -0,0 +1,154 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.ServerError;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.listener.ResponseTransformer;
+import com.neopixl.spitfire.mock.DummyResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class DeliveryExecutorTest {
+
+    private String url = "http://neopixl.com/items/1";
+    private List<Runnable> pendingTasks;
+    private Executor queuedExecutor;
+    private List<DummyResponse> results;
+    private List<VolleyError> errors;
+    private RequestListener<DummyResponse> listener;
+
+    @Before
+    public void setUp() throws Exception {
+        pendingTasks = new ArrayList<>();
+        queuedExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                pendingTasks.add(command);
+            }
+        };
+        results = new ArrayList<>();
+        errors = new ArrayList<>();
+        listener = new RequestListener<DummyResponse>() {
+            @Override
+            public void onSuccess(Request<DummyResponse> request, NetworkResponse response, DummyResponse result) {
+                results.add(result);
+            }
+
+            @Override
+            public void onFailure(Request<DummyResponse> request, NetworkResponse response, VolleyError error) {
+                errors.add(error);
+            }
+        };
+    }
+
+    @Test
+    public void listenerIsCalledOnTheExecutor() throws Exception {
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .listener(listener)
+                .deliveryExecutor(queuedExecutor)
+                .build();
+
+        deliver(request, "{\"id\":1}");
+        request.deliverError(new ServerError());
+        assertTrue("The listener should not be called by the queue delivery", results.isEmpty() && errors.isEmpty());
+
+        runPendingTasks();
+        assertEquals(1, results.size());
+        assertEquals(1, results.get(0).getId());
+        assertEquals(1, errors.size());
+    }
+
+    @Test
+    public void cancelledRequestIsNotDelivered() throws Exception {
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .listener(listener)
+                .deliveryExecutor(queuedExecutor)
+                .build();
+
+        deliver(request, "{\"id\":1}");
+        request.cancel();
+        runPendingTasks();
+
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void defaultExecutorIsUsed() throws Exception {
+        SpitfireManager.setDeliveryExecutor(queuedExecutor);
+        try {
+            BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                    .listener(listener)
+                    .build();
+
+            deliver(request, "{\"id\":1}");
+            assertEquals(1, pendingTasks.size());
+        } finally {
+            SpitfireManager.setDeliveryExecutor(null);
+        }
+    }
+
+    @Test
+    public void responseIsTransformed() throws Exception {
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .listener(listener)
+                .responseTransformer(new ResponseTransformer<DummyResponse>() {
+                    @Override
+                    public DummyResponse transform(Request<DummyResponse> request, DummyResponse response) {
+                        DummyResponse transformed = new DummyResponse();
+                        transformed.setId(response.getId() * 10);
+                        return transformed;
+                    }
+                })
+                .build();
+
+        deliver(request, "{\"id\":2}");
+
+        assertEquals(20, results.get(0).getId());
+    }
+
+    @Test
+    public void failedTransformationIsAParseError() throws Exception {
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .responseTransformer(new ResponseTransformer<DummyResponse>() {
+                    @Override
+                    public DummyResponse transform(Request<DummyResponse> request, DummyResponse response) {
+                        throw new IllegalStateException("invalid response");
+                    }
+                })
+                .build();
+
+        Response<DummyResponse> response = request.parseNetworkResponse(new NetworkResponse("{\"id\":2}".getBytes("UTF-8")));
+
+        assertTrue(response.error instanceof ParseError);
+    }
+
+    private void deliver(BaseRequest<DummyResponse> request, String content) throws Exception {
+        Response<DummyResponse> response = request.parseNetworkResponse(new NetworkResponse(content.getBytes("UTF-8")));
+        request.deliverResponse(response.result);
+    }
+
+    private void runPendingTasks() {
+        for (Runnable task : new ArrayList<>(pendingTasks)) {
+            task.run();
+        }
+        pendingTasks.clear();
+    }
+}
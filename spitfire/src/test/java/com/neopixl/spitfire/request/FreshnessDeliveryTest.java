@@ -0,0 +1,145 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.Cache;
+import com.android.volley.Header;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.listener.FreshnessRequestListener;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.mock.RecordingRequestQueue;
+import com.neopixl.spitfire.model.Freshness;
+import com.neopixl.spitfire.utils.CacheTestUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class FreshnessDeliveryTest {
+
+    private String url = "http://neopixl.com/items/1";
+    private List<Freshness> deliveredFreshness;
+    private List<DummyResponse> deliveredResults;
+    private FreshnessRequestListener<DummyResponse> listener;
+
+    @Before
+    public void setUp() throws Exception {
+        deliveredFreshness = new ArrayList<>();
+        deliveredResults = new ArrayList<>();
+        listener = new FreshnessRequestListener<DummyResponse>() {
+            @Override
+            public void onSuccess(Request<DummyResponse> request, NetworkResponse response, DummyResponse result, Freshness freshness) {
+                deliveredFreshness.add(freshness);
+                deliveredResults.add(result);
+            }
+
+            @Override
+            public void onFailure(Request<DummyResponse> request, NetworkResponse response, VolleyError error) {
+            }
+        };
+    }
+
+    @Test
+    public void staleEntryIsDeliveredThenRefreshed() throws Exception {
+        Cache.Entry cacheEntry = CacheTestUtils.makeRandomCacheEntry("{\"id\":1}".getBytes("UTF-8"), false, true);
+        BaseRequest<DummyResponse> request = buildRequest(listener);
+        request.setCacheEntry(cacheEntry);
+
+        deliver(request, new NetworkResponse(cacheEntry.data));
+        deliver(request, new NetworkResponse("{\"id\":2}".getBytes("UTF-8")));
+
+        assertEquals(2, deliveredFreshness.size());
+        assertEquals(Freshness.STALE, deliveredFreshness.get(0));
+        assertEquals(1, deliveredResults.get(0).getId());
+        assertEquals(Freshness.FRESH, deliveredFreshness.get(1));
+        assertEquals(2, deliveredResults.get(1).getId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void futureKeepsTheFreshness() throws Exception {
+        Cache.Entry cacheEntry = CacheTestUtils.makeRandomCacheEntry("{\"id\":1}".getBytes("UTF-8"), false, true);
+        SpitfireFuture<DummyResponse> future = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .listener(listener)
+                .buildAsync(new RecordingRequestQueue());
+        BaseRequest<DummyResponse> request = (BaseRequest<DummyResponse>) future.getRequest();
+        request.setCacheEntry(cacheEntry);
+
+        deliver(request, new NetworkResponse(cacheEntry.data));
+
+        assertEquals(Freshness.STALE, future.get(1, TimeUnit.SECONDS).getFreshness());
+        assertEquals("The wrapped listener should receive the freshness", Freshness.STALE, deliveredFreshness.get(0));
+    }
+
+    @Test
+    public void freshEntryIsDeliveredAsFresh() throws Exception {
+        Cache.Entry cacheEntry = CacheTestUtils.makeRandomCacheEntry("{\"id\":1}".getBytes("UTF-8"));
+        BaseRequest<DummyResponse> request = buildRequest(listener);
+        request.setCacheEntry(cacheEntry);
+
+        deliver(request, new NetworkResponse(cacheEntry.data));
+
+        assertEquals(Freshness.FRESH, deliveredFreshness.get(0));
+    }
+
+    @Test
+    public void notModifiedIsDeliveredAsRevalidated() throws Exception {
+        Cache.Entry cacheEntry = CacheTestUtils.makeRandomCacheEntry("{\"id\":1}".getBytes("UTF-8"), true, true);
+        BaseRequest<DummyResponse> request = buildRequest(listener);
+        request.setCacheEntry(cacheEntry);
+
+        deliver(request, new NetworkResponse(HttpURLConnection.HTTP_NOT_MODIFIED, cacheEntry.data, true, 0, new ArrayList<Header>()));
+
+        assertEquals(Freshness.REVALIDATED, deliveredFreshness.get(0));
+        assertEquals("The cached content should be delivered", 1, deliveredResults.get(0).getId());
+        assertTrue("The revalidated entry should be cached again", request.shouldCache());
+    }
+
+    @Test
+    public void notModifiedWithoutFreshnessListener() throws Exception {
+        final List<DummyResponse> results = new ArrayList<>();
+        Cache.Entry cacheEntry = CacheTestUtils.makeRandomCacheEntry("{\"id\":1}".getBytes("UTF-8"), true, true);
+        BaseRequest<DummyResponse> request = buildRequest(new RequestListener<DummyResponse>() {
+            @Override
+            public void onSuccess(Request<DummyResponse> request, NetworkResponse response, DummyResponse result) {
+                results.add(result);
+            }
+
+            @Override
+            public void onFailure(Request<DummyResponse> request, NetworkResponse response, VolleyError error) {
+            }
+        });
+        request.setCacheEntry(cacheEntry);
+
+        deliver(request, new NetworkResponse(HttpURLConnection.HTTP_NOT_MODIFIED, cacheEntry.data, true, 0, new ArrayList<Header>()));
+
+        assertEquals(1, results.size());
+        assertNull(results.get(0));
+    }
+
+    private void deliver(BaseRequest<DummyResponse> request, NetworkResponse networkResponse) {
+        Response<DummyResponse> response = request.parseNetworkResponse(networkResponse);
+        request.deliverResponse(response.result);
+    }
+
+    private BaseRequest<DummyResponse> buildRequest(RequestListener<DummyResponse> listener) {
+        return new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .listener(listener)
+                .build();
+    }
+}
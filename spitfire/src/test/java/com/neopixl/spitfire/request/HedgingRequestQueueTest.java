@@ -0,0 +1,282 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.Cache;
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.ServerError;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.mock.RecordingRequestQueue;
+import com.neopixl.spitfire.retry.RetryBudget;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class HedgingRequestQueueTest {
+
+    private String url = "http://neopixl.com/items/1";
+    private RecordingRequestQueue requestQueue;
+    private HedgingRequestQueue hedgingQueue;
+    private CountingListener listener;
+
+    @Before
+    public void setUp() throws Exception {
+        requestQueue = new RecordingRequestQueue();
+        hedgingQueue = new HedgingRequestQueue.Builder(requestQueue)
+                .hedgeBudget(new RetryBudget(0.5, 2))
+                .build();
+        listener = new CountingListener();
+    }
+
+    @Test
+    public void requestIsNotHedgedWithoutLatencies() throws Exception {
+        hedgingQueue.add(buildRequest(Request.Method.GET));
+        advanceBy(60000);
+
+        assertEquals(1, requestQueue.getAddedRequests().size());
+        assertEquals(0, hedgingQueue.getHedgeCount());
+    }
+
+    @Test
+    public void lateRequestIsHedgedAndTheFirstResponseWins() throws Exception {
+        recordLatencies(200);
+        BaseRequest<DummyResponse> request = buildRequest(Request.Method.GET);
+        assertEquals(200, hedgingQueue.getHedgeDelayMs(request));
+
+        hedgingQueue.add(request);
+        advanceBy(199);
+        assertEquals(1, requestQueue.getAddedRequests().size());
+        advanceBy(1);
+        assertEquals("A duplicate should be sent after the delay", 2, requestQueue.getAddedRequests().size());
+
+        Request<?> primary = requestQueue.getAddedRequests().get(0);
+        Request<?> hedge = requestQueue.getAddedRequests().get(1);
+        assertFalse("The duplicate should not wait for the cache", hedge.shouldCache());
+        deliverSuccess(hedge);
+
+        assertTrue("The slow call should be cancelled", primary.isCanceled());
+        assertEquals(1, listener.successCount);
+        assertEquals("hedged", listener.lastResult.getMessage());
+
+        deliverSuccess(primary);
+        assertEquals("The response should be delivered once", 1, listener.successCount);
+        assertEquals(1, hedgingQueue.getHedgeCount());
+        assertEquals(1, hedgingQueue.getHedgeWinCount());
+    }
+
+    @Test
+    public void fastResponseCancelsTheHedge() throws Exception {
+        recordLatencies(200);
+        hedgingQueue.add(buildRequest(Request.Method.GET));
+
+        advanceBy(50);
+        deliverSuccess(requestQueue.getAddedRequests().get(0));
+        advanceBy(1000);
+
+        assertEquals(1, requestQueue.getAddedRequests().size());
+        assertEquals(1, listener.successCount);
+        assertEquals(0, hedgingQueue.getHedgeCount());
+    }
+
+    @Test
+    public void errorIsDeliveredWhenAllCallsFailed() throws Exception {
+        recordLatencies(200);
+        hedgingQueue.add(buildRequest(Request.Method.GET));
+        advanceBy(200);
+
+        requestQueue.getAddedRequests().get(0).deliverError(new ServerError());
+        assertEquals("The duplicate can still succeed", 0, listener.failureCount);
+
+        requestQueue.getAddedRequests().get(1).deliverError(new ServerError());
+        assertEquals(1, listener.failureCount);
+    }
+
+    @Test
+    public void hedgesAreLimitedByTheBudget() throws Exception {
+        recordLatencies(200);
+        for (int i = 0; i < 10; i++) {
+            hedgingQueue.add(buildRequest(Request.Method.GET));
+        }
+        advanceBy(200);
+
+        // the deposits of the requests are capped by the balance, only the 2 saved duplicates are sent
+        assertEquals(10, hedgingQueue.getRequestCount());
+        assertEquals(2, hedgingQueue.getHedgeCount());
+        assertEquals(8, hedgingQueue.getBudgetExhaustedCount());
+        assertEquals(0.2, hedgingQueue.getHedgeRate(), 0.001);
+        assertEquals(12, requestQueue.getAddedRequests().size());
+    }
+
+    @Test
+    public void onlyGetRequestsAreHedged() throws Exception {
+        recordLatencies(200);
+        BaseRequest<DummyResponse> request = buildRequest(Request.Method.POST);
+        hedgingQueue.add(request);
+        advanceBy(1000);
+
+        assertEquals(-1, hedgingQueue.getHedgeDelayMs(request));
+        assertEquals(1, requestQueue.getAddedRequests().size());
+        assertTrue("A POST should be added as is", requestQueue.getAddedRequests().get(0) == request);
+    }
+
+    @Test
+    public void cancellingTheRequestCancelsTheAttempts() throws Exception {
+        recordLatencies(200);
+        BaseRequest<DummyResponse> request = buildRequest(Request.Method.GET);
+        hedgingQueue.add(request);
+        advanceBy(200);
+        assertEquals(2, requestQueue.getAddedRequests().size());
+
+        request.cancel();
+
+        assertTrue(requestQueue.getAddedRequests().get(0).isCanceled());
+        assertTrue(requestQueue.getAddedRequests().get(1).isCanceled());
+    }
+
+    @Test
+    public void cancelAllCancelsTheHedgedRequests() throws Exception {
+        recordLatencies(200);
+        BaseRequest<DummyResponse> request = buildRequest(Request.Method.GET);
+        request.setTag("screen");
+        hedgingQueue.add(request);
+        hedgingQueue.add(buildRequest(Request.Method.GET));
+        assertEquals(2, hedgingQueue.getInFlightCount());
+
+        hedgingQueue.cancelAll("screen");
+
+        assertTrue("The request of the listener should be cancelled", request.isCanceled());
+        assertTrue(requestQueue.getAddedRequests().get(0).isCanceled());
+        assertFalse(requestQueue.getAddedRequests().get(1).isCanceled());
+        assertEquals(1, hedgingQueue.getInFlightCount());
+
+        advanceBy(200);
+        assertEquals("The cancelled request should not be hedged", 3, requestQueue.getAddedRequests().size());
+        deliverSuccess(requestQueue.getAddedRequests().get(1));
+        assertEquals(0, hedgingQueue.getInFlightCount());
+    }
+
+    @Test
+    public void hedgeUsesTheTimeoutOfTheRequest() throws Exception {
+        recordLatencies(200);
+        BaseRequest<DummyResponse> request = buildRequest(Request.Method.GET);
+        request.setRetryPolicy(new DefaultRetryPolicy(1234, 3, 1f));
+        hedgingQueue.add(request);
+        advanceBy(200);
+
+        Request<?> primary = requestQueue.getAddedRequests().get(0);
+        Request<?> hedge = requestQueue.getAddedRequests().get(1);
+        assertSame(request.getRetryPolicy(), primary.getRetryPolicy());
+        assertNotSame("The duplicate should count its own retries", request.getRetryPolicy(), hedge.getRetryPolicy());
+        assertEquals(1234, hedge.getTimeoutMs());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void softExpiredCacheHitIsRefreshedWithoutHedge() throws Exception {
+        recordLatencies(200);
+        hedgingQueue.add(buildRequest(Request.Method.GET));
+        HedgedRequest<DummyResponse> primary = (HedgedRequest<DummyResponse>) requestQueue.getAddedRequests().get(0);
+
+        Cache.Entry entry = buildCacheEntry("cached", 0);
+        primary.setCacheEntry(entry);
+        Response<DummyResponse> cachedResponse = primary.parseNetworkResponse(new NetworkResponse(entry.data));
+        primary.deliverResponse(cachedResponse.result);
+        assertEquals(1, listener.successCount);
+        assertEquals("cached", listener.lastResult.getMessage());
+
+        advanceBy(1000);
+        assertEquals("The refresh should not be hedged", 1, requestQueue.getAddedRequests().size());
+
+        deliverSuccess(primary);
+        assertEquals("The refresh should be delivered", 2, listener.successCount);
+        assertEquals("hedged", listener.lastResult.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cacheHitLatencyIsNotRecorded() throws Exception {
+        for (int i = 1; i < HedgingRequestQueue.DEFAULT_MIN_SAMPLES; i++) {
+            hedgingQueue.recordLatency(buildRequest(Request.Method.GET), 200);
+        }
+        BaseRequest<DummyResponse> request = buildRequest(Request.Method.GET);
+        hedgingQueue.add(request);
+        HedgedRequest<DummyResponse> primary = (HedgedRequest<DummyResponse>) requestQueue.getAddedRequests().get(0);
+
+        Cache.Entry entry = buildCacheEntry("cached", Long.MAX_VALUE);
+        primary.setCacheEntry(entry);
+        Response<DummyResponse> cachedResponse = primary.parseNetworkResponse(new NetworkResponse(entry.data));
+        primary.deliverResponse(cachedResponse.result);
+
+        assertEquals(1, listener.successCount);
+        assertEquals("A cache hit should not be a latency sample", -1, hedgingQueue.getHedgeDelayMs(request));
+    }
+
+    private Cache.Entry buildCacheEntry(String message, long softTtl) throws Exception {
+        Cache.Entry entry = new Cache.Entry();
+        entry.data = ("{\"message\":\"" + message + "\"}").getBytes("UTF-8");
+        entry.softTtl = softTtl;
+        entry.ttl = Long.MAX_VALUE;
+        return entry;
+    }
+
+    private void recordLatencies(long latencyMs) {
+        for (int i = 0; i < HedgingRequestQueue.DEFAULT_MIN_SAMPLES; i++) {
+            hedgingQueue.recordLatency(buildRequest(Request.Method.GET), latencyMs);
+        }
+    }
+
+    private void advanceBy(long delayMs) {
+        Robolectric.getForegroundThreadScheduler().advanceBy(delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliverSuccess(Request<?> request) throws Exception {
+        HedgedRequest<DummyResponse> attempt = (HedgedRequest<DummyResponse>) request;
+        Response<DummyResponse> response = attempt.parseNetworkResponse(
+                new NetworkResponse("{\"message\":\"hedged\"}".getBytes("UTF-8")));
+        if (response.isSuccess()) {
+            attempt.deliverResponse(response.result);
+        }
+    }
+
+    private BaseRequest<DummyResponse> buildRequest(int method) {
+        return new BaseRequest.Builder<>(method, url, DummyResponse.class)
+                .listener(listener)
+                .build();
+    }
+
+    private static class CountingListener implements RequestListener<DummyResponse> {
+
+        private int successCount;
+        private int failureCount;
+        private DummyResponse lastResult;
+
+        @Override
+        public void onSuccess(Request<DummyResponse> request, NetworkResponse response, DummyResponse result) {
+            successCount++;
+            lastResult = result;
+        }
+
+        @Override
+        public void onFailure(Request<DummyResponse> request, NetworkResponse response, VolleyError error) {
+            failureCount++;
+        }
+    }
+}
@@ -23,8 +23,10 @@ import com.android.volley.Request;
 import com.android.volley.Response;
 import com.android.volley.ServerError;
 import com.android.volley.VolleyError;
+import com.neopixl.spitfire.listener.ProgressListener;
 import com.neopixl.spitfire.listener.RequestListener;
 import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.model.BodyCompression;
 import com.neopixl.spitfire.model.RequestData;
 import com.neopixl.spitfire.utils.CacheTestUtils;
 import com.neopixl.spitfire.utils.ImmediateResponseDelivery;
@@ -38,12 +40,16 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
@@ -298,4 +304,69 @@ public class MultipartRequestTest {
         Mockito.verify(baseRequest, Mockito.times(1)).dataParse(Mockito.any(DataOutputStream.class), Mockito.eq(dummyDataMap));
 
     }
+
+    @Test
+    public void requestPostConstruct_streamedBody() throws Exception {
+        MultipartRequest.Builder<DummyResponse> builder = new MultipartRequest.Builder<>(Request.Method.POST, url, DummyResponse.class);
+        builder.json(dummyRequestObject);
+        builder.multiPartDataList(dummyDataMap);
+        MultipartRequest<DummyResponse> baseRequest = builder.build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        baseRequest.writeBody(outputStream);
+
+        assertEquals(outputStream.size(), baseRequest.getBodyContentLength());
+        assertArrayEquals(baseRequest.getBody(), outputStream.toByteArray());
+    }
+
+    @Test
+    public void requestPostConstruct_streamedBodyUnknownLength() throws Exception {
+        byte[] content = new byte[64];
+        MultipartRequest.Builder<DummyResponse> builder = new MultipartRequest.Builder<>(Request.Method.POST, url, DummyResponse.class);
+        builder.parameters(parameters);
+        builder.insertMultiPartData("stream", new RequestData("neopixl.bin", new ByteArrayInputStream(content), -1, "application/octet-stream"));
+        MultipartRequest<DummyResponse> baseRequest = builder.build();
+
+        assertEquals(-1, baseRequest.getBodyContentLength());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        baseRequest.writeBody(outputStream);
+        assertTrue(outputStream.size() > content.length);
+    }
+
+    @Test
+    public void requestPostConstruct_progress() throws Exception {
+        ProgressListener progressListener = Mockito.mock(ProgressListener.class);
+        RequestData bigData = new RequestData("neopixl.bin", new byte[100000], "application/octet-stream");
+        MultipartRequest.Builder<DummyResponse> builder = new MultipartRequest.Builder<>(Request.Method.POST, url, DummyResponse.class);
+        builder.parameters(parameters);
+        builder.insertMultiPartData("big", bigData);
+        builder.progressListener(progressListener);
+        builder.progressExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        builder.progressInterval(0);
+        builder.progressStep(10);
+        MultipartRequest<DummyResponse> baseRequest = builder.build();
+
+        long length = baseRequest.getBodyContentLength();
+        baseRequest.writeBody(new ByteArrayOutputStream());
+
+        Mockito.verify(progressListener, Mockito.times(1)).onProgress(baseRequest, length, length);
+        Mockito.verify(progressListener, Mockito.times(1)).onPartProgress(baseRequest, "big", bigData, 100000L, 100000L);
+        Mockito.verify(progressListener, Mockito.atMost(12)).onPartProgress(Mockito.eq(baseRequest), Mockito.eq("big"), Mockito.eq(bigData), Mockito.anyLong(), Mockito.eq(100000L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builderInvalidProgressStep() throws Exception {
+        new MultipartRequest.Builder<>(Request.Method.POST, url, DummyResponse.class).progressStep(200);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void builderBodyCompressionIsRejected() throws Exception {
+        new MultipartRequest.Builder<>(Request.Method.POST, url, DummyResponse.class).bodyCompression(new BodyCompression(BodyCompression.Algorithm.GZIP));
+    }
 }
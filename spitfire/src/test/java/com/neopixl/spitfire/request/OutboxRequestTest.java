@@ -0,0 +1,90 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.Request;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.mock.FakeHttpStack;
+import com.neopixl.spitfire.network.SpitfireNetwork;
+import com.neopixl.spitfire.outbox.OutboxEntry;
+import com.neopixl.spitfire.outbox.RequestJournal;
+import com.neopixl.spitfire.outbox.RequestOutbox;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class OutboxRequestTest {
+
+    private String url = "http://neopixl.com/items";
+    private FakeHttpStack stack;
+    private RequestJournal journal;
+    private RequestOutbox outbox;
+
+    @Before
+    public void setUp() throws Exception {
+        File file = File.createTempFile("spitfire", ".journal");
+        file.deleteOnExit();
+        stack = new FakeHttpStack();
+        journal = RequestJournal.open(file);
+        outbox = new RequestOutbox.Builder(journal).build();
+    }
+
+    @Test
+    public void offlineRequestIsSaved() throws Exception {
+        DummyResponse item = new DummyResponse();
+        item.setId(1);
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                .json(item)
+                .outbox(outbox, "items")
+                .build();
+
+        stack.setOffline(true);
+        perform(request);
+
+        OutboxEntry entry = request.getOutboxEntry();
+        assertNotNull(entry);
+        assertEquals(1, journal.getPendingCount());
+        assertEquals("items", entry.getOrderingKey());
+        assertEquals(Request.Method.POST, entry.getMethod());
+        assertEquals(request.getBodyContentType(), entry.getBodyContentType());
+        assertArrayEquals(request.getBody(), entry.getBody());
+    }
+
+    @Test
+    public void onlineFailuresAndReadRequestsAreNotSaved() throws Exception {
+        BaseRequest<DummyResponse> postRequest = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                .outbox(outbox, null)
+                .build();
+        stack.setResponse(500, new byte[0]);
+        perform(postRequest);
+        assertNull(postRequest.getOutboxEntry());
+
+        BaseRequest<DummyResponse> getRequest = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .outbox(outbox, null)
+                .build();
+        stack.setOffline(true);
+        perform(getRequest);
+        assertNull(getRequest.getOutboxEntry());
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    private void perform(BaseRequest<DummyResponse> request) {
+        try {
+            new SpitfireNetwork(stack).performRequest(request);
+        } catch (VolleyError error) {
+            // called by the network dispatcher before the delivery
+            request.parseNetworkError(error);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Header;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.ServerError;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.mock.RecordingRequestQueue;
+import com.neopixl.spitfire.model.RequestData;
+import com.neopixl.spitfire.upload.PartProtocol;
+import com.neopixl.spitfire.upload.UploadedPart;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class ParallelUploadRequestTest {
+
+    private String url = "http://neopixl.com/upload/complete";
+    private byte[] content = new byte[10000];
+    private RecordingRequestQueue queue;
+    private int successCount;
+    private int failureCount;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 127);
+        }
+        queue = new RecordingRequestQueue();
+        successCount = 0;
+        failureCount = 0;
+    }
+
+    @Test
+    public void partsAreLimitedByMaxInFlight() throws Exception {
+        ParallelUploadRequest<DummyResponse> request = buildRequest(new RequestData("video.mp4", content, "video/mp4"));
+        assertEquals(4, request.getPartCount());
+
+        request.start(queue);
+        assertEquals(2, queue.getAddedRequests().size());
+
+        deliverPart(0);
+        assertEquals("A new part should be sent when a part is uploaded", 3, queue.getAddedRequests().size());
+
+        deliverPart(2);
+        deliverPart(1);
+        assertEquals(4, queue.getAddedRequests().size());
+
+        deliverPart(3);
+        assertEquals(5, queue.getAddedRequests().size());
+        assertSame("The commit request should be added once all the parts are uploaded", request, queue.getAddedRequests().get(4));
+        assertEquals(Arrays.asList("etag-1", "etag-2", "etag-3", "etag-4"), request.getJsonObject());
+        assertEquals("[\"etag-1\",\"etag-2\",\"etag-3\",\"etag-4\"]", new String(request.getBody(), "UTF-8"));
+    }
+
+    @Test
+    public void partBodyIsTheDataRange() throws Exception {
+        ParallelUploadRequest<DummyResponse> request = buildRequest(new RequestData("video.mp4", content, "video/mp4"));
+        request.start(queue);
+
+        PartUploadRequest part = (PartUploadRequest) queue.getAddedRequests().get(1);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        part.writeBody(outputStream);
+
+        assertEquals(Request.Method.PUT, part.getMethod());
+        assertEquals("http://neopixl.com/upload/2", part.getUrl());
+        assertEquals("bytes 3000-5999/10000", part.getHeaders().get("Content-Range"));
+        assertEquals("video/mp4", part.getBodyContentType());
+        assertEquals(3000, part.getBodyContentLength());
+        assertArrayEquals(Arrays.copyOfRange(content, 3000, 6000), outputStream.toByteArray());
+        assertArrayEquals(Arrays.copyOfRange(content, 3000, 6000), part.getBody());
+    }
+
+    @Test
+    public void failedPartIsDeliveredOnce() throws Exception {
+        ParallelUploadRequest<DummyResponse> request = buildRequest(new RequestData("video.mp4", content, "video/mp4"));
+        request.start(queue);
+
+        Request<?> firstPart = queue.getAddedRequests().get(0);
+        Request<?> secondPart = queue.getAddedRequests().get(1);
+        firstPart.deliverError(new ServerError(new NetworkResponse(new byte[0])));
+        secondPart.deliverError(new ServerError(new NetworkResponse(new byte[0])));
+
+        assertEquals(1, failureCount);
+        assertEquals(0, successCount);
+        assertTrue("The other parts should be cancelled", secondPart.isCanceled());
+        assertEquals("No new part should be sent after a failure", 2, queue.getAddedRequests().size());
+    }
+
+    @Test
+    public void cancelUploadCancelsParts() throws Exception {
+        ParallelUploadRequest<DummyResponse> request = buildRequest(new RequestData("video.mp4", content, "video/mp4"));
+        request.start(queue);
+
+        request.cancel();
+
+        assertTrue(queue.getAddedRequests().get(0).isCanceled());
+        assertTrue(queue.getAddedRequests().get(1).isCanceled());
+        assertEquals(0, failureCount);
+    }
+
+    @Test(expected = AuthFailureError.class)
+    public void commitIsNotSentWithoutTheParts() throws Exception {
+        ParallelUploadRequest<DummyResponse> request = buildRequest(new RequestData("video.mp4", content, "video/mp4"));
+        // added to a queue instead of start(queue): the stack reads the headers and the body
+        request.getHeaders();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void singleStreamIsRejected() throws Exception {
+        buildRequest(new RequestData("video.mp4", new ByteArrayInputStream(content), content.length, "video/mp4"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void jsonBodyIsRejected() throws Exception {
+        new ParallelUploadRequest.Builder<>(Request.Method.POST, url, DummyResponse.class).json(new DummyResponse());
+    }
+
+    private void deliverPart(int index) {
+        PartUploadRequest part = (PartUploadRequest) queue.getAddedRequests().get(index);
+        List<Header> headers = Collections.singletonList(new Header("ETag", "etag-" + part.getPartNumber()));
+        NetworkResponse response = new NetworkResponse(200, new byte[0], false, 0, headers);
+        part.parseNetworkResponse(response);
+        part.deliverResponse(null);
+    }
+
+    private ParallelUploadRequest<DummyResponse> buildRequest(RequestData data) {
+        ParallelUploadRequest.Builder<DummyResponse> builder = new ParallelUploadRequest.Builder<>(Request.Method.POST, url, DummyResponse.class);
+        builder.partData(data);
+        builder.partProtocol(new TestPartProtocol());
+        builder.partSize(3000);
+        builder.maxInFlight(2);
+        builder.listener(new RequestListener<DummyResponse>() {
+            @Override
+            public void onSuccess(Request<DummyResponse> request, NetworkResponse response, DummyResponse result) {
+                successCount++;
+            }
+
+            @Override
+            public void onFailure(Request<DummyResponse> request, NetworkResponse response, VolleyError error) {
+                failureCount++;
+            }
+        });
+        return builder.build();
+    }
+
+    private static class TestPartProtocol implements PartProtocol {
+
+        @Override
+        public String getPartUrl(int partNumber) {
+            return "http://neopixl.com/upload/" + partNumber;
+        }
+
+        @Override
+        public Map<String, String> getPartHeaders(int partNumber, long offset, long length, long totalLength) {
+            Map<String, String> headers = new HashMap<>();
+            headers.put("Content-Range", "bytes " + offset + "-" + (offset + length - 1) + "/" + totalLength);
+            return headers;
+        }
+
+        @Override
+        public String getPartTag(int partNumber, NetworkResponse response) {
+            return response.headers.get("ETag");
+        }
+
+        @Override
+        public Object getCommitBody(List<UploadedPart> parts) {
+            List<String> tags = new ArrayList<>();
+            for (UploadedPart part : parts) {
+                tags.add(part.getTag());
+            }
+            return tags;
+        }
+    }
+}
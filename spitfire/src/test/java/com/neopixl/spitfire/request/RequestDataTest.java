@@ -20,6 +20,15 @@ import com.neopixl.spitfire.model.RequestData;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -46,6 +55,11 @@ public class RequestDataTest {
         assertNotNull(RequestData.class.getConstructor(String.class, byte[].class));
 
         assertNotNull(RequestData.class.getConstructor(String.class, byte[].class, String.class));
+        assertNotNull(RequestData.class.getConstructor(String.class, File.class, String.class));
+        assertNotNull(RequestData.class.getConstructor(String.class, InputStream.class, long.class, String.class));
+        assertNotNull(RequestData.class.getConstructor(String.class, ByteBuffer.class, String.class));
+        assertNotNull(RequestData.class.getConstructor(String.class, RequestData.StreamProvider.class, long.class, String.class));
+        assertNotNull(RequestData.class.getMethod("fromMappedFile", String.class, File.class, String.class));
     }
 
     @Test
@@ -111,4 +125,117 @@ public class RequestDataTest {
         assertEquals(dummyFilename, requestData.getFileName());
         assertEquals(dummyContentType, requestData.getType());
     }
+
+    @Test
+    public void fileConstruction() throws Exception {
+        byte[] fileContent = createFileContent();
+        File file = createFile(fileContent);
+
+        RequestData requestData = new RequestData(dummyFilename, file, dummyContentType);
+
+        assertEquals(file, requestData.getFile());
+        assertEquals(fileContent.length, requestData.getContentLength());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        requestData.writeContent(outputStream);
+        assertArrayEquals(fileContent, outputStream.toByteArray());
+        assertArrayEquals(fileContent, requestData.getContent());
+    }
+
+    @Test
+    public void streamConstruction() throws Exception {
+        RequestData requestData = new RequestData(dummyFilename, new ByteArrayInputStream(dummyByte), dummyByte.length, dummyContentType);
+
+        assertEquals(dummyByte.length, requestData.getContentLength());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        requestData.writeContent(outputStream);
+        assertArrayEquals(dummyByte, outputStream.toByteArray());
+    }
+
+    @Test
+    public void streamConstructionUnknownLength() throws Exception {
+        RequestData requestData = new RequestData(dummyFilename, new ByteArrayInputStream(dummyByte), -1, dummyContentType);
+
+        assertEquals(-1, requestData.getContentLength());
+
+        requestData.setContent(dummyByte);
+        assertEquals(dummyByte.length, requestData.getContentLength());
+    }
+
+    @Test
+    public void bufferConstruction() throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(dummyByte);
+        RequestData requestData = new RequestData(dummyFilename, buffer, dummyContentType);
+
+        assertEquals(dummyByte.length, requestData.getContentLength());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        requestData.writeContent(outputStream);
+        assertArrayEquals(dummyByte, outputStream.toByteArray());
+        assertEquals("The buffer position should not change", 0, buffer.position());
+    }
+
+    @Test
+    public void mappedFileConstruction() throws Exception {
+        byte[] fileContent = createFileContent();
+        RequestData requestData = RequestData.fromMappedFile(dummyFilename, createFile(fileContent), dummyContentType);
+
+        assertEquals(fileContent.length, requestData.getContentLength());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        requestData.writeContent(outputStream);
+        assertArrayEquals(fileContent, outputStream.toByteArray());
+    }
+
+    @Test
+    public void streamProviderConstruction() throws Exception {
+        final int[] openCount = {0};
+        RequestData requestData = new RequestData(dummyFilename, new RequestData.StreamProvider() {
+            @Override
+            public InputStream openStream() throws IOException {
+                openCount[0]++;
+                return new ByteArrayInputStream(dummyByte);
+            }
+        }, dummyByte.length, dummyContentType);
+
+        assertEquals(dummyByte.length, requestData.getContentLength());
+        assertEquals("The stream should be opened lazily", 0, openCount[0]);
+
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            requestData.writeContent(outputStream);
+            assertArrayEquals(dummyByte, outputStream.toByteArray());
+        }
+        assertEquals(2, openCount[0]);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void unreadableContentIsNotEmpty() throws Exception {
+        RequestData requestData = new RequestData(dummyFilename, new RequestData.StreamProvider() {
+            @Override
+            public InputStream openStream() throws IOException {
+                throw new IOException("Storage unavailable");
+            }
+        }, dummyByte.length, dummyContentType);
+
+        requestData.getContent();
+    }
+
+    private byte[] createFileContent() {
+        byte[] fileContent = new byte[20000];
+        for (int i = 0; i < fileContent.length; i++) {
+            fileContent[i] = (byte) i;
+        }
+        return fileContent;
+    }
+
+    private File createFile(byte[] fileContent) throws IOException {
+        File file = File.createTempFile("spitfire", ".jpg");
+        file.deleteOnExit();
+        FileOutputStream fileOutputStream = new FileOutputStream(file);
+        fileOutputStream.write(fileContent);
+        fileOutputStream.close();
+        return file;
+    }
 }
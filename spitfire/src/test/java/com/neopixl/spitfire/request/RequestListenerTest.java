@@ -19,7 +19,9 @@ package com.neopixl.spitfire.request;
 import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.VolleyError;
+import com.neopixl.spitfire.listener.FreshnessRequestListener;
 import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.model.Freshness;
 
 import org.junit.Test;
 
@@ -32,5 +34,6 @@ public class RequestListenerTest {
         // Catch-all test to find API-breaking changes.
         assertNotNull(RequestListener.class.getMethod("onSuccess", Request.class, NetworkResponse.class, Object.class));
         assertNotNull(RequestListener.class.getMethod("onFailure", Request.class, NetworkResponse.class, VolleyError.class));
+        assertNotNull(FreshnessRequestListener.class.getMethod("onSuccess", Request.class, NetworkResponse.class, Object.class, Freshness.class));
     }
 }
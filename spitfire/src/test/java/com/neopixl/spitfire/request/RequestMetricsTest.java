@@ -0,0 +1,153 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.Cache;
+import com.android.volley.Header;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.ServerError;
+import com.neopixl.spitfire.SpitfireManager;
+import com.neopixl.spitfire.listener.RequestMetricsListener;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.model.RequestMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class RequestMetricsTest {
+
+    private String url = "http://neopixl.com/items/1";
+    private List<RequestMetrics> reportedMetrics;
+
+    @Before
+    public void setUp() throws Exception {
+        reportedMetrics = new ArrayList<>();
+        SpitfireManager.setRequestMetricsListener(new RequestMetricsListener() {
+            @Override
+            public void onRequestMetrics(Request<?> request, RequestMetrics metrics) {
+                reportedMetrics.add(metrics);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        SpitfireManager.setRequestMetricsListener(null);
+    }
+
+    @Test
+    public void networkResponseIsTimed() throws Exception {
+        DummyResponse body = new DummyResponse();
+        body.setId(3);
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.POST, url, DummyResponse.class)
+                .json(body)
+                .build();
+
+        request.addMarker("add-to-queue");
+        request.addMarker("network-queue-take");
+        request.getBody();
+        NetworkResponse networkResponse = new NetworkResponse(200, "{\"id\":1}".getBytes("UTF-8"), false, 25, Collections.<Header>emptyList());
+        Response<DummyResponse> response = request.parseNetworkResponse(networkResponse);
+        request.deliverResponse(response.result);
+
+        assertEquals(1, reportedMetrics.size());
+        RequestMetrics metrics = reportedMetrics.get(0);
+        assertTrue(metrics.isSuccess());
+        assertFalse(metrics.isCacheHit());
+        assertEquals(200, metrics.getStatusCode());
+        assertEquals(25000000L, metrics.getNetworkNanos());
+        assertTrue(metrics.getQueueWaitNanos() >= 0);
+        assertEquals(RequestMetrics.NOT_MEASURED, metrics.getCacheLookupNanos());
+        assertTrue(metrics.getSerializationNanos() >= 0);
+        assertTrue(metrics.getParseNanos() >= 0);
+        assertTrue(metrics.getDeliveryNanos() >= 0);
+        assertTrue(metrics.getTotalNanos() >= metrics.getQueueWaitNanos());
+        assertEquals(request.getBody().length, metrics.getRequestBytes());
+        assertEquals(8, metrics.getResponseBytes());
+    }
+
+    @Test
+    public void cachedResponseHasNoNetworkTime() throws Exception {
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .build();
+        Cache.Entry entry = new Cache.Entry();
+        entry.data = "{\"id\":1}".getBytes("UTF-8");
+        entry.ttl = Long.MAX_VALUE;
+        entry.softTtl = Long.MAX_VALUE;
+        entry.responseHeaders = Collections.emptyMap();
+
+        request.addMarker("add-to-queue");
+        request.addMarker("cache-queue-take");
+        request.addMarker("cache-hit");
+        request.setCacheEntry(entry);
+        Response<DummyResponse> response = request.parseNetworkResponse(new NetworkResponse(entry.data, entry.responseHeaders));
+        request.deliverResponse(response.result);
+
+        RequestMetrics metrics = reportedMetrics.get(0);
+        assertTrue(metrics.isCacheHit());
+        assertTrue(metrics.getCacheLookupNanos() >= 0);
+        assertEquals(RequestMetrics.NOT_MEASURED, metrics.getNetworkNanos());
+        assertEquals(RequestMetrics.NOT_MEASURED, metrics.getSerializationNanos());
+    }
+
+    @Test
+    public void errorIsTimed() throws Exception {
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .build();
+
+        request.deliverError(new ServerError(new NetworkResponse(500, new byte[0], false, 12, Collections.<Header>emptyList())));
+
+        RequestMetrics metrics = reportedMetrics.get(0);
+        assertFalse(metrics.isSuccess());
+        assertEquals(500, metrics.getStatusCode());
+        assertEquals(12000000L, metrics.getNetworkNanos());
+        assertEquals(RequestMetrics.NOT_MEASURED, metrics.getQueueWaitNanos());
+    }
+
+    @Test
+    public void hedgingIsReported() throws Exception {
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .build();
+
+        // markers added by the HedgingRequestQueue
+        request.addMarker("hedge-sent");
+        request.addMarker("hedge-won");
+        request.deliverError(new ServerError());
+
+        RequestMetrics metrics = reportedMetrics.get(0);
+        assertTrue(metrics.isHedged());
+        assertTrue(metrics.isHedgeWon());
+    }
+
+    @Test
+    public void requestsAreNotTimedWithoutListener() throws Exception {
+        SpitfireManager.setRequestMetricsListener(null);
+        BaseRequest<DummyResponse> request = new BaseRequest.Builder<>(Request.Method.GET, url, DummyResponse.class)
+                .build();
+        SpitfireManager.setRequestMetricsListener(new RequestMetricsListener() {
+            @Override
+            public void onRequestMetrics(Request<?> request, RequestMetrics metrics) {
+                reportedMetrics.add(metrics);
+            }
+        });
+
+        Response<DummyResponse> response = request.parseNetworkResponse(new NetworkResponse("{\"id\":1}".getBytes("UTF-8")));
+        request.deliverResponse(response.result);
+
+        assertTrue(reportedMetrics.isEmpty());
+    }
+}
@@ -0,0 +1,128 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.Header;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.TimeoutError;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.mock.FakeResumableServer;
+import com.neopixl.spitfire.model.RequestData;
+import com.neopixl.spitfire.network.SpitfireNetwork;
+import com.neopixl.spitfire.upload.ContentRangeChunkProtocol;
+import com.neopixl.spitfire.upload.MemoryOffsetStore;
+import com.neopixl.spitfire.upload.ResumableUpload;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class ResumableUploadTest {
+
+    private static final String UPLOAD_ID = "upload-1";
+
+    private String url = "http://neopixl.com/upload";
+    private byte[] content = new byte[10000];
+    private FakeResumableServer server;
+    private SpitfireNetwork network;
+    private MemoryOffsetStore offsetStore;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 127);
+        }
+        server = new FakeResumableServer();
+        server.setFinalContent("{\"name\":\"uploaded\"}".getBytes("UTF-8"));
+        network = new SpitfireNetwork(server);
+        offsetStore = new MemoryOffsetStore();
+    }
+
+    @Test
+    public void uploadIsSentByChunks() throws Exception {
+        UploadFileRequest<DummyResponse> request = buildRequest(0);
+
+        NetworkResponse response = network.performRequest(request);
+
+        assertEquals(200, response.statusCode);
+        assertArrayEquals(content, server.getReceivedContent());
+        assertEquals(4, server.getContentRanges().size());
+        assertEquals("bytes 0-2999/10000", server.getContentRanges().get(0));
+        assertEquals("bytes 9000-9999/10000", server.getContentRanges().get(3));
+        assertEquals("The offset should be removed once the upload is complete", 0, offsetStore.getOffset(UPLOAD_ID));
+    }
+
+    @Test
+    public void failedChunkIsRetried() throws Exception {
+        server.failChunk(1);
+        UploadFileRequest<DummyResponse> request = buildRequest(1);
+
+        network.performRequest(request);
+
+        assertArrayEquals(content, server.getReceivedContent());
+        assertEquals(5, server.getContentRanges().size());
+        assertEquals("bytes 3000-5999/10000", server.getContentRanges().get(1));
+        assertEquals("bytes 3000-5999/10000", server.getContentRanges().get(2));
+    }
+
+    @Test
+    public void failedUploadIsResumed() throws Exception {
+        server.failChunk(2);
+        try {
+            network.performRequest(buildRequest(0));
+            fail("The upload should fail");
+        } catch (TimeoutError expected) {
+            // expected
+        }
+        assertEquals("The acknowledged offset should be saved", 6000, offsetStore.getOffset(UPLOAD_ID));
+
+        network.performRequest(buildRequest(0));
+
+        assertArrayEquals(content, server.getReceivedContent());
+        assertEquals("bytes 6000-8999/10000", server.getContentRanges().get(3));
+        assertEquals(5, server.getContentRanges().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void singleStreamIsNotResumable() throws Exception {
+        UploadFileRequest.Builder<DummyResponse> builder = new UploadFileRequest.Builder<>(Request.Method.PUT, url, DummyResponse.class);
+        builder.partData(new RequestData("video.mp4", new ByteArrayInputStream(content), content.length, "video/mp4"));
+        builder.resumable(new ResumableUpload.Builder(UPLOAD_ID, offsetStore).build());
+        builder.build();
+    }
+
+    @Test
+    public void contentRangeProtocol() throws Exception {
+        ContentRangeChunkProtocol protocol = new ContentRangeChunkProtocol();
+
+        Map<String, String> headers = protocol.getChunkHeaders(100, 50, 1000);
+        assertEquals("bytes 100-149/1000", headers.get("Content-Range"));
+        assertEquals("bytes */1000", protocol.getChunkHeaders(1000, 0, 1000).get("Content-Range"));
+        assertEquals(-1, protocol.getCommittedOffset(500, Collections.<Header>emptyList(), 100, 50, 1000));
+        assertEquals(150, protocol.getCommittedOffset(200, Collections.<Header>emptyList(), 100, 50, 1000));
+        assertEquals(0, protocol.getCommittedOffset(308, Collections.<Header>emptyList(), 100, 50, 1000));
+    }
+
+    private UploadFileRequest<DummyResponse> buildRequest(int maxRetries) {
+        UploadFileRequest.Builder<DummyResponse> builder = new UploadFileRequest.Builder<>(Request.Method.PUT, url, DummyResponse.class);
+        builder.partData(new RequestData("video.mp4", content, "video/mp4"));
+        builder.resumable(new ResumableUpload.Builder(UPLOAD_ID, offsetStore)
+                .chunkSize(3000)
+                .build());
+        UploadFileRequest<DummyResponse> request = builder.build();
+        request.setRetryPolicy(new DefaultRetryPolicy(1000, maxRetries, 1));
+        return request;
+    }
+}
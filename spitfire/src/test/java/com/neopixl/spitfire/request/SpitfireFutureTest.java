@@ -0,0 +1,147 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.ServerError;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.mock.RecordingRequestQueue;
+import com.neopixl.spitfire.model.SpitfireResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class SpitfireFutureTest {
+
+    private String url = "http://neopixl.com/items/";
+    private RecordingRequestQueue requestQueue;
+    private Executor directExecutor;
+
+    @Before
+    public void setUp() throws Exception {
+        requestQueue = new RecordingRequestQueue();
+        directExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+    }
+
+    @Test
+    public void futureIsCompletedByTheResponse() throws Exception {
+        SpitfireFuture<DummyResponse> future = newBuilder(1).buildAsync(requestQueue);
+
+        assertEquals(1, requestQueue.getAddedRequests().size());
+        assertSame(future.getRequest(), requestQueue.getAddedRequests().get(0));
+        assertFalse(future.isDone());
+
+        deliver(future, "{\"id\":1}");
+
+        SpitfireResponse<DummyResponse> response = future.get(1, TimeUnit.SECONDS);
+        assertTrue(future.isDone());
+        assertEquals(1, response.getResult().getId());
+        assertEquals(200, response.getNetworkResponse().statusCode);
+    }
+
+    @Test
+    public void failureIsAnExecutionException() throws Exception {
+        SpitfireFuture<DummyResponse> future = newBuilder(1).buildAsync(requestQueue);
+        ServerError error = new ServerError();
+
+        ((BaseRequest<?>) future.getRequest()).deliverError(error);
+
+        try {
+            future.get();
+            fail("The failure should be thrown");
+        } catch (ExecutionException e) {
+            assertSame(error, e.getCause());
+        }
+    }
+
+    @Test
+    public void cancelIsPropagated() throws Exception {
+        SpitfireFuture<DummyResponse> future = newBuilder(1).buildAsync(requestQueue);
+        assertTrue(future.cancel(false));
+        assertTrue(future.getRequest().isCanceled());
+
+        SpitfireFuture<DummyResponse> otherFuture = newBuilder(2).buildAsync(requestQueue);
+        otherFuture.getRequest().cancel();
+        assertTrue(otherFuture.isCancelled());
+        try {
+            otherFuture.get();
+            fail("The future should be cancelled");
+        } catch (CancellationException ignored) {
+            // expected
+        }
+    }
+
+    @Test
+    public void awaitAllCancelsOnTimeout() throws Exception {
+        SpitfireFuture<DummyResponse> first = newBuilder(1).buildAsync(requestQueue);
+        SpitfireFuture<DummyResponse> second = newBuilder(2).buildAsync(requestQueue);
+        deliver(first, "{\"id\":1}");
+
+        try {
+            SpitfireFuture.awaitAll(Arrays.asList(first, second), 10, TimeUnit.MILLISECONDS);
+            fail("The second future should time out");
+        } catch (TimeoutException ignored) {
+            // expected
+        }
+        assertFalse(first.isCancelled());
+        assertTrue(second.isCancelled());
+        assertTrue(second.getRequest().isCanceled());
+    }
+
+    @Test
+    public void awaitAllKeepsTheOrder() throws Exception {
+        SpitfireFuture<DummyResponse> first = newBuilder(1).buildAsync(requestQueue);
+        SpitfireFuture<DummyResponse> second = newBuilder(2).buildAsync(requestQueue);
+        final int[] callbacks = new int[1];
+        first.addCallback(new Runnable() {
+            @Override
+            public void run() {
+                callbacks[0]++;
+            }
+        }, directExecutor);
+        deliver(second, "{\"id\":2}");
+        deliver(first, "{\"id\":1}");
+
+        List<SpitfireResponse<DummyResponse>> responses = SpitfireFuture.awaitAll(Arrays.asList(first, second), 1, TimeUnit.SECONDS);
+
+        assertEquals(1, responses.get(0).getResult().getId());
+        assertEquals(2, responses.get(1).getResult().getId());
+        assertEquals(1, callbacks[0]);
+    }
+
+    private BaseRequest.Builder<DummyResponse> newBuilder(int id) {
+        return new BaseRequest.Builder<>(Request.Method.GET, url + id, DummyResponse.class)
+                .deliveryExecutor(directExecutor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(SpitfireFuture<DummyResponse> future, String content) throws Exception {
+        BaseRequest<DummyResponse> request = (BaseRequest<DummyResponse>) future.getRequest();
+        Response<DummyResponse> response = request.parseNetworkResponse(new NetworkResponse(content.getBytes("UTF-8")));
+        request.deliverResponse(response.result);
+    }
+}
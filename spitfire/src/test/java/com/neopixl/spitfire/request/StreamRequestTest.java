@@ -0,0 +1,119 @@
+package com.neopixl.spitfire.request;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.ServerError;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.neopixl.spitfire.listener.RequestListener;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.mock.FakeHttpStack;
+import com.neopixl.spitfire.network.SpitfireNetwork;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class StreamRequestTest {
+
+    private String url = "http://neopixl.com/";
+    private FakeHttpStack httpStack;
+    private SpitfireNetwork network;
+
+    @Before
+    public void setUp() throws Exception {
+        httpStack = new FakeHttpStack();
+        network = new SpitfireNetwork(httpStack);
+    }
+
+    @Test
+    public void publicMethods() throws Exception {
+        // Catch-all test to find API-breaking changes.
+        assertNotNull(StreamRequest.class.getMethod("parseNetworkStream", int.class, List.class, java.io.InputStream.class));
+
+        // Catch-all test to find API-breaking changes for the builder.
+        assertNotNull(StreamRequest.Builder.class.getMethod("json", Object.class));
+        assertNotNull(StreamRequest.Builder.class.getMethod("parameters", Map.class));
+        assertNotNull(StreamRequest.Builder.class.getMethod("listener", RequestListener.class));
+        assertNotNull(StreamRequest.Builder.class.getMethod("headers", Map.class));
+        assertNotNull(StreamRequest.Builder.class.getMethod("build"));
+
+        assertNotNull(StreamRequest.Builder.class.getConstructor(int.class, String.class, Class.class));
+        assertNotNull(StreamRequest.Builder.class.getConstructor(int.class, String.class, TypeReference.class));
+        assertNotNull(StreamRequest.Builder.class.getConstructor(int.class, String.class, JavaType.class));
+    }
+
+    @Test
+    public void streamedRequestIsNotCached() throws Exception {
+        StreamRequest<DummyResponse> request = new StreamRequest.Builder<>(Request.Method.GET, url, DummyResponse.class).build();
+
+        assertFalse("A streamed response cannot be cached", request.shouldCache());
+    }
+
+    @Test
+    public void streamedResponseParsing() throws Exception {
+        httpStack.setResponse(200, "{\"message\":\"neopixl\",\"id\":42}".getBytes("UTF-8"));
+        StreamRequest<DummyResponse> request = new StreamRequest.Builder<>(Request.Method.GET, url, DummyResponse.class).build();
+
+        NetworkResponse networkResponse = network.performRequest(request);
+        assertEquals("The content should not be buffered", 0, networkResponse.data.length);
+
+        Response<DummyResponse> response = request.parseNetworkResponse(networkResponse);
+        assertTrue(response.isSuccess());
+        assertEquals("neopixl", response.result.getMessage());
+        assertEquals(42, response.result.getId());
+    }
+
+    @Test
+    public void streamedGenericResponseParsing() throws Exception {
+        httpStack.setResponse(200, "[{\"id\":1},{\"id\":2},{\"id\":3}]".getBytes("UTF-8"));
+        StreamRequest<List<DummyResponse>> request = new StreamRequest.Builder<>(Request.Method.GET, url,
+                new TypeReference<List<DummyResponse>>() {}).build();
+
+        Response<List<DummyResponse>> response = request.parseNetworkResponse(network.performRequest(request));
+        assertTrue(response.isSuccess());
+        assertEquals(3, response.result.size());
+        assertEquals(3, response.result.get(2).getId());
+    }
+
+    @Test
+    public void streamedResponseParseError() throws Exception {
+        httpStack.setResponse(200, "{\"message\":".getBytes("UTF-8"));
+        StreamRequest<DummyResponse> request = new StreamRequest.Builder<>(Request.Method.GET, url, DummyResponse.class).build();
+
+        Response<DummyResponse> response = request.parseNetworkResponse(network.performRequest(request));
+        assertFalse(response.isSuccess());
+        assertTrue(response.error instanceof ParseError);
+    }
+
+    @Test(expected = ServerError.class)
+    public void streamedServerError() throws Exception {
+        httpStack.setResponse(500, "{}".getBytes("UTF-8"));
+        StreamRequest<DummyResponse> request = new StreamRequest.Builder<>(Request.Method.GET, url, DummyResponse.class).build();
+
+        network.performRequest(request);
+    }
+
+    @Test
+    public void bufferedResponseParsing() throws Exception {
+        StreamRequest<DummyResponse> request = new StreamRequest.Builder<>(Request.Method.GET, url, DummyResponse.class).build();
+
+        Response<DummyResponse> response = request.parseNetworkResponse(new NetworkResponse("{\"id\":7}".getBytes("UTF-8")));
+        assertTrue("Without a SpitfireNetwork the buffered content should be parsed", response.isSuccess());
+        assertEquals(7, response.result.getId());
+    }
+}
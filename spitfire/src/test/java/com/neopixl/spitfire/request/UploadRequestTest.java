@@ -38,9 +38,13 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -174,4 +178,28 @@ public class UploadRequestTest {
         assertEquals(dummyData.getType(), baseRequest.getBodyContentType());
         assertNotNull(baseRequest.getBody());
     }
+
+    @Test
+    public void requestPostConstruct_streamedFile() throws Exception {
+        byte[] fileContent = new byte[100000];
+        for (int i = 0; i < fileContent.length; i++) {
+            fileContent[i] = (byte) (i % 251);
+        }
+        File file = File.createTempFile("spitfire", ".jpg");
+        file.deleteOnExit();
+        FileOutputStream fileOutputStream = new FileOutputStream(file);
+        fileOutputStream.write(fileContent);
+        fileOutputStream.close();
+
+        UploadFileRequest.Builder<DummyResponse> builder = new UploadFileRequest.Builder<>(Request.Method.POST, url, DummyResponse.class);
+        builder.partData(new RequestData("neopixl.jpg", file, "image/jpeg"));
+        UploadFileRequest<DummyResponse> baseRequest = builder.build();
+
+        assertEquals(fileContent.length, baseRequest.getBodyContentLength());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        baseRequest.writeBody(outputStream);
+        assertArrayEquals(fileContent, outputStream.toByteArray());
+        assertArrayEquals(fileContent, baseRequest.getBody());
+    }
 }
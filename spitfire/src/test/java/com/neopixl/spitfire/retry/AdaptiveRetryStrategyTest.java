@@ -0,0 +1,171 @@
+package com.neopixl.spitfire.retry;
+
+import com.android.volley.Request;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+import com.neopixl.spitfire.mock.DummyResponse;
+import com.neopixl.spitfire.request.BaseRequest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest=Config.NONE)
+public class AdaptiveRetryStrategyTest {
+
+    private String url = "http://neopixl.com/items/";
+
+    @Test
+    public void timeoutFollowsTheLatencyPercentile() throws Exception {
+        AdaptiveRetryStrategy strategy = new AdaptiveRetryStrategy.Builder()
+                .timeoutBounds(100, 10000)
+                .samples(20, 1000)
+                .build();
+        Request<?> request = buildRequest(1);
+        assertEquals("The maximum timeout should be used without latency", 10000, strategy.create(request).getCurrentTimeout());
+
+        for (int i = 0; i < 20; i++) {
+            send(strategy, buildRequest(i)).onResponse(200);
+        }
+
+        assertEquals(300, strategy.create(buildRequest(42)).getCurrentTimeout());
+        Request<?> otherRequest = new BaseRequest.Builder<>(Request.Method.POST, url + "1", DummyResponse.class).build();
+        assertEquals("Each endpoint should have its own timeout", 10000, strategy.getTimeoutMs(otherRequest));
+    }
+
+    @Test
+    public void timeoutsRaiseTheTimeout() throws Exception {
+        AdaptiveRetryStrategy strategy = new AdaptiveRetryStrategy.Builder()
+                .timeoutBounds(100, 10000)
+                .samples(20, 1000)
+                .backoff(0, 0)
+                .maxRetries(0)
+                .build();
+        for (int i = 0; i < 20; i++) {
+            send(strategy, buildRequest(i)).onResponse(200);
+        }
+        assertEquals(300, strategy.getTimeoutMs(buildRequest(1)));
+
+        for (int i = 0; i < 12; i++) {
+            try {
+                strategy.create(buildRequest(i)).retry(new TimeoutError());
+                fail("No retry should be allowed");
+            } catch (TimeoutError expected) {
+                // the timeout is recorded as a latency
+            }
+        }
+
+        assertEquals(450, strategy.getTimeoutMs(buildRequest(1)));
+    }
+
+    @Test
+    public void retriesDoubleTheTimeoutAndAreLimited() throws Exception {
+        AdaptiveRetryStrategy strategy = new AdaptiveRetryStrategy.Builder()
+                .timeoutBounds(100, 10000)
+                .backoff(0, 0)
+                .maxRetries(2)
+                .build();
+        AdaptiveRetryPolicy policy = (AdaptiveRetryPolicy) strategy.create(buildRequest(1));
+        int timeout = policy.getCurrentTimeout();
+
+        policy.retry(new VolleyError());
+        assertEquals(1, policy.getCurrentRetryCount());
+        assertEquals(Math.min(10000, 2 * timeout), policy.getCurrentTimeout());
+        policy.retry(new VolleyError());
+        try {
+            policy.retry(new VolleyError());
+            fail("The third retry should not be allowed");
+        } catch (VolleyError expected) {
+            assertEquals(2, policy.getCurrentRetryCount());
+        }
+    }
+
+    @Test
+    public void retryBudgetLimitsTheRetries() throws Exception {
+        RetryBudget budget = new RetryBudget(0.1, 2);
+        AdaptiveRetryStrategy strategy = new AdaptiveRetryStrategy.Builder()
+                .retryBudget(budget)
+                .backoff(0, 0)
+                .build();
+
+        int allowedRetries = 0;
+        for (int i = 0; i < 100; i++) {
+            try {
+                strategy.create(buildRequest(i)).retry(new VolleyError());
+                allowedRetries++;
+            } catch (VolleyError e) {
+                // the budget is exhausted
+            }
+        }
+
+        // the 2 retries of the initial balance, then 1 retry for 10 requests
+        assertTrue("Too many retries: " + allowedRetries, allowedRetries <= 2 + 10);
+        assertTrue("Too few retries: " + allowedRetries, allowedRetries >= 10);
+        assertFalse(budget.getBalance() >= 1);
+    }
+
+    @Test
+    public void backoffIsJitteredAndCapped() throws Exception {
+        AdaptiveRetryStrategy strategy = new AdaptiveRetryStrategy.Builder()
+                .backoff(100, 1000)
+                .random(new Random(42))
+                .build();
+
+        Set<Long> firstBackoffs = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            long firstBackoff = strategy.getBackoffMs(1);
+            assertTrue(firstBackoff >= 0 && firstBackoff <= 100);
+            assertTrue(strategy.getBackoffMs(3) <= 400);
+            assertTrue(strategy.getBackoffMs(10) <= 1000);
+            firstBackoffs.add(firstBackoff);
+        }
+        assertTrue("The backoff should be random", firstBackoffs.size() > 1);
+    }
+
+    @Test
+    public void onlySentRequestsAreCounted() throws Exception {
+        RetryBudget budget = new RetryBudget(0.5, 10);
+        AdaptiveRetryStrategy strategy = new AdaptiveRetryStrategy.Builder()
+                .retryBudget(budget)
+                .timeoutBounds(100, 10000)
+                .samples(20, 1000)
+                .build();
+        for (int i = 0; i < 40; i++) {
+            budget.tryAcquireRetry();
+        }
+        double emptyBalance = budget.getBalance();
+
+        for (int i = 0; i < 20; i++) {
+            ((AdaptiveRetryPolicy) strategy.create(buildRequest(i))).onResponse(200);
+        }
+        assertEquals("A request which is not sent should not be counted", emptyBalance, budget.getBalance(), 0.001);
+        assertEquals("Its responses should not be recorded", 10000, strategy.getTimeoutMs(buildRequest(1)));
+
+        send(strategy, buildRequest(1));
+        assertEquals(emptyBalance + 0.5, budget.getBalance(), 0.001);
+    }
+
+    /**
+     * Create the policy of a request and read its timeout, like the network sending the request
+     */
+    private AdaptiveRetryPolicy send(AdaptiveRetryStrategy strategy, Request<?> request) {
+        AdaptiveRetryPolicy policy = (AdaptiveRetryPolicy) strategy.create(request);
+        policy.getCurrentTimeout();
+        return policy;
+    }
+
+    private Request<?> buildRequest(int id) {
+        return new BaseRequest.Builder<>(Request.Method.GET, url + id, DummyResponse.class).build();
+    }
+}
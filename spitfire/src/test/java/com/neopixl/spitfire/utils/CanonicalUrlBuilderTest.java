@@ -0,0 +1,67 @@
+package com.neopixl.spitfire.utils;
+
+import org.junit.Test;
+
+import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class CanonicalUrlBuilderTest {
+
+    private String url = "http://neopixl.com/items";
+
+    @Test
+    public void parametersAreSorted() throws Exception {
+        Map<String, String> first = new LinkedHashMap<>();
+        first.put("page", "1");
+        first.put("limit", "50");
+        first.put("b", "2");
+        Map<String, String> second = new LinkedHashMap<>();
+        second.put("limit", "50");
+        second.put("b", "2");
+        second.put("page", "1");
+
+        assertEquals("http://neopixl.com/items?b=2&limit=50&page=1", CanonicalUrlBuilder.build(url, first, "UTF-8"));
+        assertEquals(CanonicalUrlBuilder.build(url, first, "UTF-8"), CanonicalUrlBuilder.build(url, second, "UTF-8"));
+    }
+
+    @Test
+    public void valuesAreNormalized() throws Exception {
+        assertEquals("a%20b%2Bc~d.e_f-g%2A", CanonicalUrlBuilder.encode("a b+c~d.e_f-g*", "UTF-8"));
+        assertEquals("%C3%A9%F0%9F%A4%9E%E2%82%AC", CanonicalUrlBuilder.encode("é🤞€", "UTF-8"));
+        assertEquals("%E9", CanonicalUrlBuilder.encode("é", "ISO-8859-1"));
+    }
+
+    @Test
+    public void encodingMatchesUrlEncoder() throws Exception {
+        String value = "% 🤞 🌎 $ ~ ! @ # $ % ^ & * ( ) _ + \\ é";
+        String expected = URLEncoder.encode(value, "UTF-8")
+                .replace("+", "%20")
+                .replace("*", "%2A")
+                .replace("%7E", "~");
+
+        assertEquals(expected, CanonicalUrlBuilder.encode(value, "UTF-8"));
+    }
+
+    @Test
+    public void existingQueryIsKept() throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("page", "1");
+
+        assertEquals("http://neopixl.com/items?lang=fr&page=1", CanonicalUrlBuilder.build(url + "?lang=fr", parameters, "UTF-8"));
+    }
+
+    @Test
+    public void emptyParametersAreIgnored() throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        assertSame(url, CanonicalUrlBuilder.build(url, parameters, "UTF-8"));
+        assertSame(url, CanonicalUrlBuilder.build(url, null, "UTF-8"));
+
+        parameters.put("page", null);
+        assertSame(url, CanonicalUrlBuilder.build(url, parameters, "UTF-8"));
+    }
+}
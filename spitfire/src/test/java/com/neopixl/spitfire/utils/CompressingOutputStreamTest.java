@@ -0,0 +1,101 @@
+package com.neopixl.spitfire.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressingOutputStreamTest {
+
+    @Test
+    public void smallContentIsNotCompressed() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        byte[] content = "{\"id\":1}".getBytes("UTF-8");
+
+        CompressingOutputStream outputStream = new CompressingOutputStream(target, true, 1024);
+        outputStream.write(content);
+        outputStream.finish();
+
+        assertFalse(outputStream.isCompressed());
+        assertArrayEquals(content, target.toByteArray());
+    }
+
+    @Test
+    public void largeContentIsGzipped() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        byte[] content = newRepetitiveContent(100000);
+
+        CompressingOutputStream outputStream = new CompressingOutputStream(target, true, 1024);
+        // written in small pieces, as done by a JSON generator
+        for (int offset = 0; offset < content.length; offset += 100) {
+            outputStream.write(content, offset, Math.min(100, content.length - offset));
+        }
+        outputStream.close();
+
+        assertTrue(outputStream.isCompressed());
+        assertTrue(target.size() < content.length / 10);
+        assertArrayEquals(content, readFully(new GZIPInputStream(new ByteArrayInputStream(target.toByteArray()))));
+    }
+
+    @Test
+    public void deflateUsesTheZlibFormat() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        byte[] content = newRepetitiveContent(5000);
+
+        CompressingOutputStream outputStream = new CompressingOutputStream(target, false, 0);
+        outputStream.write(content);
+        outputStream.finish();
+
+        assertTrue(outputStream.isCompressed());
+        assertArrayEquals(content, readFully(new InflaterInputStream(new ByteArrayInputStream(target.toByteArray()))));
+    }
+
+    @Test
+    public void contentOfMinimumSizeIsCompressed() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        byte[] content = newRepetitiveContent(64);
+
+        CompressingOutputStream outputStream = new CompressingOutputStream(target, true, 64);
+        for (byte b : content) {
+            outputStream.write(b);
+        }
+        outputStream.finish();
+
+        assertTrue(outputStream.isCompressed());
+        assertArrayEquals(content, readFully(new GZIPInputStream(new ByteArrayInputStream(target.toByteArray()))));
+    }
+
+    @Test(expected = IOException.class)
+    public void finishedStreamCannotBeWritten() throws Exception {
+        CompressingOutputStream outputStream = new CompressingOutputStream(new ByteArrayOutputStream(), true, 0);
+        outputStream.finish();
+        outputStream.write(1);
+    }
+
+    private static byte[] newRepetitiveContent(int length) throws Exception {
+        byte[] pattern = "{\"id\":1,\"name\":\"neopixl\"},".getBytes("UTF-8");
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = pattern[i % pattern.length];
+        }
+        return content;
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, count);
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,28 @@
+package com.neopixl.spitfire.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class EndpointTemplateTest {
+
+    @Test
+    public void identifiersAreCollapsed() throws Exception {
+        assertEquals("neopixl.com/users/{id}/posts/{id}", EndpointTemplate.getTemplate("https://neopixl.com/users/42/posts/7"));
+        assertEquals("neopixl.com/files/{id}", EndpointTemplate.getTemplate("http://neopixl.com/files/123e4567-e89b-12d3-a456-426655440000"));
+        assertEquals("neopixl.com/commits/{id}", EndpointTemplate.getTemplate("http://neopixl.com/commits/9fceb02d0ae598e95dc970b74767f19372d61af8"));
+    }
+
+    @Test
+    public void namesAreKept() throws Exception {
+        assertEquals("neopixl.com/v2/users/me", EndpointTemplate.getTemplate("http://neopixl.com/v2/users/me"));
+        assertEquals("neopixl.com/items/cafe", EndpointTemplate.getTemplate("http://neopixl.com/items/cafe"));
+        assertEquals("8080.neopixl.com/items/", EndpointTemplate.getTemplate("http://8080.neopixl.com/items/"));
+    }
+
+    @Test
+    public void queryAndFragmentAreRemoved() throws Exception {
+        assertEquals("neopixl.com/items", EndpointTemplate.getTemplate("http://neopixl.com/items?page=2/3#top"));
+        assertEquals("/items/{id}", EndpointTemplate.getTemplate("/items/12#details"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.neopixl.spitfire.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    @Test
+    public void smallValuesAreExact() throws Exception {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10, snapshot.getCount());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(10, snapshot.getMax());
+        assertEquals(5.5, snapshot.getMean(), 0.0001);
+        assertEquals(5, snapshot.getValueAtPercentile(50));
+        assertEquals(10, snapshot.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void percentilesHaveBucketPrecision() throws Exception {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertWithinPrecision(50000000, snapshot.getValueAtPercentile(50));
+        assertWithinPrecision(95000000, snapshot.getValueAtPercentile(95));
+        assertWithinPrecision(99000000, snapshot.getValueAtPercentile(99));
+        assertEquals(100000000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void bucketsCoverAllValues() throws Exception {
+        long[] values = {0, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE};
+        int previousIndex = -1;
+        for (long value : values) {
+            int index = Histogram.getBucketIndex(value);
+            assertTrue(index >= previousIndex);
+            assertTrue(Histogram.getHighestValue(index) >= value);
+            if (index > 0) {
+                assertTrue(Histogram.getHighestValue(index - 1) < value);
+            }
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    public void concurrentRecordsAreCounted() throws Exception {
+        final Histogram histogram = new Histogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(40000, snapshot.getCount());
+        assertEquals(0, snapshot.getMin());
+        assertEquals(9999, snapshot.getMax());
+    }
+
+    @Test
+    public void resetRemovesTheValues() throws Exception {
+        Histogram histogram = new Histogram();
+        histogram.record(42);
+        histogram.reset();
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / Histogram.SUB_BUCKET_COUNT);
+    }
+}
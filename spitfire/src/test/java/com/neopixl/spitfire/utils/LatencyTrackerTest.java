@@ -0,0 +1,36 @@
+package com.neopixl.spitfire.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void percentileNeedsEnoughSamples() throws Exception {
+        LatencyTracker tracker = new LatencyTracker(50, 5, 100, 10);
+        for (int i = 0; i < 4; i++) {
+            tracker.record("GET neopixl.com/items", 10);
+        }
+        assertEquals(LatencyTracker.NOT_AVAILABLE, tracker.getPercentile("GET neopixl.com/items"));
+
+        tracker.record("GET neopixl.com/items", 10);
+        assertEquals(10, tracker.getPercentile("GET neopixl.com/items"));
+        assertEquals(LatencyTracker.NOT_AVAILABLE, tracker.getPercentile("GET neopixl.com/users"));
+
+        tracker.reset();
+        assertEquals(LatencyTracker.NOT_AVAILABLE, tracker.getPercentile("GET neopixl.com/items"));
+    }
+
+    @Test
+    public void endpointsAreBounded() throws Exception {
+        LatencyTracker tracker = new LatencyTracker(50, 1, 100, 1);
+        tracker.record("GET neopixl.com/items", 10);
+        tracker.record("GET neopixl.com/users", 200);
+        tracker.record("GET neopixl.com/posts", 200);
+
+        assertEquals(10, tracker.getPercentile("GET neopixl.com/items"));
+        assertEquals("The other endpoints should share a percentile", 200, tracker.getPercentile("GET neopixl.com/users"));
+        assertEquals(200, tracker.getPercentile("GET neopixl.com/comments"));
+    }
+}
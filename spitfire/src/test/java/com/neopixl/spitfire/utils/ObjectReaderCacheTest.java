@@ -0,0 +1,74 @@
+package com.neopixl.spitfire.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.neopixl.spitfire.mock.DummyResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ObjectReaderCacheTest {
+
+    private ObjectMapper objectMapper;
+    private ObjectReaderCache objectReaderCache;
+
+    @Before
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        objectReaderCache = new ObjectReaderCache(objectMapper, 2);
+    }
+
+    @Test
+    public void typeIsResolvedOnce() throws Exception {
+        JavaType first = objectReaderCache.resolveType(DummyResponse.class);
+        JavaType second = objectReaderCache.resolveType(DummyResponse.class);
+
+        assertSame("The resolved type should be cached", first, second);
+        assertEquals(DummyResponse.class, first.getRawClass());
+    }
+
+    @Test
+    public void genericTypeIsResolved() throws Exception {
+        JavaType type = objectReaderCache.resolveType(new TypeReference<List<DummyResponse>>() {}.getType());
+
+        assertEquals(List.class, type.getRawClass());
+        assertEquals(DummyResponse.class, type.getContentType().getRawClass());
+    }
+
+    @Test
+    public void readerIsCreatedOnce() throws Exception {
+        JavaType type = objectReaderCache.resolveType(DummyResponse.class);
+        ObjectReader first = objectReaderCache.getReader(type);
+        ObjectReader second = objectReaderCache.getReader(type);
+
+        assertSame("The reader should be cached", first, second);
+
+        DummyResponse response = first.readValue("{\"message\":\"neopixl\",\"id\":42}".getBytes("UTF-8"));
+        assertEquals("neopixl", response.getMessage());
+        assertEquals(42, response.getId());
+    }
+
+    @Test
+    public void cacheIsBounded() throws Exception {
+        JavaType type = objectReaderCache.resolveType(DummyResponse.class);
+        ObjectReader first = objectReaderCache.getReader(type);
+
+        objectReaderCache.getReader(objectReaderCache.resolveType(String.class));
+        objectReaderCache.getReader(objectReaderCache.resolveType(Integer.class));
+
+        assertNotSame("The cache should have been emptied", first, objectReaderCache.getReader(type));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cacheSizeShouldBePositive() throws Exception {
+        new ObjectReaderCache(objectMapper, 0);
+    }
+}
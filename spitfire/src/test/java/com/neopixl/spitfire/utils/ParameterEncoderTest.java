@@ -0,0 +1,31 @@
+package com.neopixl.spitfire.utils;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParameterEncoderTest {
+
+    @Test
+    public void formIsEncodedInMapOrder() throws Exception {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("name", "café crème");
+        params.put("a&b", "1");
+
+        assertEquals("name=caf%C3%A9+cr%C3%A8me&a%26b=1&", new String(ParameterEncoder.encodeForm(params, "UTF-8"), "UTF-8"));
+    }
+
+    @Test
+    public void queryIsAppended() throws Exception {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("page", "2");
+        params.put("invalid", null);
+        params.put("q", "a b");
+
+        assertEquals("http://neopixl.com/items?page=2&q=a+b", ParameterEncoder.appendQuery("http://neopixl.com/items", params, "UTF-8"));
+        assertEquals("http://neopixl.com/items", ParameterEncoder.appendQuery("http://neopixl.com/items", null, "UTF-8"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.neopixl.spitfire.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressThrottleTest {
+
+    @Test
+    public void firstProgressIsNotified() throws Exception {
+        ProgressThrottle throttle = new ProgressThrottle(100, 1);
+
+        assertTrue(throttle.shouldNotify(10, 1000, 0));
+    }
+
+    @Test
+    public void intervalIsRespected() throws Exception {
+        ProgressThrottle throttle = new ProgressThrottle(100, 0);
+
+        assertTrue(throttle.shouldNotify(10, 1000, 0));
+        assertFalse(throttle.shouldNotify(500, 1000, 50));
+        assertTrue(throttle.shouldNotify(600, 1000, 100));
+    }
+
+    @Test
+    public void stepIsRespected() throws Exception {
+        ProgressThrottle throttle = new ProgressThrottle(0, 10);
+
+        assertTrue(throttle.shouldNotify(10, 1000, 0));
+        assertFalse(throttle.shouldNotify(100, 1000, 10));
+        assertTrue(throttle.shouldNotify(110, 1000, 20));
+    }
+
+    @Test
+    public void completionIsAlwaysNotifiedOnce() throws Exception {
+        ProgressThrottle throttle = new ProgressThrottle(100, 10);
+
+        assertTrue(throttle.shouldNotify(10, 1000, 0));
+        assertTrue(throttle.shouldNotify(1000, 1000, 1));
+        assertFalse(throttle.shouldNotify(1000, 1000, 500));
+        assertFalse(throttle.shouldNotifyCompletion(1000));
+    }
+
+    @Test
+    public void unknownTotalUsesInterval() throws Exception {
+        ProgressThrottle throttle = new ProgressThrottle(100, 10);
+
+        assertTrue(throttle.shouldNotify(10, -1, 0));
+        assertFalse(throttle.shouldNotify(20, -1, 50));
+        assertTrue(throttle.shouldNotify(30, -1, 150));
+        assertTrue(throttle.shouldNotifyCompletion(40));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidStep() throws Exception {
+        new ProgressThrottle(100, 101);
+    }
+}